@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -253,7 +254,7 @@ public class ObjectAnnotationProcessor extends AbstractProcessor {
                                                         TypeName.get(param.asType()),
                                                         param.getSimpleName().toString()
                                                 ).build())
-                                            .collect(Collectors.toSet())
+                                            .collect(Collectors.toList())
                             )
                             .addStatement("super($L)",
                                     x.getParameters().stream()
@@ -577,6 +578,8 @@ public class ObjectAnnotationProcessor extends AbstractProcessor {
         addUndoRecordMap(typeSpecBuilder, originalName, interfacesToAdd, methodSet);
         addUndoMap(typeSpecBuilder, originalName, interfacesToAdd, methodSet);
         addResetSet(typeSpecBuilder, originalName, interfacesToAdd, methodSet);
+        addOverwriteSet(typeSpecBuilder, methodSet);
+        addMethodNames(typeSpecBuilder, methodSet);
 
         typeSpecBuilder
                 .addSuperinterfaces(interfacesToAdd);
@@ -704,6 +707,84 @@ public class ObjectAnnotationProcessor extends AbstractProcessor {
 
     }
 
+    /** Add the overwrite set and the getter for the set.
+     *
+     * @param typeSpecBuilder   The typespec builder to add the overwrite set to
+     * @param methodSet         The set of methods to add for instrumentation.
+     */
+    private void addOverwriteSet(TypeSpec.Builder typeSpecBuilder,
+                                 Set<SmrMethodInfo> methodSet) {
+        // Generate the initializer for the overwrite set.
+        String overwriteString = methodSet.stream()
+                .filter(x -> x.method.getAnnotation(Mutator.class) != null
+                        && x.method.getAnnotation(Mutator.class).overwritesKey()
+                        || x.method.getAnnotation(MutatorAccessor.class) != null
+                        && x.method.getAnnotation(MutatorAccessor.class)
+                                .overwritesKey())
+                .map(x -> "\n.add(\"" + getSmrFunctionName(x.method) + "\")")
+                .distinct()
+                .collect(Collectors.joining());
+
+        FieldSpec overwriteSet = FieldSpec.builder(ParameterizedTypeName
+                        .get(ClassName.get(Set.class), ClassName.get(String.class)),
+                "overwriteSet" + CORFUSMR_FIELD, Modifier.FINAL, Modifier.PUBLIC)
+                .initializer("new $T()$L.build()",
+                        ParameterizedTypeName.get(
+                                ClassName.get(ImmutableSet.Builder.class),
+                                ClassName.get(String.class)), overwriteString)
+                .build();
+
+        typeSpecBuilder.addField(overwriteSet);
+        typeSpecBuilder.addMethod(MethodSpec.methodBuilder("getCorfuOverwriteSet")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ParameterizedTypeName.get(ClassName.get(Set.class),
+                        ClassName.get(String.class)))
+                .addStatement("return $L", "overwriteSet" + CORFUSMR_FIELD)
+                .build());
+    }
+
+    /** Add the names of the SMR methods, which the log refers to by their
+     * ID, and the getter for the names.
+     *
+     * @param typeSpecBuilder   The typespec builder to add the names to
+     * @param methodSet         The set of methods to add for instrumentation.
+     */
+    private void addMethodNames(TypeSpec.Builder typeSpecBuilder,
+                                Set<SmrMethodInfo> methodSet) {
+        Map<Integer, String> methodIds = new TreeMap<>();
+        methodSet.stream()
+                .filter(x -> x.method.getAnnotation(Mutator.class) != null
+                        || x.method.getAnnotation(MutatorAccessor.class) != null)
+                .map(x -> getSmrFunctionName(x.method))
+                .distinct()
+                .sorted()
+                .forEach(name -> {
+                    String other = methodIds.putIfAbsent(
+                            ICorfuSMR.getSMRMethodId(name), name);
+                    if (other != null) {
+                        messager.printMessage(Diagnostic.Kind.ERROR,
+                                "SMR methods " + other + " and " + name
+                                        + " have the same method ID, rename one");
+                    }
+                });
+
+        String namesString = methodIds.values().stream()
+                .map(name -> "\n$S")
+                .collect(Collectors.joining(","));
+
+        FieldSpec methodNames = FieldSpec.builder(String[].class,
+                "methodNames" + CORFUSMR_FIELD, Modifier.FINAL, Modifier.PUBLIC)
+                .initializer("{" + namesString + "}", methodIds.values().toArray())
+                .build();
+
+        typeSpecBuilder.addField(methodNames);
+        typeSpecBuilder.addMethod(MethodSpec.methodBuilder("getCorfuSMRMethodNames")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(String[].class)
+                .addStatement("return $L.clone()", "methodNames" + CORFUSMR_FIELD)
+                .build());
+    }
+
     private void addUpcallMap(TypeSpec.Builder typeSpecBuilder, TypeName originalName,
                               Set<TypeName> interfacesToAdd, Set<SmrMethodInfo> methodSet) {
 
@@ -43,6 +43,14 @@ public @interface MutatorAccessor {
      */
     boolean reset() default false;
 
+    /** Whether this mutator overwrites the state of the key given as its
+     * first argument, whatever that state was. Typically used for methods
+     * like put() and remove(). A transaction which compacts its write set
+     * only keeps the last of the updates which overwrite a key.
+     * @return True, if the mutator overwrites the key it is given.
+     */
+    boolean overwritesKey() default false;
+
     /** Whether or not we should generate an upcall for this mutator. If set to
      * true, no upcall will be generated - this is typically used when
      * providing a mutator-only version of a mutatorAccessor
@@ -3,6 +3,7 @@ package org.corfudb.runtime.object;
 import org.corfudb.annotations.DontInstrument;
 import org.corfudb.annotations.PassThrough;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -17,6 +18,9 @@ public interface ICorfuSMR<T>
     /** The suffix for all precompiled SMR wrapper classes. */
     String CORFUSMR_SUFFIX = "$CORFUSMR";
 
+    /** The largest SMR method ID, so that an ID fits in a short. */
+    int MAX_SMR_METHOD_ID = Short.MAX_VALUE;
+
     /** Get the proxy for this wrapper, to manage the state of the object.
      * @return The proxy for this wrapper. */
     default ICorfuSMRProxy<T> getCorfuSMRProxy() {
@@ -55,6 +59,32 @@ public interface ICorfuSMR<T>
         throw new IllegalStateException("ObjectAnnotationProcessor Issue.");
     }
 
+    /** Get a set of strings (function names) which overwrite the state of
+     * the key given as their first argument.
+     * @return  The set of strings that overwrite a key of the object.
+     */
+    default Set<String> getCorfuOverwriteSet() {
+        return Collections.emptySet();
+    }
+
+    /** Get the names of the SMR methods of this object, which the log can
+     * refer to by their ID, see {@link #getSMRMethodId(String)}.
+     * @return The names of the SMR methods, or an empty array if this
+     *         object only refers to them by name. */
+    default String[] getCorfuSMRMethodNames() {
+        return new String[0];
+    }
+
+    /** Get the compact ID of an SMR method. IDs are derived from names, so
+     * that they don't change when methods are added to an object, and the
+     * annotation processor checks that they are unique for each object.
+     * @param smrMethod The name of the SMR method.
+     * @return The ID of the method, between 0 and {@link #MAX_SMR_METHOD_ID}.
+     */
+    static int getSMRMethodId(String smrMethod) {
+        return smrMethod.hashCode() & MAX_SMR_METHOD_ID;
+    }
+
     /** Return the stream ID that this object belongs to.
      * @return The stream ID this object belongs to. */
     default UUID getCorfuStreamID() {
@@ -69,6 +99,16 @@ public interface ICorfuSMR<T>
     default void close() {
     }
 
+    /** Get an immutable snapshot of the current state of the object, which
+     * the VersionLockedObject can keep to serve reads at this version without
+     * rolling the object back.
+     * @return A snapshot of the object, or null if the object doesn't support
+     *         snapshots. */
+    @DontInstrument
+    default T getSnapshot() {
+        return null;
+    }
+
     /**
      * Same as {@link ICorfuSMR#close()}. However this method calls close
      * on the actual (wrapper) object, and not the underlying one.
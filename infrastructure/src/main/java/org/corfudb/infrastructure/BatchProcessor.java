@@ -1,8 +1,14 @@
 package org.corfudb.infrastructure;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -10,9 +16,13 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.common.metrics.micrometer.MeterRegistryProvider;
 import org.corfudb.infrastructure.BatchWriterOperation.Type;
+import org.corfudb.infrastructure.LogUnitServer.LogUnitServerConfig;
 import org.corfudb.infrastructure.log.StreamLog;
+import org.corfudb.infrastructure.log.StreamLogFiles;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.PriorityLevel;
@@ -22,6 +32,7 @@ import org.corfudb.protocols.wireprotocol.TailsRequest;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.protocols.wireprotocol.TrimRequest;
 import org.corfudb.protocols.wireprotocol.WriteRequest;
+import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.QuotaExceededException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
@@ -29,18 +40,74 @@ import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterrupte
 /**
  * This class manages access for operations that need ordering while executing against
  * the backing storage.
+ *
+ * <p>Operations are processed in batches (group commit): the size of a batch adapts to a
+ * latency target and is capped by the number of bytes written, adjacent single address
+ * writes of a batch are coalesced into a single batch append, and the backing storage is
+ * synced according to the configured {@link SyncPolicy}. The operations of a batch are only
+ * completed once the writes that precede them are synced.
  */
 @Slf4j
 public class BatchProcessor implements AutoCloseable {
 
-    final private int BATCH_SIZE = 50;
+    /**
+     * Policies that define when the writes are synced to secondary storage.
+     */
+    public enum SyncPolicy {
+        // Sync after every batch
+        BATCH,
+        // Sync when the sync interval has elapsed since the last sync
+        INTERVAL,
+        // Sync when the number of unsynced bytes exceeds the sync threshold, or at the
+        // latest when the sync interval has elapsed since the last sync
+        BYTES
+    }
+
+    static final int INITIAL_BATCH_SIZE = 50;
+
+    static final int MIN_BATCH_SIZE = 1;
+
+    static final int MAX_BATCH_SIZE = 1000;
 
     final private boolean sync;
 
+    @Getter
+    final private SyncPolicy syncPolicy;
+
+    final private long syncIntervalNanos;
+
+    final private long syncBytes;
+
+    final private long maxBatchBytes;
+
+    final private long latencyTargetNanos;
+
     final private StreamLog streamLog;
 
     final private BlockingQueue<BatchWriterOperation> operationsQueue;
 
+    /**
+     * Max number of operations in a batch, adapted to the latency target.
+     */
+    @Getter
+    private volatile int batchSize = INITIAL_BATCH_SIZE;
+
+    /**
+     * Operations that have been processed, but not completed because their writes
+     * haven't been synced yet.
+     */
+    private final List<BatchWriterOperation> res = new LinkedList<>();
+
+    private long unsyncedBytes = 0;
+
+    private long lastSyncTime = System.nanoTime();
+
+    private final Optional<Timer> batchLatencyTimer;
+
+    private final Optional<Timer> syncLatencyTimer;
+
+    private final Optional<DistributionSummary> batchSizeSummary;
+
     private ExecutorService processorService = Executors
             .newSingleThreadExecutor(new ThreadFactoryBuilder()
                     .setDaemon(false)
@@ -56,18 +123,46 @@ public class BatchProcessor implements AutoCloseable {
     private long sealEpoch;
 
     /**
-     * Returns a new BatchProcessor for a stream log.
+     * Returns a new BatchProcessor for a stream log that syncs every batch.
      *
-     * @param streamLog      stream log for writes (can be in memory or file)
-     * @param sealEpoch All operations stamped with epoch less than the epochWaterMark are
-     *                       discarded.
      * @param streamLog the backing log (can be in memory or file)
-     * @param sync    If true, the batch writer will sync writes to secondary storage
+     * @param sealEpoch All operations stamped with epoch less than the epochWaterMark are
+     *                  discarded.
+     * @param sync      If true, the batch writer will sync writes to secondary storage
      */
     public BatchProcessor(StreamLog streamLog, long sealEpoch, boolean sync) {
+        this(streamLog, sealEpoch, LogUnitServerConfig.builder().noSync(!sync).build());
+    }
+
+    /**
+     * Returns a new BatchProcessor for a stream log.
+     *
+     * @param streamLog the backing log (can be in memory or file)
+     * @param sealEpoch All operations stamped with epoch less than the epochWaterMark are
+     *                  discarded.
+     * @param config    log unit configuration, that contains the sync policy and batching
+     *                  parameters of the batch writer
+     */
+    public BatchProcessor(StreamLog streamLog, long sealEpoch, LogUnitServerConfig config) {
         this.sealEpoch = sealEpoch;
-        this.sync = sync;
+        this.sync = !config.isNoSync();
+        this.syncPolicy = config.getSyncPolicy();
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getSyncIntervalMs());
+        this.syncBytes = config.getSyncBytes();
+        this.maxBatchBytes = config.getMaxBatchBytes();
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(config.getBatchLatencyTargetMs());
         this.streamLog = streamLog;
+
+        Tag policyTag = Tag.of("policy", syncPolicy.name().toLowerCase());
+        batchLatencyTimer = MeterRegistryProvider.getInstance().map(registry ->
+                registry.timer("logunit.batch.latency", ImmutableList.of(policyTag)));
+        syncLatencyTimer = MeterRegistryProvider.getInstance().map(registry ->
+                registry.timer("logunit.batch.sync.latency", ImmutableList.of(policyTag)));
+        batchSizeSummary = MeterRegistryProvider.getInstance().map(registry ->
+                DistributionSummary.builder("logunit.batch.size")
+                        .tags(ImmutableList.of(policyTag))
+                        .register(registry));
+
         operationsQueue = new LinkedBlockingQueue<>();
         processorService.submit(this::processor);
     }
@@ -90,122 +185,335 @@ public class BatchProcessor implements AutoCloseable {
             log.warn("batchWriteProcessor: writes configured to not sync with secondary storage");
         }
 
-        try {
-            BatchWriterOperation lastOp = null;
-            int processed = 0;
-            List<BatchWriterOperation> res = new LinkedList<>();
+        log.info("batchWriteProcessor: sync policy {}, interval {}ms, bytes {}, max batch bytes {}, "
+                        + "latency target {}ms", syncPolicy, TimeUnit.NANOSECONDS.toMillis(syncIntervalNanos),
+                syncBytes, maxBatchBytes, TimeUnit.NANOSECONDS.toMillis(latencyTargetNanos));
 
+        try {
             while (true) {
-                BatchWriterOperation currOp;
-
-                if (lastOp == null) {
-                    currOp = operationsQueue.take();
-                } else {
-                    currOp = operationsQueue.poll();
-
-                    if (currOp == null || processed == BATCH_SIZE
-                            || currOp == BatchWriterOperation.SHUTDOWN) {
-                        streamLog.sync(sync);
-                        log.trace("Completed {} operations", processed);
-
-                        for (BatchWriterOperation operation : res) {
-                            if (!operation.getFutureResult().isCompletedExceptionally()
-                            && !operation.getFutureResult().isCancelled()) {
-                                // At this point we need to complete the requests
-                                // that completed successfully (i.e. haven't failed)
-                                operation.getFutureResult().complete(operation.getResultValue());
-                            }
-                        }
-                        res.clear();
-                        processed = 0;
-                    }
+                List<BatchWriterOperation> batch = nextBatch();
+
+                if (batch.isEmpty()) {
+                    // No new operations before the sync deadline of the pending operations
+                    syncAndComplete(true);
+                    continue;
                 }
 
-                if (currOp == null) {
-                    lastOp = null;
-                } else if (currOp == BatchWriterOperation.SHUTDOWN) {
+                long startTime = System.nanoTime();
+                boolean shutdown = process(batch);
+
+                if (shutdown) {
                     log.warn("Shutting down the write processor");
-                    streamLog.sync(true);
+                    syncAndComplete(true);
                     break;
-                } else if (streamLog.quotaExceeded() && currOp.getMsg().getPriorityLevel() != PriorityLevel.HIGH) {
-                    currOp.getFutureResult().completeExceptionally(
-                            new QuotaExceededException("Quota of "
-                                    + streamLog.quotaLimitInBytes() + " bytes"));
-                    log.warn("batchprocessor: quota exceeded, dropping msg {}", currOp.getMsg());
-                } else if (currOp.getType() == Type.SEAL && currOp.getMsg().getEpoch() >= sealEpoch) {
-                    log.info("batchWriteProcessor: updating from {} to {}", sealEpoch, currOp.getMsg().getEpoch());
-                    sealEpoch = currOp.getMsg().getEpoch();
-                    res.add(currOp);
-                    processed++;
-                    lastOp = currOp;
-                } else if (currOp.getMsg().getEpoch() != sealEpoch) {
-                    log.warn("batchWriteProcessor: wrong epoch on {} msg, seal epoch is {}, and msg epoch is {}",
-                            currOp.getType(), sealEpoch, currOp.getMsg().getEpoch());
-                    currOp.getFutureResult().completeExceptionally(new WrongEpochException(sealEpoch));
-                    res.add(currOp);
-                    processed++;
-                    lastOp = currOp;
-                } else {
-                    try {
-                        switch (currOp.getType()) {
-                            case PREFIX_TRIM:
-                                TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
-                                streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
-                                break;
-                            case WRITE:
-                                WriteRequest write = (WriteRequest) currOp.getMsg().getPayload();
-                                streamLog.append(write.getGlobalAddress(), (LogData) write.getData());
-                                break;
-                            case RANGE_WRITE:
-                                RangeWriteMsg writeRange = (RangeWriteMsg) currOp.getMsg().getPayload();
-                                streamLog.append(writeRange.getEntries());
-                                break;
-                            case RESET:
-                                streamLog.reset();
-                                break;
-                            case TAILS_QUERY:
-                                TailsRequest tailsRequest = (TailsRequest)currOp.getMsg().getPayload();
-                                TailsResponse tails;
-
-                                switch (tailsRequest.getReqType()) {
-                                    case TailsRequest.LOG_TAIL:
-                                        tails = new TailsResponse(streamLog.getLogTail());
-                                        break;
-
-                                    case TailsRequest.STREAMS_TAILS:
-                                        tails = streamLog.getTails(tailsRequest.getStreams());
-                                        break;
-
-                                    default:
-                                        tails = streamLog.getAllTails();
-                                        break;
-                                }
-
-                                tails.setEpoch(sealEpoch);
-                                currOp.setResultValue(tails);
+                }
+
+                syncAndComplete(shouldSync());
+                long elapsed = System.nanoTime() - startTime;
+                batchLatencyTimer.ifPresent(timer -> timer.record(elapsed, TimeUnit.NANOSECONDS));
+                batchSizeSummary.ifPresent(summary -> summary.record(batch.size()));
+                adaptBatchSize(batch.size(), elapsed);
+                log.trace("Completed {} operations", batch.size());
+            }
+        } catch (Exception e) {
+            log.error("Caught exception in the write processor ", e);
+        }
+    }
+
+    /**
+     * Waits for the next batch of operations. The batch is capped by the current batch size
+     * and by the max number of bytes written in a batch.
+     *
+     * @return the next batch of operations, or an empty batch if the operations that are pending
+     * a sync reached their sync deadline before a new operation was added
+     */
+    private List<BatchWriterOperation> nextBatch() throws InterruptedException {
+        List<BatchWriterOperation> batch = new ArrayList<>();
+
+        BatchWriterOperation currOp;
+        if (res.isEmpty()) {
+            currOp = operationsQueue.take();
+        } else {
+            long timeout = Math.max(0, lastSyncTime + syncIntervalNanos - System.nanoTime());
+            currOp = operationsQueue.poll(timeout, TimeUnit.NANOSECONDS);
+        }
+
+        long bytes = 0;
+        while (currOp != null) {
+            batch.add(currOp);
+            bytes += sizeOf(currOp);
+
+            if (currOp == BatchWriterOperation.SHUTDOWN || batch.size() >= batchSize
+                    || bytes >= maxBatchBytes) {
+                break;
+            }
+
+            currOp = operationsQueue.poll();
+        }
+
+        return batch;
+    }
+
+    /**
+     * Processes a batch of operations, adjacent writes are coalesced into a single batch append.
+     *
+     * @param batch batch of operations to process
+     * @return true if the batch contains the shutdown operation, false otherwise
+     */
+    private boolean process(List<BatchWriterOperation> batch) {
+        int ind = 0;
+        while (ind < batch.size()) {
+            BatchWriterOperation currOp = batch.get(ind);
+
+            if (currOp == BatchWriterOperation.SHUTDOWN) {
+                return true;
+            }
+
+            if (isCoalescable(currOp)) {
+                List<BatchWriterOperation> writes = new ArrayList<>();
+                writes.add(currOp);
+                ind++;
+                while (ind < batch.size() && isCoalescable(batch.get(ind))
+                        && isAdjacent(writes.get(writes.size() - 1), batch.get(ind))) {
+                    writes.add(batch.get(ind));
+                    ind++;
+                }
+                write(writes);
+                continue;
+            }
+
+            process(currOp);
+            ind++;
+        }
+
+        return false;
+    }
+
+    private void process(BatchWriterOperation currOp) {
+        if (streamLog.quotaExceeded() && currOp.getMsg().getPriorityLevel() != PriorityLevel.HIGH) {
+            currOp.getFutureResult().completeExceptionally(
+                    new QuotaExceededException("Quota of "
+                            + streamLog.quotaLimitInBytes() + " bytes"));
+            log.warn("batchprocessor: quota exceeded, dropping msg {}", currOp.getMsg());
+        } else if (currOp.getType() == Type.SEAL && currOp.getMsg().getEpoch() >= sealEpoch) {
+            log.info("batchWriteProcessor: updating from {} to {}", sealEpoch, currOp.getMsg().getEpoch());
+            sealEpoch = currOp.getMsg().getEpoch();
+            res.add(currOp);
+        } else if (currOp.getMsg().getEpoch() != sealEpoch) {
+            log.warn("batchWriteProcessor: wrong epoch on {} msg, seal epoch is {}, and msg epoch is {}",
+                    currOp.getType(), sealEpoch, currOp.getMsg().getEpoch());
+            currOp.getFutureResult().completeExceptionally(new WrongEpochException(sealEpoch));
+            res.add(currOp);
+        } else {
+            try {
+                switch (currOp.getType()) {
+                    case PREFIX_TRIM:
+                        TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
+                        streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
+                        break;
+                    case WRITE:
+                        WriteRequest write = (WriteRequest) currOp.getMsg().getPayload();
+                        streamLog.append(write.getGlobalAddress(), (LogData) write.getData());
+                        unsyncedBytes += sizeOf(currOp);
+                        break;
+                    case RANGE_WRITE:
+                        RangeWriteMsg writeRange = (RangeWriteMsg) currOp.getMsg().getPayload();
+                        streamLog.append(writeRange.getEntries());
+                        unsyncedBytes += sizeOf(currOp);
+                        break;
+                    case RESET:
+                        streamLog.reset();
+                        break;
+                    case TAILS_QUERY:
+                        TailsRequest tailsRequest = (TailsRequest)currOp.getMsg().getPayload();
+                        TailsResponse tails;
+
+                        switch (tailsRequest.getReqType()) {
+                            case TailsRequest.LOG_TAIL:
+                                tails = new TailsResponse(streamLog.getLogTail());
                                 break;
-                            case LOG_ADDRESS_SPACE_QUERY:
-                                // Retrieve the address space for every stream in the log.
-                                StreamsAddressResponse resp = streamLog.getStreamsAddressSpace();
-                                resp.setEpoch(sealEpoch);
-                                currOp.setResultValue(resp);
+
+                            case TailsRequest.STREAMS_TAILS:
+                                tails = streamLog.getTails(tailsRequest.getStreams());
                                 break;
+
                             default:
-                                log.warn("Unknown BatchWriterOperation {}", currOp);
+                                tails = streamLog.getAllTails();
+                                break;
                         }
-                    } catch (Exception e) {
-                        log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}].",
-                                operationsQueue.size(), streamLog.getTrimMark(), e);
-                        currOp.getFutureResult().completeExceptionally(e);
-                    }
-                    res.add(currOp);
-
-                    processed++;
-                    lastOp = currOp;
+
+                        tails.setEpoch(sealEpoch);
+                        currOp.setResultValue(tails);
+                        break;
+                    case LOG_ADDRESS_SPACE_QUERY:
+                        // Retrieve the address space for every stream in the log.
+                        StreamsAddressResponse resp = streamLog.getStreamsAddressSpace();
+                        resp.setEpoch(sealEpoch);
+                        currOp.setResultValue(resp);
+                        break;
+                    default:
+                        log.warn("Unknown BatchWriterOperation {}", currOp);
                 }
+            } catch (Exception e) {
+                log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}].",
+                        operationsQueue.size(), streamLog.getTrimMark(), e);
+                currOp.getFutureResult().completeExceptionally(e);
             }
+            res.add(currOp);
+        }
+    }
+
+    /**
+     * Writes a sequence of adjacent single address writes of the same segment with a
+     * single batch append, which keeps the semantics of single address appends. If any
+     * of the writes would fail (i.e. the address is trimmed or already written) nothing
+     * is written, and the writes are applied one by one, so that every write is completed
+     * with its own result.
+     *
+     * @param writes adjacent write operations
+     */
+    private void write(List<BatchWriterOperation> writes) {
+        if (writes.size() == 1) {
+            process(writes.get(0));
+            return;
+        }
+
+        List<LogData> entries = new ArrayList<>(writes.size());
+        for (BatchWriterOperation write : writes) {
+            entries.add(getLogData(write));
+        }
+
+        long firstAddress = entries.get(0).getGlobalAddress();
+        long lastAddress = entries.get(entries.size() - 1).getGlobalAddress();
+
+        try {
+            streamLog.appendBatch(entries);
+            writes.forEach(write -> unsyncedBytes += sizeOf(write));
+        } catch (OverwriteException e) {
+            writes.forEach(this::process);
+            return;
         } catch (Exception e) {
-            log.error("Caught exception in the write processor ", e);
+            log.error("Stream log error on range [{}, {}]. Batch [queue size={}]. StreamLog: [trim mark: {}].",
+                    firstAddress, lastAddress, operationsQueue.size(), streamLog.getTrimMark(), e);
+            writes.forEach(write -> write.getFutureResult().completeExceptionally(e));
+        }
+        res.addAll(writes);
+    }
+
+    /**
+     * Whether an operation is a write that can be coalesced with adjacent writes, i.e. it
+     * is a regular (not ranked) single address write that is not rejected by the quota
+     * or the seal epoch.
+     */
+    private boolean isCoalescable(BatchWriterOperation op) {
+        if (op == BatchWriterOperation.SHUTDOWN || op.getType() != Type.WRITE
+                || op.getMsg().getEpoch() != sealEpoch) {
+            return false;
+        }
+
+        if (streamLog.quotaExceeded() && op.getMsg().getPriorityLevel() != PriorityLevel.HIGH) {
+            return false;
+        }
+
+        LogData entry = getLogData(op);
+        return entry.getRank() == null && !entry.isTrimmed();
+    }
+
+    private boolean isAdjacent(BatchWriterOperation prev, BatchWriterOperation next) {
+        long prevAddress = getLogData(prev).getGlobalAddress();
+        long nextAddress = getLogData(next).getGlobalAddress();
+        return nextAddress == prevAddress + 1
+                && prevAddress / StreamLogFiles.RECORDS_PER_LOG_FILE
+                == nextAddress / StreamLogFiles.RECORDS_PER_LOG_FILE;
+    }
+
+    private LogData getLogData(BatchWriterOperation op) {
+        return (LogData) ((WriteRequest) op.getMsg().getPayload()).getData();
+    }
+
+    /**
+     * Estimates the number of bytes written by an operation.
+     */
+    private long sizeOf(BatchWriterOperation op) {
+        if (op == BatchWriterOperation.SHUTDOWN) {
+            return 0;
+        }
+
+        switch (op.getType()) {
+            case WRITE:
+                return getLogData(op).getSizeEstimate();
+            case RANGE_WRITE:
+                long size = 0;
+                for (LogData entry : ((RangeWriteMsg) op.getMsg().getPayload()).getEntries()) {
+                    size += entry.getSizeEstimate();
+                }
+                return size;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Whether the processed operations should be synced according to the sync policy.
+     */
+    private boolean shouldSync() {
+        switch (syncPolicy) {
+            case INTERVAL:
+                return System.nanoTime() - lastSyncTime >= syncIntervalNanos;
+            case BYTES:
+                // Operations under the threshold (e.g. queries) can keep arriving before
+                // the sync deadline, so the deadline is also checked after each batch
+                return unsyncedBytes >= syncBytes
+                        || System.nanoTime() - lastSyncTime >= syncIntervalNanos;
+            case BATCH:
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Syncs the writes to secondary storage and completes the processed operations.
+     *
+     * @param syncRequired whether the writes need to be synced now, if false the processed
+     *                     operations remain pending until a later sync
+     */
+    private void syncAndComplete(boolean syncRequired) throws Exception {
+        if (!syncRequired && sync) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        streamLog.sync(sync);
+        lastSyncTime = System.nanoTime();
+        unsyncedBytes = 0;
+        if (sync) {
+            syncLatencyTimer.ifPresent(timer ->
+                    timer.record(lastSyncTime - startTime, TimeUnit.NANOSECONDS));
+        }
+
+        for (BatchWriterOperation operation : res) {
+            if (!operation.getFutureResult().isCompletedExceptionally()
+                    && !operation.getFutureResult().isCancelled()) {
+                // At this point we need to complete the requests
+                // that completed successfully (i.e. haven't failed)
+                operation.getFutureResult().complete(operation.getResultValue());
+            }
+        }
+        res.clear();
+    }
+
+    /**
+     * Adapts the batch size to the latency target: the batch size is halved when a batch
+     * exceeds the latency target, and it grows when full batches are well within the target.
+     *
+     * @param processed number of operations in the last batch
+     * @param elapsed   time to process (and sync) the last batch in nanoseconds
+     */
+    private void adaptBatchSize(int processed, long elapsed) {
+        if (elapsed > latencyTargetNanos) {
+            batchSize = Math.max(MIN_BATCH_SIZE, batchSize / 2);
+        } else if (processed >= batchSize && elapsed < latencyTargetNanos / 2) {
+            batchSize = Math.min(MAX_BATCH_SIZE, batchSize + INITIAL_BATCH_SIZE);
         }
     }
 
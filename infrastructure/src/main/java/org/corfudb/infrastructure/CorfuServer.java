@@ -51,6 +51,9 @@ public class CorfuServer {
                     + "[--plugin=<plugin-config-file-path>]"
                     + "[--layout-server-threads=<layout_server_threads>] [--base-server-threads=<base_server_threads>] "
                     + "[--log-size-quota-percentage=<max_log_size_percentage>]"
+                    + "[--mmap-segments=<count>] [--sequencer-threads=<threads>]"
+                    + "[--sync-policy=<policy>] [--sync-interval=<ms>] [--sync-bytes=<bytes>] "
+                    + "[--write-batch-bytes=<bytes>] [--write-batch-latency=<ms>]"
                     + "[--logunit-threads=<logunit_threads>] [--management-server-threads=<management_server_threads>]"
                     + "[-e [-u <keystore> -f <keystore_password_file>] [-r <truststore> -w <truststore_password_file>] "
                     + "[-b] [-g -o <username_file> -j <password_file>] "
@@ -104,6 +107,12 @@ public class CorfuServer {
                     + "                                                                          "
                     + " -k <seqcache>, --sequencer-cache-size=<seqcache>                         "
                     + "               The size of the sequencer's cache. [default: 250000].\n    "
+                    + " --sequencer-threads=<threads>                                            "
+                    + "              Number of sequencer threads, the per-stream sequencer state is\n"
+                    + "                                                                          "
+                    + "              partitioned across the threads, each partition with a cache of\n"
+                    + "                                                                          "
+                    + "              the sequencer cache size [default: 1].\n             "
                     + " -B <size> --batch-size=<size>                                            "
                     + "              The read/write batch size used for data transfer operations [default: 100].\n"
                     + " -R <retention>, --metadata-retention=<retention>                         "
@@ -121,6 +130,26 @@ public class CorfuServer {
                     + "              Disable checksum computation and verification.\n"
                     + " -N, --no-sync                                                            "
                     + "              Disable syncing writes to secondary storage.\n"
+                    + " --sync-policy=<policy>                                                   "
+                    + "              When writes are synced to secondary storage, valid policies are:\n"
+                    + "                                                                          "
+                    + "              batch (every batch), interval (every sync interval) and\n   "
+                    + "                                                                          "
+                    + "              bytes (every sync bytes) [default: batch].\n               "
+                    + " --sync-interval=<ms>                                                     "
+                    + "              Sync interval in milliseconds, also the max time writes wait\n"
+                    + "                                                                          "
+                    + "              for a sync with the interval and bytes policies [default: 10].\n"
+                    + " --sync-bytes=<bytes>                                                     "
+                    + "              Number of written bytes that triggers a sync with the bytes\n"
+                    + "                                                                          "
+                    + "              policy [default: 4194304].\n                               "
+                    + " --write-batch-bytes=<bytes>                                              "
+                    + "              Max number of bytes written in a batch [default: 4194304].\n"
+                    + " --write-batch-latency=<ms>                                               "
+                    + "              Latency target of a write batch in milliseconds, the batch\n"
+                    + "                                                                          "
+                    + "              size adapts to this target [default: 5].\n                 "
                     + " -A, --no-auto-commit                                                     "
                     + "              Disable auto log commit.\n"
                     + " -e, --enable-tls                                                         "
@@ -160,6 +189,10 @@ public class CorfuServer {
                     + "              If this limit is exceeded "
                     + "              write requests will be rejected [default: 100.0].\n         "
                     + "                                                                          "
+                    + " --mmap-segments=<count>                                                  "
+                    + "              Max number of sealed log segments memory-mapped for reads,\n"
+                    + "              0 disables memory-mapped reads [default: 0].\n              "
+                    + "                                                                          "
                     + " --layout-server-threads=<layout_server_threads>                          "
                     + "              Number of threads dedicated for the layout server.\n        "
                     + "                                                                          "
@@ -5,6 +5,7 @@ import io.netty.channel.ChannelHandlerContext;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.infrastructure.BatchProcessor.SyncPolicy;
 import org.corfudb.infrastructure.ServerThreadFactory.ExceptionHandler;
 import org.corfudb.infrastructure.log.InMemoryStreamLog;
 import org.corfudb.infrastructure.log.StreamLog;
@@ -42,6 +43,7 @@ import org.corfudb.util.Utils;
 import java.lang.invoke.MethodHandles;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletionException;
@@ -131,7 +133,7 @@ public class LogUnitServer extends AbstractServer {
         }
 
         dataCache = new LogUnitServerCache(config, streamLog);
-        batchWriter = new BatchProcessor(streamLog, serverContext.getServerEpoch(), !config.isNoSync());
+        batchWriter = new BatchProcessor(streamLog, serverContext.getServerEpoch(), config);
 
         logCleaner = new StreamLogCompaction(streamLog, 10, 45, TimeUnit.MINUTES, ServerContext.SHUTDOWN_TIMER);
     }
@@ -523,6 +525,21 @@ public class LogUnitServer extends AbstractServer {
         private final boolean memoryMode;
         private final boolean noVerify;
         private final boolean noSync;
+        @Builder.Default
+        private final SyncPolicy syncPolicy = SyncPolicy.BATCH;
+        @Builder.Default
+        private final long syncIntervalMs = DEFAULT_SYNC_INTERVAL_MS;
+        @Builder.Default
+        private final long syncBytes = DEFAULT_SYNC_BYTES;
+        @Builder.Default
+        private final long maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+        @Builder.Default
+        private final long batchLatencyTargetMs = DEFAULT_BATCH_LATENCY_TARGET_MS;
+
+        static final long DEFAULT_SYNC_INTERVAL_MS = 10;
+        static final long DEFAULT_SYNC_BYTES = 4 * 1024 * 1024;
+        static final long DEFAULT_MAX_BATCH_BYTES = 4 * 1024 * 1024;
+        static final long DEFAULT_BATCH_LATENCY_TARGET_MS = 5;
 
         /**
          * Parse legacy configuration options
@@ -539,7 +556,21 @@ public class LogUnitServer extends AbstractServer {
                     .memoryMode(Boolean.valueOf(opts.get("--memory").toString()))
                     .noVerify((Boolean) opts.get("--no-verify"))
                     .noSync((Boolean) opts.get("--no-sync"))
+                    .syncPolicy(Optional.ofNullable((String) opts.get("--sync-policy"))
+                            .map(policy -> SyncPolicy.valueOf(policy.toUpperCase()))
+                            .orElse(SyncPolicy.BATCH))
+                    .syncIntervalMs(parseLong(opts, "--sync-interval", DEFAULT_SYNC_INTERVAL_MS))
+                    .syncBytes(parseLong(opts, "--sync-bytes", DEFAULT_SYNC_BYTES))
+                    .maxBatchBytes(parseLong(opts, "--write-batch-bytes", DEFAULT_MAX_BATCH_BYTES))
+                    .batchLatencyTargetMs(parseLong(opts, "--write-batch-latency",
+                            DEFAULT_BATCH_LATENCY_TARGET_MS))
                     .build();
         }
+
+        private static long parseLong(Map<String, Object> opts, String option, long defaultValue) {
+            return Optional.ofNullable((String) opts.get(option))
+                    .map(Long::parseLong)
+                    .orElse(defaultValue);
+        }
     }
 }
@@ -1,6 +1,7 @@
 package org.corfudb.infrastructure;
 
 import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import io.netty.channel.ChannelHandlerContext;
 import lombok.Builder;
@@ -14,7 +15,6 @@ import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
-import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
@@ -33,14 +33,24 @@ import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.Utils;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
 
 /**
  * This server implements the sequencer functionality of Corfu.
@@ -78,6 +88,13 @@ import java.util.concurrent.Executors;
  * commits, the sequencer updates the tails of all the streams and the cache
  * of conflict parameters.
  *
+ * <p>The per-stream state (stream tails, stream address maps and the conflict-parameters
+ * cache) is partitioned by stream id. By default a single thread serves all requests, with
+ * --sequencer-threads=n requests are served by n threads, and requests that touch disjoint
+ * partitions run in parallel: a request locks the partitions of its streams (in partition
+ * order) and reserves its addresses by atomically advancing the global tail. Requests that
+ * change the whole sequencer state (bootstrap and trim) exclude every other request.
+ *
  * <p>Created by mwei on 12/8/15.
  */
 @Slf4j
@@ -93,22 +110,26 @@ public class SequencerServer extends AbstractServer {
      * - {@link SequencerServer::globalLogTail}:
      * global log first available position (initially, 0).
      */
-    @Getter
-    private long globalLogTail = Address.getMinAddress();
+    private final AtomicLong globalLogTail = new AtomicLong(Address.getMinAddress());
+
+    private volatile long trimMark = Address.NON_ADDRESS;
 
-    private long trimMark = Address.NON_ADDRESS;
+    /**
+     * Per-stream state of the sequencer, partitioned by stream id.
+     */
+    private final SequencerPartition[] partitions;
 
     /**
-     * - {@link SequencerServer::streamTailToGlobalTailMap}:
-     * per streams map to last issued global-log position. used for backpointers.
+     * Requests that allocate or query tokens hold the read lock, requests that
+     * change the state of every partition (i.e. bootstrap and trim) hold the write lock.
      */
-    private Map<UUID, Long> streamTailToGlobalTailMap = new HashMap<>();
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
 
     /**
-     * Per streams map and their corresponding address space (an address space is defined by the stream's addresses
-     *  and its latest trim mark)
+     * The max number of entries in the conflict-parameters cache of each partition, so that
+     * a partition serving a hot stream evicts no sooner than a single-threaded sequencer.
      */
-    private Map<UUID, StreamAddressSpace> streamsAddressMap = new HashMap<>();
+    private final int cacheSize;
 
     /**
      * A map to cache the name of timers to avoid creating timer names on each call.
@@ -121,9 +142,6 @@ public class SequencerServer extends AbstractServer {
     @Getter
     private final HandlerMethods handler = HandlerMethods.generateHandler(MethodHandles.lookup(), this);
 
-    @Getter
-    private SequencerServerCache cache;
-
     @Getter
     @Setter
     private volatile long sequencerEpoch = Layout.INVALID_EPOCH;
@@ -135,7 +153,7 @@ public class SequencerServer extends AbstractServer {
      * {@link this#sequencerEpoch}
      */
     @Getter
-    private long epochRangeLowerBound = Layout.INVALID_EPOCH;
+    private volatile long epochRangeLowerBound = Layout.INVALID_EPOCH;
 
     private final ExecutorService executor;
 
@@ -149,12 +167,12 @@ public class SequencerServer extends AbstractServer {
         this.serverContext = serverContext;
         Config config = Config.parse(serverContext.getServerConfig());
 
-        // Sequencer server is single threaded by current design
-        this.executor = Executors.newSingleThreadExecutor(
+        this.executor = Executors.newFixedThreadPool(config.getThreads(),
                 new ServerThreadFactory("sequencer-", new ServerThreadFactory.ExceptionHandler()));
 
-        globalLogTail = Address.getMinAddress();
-        this.cache = new SequencerServerCache(config.getCacheSize(), globalLogTail - 1);
+        this.cacheSize = config.getCacheSize();
+        this.partitions = new SequencerPartition[config.getThreads()];
+        resetPartitions(Collections.emptyMap());
         setUpTimerNameCache();
     }
 
@@ -194,6 +212,66 @@ public class SequencerServer extends AbstractServer {
         timerNameCache.put(TokenRequest.TK_TX, CorfuComponent.INFRA_SEQUENCER + "tx-token");
     }
 
+    /**
+     * @return the global log first available position
+     */
+    public long getGlobalLogTail() {
+        return globalLogTail.get();
+    }
+
+    /**
+     * @return the conflict-parameters cache of the first partition, which is the
+     * cache of every stream when the sequencer is single threaded
+     */
+    @VisibleForTesting
+    public SequencerServerCache getCache() {
+        return partitions[0].cache;
+    }
+
+    private SequencerPartition getPartition(UUID streamId) {
+        return partitions[Math.floorMod(streamId.hashCode(), partitions.length)];
+    }
+
+    /**
+     * Replaces the state of every partition with the given stream address spaces.
+     * The caller must hold the write lock of the sequencer state.
+     *
+     * @param addressSpaceMap address space of every stream
+     */
+    private void resetPartitions(Map<UUID, StreamAddressSpace> addressSpaceMap) {
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new SequencerPartition(i,
+                    new SequencerServerCache(cacheSize, globalLogTail.get() - 1));
+        }
+
+        addressSpaceMap.forEach((streamId, addressSpace) -> {
+            SequencerPartition partition = getPartition(streamId);
+            partition.streamTailToGlobalTailMap.put(streamId, addressSpace.getTail());
+            partition.streamsAddressMap.put(streamId, addressSpace);
+        });
+    }
+
+    /**
+     * Locks the partitions of the given streams. Partitions are always locked in
+     * partition order, so that requests that span multiple partitions can't deadlock.
+     *
+     * @param streams streams accessed by a request
+     * @return the locked partitions, which are unlocked by {@link this#unlock(Collection)}
+     */
+    private Collection<SequencerPartition> lock(Collection<UUID> streams) {
+        SortedMap<Integer, SequencerPartition> locked = new TreeMap<>();
+        for (UUID streamId : streams) {
+            SequencerPartition partition = getPartition(streamId);
+            locked.put(partition.index, partition);
+        }
+        locked.values().forEach(partition -> partition.lock.lock());
+        return locked.values();
+    }
+
+    private void unlock(Collection<SequencerPartition> locked) {
+        locked.forEach(partition -> partition.lock.unlock());
+    }
+
     /**
      * Checks if an epoch is within a consecutive closed range
      * [{@link this#epochRangeLowerBound}, {@link this#sequencerEpoch}].
@@ -247,7 +325,7 @@ public class SequencerServer extends AbstractServer {
             //check for conflict based on streams updates
             if (conflictParamSet == null || conflictParamSet.isEmpty()) {
                 UUID streamId = conflictStream.getKey();
-                Long sequence = streamTailToGlobalTailMap.get(streamId);
+                Long sequence = getPartition(streamId).streamTailToGlobalTailMap.get(streamId);
                 if (sequence != null && sequence > txSnapshotTimestamp.getSequence()) {
                     log.debug("ABORT[{}] conflict-stream[{}](ts={})", txInfo, Utils.toReadableId(streamId), sequence);
                     return new TxResolutionResponse(TokenType.TX_ABORT_CONFLICT);
@@ -256,10 +334,10 @@ public class SequencerServer extends AbstractServer {
             }
 
             // for each key pair, check for conflict; if not present, check against the wildcard
+            SequencerServerCache cache = getPartition(conflictStream.getKey()).cache;
             for (byte[] conflictParam : conflictParamSet) {
 
-                Long keyAddress = cache.get(new ConflictTxStream(conflictStream.getKey(),
-                        conflictParam, Address.NON_ADDRESS));
+                long keyAddress = cache.get(conflictStream.getKey(), conflictParam);
 
                 log.trace("Commit-ck[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
 
@@ -318,15 +396,23 @@ public class SequencerServer extends AbstractServer {
         Token token;
         if (req.getStreams().isEmpty()) {
             // Global tail query
-            token = new Token(sequencerEpoch, globalLogTail - 1);
+            token = new Token(sequencerEpoch, globalLogTail.get() - 1);
             streamTails = Collections.emptyMap();
         } else {
             // multiple or single stream query, the token is populated with the global tail
-            // and the tail queries are stored in streamTails
-            token = new Token(sequencerEpoch, globalLogTail - 1);
+            // and the tail queries are stored in streamTails. The global tail is read while
+            // the stream partitions are locked, so that every address below the global tail
+            // that belongs to one of the streams is reflected in the stream tails.
             streamTails = new HashMap<>(streams.size());
-            for (UUID stream : streams) {
-                streamTails.put(stream, streamTailToGlobalTailMap.getOrDefault(stream, Address.NON_EXIST));
+            Collection<SequencerPartition> locked = lock(streams);
+            try {
+                for (UUID stream : streams) {
+                    streamTails.put(stream, getPartition(stream).streamTailToGlobalTailMap
+                            .getOrDefault(stream, Address.NON_EXIST));
+                }
+                token = new Token(sequencerEpoch, globalLogTail.get() - 1);
+            } finally {
+                unlock(locked);
             }
         }
 
@@ -339,18 +425,27 @@ public class SequencerServer extends AbstractServer {
     @ServerHandler(type = CorfuMsgType.SEQUENCER_TRIM_REQ)
     public void trimCache(CorfuPayloadMsg<Long> msg, ChannelHandlerContext ctx, IServerRouter r) {
         log.info("trimCache: Starting cache eviction");
-        if (trimMark < msg.getPayload()) {
-            // Advance the trim mark, if the new trim request has a higher trim mark.
-            trimMark = msg.getPayload();
-            cache.invalidateUpTo(trimMark);
-
-            // Remove trimmed addresses from each address map and set new trim mark
-            for(StreamAddressSpace streamAddressSpace : streamsAddressMap.values()) {
-                streamAddressSpace.trim(trimMark);
+        Lock lock = stateLock.writeLock();
+        lock.lock();
+        try {
+            if (trimMark < msg.getPayload()) {
+                // Advance the trim mark, if the new trim request has a higher trim mark.
+                trimMark = msg.getPayload();
+
+                for (SequencerPartition partition : partitions) {
+                    partition.cache.invalidateUpTo(trimMark);
+
+                    // Remove trimmed addresses from each address map and set new trim mark
+                    for (StreamAddressSpace streamAddressSpace : partition.streamsAddressMap.values()) {
+                        streamAddressSpace.trim(trimMark);
+                    }
+                }
             }
-        }
 
-        log.debug("trimCache: global trim {}, streamsAddressSpace {}", trimMark, streamsAddressMap);
+            log.debug("trimCache: global trim {}", trimMark);
+        } finally {
+            lock.unlock();
+        }
 
         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
     }
@@ -361,6 +456,17 @@ public class SequencerServer extends AbstractServer {
     @ServerHandler(type = CorfuMsgType.BOOTSTRAP_SEQUENCER)
     public void resetServer(CorfuPayloadMsg<SequencerRecoveryMsg> msg,
                                          ChannelHandlerContext ctx, IServerRouter r) {
+        Lock lock = stateLock.writeLock();
+        lock.lock();
+        try {
+            resetServerUnsafe(msg, ctx, r);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void resetServerUnsafe(CorfuPayloadMsg<SequencerRecoveryMsg> msg,
+                                   ChannelHandlerContext ctx, IServerRouter r) {
         log.info("Reset sequencer server.");
         final Map<UUID, StreamAddressSpace> addressSpaceMap = msg.getPayload().getStreamsAddressMap();
         final long bootstrapMsgEpoch = msg.getPayload().getSequencerEpoch();
@@ -403,23 +509,12 @@ public class SequencerServer extends AbstractServer {
         // Note, this is correct, but conservative (may lead to false abort).
         // It is necessary because we reset the sequencer.
         if (!bootstrapWithoutTailsUpdate) {
-            globalLogTail = msg.getPayload().getGlobalTail();
-            cache = new SequencerServerCache(cache.getCacheSize(), globalLogTail - 1);
-            // Clear the existing map as it could have been populated by an earlier reset.
-            streamTailToGlobalTailMap = new HashMap<>();
-
-            // Set tail for every stream
-            for(Map.Entry<UUID, StreamAddressSpace> streamAddressSpace : addressSpaceMap.entrySet()) {
-                Long streamTail = streamAddressSpace.getValue().getTail();
-                log.trace("On Sequencer reset, tail for stream {} set to {}", streamAddressSpace.getKey(), streamTail);
-                streamTailToGlobalTailMap.put(streamAddressSpace.getKey(), streamTail);
-            }
+            globalLogTail.set(msg.getPayload().getGlobalTail());
+            // Clear the existing partitions as they could have been populated by an earlier
+            // reset, and set the tail and the address map of every stream.
+            resetPartitions(addressSpaceMap);
 
-            // Reset streams address map
-            this.streamsAddressMap = new HashMap<>();
-            this.streamsAddressMap.putAll(addressSpaceMap);
-
-            for (Map.Entry<UUID, StreamAddressSpace> streamAddressSpace : this.streamsAddressMap.entrySet()) {
+            for (Map.Entry<UUID, StreamAddressSpace> streamAddressSpace : addressSpaceMap.entrySet()) {
                 log.info("Stream[{}] set to last trimmed address {} and {} addresses in the range [{}-{}], " +
                                 "on sequencer reset.",
                         Utils.toReadableId(streamAddressSpace.getKey()),
@@ -443,8 +538,8 @@ public class SequencerServer extends AbstractServer {
         sequencerEpoch = bootstrapMsgEpoch;
         serverContext.setSequencerEpoch(bootstrapMsgEpoch);
 
-        log.info("Sequencer reset with token = {}, size {} streamTailToGlobalTailMap = {}, sequencerEpoch = {}",
-                globalLogTail, streamTailToGlobalTailMap.size(), streamTailToGlobalTailMap, sequencerEpoch);
+        log.info("Sequencer reset with token = {}, streams {}, partitions {}, sequencerEpoch = {}",
+                globalLogTail.get(), addressSpaceMap.size(), partitions.length, sequencerEpoch);
 
         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
     }
@@ -472,6 +567,8 @@ public class SequencerServer extends AbstractServer {
         final Timer timer = getTimer(req.getReqType());
 
         // dispatch request handler according to request type while collecting the timer metrics
+        Lock lock = stateLock.readLock();
+        lock.lock();
         try (Timer.Context context = MetricsUtils.getConditionalContext(timer)) {
             switch (req.getReqType()) {
                 case TokenRequest.TK_QUERY:
@@ -490,6 +587,8 @@ public class SequencerServer extends AbstractServer {
                     handleAllocation(msg, ctx, r);
                     return;
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -518,8 +617,7 @@ public class SequencerServer extends AbstractServer {
 
         // The global tail points to an open slot, not the last written slot,
         // so return the new token with current global tail and then update it.
-        Token token = new Token(sequencerEpoch, globalLogTail);
-        globalLogTail += req.getNumTokens();
+        Token token = new Token(sequencerEpoch, globalLogTail.getAndAdd(req.getNumTokens()));
         r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
                 new TokenResponse(token, Collections.emptyMap())));
     }
@@ -539,32 +637,43 @@ public class SequencerServer extends AbstractServer {
      */
     private void handleTxToken(CorfuPayloadMsg<TokenRequest> msg, ChannelHandlerContext ctx, IServerRouter r) {
         final TokenRequest req = msg.getPayload();
-
-        // in the TK_TX request type, the sequencer is utilized for transaction conflict-resolution.
-        // Token allocation is conditioned on commit.
-        // First, we check if the transaction can commit.
-        TxResolutionResponse txResolutionResponse = txnCanCommit(req.getTxnResolution());
-        if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
-            // If the txn aborts, then DO NOT hand out a token.
-            Token newToken = new Token(sequencerEpoch, txResolutionResponse.getAddress());
-            r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(new TokenResponse(
-                    txResolutionResponse.getTokenType(),
-                    txResolutionResponse.getConflictingKey(),
-                    txResolutionResponse.getConflictingStream(),
-                    newToken, Collections.emptyMap(), Collections.emptyMap())));
-            return;
+        final TxResolutionInfo txInfo = req.getTxnResolution();
+
+        // The conflict resolution and the allocation happen while holding the partitions
+        // of every stream the transaction reads or writes.
+        Set<UUID> streams = new HashSet<>(req.getStreams());
+        streams.addAll(txInfo.getConflictSet().keySet());
+        streams.addAll(txInfo.getWriteConflictParams().keySet());
+
+        TokenResponse response;
+        Collection<SequencerPartition> locked = lock(streams);
+        try {
+            // in the TK_TX request type, the sequencer is utilized for transaction conflict-resolution.
+            // Token allocation is conditioned on commit.
+            // First, we check if the transaction can commit.
+            TxResolutionResponse txResolutionResponse = txnCanCommit(txInfo);
+            if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
+                // If the txn aborts, then DO NOT hand out a token.
+                Token newToken = new Token(sequencerEpoch, txResolutionResponse.getAddress());
+                response = new TokenResponse(
+                        txResolutionResponse.getTokenType(),
+                        txResolutionResponse.getConflictingKey(),
+                        txResolutionResponse.getConflictingStream(),
+                        newToken, Collections.emptyMap(), Collections.emptyMap());
+            } else {
+                // if we get here, this means the transaction can commit.
+                // allocate() does the actual allocation of log position(s)
+                response = allocate(req);
+            }
+        } finally {
+            unlock(locked);
         }
 
-        // if we get here, this means the transaction can commit.
-        // handleAllocation() does the actual allocation of log position(s)
-        // and returns the response
-        handleAllocation(msg, ctx, r);
+        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(response));
     }
 
     /**
-     * this method does the actual allocation of log addresses,
-     * it also maintains stream-tails, returns a map of stream-tails for backpointers,
-     * and maintains a conflict-parameters map.
+     * this method serves token-requests for multiple streams.
      *
      * @param msg corfu message containing allocation
      * @param ctx netty ChannelHandlerContext
@@ -574,9 +683,32 @@ public class SequencerServer extends AbstractServer {
                                   ChannelHandlerContext ctx, IServerRouter r) {
         final TokenRequest req = msg.getPayload();
 
+        TokenResponse response;
+        Collection<SequencerPartition> locked = lock(req.getStreams());
+        try {
+            response = allocate(req);
+        } finally {
+            unlock(locked);
+        }
+
+        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(response));
+    }
+
+    /**
+     * this method does the actual allocation of log addresses,
+     * it also maintains stream-tails, returns a map of stream-tails for backpointers,
+     * and maintains a conflict-parameters map.
+     *
+     * <p>The caller must hold the partitions of every stream of the request.
+     *
+     * @param req token request
+     * @return the token response with the allocated token and the streams backpointers
+     */
+    private TokenResponse allocate(TokenRequest req) {
         // extend the tail of the global log by the requested # of tokens
         // currentTail is the first available position in the global log
-        long newTail = globalLogTail + req.getNumTokens();
+        final long currentTail = globalLogTail.getAndAdd(req.getNumTokens());
+        final long newTail = currentTail + req.getNumTokens();
 
         // for each stream:
         //   1. obtain the last back-pointer for this stream, if exists; -1L otherwise.
@@ -584,9 +716,10 @@ public class SequencerServer extends AbstractServer {
         //   3. Add the allocated addresses to each stream's address map.
         ImmutableMap.Builder<UUID, Long> backPointerMap = ImmutableMap.builder();
         for (UUID id : req.getStreams()) {
+            SequencerPartition partition = getPartition(id);
 
             // step 1. and 2. (comment above)
-            streamTailToGlobalTailMap.compute(id, (k, v) -> {
+            partition.streamTailToGlobalTailMap.compute(id, (k, v) -> {
                 if (v == null) {
                     backPointerMap.put(k, Address.NON_EXIST);
                     return newTail - 1;
@@ -597,12 +730,12 @@ public class SequencerServer extends AbstractServer {
             });
 
             // step 3. add allocated addresses to each stream's address map (to keep track of all updates to this stream)
-            streamsAddressMap.compute(id, (streamId, addressMap) -> {
+            partition.streamsAddressMap.compute(id, (streamId, addressMap) -> {
                 if (addressMap == null) {
                     addressMap = new StreamAddressSpace(Address.NON_ADDRESS, new Roaring64NavigableMap());
                 }
 
-                for (long i = globalLogTail; i < newTail; i++) {
+                for (long i = currentTail; i < newTail; i++) {
                     addressMap.addAddress(i);
                 }
                 return addressMap;
@@ -616,18 +749,17 @@ public class SequencerServer extends AbstractServer {
                     .forEach((key, value) -> {
                         // insert an entry with the new timestamp using the
                         // hash code based on the param and the stream id.
+                        SequencerServerCache cache = getPartition(key).cache;
                         value.forEach(conflictParam ->
-                                cache.put(new ConflictTxStream(key, conflictParam, newTail - 1)));
+                                cache.put(key, conflictParam, newTail - 1));
                     });
         }
 
-        log.trace("token {} backpointers {}", globalLogTail, backPointerMap.build());
+        log.trace("token {} backpointers {}", currentTail, backPointerMap.build());
 
         // return the token response with the global tail and the streams backpointers
-        Token token = new Token(sequencerEpoch, globalLogTail);
-        globalLogTail = newTail;
-        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
-                new TokenResponse(token, backPointerMap.build())));
+        Token token = new Token(sequencerEpoch, currentTail);
+        return new TokenResponse(token, backPointerMap.build());
     }
 
     /**
@@ -644,22 +776,38 @@ public class SequencerServer extends AbstractServer {
                                              ChannelHandlerContext ctx, IServerRouter r) {
         StreamsAddressRequest req = msg.getPayload();
         Map<UUID, StreamAddressSpace> streamsAddressMap;
+        long logTail;
 
-        switch (req.getReqType()) {
-            case StreamsAddressRequest.STREAMS:
-                streamsAddressMap = getStreamsAddresses(req.getStreamsRanges());
-                break;
+        Lock lock = stateLock.readLock();
+        lock.lock();
+        try {
+            switch (req.getReqType()) {
+                case StreamsAddressRequest.STREAMS:
+                    streamsAddressMap = getStreamsAddresses(req.getStreamsRanges());
+                    break;
 
-            default:
-                // Retrieve address space for all streams
-                streamsAddressMap = new HashMap<>(this.streamsAddressMap);
-                break;
+                default:
+                    // Retrieve address space for all streams
+                    streamsAddressMap = new HashMap<>();
+                    for (SequencerPartition partition : partitions) {
+                        partition.lock.lock();
+                        try {
+                            streamsAddressMap.putAll(partition.streamsAddressMap);
+                        } finally {
+                            partition.lock.unlock();
+                        }
+                    }
+                    break;
+            }
+            logTail = getGlobalLogTail();
+        } finally {
+            lock.unlock();
         }
 
         log.trace("handleStreamsAddressRequest: return address space for streams [{}]",
                 streamsAddressMap.keySet());
         r.sendResponse(ctx, msg, CorfuMsgType.STREAMS_ADDRESS_RESPONSE.payloadMsg(
-                new StreamsAddressResponse(getGlobalLogTail(), streamsAddressMap)));
+                new StreamsAddressResponse(logTail, streamsAddressMap)));
     }
 
     /**
@@ -672,17 +820,26 @@ public class SequencerServer extends AbstractServer {
         Map<UUID, StreamAddressSpace> requestedAddressSpaces = new HashMap<>();
         Roaring64NavigableMap addressMap;
 
-        for (StreamAddressRange streamAddressRange : addressRanges) {
-            UUID streamId = streamAddressRange.getStreamID();
-            // Get all addresses in the requested range
-            if (streamsAddressMap.containsKey(streamId)) {
-                addressMap = streamsAddressMap.get(streamId).getAddressesInRange(streamAddressRange);
-                requestedAddressSpaces.put(streamId,
-                        new StreamAddressSpace(streamsAddressMap.get(streamId).getTrimMark(), addressMap));
-            } else {
-                log.warn("handleStreamsAddressRequest: address space map is not present for stream {}. " +
-                        "Verify this is a valid stream.", streamId);
+        List<UUID> streams = addressRanges.stream()
+                .map(StreamAddressRange::getStreamID)
+                .collect(Collectors.toList());
+        Collection<SequencerPartition> locked = lock(streams);
+        try {
+            for (StreamAddressRange streamAddressRange : addressRanges) {
+                UUID streamId = streamAddressRange.getStreamID();
+                Map<UUID, StreamAddressSpace> streamsAddressMap = getPartition(streamId).streamsAddressMap;
+                // Get all addresses in the requested range
+                if (streamsAddressMap.containsKey(streamId)) {
+                    addressMap = streamsAddressMap.get(streamId).getAddressesInRange(streamAddressRange);
+                    requestedAddressSpaces.put(streamId,
+                            new StreamAddressSpace(streamsAddressMap.get(streamId).getTrimMark(), addressMap));
+                } else {
+                    log.warn("handleStreamsAddressRequest: address space map is not present for stream {}. " +
+                            "Verify this is a valid stream.", streamId);
+                }
             }
+        } finally {
+            unlock(locked);
         }
 
         return requestedAddressSpaces;
@@ -695,16 +852,61 @@ public class SequencerServer extends AbstractServer {
     @Getter
     public static class Config {
         private static final int DEFAULT_CACHE_SIZE = 250_000;
+        private static final int DEFAULT_THREADS = 1;
 
         @Default
         private final int cacheSize = DEFAULT_CACHE_SIZE;
 
+        /**
+         * Number of threads serving requests, which is also the number of partitions
+         * of the per-stream state.
+         */
+        @Default
+        private final int threads = DEFAULT_THREADS;
+
         public static Config parse(Map<String, Object> opts) {
             int cacheSize = (int)(opts.containsKey("--sequencer-cache-size") ?
             Integer.parseInt((String)opts.get("--sequencer-cache-size")) : DEFAULT_CACHE_SIZE);
+            int threads = opts.get("--sequencer-threads") != null ?
+                    Integer.parseInt((String) opts.get("--sequencer-threads")) : DEFAULT_THREADS;
+            if (threads < 1) {
+                throw new IllegalArgumentException("Invalid number of sequencer threads " + threads);
+            }
             return Config.builder()
                     .cacheSize(cacheSize)
+                    .threads(threads)
                     .build();
         }
     }
+
+    /**
+     * The state of the streams that map to a partition, this state is only
+     * accessed while holding the partition lock.
+     */
+    private static class SequencerPartition {
+        private final int index;
+
+        private final Lock lock = new ReentrantLock();
+
+        /**
+         * per streams map to last issued global-log position. used for backpointers.
+         */
+        private final Map<UUID, Long> streamTailToGlobalTailMap = new HashMap<>();
+
+        /**
+         * Per streams map and their corresponding address space (an address space is defined by the
+         * stream's addresses and its latest trim mark)
+         */
+        private final Map<UUID, StreamAddressSpace> streamsAddressMap = new HashMap<>();
+
+        /**
+         * Cache of the conflict parameters of the streams of this partition.
+         */
+        private final SequencerServerCache cache;
+
+        SequencerPartition(int index, SequencerServerCache cache) {
+            this.index = index;
+            this.cache = cache;
+        }
+    }
 }
@@ -4,11 +4,8 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.view.Address;
-import org.corfudb.util.MetricsUtils;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.PriorityQueue;
+import java.util.Arrays;
 import java.util.UUID;
 import javax.annotation.concurrent.NotThreadSafe;
 
@@ -26,23 +23,61 @@ import javax.annotation.concurrent.NotThreadSafe;
  * as it may evict ck1, but not ck2. Notice that we also can't evict ck3 before the keys for v1,
  * that's because it will create holes in the resolution window and can lead to incorrect resolutions.
  *
- * We use priority queue as a sliding window on the versions, where a version can map to multiple keys,
- * so we also need to maintain the beginning of the window which is the maxConflictWildcard variable.
+ * We use a ring buffer sorted by version as a sliding window on the versions, where a version can map
+ * to multiple keys, so we also need to maintain the beginning of the window which is the
+ * maxConflictWildcard variable.
  *
- * SequencerServerCache achieves consistency by using single threaded cache. It's done by following code:
- * `.executor(Runnable::run)`
+ * To fit as many conflict keys as possible in the heap, no objects are stored per conflict key.
+ * A conflict key is identified by a 128-bit fingerprint of its stream id and conflict param, which is
+ * stored along with its version in an open-addressing (linear probing) table of primitive arrays. The
+ * ring buffer holds the fingerprint and the version of every update, in version order. An update
+ * becomes stale when its key is updated again, in which case it is skipped on eviction. Both structures
+ * are allocated upfront, and use about {@link #ENTRY_SIZE} bytes per conflict key, compared to
+ * about 160 bytes and five objects per conflict key with a HashMap and a PriorityQueue.
+ *
+ * A fingerprint collision between two conflict keys can only make a transaction abort on a conflict
+ * that didn't happen (a false abort), it can never hide a real conflict.
+ *
+ * SequencerServerCache is not thread safe, it has to be accessed by a single thread at a time.
  */
 @NotThreadSafe
 @Slf4j
 public class SequencerServerCache {
+
+    /**
+     * The approximate memory used per conflict key: a table slot (two longs for the fingerprint and
+     * one long for the version) at a load factor of 3/4 and a ring buffer slot (three longs) with
+     * 1/4 of extra capacity for stale updates.
+     */
+    private static final int ENTRY_SIZE = 64;
+
+    private static final int MIN_TABLE_CAPACITY = 4;
+
+    // Marks an empty slot in the table, versions are always greater than Address.NON_ADDRESS
+    private static final long EMPTY = Long.MIN_VALUE;
+
     /**
      * TX conflict-resolution information:
-     * a cache of recent conflict keys and their latest global-log position.
+     * a table of recent conflict keys (fingerprints) and their latest global-log position.
+     */
+    private final long[] keysHi;
+    private final long[] keysLo;
+    private final long[] keyVersions;
+    private final int tableMask;
+    private int size;
+
+    /**
+     * The updates of the conflict keys, sorted according to address (version).
      */
+    private final long[] ringHi;
+    private final long[] ringLo;
+    private final long[] ringVersions;
+    private int ringHead;
+    private int ringCount;
 
-    // As the sequencer cache is used by a single thread, it is safe to use hashmap.
-    private final HashMap<ConflictTxStream, Long> conflictKeys;
-    private final PriorityQueue<ConflictTxStream> cacheEntries; //sorted according to address
+    // The fingerprint of the last hashed conflict key, to avoid allocating on lookups
+    private long hashHi;
+    private long hashLo;
 
     @Getter
     private final int cacheSize; // the max number of entries in SequencerServerCache
@@ -63,50 +98,67 @@ public class SequencerServerCache {
     @Getter
     private long maxConflictNewSequencer;
 
-    /**
-     * It is used to calculate the size of ServerCache. Each entry relates two pointers
-     * used by HashMap, one pointer in PriorityQueue.
-     */
-    private static final int ENTRY_OVERHEAD = 24;
-
-    //As calculating object size is expensive, used the value calculated by deepSize
-    private final int CONFLICTTXSTREAM_OBJ_SIZE = 80; //by calculated by deepSize
-
     /**
      * The cache limited by size.
-     * For a synchronous cache we are using a same-thread executor (Runnable::run)
-     * https://github.com/ben-manes/caffeine/issues/90
      *
      * @param cacheSize cache size
      */
     public SequencerServerCache(int cacheSize, long maxConflictNewSequencer) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Invalid sequencer cache size " + cacheSize);
+        }
+
         this.cacheSize = cacheSize;
-        conflictKeys = new HashMap();
-        cacheEntries = new PriorityQueue(cacheSize, Comparator.comparingLong
-                (a -> ((ConflictTxStream)a).txVersion));
+
+        int tableCapacity = Math.max(MIN_TABLE_CAPACITY,
+                Integer.highestOneBit((int) Math.min((cacheSize * 4L) / 3 + 1, 1 << 29)) << 1);
+        keysHi = new long[tableCapacity];
+        keysLo = new long[tableCapacity];
+        keyVersions = new long[tableCapacity];
+        Arrays.fill(keyVersions, EMPTY);
+        tableMask = tableCapacity - 1;
+
+        int ringCapacity = cacheSize + Math.max(1, cacheSize / 4);
+        ringHi = new long[ringCapacity];
+        ringLo = new long[ringCapacity];
+        ringVersions = new long[ringCapacity];
+
         maxConflictWildcard = maxConflictNewSequencer;
         this.maxConflictNewSequencer = maxConflictNewSequencer;
     }
 
     /**
      * Returns the value associated with the {@code key} in this cache,
-     * or {@code null} if there is no cached value for the {@code key}.
+     * or {@code Address.NON_ADDRESS} if there is no cached value for the {@code key}.
      *
      * @param conflictKey conflict stream
      * @return global address
      */
     public Long get(ConflictTxStream conflictKey) {
-        return conflictKeys.getOrDefault(conflictKey, Address.NON_ADDRESS);
+        return get(conflictKey.getStreamId(), conflictKey.getConflictParam());
+    }
+
+    /**
+     * Returns the address of the latest update of a conflict key, without allocating.
+     *
+     * @param streamId      stream id of the conflict key
+     * @param conflictParam conflict param of the conflict key
+     * @return global address, or {@code Address.NON_ADDRESS} if the key isn't cached
+     */
+    public long get(UUID streamId, byte[] conflictParam) {
+        fingerprint(streamId, conflictParam);
+        int slot = find(hashHi, hashLo);
+        return slot < 0 ? Address.NON_ADDRESS : keyVersions[slot];
     }
 
     /**
-     * The first address in the priority queue.
+     * The first address in the ring buffer.
      */
     public long firstAddress() {
-        if (cacheEntries.isEmpty()) {
+        if (ringCount == 0) {
             return Address.NOT_FOUND;
         }
-        return cacheEntries.peek().txVersion;
+        return ringVersions[ringHead];
     }
 
     /**
@@ -114,21 +166,27 @@ public class SequencerServerCache {
      * @return the number of entries has been invalidated and removed from the cache.
      */
     private int invalidateSmallestTxVersion() {
-        ConflictTxStream firstEntry = cacheEntries.peek();
-        if (cacheEntries.size() == 0) {
+        if (ringCount == 0) {
             return 0;
         }
 
+        final long txVersion = firstAddress();
         int numEntries = 0;
-        while (firstAddress() == firstEntry.txVersion) {
-            log.debug("evict items " + numEntries + " with address " + firstAddress());
-            ConflictTxStream entry = cacheEntries.poll();
-            conflictKeys.remove(entry);
-            numEntries++;
+        while (ringCount > 0 && ringVersions[ringHead] == txVersion) {
+            int slot = find(ringHi[ringHead], ringLo[ringHead]);
+            // Skip the stale updates of keys that have been updated again
+            if (slot >= 0 && keyVersions[slot] == txVersion) {
+                remove(slot);
+                numEntries++;
+            }
+            ringHead = next(ringHead);
+            ringCount--;
         }
 
-        log.trace("Evict {} entries", numEntries);
-        maxConflictWildcard = Math.max(maxConflictWildcard, firstEntry.txVersion);
+        log.trace("Evict {} entries with address {}", numEntries, txVersion);
+        if (numEntries > 0) {
+            maxConflictWildcard = Math.max(maxConflictWildcard, txVersion);
+        }
         return numEntries;
     }
 
@@ -154,19 +212,16 @@ public class SequencerServerCache {
      * @return cache size
      */
     public int size() {
-        return conflictKeys.size();
+        return size;
     }
 
     /**
-     * The memory space used by the entries and also the space used by
-     * priority queue and hashmap to store the pointers
+     * The memory space used by the entries, including the table slots
+     * and the ring buffer slots used to store them.
      * @return the memory space used in bytes:
      */
     public long byteSize() {
-        log.debug("the cache has {} entries,  the object size used {}, calculated by beepSize {}",
-                size(), CONFLICTTXSTREAM_OBJ_SIZE,
-                cacheEntries.isEmpty() ? 0 : MetricsUtils.sizeOf.deepSizeOf(cacheEntries.peek()));
-        return size()*(ENTRY_OVERHEAD + CONFLICTTXSTREAM_OBJ_SIZE);
+        return (long) size() * ENTRY_SIZE;
     }
 
     /*
@@ -175,24 +230,230 @@ public class SequencerServerCache {
      * @param conflictStream conflict stream
      */
     public boolean put(ConflictTxStream conflictStream) {
+        return put(conflictStream.getStreamId(), conflictStream.getConflictParam(),
+                conflictStream.txVersion);
+    }
 
-        Long val = conflictKeys.getOrDefault(conflictStream, Address.NON_ADDRESS);
-        if (val > conflictStream.txVersion) {
+    /**
+     * Put the address of the latest update of a conflict key in the cache, without allocating.
+     *
+     * @param streamId      stream id of the conflict key
+     * @param conflictParam conflict param of the conflict key
+     * @param txVersion     global address of the update
+     * @return false if the cache has a greater address for the conflict key, true otherwise
+     */
+    public boolean put(UUID streamId, byte[] conflictParam, long txVersion) {
+        fingerprint(streamId, conflictParam);
+        final long hi = hashHi;
+        final long lo = hashLo;
+
+        int slot = find(hi, lo);
+        long val = slot < 0 ? Address.NON_ADDRESS : keyVersions[slot];
+        if (val > txVersion) {
             log.error("For key {} the new entry address {} is smaller than the entry " +
                             "address {} in cache. There is a sequencer regression.",
-                    conflictStream, conflictStream.txVersion, conflictKeys.get(conflictStream));
+                    streamId, txVersion, val);
             return false;
         }
 
-        cacheEntries.add(conflictStream);
-        conflictKeys.put(conflictStream, conflictStream.txVersion);
+        if (val == txVersion) {
+            return true;
+        }
+
+        if (slot < 0) {
+            insert(hi, lo, txVersion);
+        } else {
+            keyVersions[slot] = txVersion;
+        }
+        append(hi, lo, txVersion);
 
-        while (conflictKeys.size() > cacheSize) {
+        while (size > cacheSize) {
             invalidateSmallestTxVersion();
         }
         return true;
     }
 
+    private int next(int ringIndex) {
+        return ringIndex + 1 == ringVersions.length ? 0 : ringIndex + 1;
+    }
+
+    private int prev(int ringIndex) {
+        return ringIndex == 0 ? ringVersions.length - 1 : ringIndex - 1;
+    }
+
+    /**
+     * Adds an update to the ring buffer, keeping it sorted by version. Updates are almost always
+     * appended in version order, so the insertion point is found at the end of the buffer.
+     */
+    private void append(long hi, long lo, long txVersion) {
+        if (ringCount == ringVersions.length) {
+            compact();
+        }
+
+        int index = (ringHead + ringCount) % ringVersions.length;
+        for (int i = 0; i < ringCount; i++) {
+            int prev = prev(index);
+            if (ringVersions[prev] <= txVersion) {
+                break;
+            }
+            ringHi[index] = ringHi[prev];
+            ringLo[index] = ringLo[prev];
+            ringVersions[index] = ringVersions[prev];
+            index = prev;
+        }
+
+        ringHi[index] = hi;
+        ringLo[index] = lo;
+        ringVersions[index] = txVersion;
+        ringCount++;
+    }
+
+    /**
+     * Drops the stale updates from the ring buffer. Since the ring buffer has more capacity than
+     * the max number of entries in the cache, there is always room after a compaction.
+     */
+    private void compact() {
+        int live = 0;
+        int index = ringHead;
+        for (int i = 0; i < ringCount; i++) {
+            int slot = find(ringHi[index], ringLo[index]);
+            if (slot >= 0 && keyVersions[slot] == ringVersions[index]) {
+                int target = (ringHead + live) % ringVersions.length;
+                ringHi[target] = ringHi[index];
+                ringLo[target] = ringLo[index];
+                ringVersions[target] = ringVersions[index];
+                live++;
+            }
+            index = next(index);
+        }
+
+        log.trace("Compacted {} stale updates", ringCount - live);
+        ringCount = live;
+    }
+
+    /**
+     * @return the slot of a fingerprint in the table, or -1 if not present
+     */
+    private int find(long hi, long lo) {
+        int slot = (int) lo & tableMask;
+        while (keyVersions[slot] != EMPTY) {
+            if (keysHi[slot] == hi && keysLo[slot] == lo) {
+                return slot;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    private void insert(long hi, long lo, long txVersion) {
+        int slot = (int) lo & tableMask;
+        while (keyVersions[slot] != EMPTY) {
+            slot = (slot + 1) & tableMask;
+        }
+        keysHi[slot] = hi;
+        keysLo[slot] = lo;
+        keyVersions[slot] = txVersion;
+        size++;
+    }
+
+    /**
+     * Removes a slot from the table by shifting back the entries of its probe sequence,
+     * so that no tombstones are needed.
+     */
+    private void remove(int slot) {
+        int hole = slot;
+        int curr = (slot + 1) & tableMask;
+        while (keyVersions[curr] != EMPTY) {
+            int home = (int) keysLo[curr] & tableMask;
+            // Move the entry into the hole if the hole is between its home slot and its slot
+            if (((curr - home) & tableMask) >= ((curr - hole) & tableMask)) {
+                keysHi[hole] = keysHi[curr];
+                keysLo[hole] = keysLo[curr];
+                keyVersions[hole] = keyVersions[curr];
+                hole = curr;
+            }
+            curr = (curr + 1) & tableMask;
+        }
+        keyVersions[hole] = EMPTY;
+        size--;
+    }
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    /**
+     * Computes the 128-bit MurmurHash3 (x64) of the stream id followed by the conflict param,
+     * and stores it in {@link #hashHi} and {@link #hashLo}.
+     */
+    private void fingerprint(UUID streamId, byte[] conflictParam) {
+        long h1 = 0;
+        long h2 = 0;
+
+        h1 ^= mixK1(streamId.getMostSignificantBits());
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52dce729;
+        h2 ^= mixK2(streamId.getLeastSignificantBits());
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        final int blocks = conflictParam.length / 16;
+        for (int i = 0; i < blocks; i++) {
+            h1 ^= mixK1(getLong(conflictParam, i * 16, 8));
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(getLong(conflictParam, i * 16 + 8, 8));
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks * 16;
+        int remaining = conflictParam.length - tail;
+        if (remaining > 8) {
+            h2 ^= mixK2(getLong(conflictParam, tail + 8, remaining - 8));
+        }
+        if (remaining > 0) {
+            h1 ^= mixK1(getLong(conflictParam, tail, Math.min(remaining, 8)));
+        }
+
+        final long length = Long.BYTES * 2 + conflictParam.length;
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        hashHi = h1;
+        hashLo = h2;
+    }
+
+    private static long getLong(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << Byte.SIZE) | (bytes[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
     /**
      * Contains the conflict hash code for a stream ID and conflict param.
      */
@@ -239,6 +239,15 @@ public class ServerContext implements AutoCloseable {
         return lockLeaseDuration == null ? Lock.leaseDuration : lockLeaseDuration;
     }
 
+    /**
+     * Get the max number of sealed log segments that can be memory-mapped for reads.
+     * @return max number of mapped segments, 0 if memory-mapped reads are disabled
+     */
+    public int getLogUnitMaxMappedSegments() {
+        String val = getServerConfig(String.class, "--mmap-segments");
+        return val == null ? 0 : Integer.parseInt(val);
+    }
+
     /**
      * Get the max size of the log replication data message used by both snapshot data message and
      * log entry sync data message.
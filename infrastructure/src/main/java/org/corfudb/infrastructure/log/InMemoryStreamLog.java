@@ -57,6 +57,25 @@ public class InMemoryStreamLog implements StreamLog, StreamLogWithRankedAddressS
         }
     }
 
+    @Override
+    public synchronized void appendBatch(List<LogData> entries) {
+        for (LogData entry : entries) {
+            long address = entry.getGlobalAddress();
+            if (isTrimmed(address)) {
+                throw new OverwriteException(OverwriteCause.TRIM);
+            }
+
+            if (logCache.containsKey(address)) {
+                throwLogUnitExceptionsIfNecessary(address, entry);
+            }
+        }
+
+        for (LogData entry : entries) {
+            logCache.put(entry.getGlobalAddress(), entry);
+            logMetadata.update(entry, false);
+        }
+    }
+
     @Override
     public synchronized void append(long address, LogData entry) {
         if(isTrimmed(address)) {
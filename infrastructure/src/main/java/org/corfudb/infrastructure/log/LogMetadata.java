@@ -100,6 +100,32 @@ public class LogMetadata {
         });
     }
 
+    /**
+     * Merges a set of addresses that belong to a stream into the stream's space,
+     * this is equivalent to updating the stream's space for each address in the set.
+     *
+     * @param streamId stream identifier.
+     * @param addresses addresses that belong to the stream.
+     */
+    public void updateStreamSpace(UUID streamId, Roaring64NavigableMap addresses) {
+        if (addresses.isEmpty()) {
+            return;
+        }
+
+        long currentStreamTail = streamTails.getOrDefault(streamId, Address.NON_ADDRESS);
+        streamTails.put(streamId, Math.max(currentStreamTail, addresses.getReverseLongIterator().next()));
+
+        streamsAddressSpaceMap.compute(streamId, (id, addressSpace) -> {
+            if (addressSpace == null) {
+                Roaring64NavigableMap addressMap = new Roaring64NavigableMap();
+                addressMap.or(addresses);
+                return new StreamAddressSpace(Address.NON_EXIST, addressMap);
+            }
+            addressSpace.getAddressMap().or(addresses);
+            return addressSpace;
+        });
+    }
+
     /**
      * Update's relevant info of a stream's space from a checkpoint, concretely:
      * 1. Stream tail for those stream's that have all updates within a checkpoint.
@@ -110,9 +136,22 @@ public class LogMetadata {
      *                   false, otherwise.
      */
     private void updateFromCheckpoint(LogData entry, boolean initialize) {
-        UUID streamId = entry.getCheckpointedStreamId();
-        long lastUpdateToStream = entry.getCheckpointedStreamStartLogAddress();
+        updateFromCheckpoint(entry.getCheckpointedStreamId(), entry.getCheckpointedStreamStartLogAddress(),
+                entry.getCheckpointType(), initialize);
+    }
 
+    /**
+     * Update's relevant info of a stream's space from a checkpoint record.
+     *
+     * @param streamId checkpointed stream identifier
+     * @param lastUpdateToStream last update to the stream observed by the checkpoint
+     * @param checkpointType type of the checkpoint record
+     * @param initialize true, if called on log unit initialization (full scan)
+     *                   false, otherwise.
+     */
+    public void updateFromCheckpoint(UUID streamId, long lastUpdateToStream,
+                                     CheckpointEntry.CheckpointEntryType checkpointType,
+                                     boolean initialize) {
         if (Address.isAddress(lastUpdateToStream)) {
             // 1. Update stream tail
             long currentStreamTail = streamTails.getOrDefault(streamId, Address.NON_ADDRESS);
@@ -130,7 +169,7 @@ public class LogMetadata {
                 // If we hit a checkpoint END record we can use this info to compute the stream trim mark,
                 // i.e., last observed update to the stream that has already been checkpointed, hence
                 // can be safely trimmed from the log.
-                if (entry.getCheckpointType() == CheckpointEntry.CheckpointEntryType.END) {
+                if (checkpointType == CheckpointEntry.CheckpointEntryType.END) {
                     streamsAddressSpaceMap.compute(streamId, (id, addressSpace) -> {
                         if (addressSpace == null) {
                             // If this entry still does not exist, means no updates have been observed for
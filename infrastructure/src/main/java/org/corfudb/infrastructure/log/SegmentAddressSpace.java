@@ -0,0 +1,218 @@
+package org.corfudb.infrastructure.log;
+
+import lombok.Getter;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+import static org.corfudb.infrastructure.log.StreamLogFiles.RECORDS_PER_LOG_FILE;
+
+/**
+ * The address space of a single segment, i.e., the location of every record written to
+ * the segment file.
+ *
+ * <p>Addresses within a segment are dense, so the metadata of a record is stored in a flat
+ * array indexed by the address offset within the segment, rather than in a map of boxed
+ * addresses to {@link AddressMetaData}. A segment uses 16 bytes per address (160KB for a
+ * full segment of {@link StreamLogFiles#RECORDS_PER_LOG_FILE} records) and no per-record
+ * objects, whereas a ConcurrentHashMap uses about 90 bytes and three objects per record
+ * (map node, boxed key and metadata), i.e., about 900KB for a full segment.
+ *
+ * <p>The array is allocated on the first write to the segment. Writes are serialized by the
+ * segment lock, while reads can happen concurrently with writes. The first write of an address
+ * publishes its offset last, but overwriting an address (e.g. a ranked write) can't update both
+ * slots at once, so overwrites are versioned and readers retry if an overwrite ran concurrently.
+ */
+class SegmentAddressSpace {
+
+    // Offsets are never zero, since every segment file starts with a header
+    private static final long NO_OFFSET = 0L;
+
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    private static final int INT_BITS = 32;
+
+    @Getter
+    private final long segment;
+
+    private final long firstAddress;
+
+    /**
+     * Metadata of the records, two slots per address: the checksum and the length
+     * of the record, followed by the offset of the record in the segment file.
+     */
+    private volatile AtomicLongArray entries = null;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Version of the overwrites of this segment, odd while an overwrite is in progress.
+     */
+    private final AtomicLong overwriteVersion = new AtomicLong();
+
+    /**
+     * Addresses (relative to the first address of the segment) that are trimmed.
+     */
+    private final BitSet trimmed = new BitSet();
+
+    /**
+     * Addresses (relative to the first address of the segment) pending a trim.
+     */
+    private final BitSet pendingTrims = new BitSet();
+
+    SegmentAddressSpace(long segment) {
+        this.segment = segment;
+        this.firstAddress = segment * RECORDS_PER_LOG_FILE;
+    }
+
+    private boolean inSegment(long address) {
+        return address >= firstAddress && address < firstAddress + RECORDS_PER_LOG_FILE;
+    }
+
+    private int slot(long address) {
+        if (!inSegment(address)) {
+            throw new IllegalArgumentException("Address " + address + " is not in segment " + segment);
+        }
+        return (int) (address - firstAddress);
+    }
+
+    /**
+     * Returns the metadata of the record written at an address.
+     *
+     * @param address global address
+     * @return the record metadata, or null if the address isn't written to this segment
+     */
+    AddressMetaData get(long address) {
+        AtomicLongArray currEntries = entries;
+        if (currEntries == null || !inSegment(address)) {
+            return null;
+        }
+
+        int slot = slot(address);
+        while (true) {
+            long version = overwriteVersion.get();
+            if ((version & 1) != 0) {
+                continue;
+            }
+
+            // The offset is written last, so the length and checksum
+            // are visible once the offset has been read.
+            long offset = currEntries.get(2 * slot + 1);
+            if (offset == NO_OFFSET) {
+                return null;
+            }
+
+            long checksumAndLength = currEntries.get(2 * slot);
+            if (overwriteVersion.get() != version) {
+                // Torn by a concurrent overwrite
+                continue;
+            }
+            return new AddressMetaData((int) (checksumAndLength >>> INT_BITS),
+                    (int) (checksumAndLength & INT_MASK), offset);
+        }
+    }
+
+    /**
+     * Checks if an address has been written to this segment.
+     *
+     * @param address global address
+     * @return true if the address is written to this segment, false otherwise
+     */
+    boolean contains(long address) {
+        AtomicLongArray currEntries = entries;
+        return currEntries != null && inSegment(address)
+                && currEntries.get(2 * slot(address) + 1) != NO_OFFSET;
+    }
+
+    /**
+     * Records the metadata of a record written to this segment.
+     *
+     * @param address  global address of the record
+     * @param metaData metadata of the record
+     */
+    void put(long address, AddressMetaData metaData) {
+        int slot = slot(address);
+        if (metaData.offset == NO_OFFSET) {
+            throw new IllegalArgumentException("Invalid offset for address " + address);
+        }
+
+        AtomicLongArray currEntries = getOrAllocateEntries();
+        long checksumAndLength = ((long) metaData.checksum << INT_BITS) | (metaData.length & INT_MASK);
+        if (currEntries.get(2 * slot + 1) == NO_OFFSET) {
+            currEntries.set(2 * slot, checksumAndLength);
+            currEntries.set(2 * slot + 1, metaData.offset);
+            size.incrementAndGet();
+            return;
+        }
+
+        overwriteVersion.incrementAndGet();
+        try {
+            currEntries.set(2 * slot, checksumAndLength);
+            currEntries.set(2 * slot + 1, metaData.offset);
+        } finally {
+            overwriteVersion.incrementAndGet();
+        }
+    }
+
+    private AtomicLongArray getOrAllocateEntries() {
+        AtomicLongArray currEntries = entries;
+        if (currEntries == null) {
+            synchronized (this) {
+                currEntries = entries;
+                if (currEntries == null) {
+                    currEntries = new AtomicLongArray(2 * RECORDS_PER_LOG_FILE);
+                    entries = currEntries;
+                }
+            }
+        }
+        return currEntries;
+    }
+
+    /**
+     * @return the number of addresses written to this segment
+     */
+    int size() {
+        return size.get();
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Performs an action for every address written to this segment, in address order.
+     *
+     * @param action action to perform on the address
+     */
+    void forEachAddress(LongConsumer action) {
+        AtomicLongArray currEntries = entries;
+        if (currEntries == null) {
+            return;
+        }
+
+        for (int slot = 0; slot < RECORDS_PER_LOG_FILE; slot++) {
+            if (currEntries.get(2 * slot + 1) != NO_OFFSET) {
+                action.accept(firstAddress + slot);
+            }
+        }
+    }
+
+    synchronized boolean isTrimmed(long address) {
+        return inSegment(address) && trimmed.get(slot(address));
+    }
+
+    synchronized void trim(long address) {
+        trimmed.set(slot(address));
+    }
+
+    synchronized boolean isPendingTrim(long address) {
+        return inSegment(address) && pendingTrims.get(slot(address));
+    }
+
+    synchronized void addPendingTrim(long address) {
+        pendingTrims.set(slot(address));
+    }
+}
@@ -8,11 +8,8 @@ import org.apache.commons.io.IOUtils;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The global log is partition into segments, each segment contains a range of consecutive
@@ -34,11 +31,19 @@ class SegmentHandle {
     @NonNull
     String fileName;
 
-    private final Map<Long, AddressMetaData> knownAddresses = new ConcurrentHashMap<>();
-    private final Set<Long> trimmedAddresses = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    private final Set<Long> pendingTrims = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // Address space of the segment, including the trimmed and pending trim addresses
+    private final SegmentAddressSpace knownAddresses;
+    private final SegmentIndex index = new SegmentIndex();
     private volatile int refCount = 0;
 
+    SegmentHandle(long segment, @NonNull FileChannel writeChannel,
+                  @NonNull FileChannel readChannel, @NonNull String fileName) {
+        this.segment = segment;
+        this.writeChannel = writeChannel;
+        this.readChannel = readChannel;
+        this.fileName = fileName;
+        this.knownAddresses = new SegmentAddressSpace(segment);
+    }
 
     public synchronized void retain() {
         refCount++;
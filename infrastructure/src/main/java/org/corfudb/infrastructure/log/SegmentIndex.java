@@ -0,0 +1,208 @@
+package org.corfudb.infrastructure.log;
+
+import com.google.protobuf.ByteString;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.corfudb.infrastructure.log.LogFormat.CheckpointEntryType;
+import org.corfudb.infrastructure.log.LogFormat.LogEntry;
+import org.corfudb.infrastructure.log.LogFormat.SegmentIndexCheckpoint;
+import org.corfudb.infrastructure.log.LogFormat.SegmentIndexEntry;
+import org.corfudb.protocols.logprotocol.CheckpointEntry;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Summary of the log metadata contained in a single segment, i.e., the addresses of every
+ * stream and the checkpoint records written to the segment.
+ *
+ * <p>The index is built incrementally as records are written to (or scanned from) the segment
+ * and it is persisted next to the segment once the segment is sealed. On startup, a persisted
+ * index allows the segment's address space and the {@link LogMetadata} to be loaded without
+ * reading and deserializing every record of the segment.
+ */
+class SegmentIndex {
+
+    public static final int VERSION = 1;
+
+    /**
+     * Addresses of every stream that has an update in this segment.
+     */
+    private final Map<UUID, Roaring64NavigableMap> streamAddresses = new HashMap<>();
+
+    /**
+     * Checkpoint records written to this segment, indexed by address.
+     */
+    private final Map<Long, CheckpointRecord> checkpoints = new HashMap<>();
+
+    /**
+     * Whether this index has updates that have not been persisted.
+     */
+    @Getter
+    private volatile boolean dirty = false;
+
+    /**
+     * Adds a log entry to the index.
+     *
+     * @param entry log entry written to (or read from) the segment
+     */
+    synchronized void add(LogEntry entry) {
+        long address = entry.getGlobalAddress();
+
+        for (String streamId : entry.getStreamsList()) {
+            streamAddresses.computeIfAbsent(UUID.fromString(streamId), id -> new Roaring64NavigableMap())
+                    .addLong(address);
+        }
+
+        if (entry.hasCheckpointEntryType()) {
+            UUID streamId = new UUID(entry.getCheckpointedStreamIdMostSignificant(),
+                    entry.getCheckpointedStreamIdLeastSignificant());
+            checkpoints.put(address, new CheckpointRecord(streamId,
+                    entry.getCheckpointedStreamStartLogAddress(),
+                    CheckpointEntry.CheckpointEntryType.typeMap
+                            .get((byte) entry.getCheckpointEntryType().getNumber())));
+        }
+
+        dirty = true;
+    }
+
+    /**
+     * Applies the content of this index to the log metadata, this is equivalent to
+     * updating the log metadata with every (non-trimmed) entry of the segment.
+     *
+     * @param logMetadata     log metadata to update
+     * @param knownAddresses  address space of the segment
+     * @param startingAddress first address of the log that is not trimmed
+     */
+    synchronized void applyTo(LogMetadata logMetadata, SegmentAddressSpace knownAddresses, long startingAddress) {
+        knownAddresses.forEachAddress(address -> {
+            if (address >= startingAddress) {
+                logMetadata.updateGlobalTail(address);
+            }
+        });
+
+        for (Map.Entry<UUID, Roaring64NavigableMap> entry : streamAddresses.entrySet()) {
+            Roaring64NavigableMap addresses = entry.getValue();
+            if (!addresses.isEmpty() && addresses.getLongIterator().next() < startingAddress) {
+                // This segment contains the starting address, skip trimmed entries
+                Roaring64NavigableMap untrimmed = new Roaring64NavigableMap();
+                addresses.forEach(address -> {
+                    if (address >= startingAddress) {
+                        untrimmed.addLong(address);
+                    }
+                });
+                addresses = untrimmed;
+            }
+            logMetadata.updateStreamSpace(entry.getKey(), addresses);
+        }
+
+        for (Map.Entry<Long, CheckpointRecord> entry : checkpoints.entrySet()) {
+            if (entry.getKey() < startingAddress) {
+                continue;
+            }
+            CheckpointRecord record = entry.getValue();
+            logMetadata.updateFromCheckpoint(record.streamId, record.startAddress, record.type, true);
+        }
+    }
+
+    /**
+     * Serializes this index.
+     *
+     * @param segment        segment number
+     * @param segmentSize    size of the segment file covered by this index
+     * @param knownAddresses address space of the segment
+     * @return the protobuf representation of this index
+     */
+    synchronized LogFormat.SegmentIndex toProto(long segment, long segmentSize,
+                                                SegmentAddressSpace knownAddresses) {
+        LogFormat.SegmentIndex.Builder builder = LogFormat.SegmentIndex.newBuilder()
+                .setVersion(VERSION)
+                .setSegment(segment)
+                .setSegmentSize(segmentSize);
+
+        knownAddresses.forEachAddress(address -> {
+            AddressMetaData metadata = knownAddresses.get(address);
+            builder.addEntries(SegmentIndexEntry.newBuilder()
+                    .setAddress(address)
+                    .setOffset(metadata.offset)
+                    .setLength(metadata.length)
+                    .setChecksum(metadata.checksum)
+                    .build());
+        });
+
+        streamAddresses.forEach((streamId, addresses) ->
+                builder.putStreamAddresses(streamId.toString(), serialize(addresses)));
+
+        checkpoints.forEach((address, record) -> builder.addCheckpoints(SegmentIndexCheckpoint.newBuilder()
+                .setAddress(address)
+                .setCheckpointedStreamIdMostSignificant(record.streamId.getMostSignificantBits())
+                .setCheckpointedStreamIdLeastSignificant(record.streamId.getLeastSignificantBits())
+                .setCheckpointedStreamStartLogAddress(record.startAddress)
+                .setCheckpointEntryType(CheckpointEntryType.forNumber(record.type.ordinal()))
+                .build()));
+
+        dirty = false;
+        return builder.build();
+    }
+
+    /**
+     * Loads a persisted index into this index and the segment's address space.
+     *
+     * @param index          persisted index
+     * @param knownAddresses address space of the segment to load
+     */
+    synchronized void load(LogFormat.SegmentIndex index, SegmentAddressSpace knownAddresses) {
+        for (SegmentIndexEntry entry : index.getEntriesList()) {
+            knownAddresses.put(entry.getAddress(),
+                    new AddressMetaData(entry.getChecksum(), entry.getLength(), entry.getOffset()));
+        }
+
+        index.getStreamAddressesMap().forEach((streamId, addresses) ->
+                streamAddresses.put(UUID.fromString(streamId), deserialize(addresses)));
+
+        for (SegmentIndexCheckpoint checkpoint : index.getCheckpointsList()) {
+            UUID streamId = new UUID(checkpoint.getCheckpointedStreamIdMostSignificant(),
+                    checkpoint.getCheckpointedStreamIdLeastSignificant());
+            checkpoints.put(checkpoint.getAddress(), new CheckpointRecord(streamId,
+                    checkpoint.getCheckpointedStreamStartLogAddress(),
+                    CheckpointEntry.CheckpointEntryType.typeMap
+                            .get((byte) checkpoint.getCheckpointEntryType().getNumber())));
+        }
+    }
+
+    private static ByteString serialize(Roaring64NavigableMap addresses) {
+        addresses.runOptimize();
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             DataOutputStream dos = new DataOutputStream(bos)) {
+            addresses.serialize(dos);
+            dos.flush();
+            return ByteString.copyFrom(bos.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Roaring64NavigableMap deserialize(ByteString bytes) {
+        try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Roaring64NavigableMap addresses = new Roaring64NavigableMap();
+            addresses.deserialize(dis);
+            return addresses;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class CheckpointRecord {
+        final UUID streamId;
+        final long startAddress;
+        final CheckpointEntry.CheckpointEntryType type;
+    }
+}
@@ -0,0 +1,90 @@
+package org.corfudb.infrastructure.log;
+
+import io.netty.util.internal.PlatformDependent;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.MappedByteBuffer;
+
+/**
+ * Read-only memory mapping of a sealed segment file. The records read from the mapping
+ * alias it until they are copied out, so readers retain the mapping while they parse a
+ * record and release it afterwards. A mapping that is evicted, trimmed or closed is
+ * retired: it can't be retained anymore, and it is unmapped as soon as its last reader
+ * releases it, which frees the disk space of a deleted segment file right away instead
+ * of whenever the buffer is garbage collected.
+ */
+@Slf4j
+class SegmentMapping {
+
+    @Getter
+    @NonNull
+    private final SegmentHandle segmentHandle;
+
+    @Getter
+    @NonNull
+    private final MappedByteBuffer buffer;
+
+    // Number of readers currently parsing records from the mapping
+    private int refCount = 0;
+
+    private boolean retired = false;
+
+    private boolean unmapped = false;
+
+    SegmentMapping(@NonNull SegmentHandle segmentHandle, @NonNull MappedByteBuffer buffer) {
+        this.segmentHandle = segmentHandle;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Retain the mapping for a reader, which may access the mapped buffer until it
+     * releases the mapping.
+     */
+    public synchronized void retain() {
+        if (retired) {
+            throw new IllegalStateException("Mapping of segment " + segmentHandle.getSegment()
+                    + " is retired");
+        }
+        refCount++;
+    }
+
+    /**
+     * Release the mapping retained by a reader, which must not access the mapped
+     * buffer or anything aliasing it anymore.
+     */
+    public synchronized void release() {
+        if (refCount == 0) {
+            throw new IllegalStateException("refCount cannot be less than 0, mapping of segment "
+                    + segmentHandle.getSegment());
+        }
+        refCount--;
+        if (retired && refCount == 0) {
+            unmap();
+        }
+    }
+
+    /**
+     * Retire the mapping, it is unmapped once no reader retains it.
+     */
+    public synchronized void retire() {
+        if (retired) {
+            return;
+        }
+        retired = true;
+        if (refCount == 0) {
+            unmap();
+        }
+    }
+
+    public synchronized boolean isUnmapped() {
+        return unmapped;
+    }
+
+    private void unmap() {
+        PlatformDependent.freeDirectBuffer(buffer);
+        unmapped = true;
+        log.trace("unmap: unmapped {}", segmentHandle.getFileName());
+    }
+}
@@ -35,6 +35,16 @@ public interface StreamLog {
      */
     void append(List<LogData> entries);
 
+    /**
+     * Append a batch of consecutive client writes of a single segment. Unlike the range
+     * append used by state transfer, every entry is checked like a single address append
+     * and an OverwriteException is thrown, before any entry is written, if an address is
+     * trimmed or already written.
+     *
+     * @param entries consecutive entries of a single segment, ordered by their addresses
+     */
+    void appendBatch(List<LogData> entries);
+
     /**
      * Given an address, read the corresponding stream entry.
      * @param address  address to read from the log
@@ -1,12 +1,13 @@
 package org.corfudb.infrastructure.log;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Sets;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
 import io.netty.buffer.Unpooled;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
@@ -48,6 +49,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
@@ -55,6 +57,7 @@ import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -90,7 +93,11 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
     public static final int VERSION = 2;
     public static final int RECORDS_PER_LOG_FILE = 10000;
+    public static final String SEGMENT_INDEX_EXTENSION = ".index";
     private final Path logDir;
+
+    // Directory that holds the persisted indexes of sealed segments
+    private final Path indexDir;
     private final boolean verify;
 
     private final StreamLogDataStore dataStore;
@@ -99,6 +106,12 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     private final Set<FileChannel> channelsToSync;
     private final MultiReadWriteLock segmentLocks = new MultiReadWriteLock();
 
+    // Max number of sealed segments that are memory-mapped for reads (0 disables mapping)
+    private final int maxMappedSegments;
+
+    // Mappings of the segments that are currently memory-mapped, in access order
+    private final Map<Long, SegmentMapping> mappedSegments;
+
     //=================Log Metadata=================
     // TODO(Maithem) this should effectively be final, but it is used
     // by a reset API that clears the state of this class, on reset
@@ -128,10 +141,24 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      */
     public StreamLogFiles(ServerContext serverContext, boolean noVerify) {
         logDir = Paths.get(serverContext.getServerConfig().get("--log-path").toString(), "log");
+        indexDir = Paths.get(serverContext.getServerConfig().get("--log-path").toString(), "index");
         writeChannels = new ConcurrentHashMap<>();
         channelsToSync = new HashSet<>();
         this.verify = !noVerify;
         this.dataStore = new StreamLogDataStore(serverContext.getDataStore());
+        this.maxMappedSegments = serverContext.getLogUnitMaxMappedSegments();
+        // Access ordered, so that the least recently read segment is evicted first
+        this.mappedSegments = new LinkedHashMap<Long, SegmentMapping>(maxMappedSegments + 1, 1, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SegmentMapping> eldest) {
+                if (size() <= maxMappedSegments) {
+                    return false;
+                }
+                // Readers might still be using the mapping, it is unmapped once they release it
+                eldest.getValue().retire();
+                return true;
+            }
+        };
 
         String logSizeLimitPercentageParam = (String) serverContext.getServerConfig().get("--log-size-quota-percentage");
         final double logSizeLimitPercentage = Double.parseDouble(logSizeLimitPercentageParam);
@@ -178,6 +205,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 Files.createDirectories(logDir);
             }
 
+            if (!indexDir.toFile().exists()) {
+                Files.createDirectories(indexDir);
+            }
+
             String corfuDir = logDir.getParent().toString();
             FileStore corfuDirBackend = Files.getFileStore(Paths.get(corfuDir));
 
@@ -201,9 +232,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     }
 
     /**
-     * This method will scan the log (i.e. read all log segment files)
-     * on this LU and create a map of stream offsets and the global
-     * addresses seen.
+     * This method will load the address space of every segment on this LU
+     * and create a map of stream offsets and the global addresses seen.
+     * Segments that have a persisted index are loaded from the index, the
+     * rest of the segments are scanned (i.e. every record is read).
      *
      * consecutive segments from [startSegment, endSegment]
      */
@@ -219,13 +251,14 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         for (long currentSegment = tailSegment; currentSegment >= startingSegment; currentSegment--) {
             SegmentHandle segment = getSegmentHandleForAddress(currentSegment * RECORDS_PER_LOG_FILE + 1);
             try {
-                for (Long address : segment.getKnownAddresses().keySet()) {
-                    // skip trimmed entries
-                    if (address < dataStore.getStartingAddress()) {
-                        continue;
-                    }
-                    LogData logEntry = read(address);
-                    logMetadata.update(logEntry, true);
+                // The segment index summarizes every record of the segment, trimmed entries are skipped
+                segment.getIndex().applyTo(logMetadata, segment.getKnownAddresses(),
+                        dataStore.getStartingAddress());
+
+                // Persist the index of sealed segments that had to be scanned, so
+                // that they can be loaded without a scan on the next startup
+                if (currentSegment < tailSegment && segment.getIndex().isDirty()) {
+                    writeSegmentIndex(segment);
                 }
             } finally {
                 segment.close();
@@ -401,7 +434,11 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     public void sync(boolean force) throws IOException {
         if (force) {
             for (FileChannel ch : channelsToSync) {
-                ch.force(true);
+                // The segment might have been closed (i.e. trimmed or reset) since
+                // it was written, in which case there is nothing left to sync.
+                if (ch.isOpen()) {
+                    ch.force(true);
+                }
             }
         }
         log.trace("Sync'd {} channels", channelsToSync.size());
@@ -414,6 +451,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         lock.lock();
         try {
             trimPrefix();
+            writeSealedSegmentIndexes();
         } finally {
             lock.unlock();
         }
@@ -447,17 +485,21 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             }
         });
 
+        deleteSegmentIndexes(endSegment);
+
         log.info("trimPrefix: completed, end segment {}", endSegment);
     }
 
     private LogData getLogData(LogEntry entry) {
-        ByteBuffer entryData = ByteBuffer.wrap(entry.getData().toByteArray());
+        // The entry data aliases the buffer the entry was parsed from (see parseLogEntry),
+        // LogData copies it once into its own byte array.
+        ByteBuffer entryData = entry.getData().asReadOnlyByteBuffer();
 
         int ldCodecType = entry.hasCodecType() ? entry.getCodecType() : Codec.Type.NONE.getId();
 
         LogData logData = new LogData(org.corfudb.protocols.wireprotocol
                 .DataType.typeMap.get((byte) entry.getDataType().getNumber()),
-                Unpooled.wrappedBuffer(entryData.array()), ldCodecType);
+                Unpooled.wrappedBuffer(entryData), ldCodecType);
 
         logData.setBackpointerMap(getUUIDLongMap(entry.getBackpointersMap()));
         logData.setGlobalAddress(entry.getGlobalAddress());
@@ -666,6 +708,31 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         return entry;
     }
 
+    /**
+     * Loads the address space of a segment, from its persisted index if it is
+     * available and valid, otherwise by scanning the log file.
+     *
+     * @param segment Object containing state for the segment to be loaded
+     */
+    private void loadAddressSpace(SegmentHandle segment) throws IOException {
+        FileChannel fileChannel = segment.getWriteChannel();
+        LogFormat.SegmentIndex index = readSegmentIndex(segment.getSegment());
+
+        if (index == null || index.getSegmentSize() > fileChannel.size()) {
+            readAddressSpace(segment);
+            return;
+        }
+
+        segment.getIndex().load(index, segment.getKnownAddresses());
+
+        // Records that were written to the segment after its index was
+        // persisted (e.g. holes filled after sealing) still need to be scanned.
+        fileChannel.position(index.getSegmentSize());
+        readRecords(segment);
+        log.debug("loadAddressSpace: loaded {} from index, {} addresses", segment.getFileName(),
+                segment.getKnownAddresses().size());
+    }
+
     /**
      * Reads an address space from a log file into a SegmentHandle.
      *
@@ -682,6 +749,18 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             return;
         }
 
+        readRecords(segment);
+    }
+
+    /**
+     * Reads the records of a log file, from the current position of the channel
+     * to the end of the file, into a SegmentHandle.
+     *
+     * @param segment Object containing state for the segment to be read
+     */
+    private void readRecords(SegmentHandle segment) throws IOException {
+        FileChannel fileChannel = segment.getWriteChannel();
+
         while (fileChannel.size() - fileChannel.position() > 0) {
             long channelOffset = fileChannel.position();
             Metadata metadata = parseMetadata(fileChannel, segment.getFileName());
@@ -709,11 +788,133 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             );
 
             segment.getKnownAddresses().put(entry.getGlobalAddress(), addressMetadata);
+            segment.getIndex().add(entry);
+        }
+    }
+
+    private Path getSegmentIndexPath(long segment) {
+        return indexDir.resolve(segment + SEGMENT_INDEX_EXTENSION);
+    }
+
+    /**
+     * Reads the persisted index of a segment.
+     *
+     * @param segment the segment number
+     * @return the segment index, or null if it doesn't exist or it is not valid
+     */
+    @Nullable
+    private LogFormat.SegmentIndex readSegmentIndex(long segment) {
+        Path indexFile = getSegmentIndexPath(segment);
+        if (!indexFile.toFile().exists()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            Metadata metadata = parseMetadata(channel, indexFile.toString());
+            ByteBuffer buffer = metadata == null ? null : getPayloadForMetadata(channel, metadata);
+            if (buffer == null || Checksum.getChecksum(buffer.array()) != metadata.getPayloadChecksum()) {
+                log.warn("readSegmentIndex: ignoring partially written or corrupted index {}", indexFile);
+                return null;
+            }
+
+            LogFormat.SegmentIndex index = LogFormat.SegmentIndex.parseFrom(buffer.array());
+            if (index.getVersion() != SegmentIndex.VERSION || index.getSegment() != segment) {
+                log.warn("readSegmentIndex: ignoring index {}, version {}, segment {}", indexFile,
+                        index.getVersion(), index.getSegment());
+                return null;
+            }
+
+            return index;
+        } catch (IOException | DataCorruptionException e) {
+            log.warn("readSegmentIndex: failed to load index {}, the segment will be scanned", indexFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Persists the index of a segment. The index is first written to a temporary
+     * file, which then atomically replaces the previous index of the segment.
+     *
+     * @param segment the segment to write the index for
+     */
+    private void writeSegmentIndex(SegmentHandle segment) {
+        Path indexFile = getSegmentIndexPath(segment.getSegment());
+        Path tmpIndexFile = Paths.get(indexFile + ".tmp");
+
+        try {
+            LogFormat.SegmentIndex index;
+            try (MultiReadWriteLock.AutoCloseableLock ignored =
+                         segmentLocks.acquireWriteLock(segment.getSegment())) {
+                // Writes are blocked while taking the snapshot, so that the index
+                // covers exactly the records contained in the first segment_size bytes.
+                segment.getWriteChannel().force(true);
+                index = segment.getIndex().toProto(segment.getSegment(),
+                        segment.getWriteChannel().size(), segment.getKnownAddresses());
+            }
+
+            ByteBuffer buf = getByteBufferWithMetaData(index);
+            try (FileChannel channel = FileChannel.open(tmpIndexFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+                channel.force(true);
+            }
+
+            Files.move(tmpIndexFile, indexFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(indexDir.toString());
+            log.debug("writeSegmentIndex: persisted {}, {} addresses", indexFile, index.getEntriesCount());
+        } catch (IOException e) {
+            // The segment will be scanned on the next startup
+            log.error("writeSegmentIndex: failed to persist {}", indexFile, e);
+        }
+    }
+
+    /**
+     * Persists the indexes of the open sealed segments (i.e. segments
+     * preceding the tail segment) that have not been persisted yet.
+     */
+    private void writeSealedSegmentIndexes() {
+        long tailSegment = dataStore.getTailSegment();
+        for (SegmentHandle sh : writeChannels.values()) {
+            if (sh.getSegment() < tailSegment && sh.getIndex().isDirty()) {
+                writeSegmentIndex(sh);
+            }
+        }
+    }
+
+    /**
+     * Deletes the indexes of all the segments up to and including endSegment.
+     *
+     * @param endSegment The segment index of the last segment
+     */
+    private void deleteSegmentIndexes(long endSegment) {
+        File[] files = indexDir.toFile().listFiles(file -> {
+            try {
+                String segmentStr = file.getName().split("\\.")[0];
+                return Long.parseLong(segmentStr) <= endSegment;
+            } catch (Exception e) {
+                log.warn("deleteSegmentIndexes: ignoring file {}", file.getName());
+                return false;
+            }
+        });
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (!file.delete()) {
+                log.error("deleteSegmentIndexes: Couldn't delete file {}", file.getName());
+            }
         }
     }
 
     /**
-     * Read a log entry in a file.
+     * Read a log entry in a file. Records of sealed segments are read from the
+     * segment's read-only mapping (if enabled), otherwise they are read from the
+     * segment's read channel.
      *
      * @param segment The file handle to use.
      * @param address The address of the entry.
@@ -728,15 +929,95 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             return null;
         }
 
+        SegmentMapping mapping = retainMapping(segment);
         try {
-            ByteBuffer entryBuf = ByteBuffer.allocate(metaData.length);
-            fileChannel.read(entryBuf, metaData.offset);
-            return getLogData(LogEntry.parseFrom(entryBuf.array()));
+            ByteBuffer entryBuf;
+
+            // Records written after the segment was mapped are not covered by the mapping
+            if (mapping != null && metaData.offset + metaData.length <= mapping.getBuffer().capacity()) {
+                entryBuf = mapping.getBuffer().duplicate();
+                entryBuf.position((int) metaData.offset);
+                entryBuf.limit((int) metaData.offset + metaData.length);
+            } else {
+                entryBuf = ByteBuffer.allocate(metaData.length);
+                fileChannel.read(entryBuf, metaData.offset);
+                entryBuf.flip();
+            }
+
+            // The parsed entry aliases the mapping until getLogData copies its data
+            return getLogData(parseLogEntry(entryBuf));
         } catch (InvalidProtocolBufferException e) {
             String errorMessage = getDataCorruptionErrorMessage("Invalid entry",
                     fileChannel, segment.getFileName()
             );
             throw new DataCorruptionException(errorMessage, e);
+        } finally {
+            if (mapping != null) {
+                mapping.release();
+            }
+        }
+    }
+
+    /**
+     * Parse a log entry without copying its data, the data of the returned
+     * entry aliases the provided buffer.
+     *
+     * @param buf buffer that contains the serialized entry
+     * @return the log entry
+     * @throws IOException IO exception
+     */
+    private LogEntry parseLogEntry(ByteBuffer buf) throws IOException {
+        CodedInputStream input = UnsafeByteOperations.unsafeWrap(buf).newCodedInput();
+        input.enableAliasing(true);
+        return LogEntry.parseFrom(input);
+    }
+
+    /**
+     * Retain the read-only mapping of a sealed segment, mapping the segment file if it
+     * hasn't been mapped yet. The tail segment is never mapped, since it is still
+     * being written to. The caller must release the returned mapping once it is done
+     * with the records read from it.
+     *
+     * @param segment the segment to get the mapping for
+     * @return the retained mapping of the segment, or null if the segment can't be mapped
+     * @throws IOException IO exception
+     */
+    @Nullable
+    private SegmentMapping retainMapping(SegmentHandle segment) throws IOException {
+        if (maxMappedSegments <= 0 || segment.getSegment() >= dataStore.getTailSegment()) {
+            return null;
+        }
+
+        synchronized (mappedSegments) {
+            // The lookup records the access, which defers the eviction of the mapping
+            SegmentMapping mapping = mappedSegments.get(segment.getSegment());
+            if (mapping == null || mapping.getSegmentHandle() != segment) {
+                FileChannel channel = segment.getReadChannel();
+                // A single mapping can't cover more than Integer.MAX_VALUE bytes
+                if (!channel.isOpen() || channel.size() > Integer.MAX_VALUE) {
+                    return null;
+                }
+                mapping = new SegmentMapping(segment,
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                SegmentMapping previous = mappedSegments.put(segment.getSegment(), mapping);
+                if (previous != null) {
+                    previous.retire();
+                }
+                log.trace("retainMapping: mapped {}, {} bytes", segment.getFileName(), channel.size());
+            }
+            // Mappings are only retired once removed, under this lock
+            mapping.retain();
+            return mapping;
+        }
+    }
+
+    /**
+     * @return the current mappings of the segments, by segment
+     */
+    @VisibleForTesting
+    Map<Long, SegmentMapping> getSegmentMappings() {
+        synchronized (mappedSegments) {
+            return new HashMap<>(mappedSegments);
         }
     }
 
@@ -797,10 +1078,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 readCh = getChannel(a, true);
 
                 SegmentHandle sh = new SegmentHandle(segment, writeCh, readCh, a);
-                // The first time we open a file we should read to the end, to load the
-                // map of entries we already have.
+                // The first time we open a file we should load the map of entries we already
+                // have, either from the segment index or by reading to the end of the file.
                 // Once the segment address space is loaded, it should be ready to accept writes.
-                readAddressSpace(sh);
+                loadAddressSpace(sh);
                 return sh;
             } catch (IOException e) {
                 log.error("Error opening file {}", a, e);
@@ -918,26 +1199,30 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     }
 
     /**
-     * Write a list of LogData entries to the log file.
+     * Write a list of LogData entries to the log file, and add the
+     * written records to the segment's address space.
      *
-     * @param segment segment handle to the logfile
-     * @param entries list of LogData entries to write.
-     * @return A map of AddressMetaData for the written records
+     * @param segment    segment handle to the logfile
+     * @param entries    list of LogData entries to write.
+     * @param initialize true if the entries are written by state transfer, whose checkpoint
+     *                   records also update the stream trim marks, false for client writes.
      * @throws IOException IO exception
      */
-    private Map<Long, AddressMetaData> writeRecords(SegmentHandle segment,
-                                                    List<LogData> entries) throws IOException {
-        Map<Long, AddressMetaData> recordsMap = new HashMap<>();
+    private void writeRecords(SegmentHandle segment, List<LogData> entries, boolean initialize)
+            throws IOException {
+        List<AddressMetaData> recordsMetaData = new ArrayList<>();
 
         List<ByteBuffer> entryBuffs = new ArrayList<>();
         int totalBytes = 0;
 
         List<Metadata> metadataList = new ArrayList<>();
+        List<LogEntry> logEntries = new ArrayList<>();
 
         for (LogData curr : entries) {
             LogEntry logEntry = getLogEntry(curr.getGlobalAddress(), curr);
             Metadata metadata = getMetadata(logEntry);
             metadataList.add(metadata);
+            logEntries.add(logEntry);
             ByteBuffer record = getByteBuffer(metadata, logEntry);
             totalBytes += record.limit();
             entryBuffs.add(record);
@@ -952,21 +1237,28 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                         + allRecordsBuf.position() + METADATA_SIZE;
                 allRecordsBuf.put(entryBuffs.get(ind));
                 Metadata metadata = metadataList.get(ind);
-                recordsMap.put(entries.get(ind).getGlobalAddress(),
-                        new AddressMetaData(metadata.getPayloadChecksum(),
-                                metadata.getLength(), channelOffset));
+                recordsMetaData.add(new AddressMetaData(metadata.getPayloadChecksum(),
+                        metadata.getLength(), channelOffset));
             }
 
             allRecordsBuf.flip();
             writeByteBuffer(segment.getWriteChannel(), allRecordsBuf);
             channelsToSync.add(segment.getWriteChannel());
+            // The address space and the index are updated under the segment lock,
+            // so that a persisted segment index is consistent with the segment file.
+            for (int ind = 0; ind < entries.size(); ind++) {
+                segment.getKnownAddresses().put(entries.get(ind).getGlobalAddress(), recordsMetaData.get(ind));
+            }
+            logEntries.forEach(segment.getIndex()::add);
             // Sync the global and stream tail(s)
             // TODO(Maithem): on ioexceptions the StreamLogFiles needs to be reinitialized
             syncTailSegment(entries.get(entries.size() - 1).getGlobalAddress());
-            logMetadata.update(entries);
+            if (initialize) {
+                logMetadata.update(entries);
+            } else {
+                entries.forEach(entry -> logMetadata.update(entry, false));
+            }
         }
-
-        return recordsMap;
     }
 
     /**
@@ -988,15 +1280,14 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     }
 
     /**
-     * Write a log entry record to a file.
+     * Write a log entry record to a file, and add the written
+     * record to the segment's address space.
      *
      * @param segment The file handle to use.
      * @param address The address of the entry.
      * @param entry   The LogData to append.
-     * @return Returns metadata for the written record
      */
-    private AddressMetaData writeRecord(SegmentHandle segment, long address,
-                                        LogData entry) throws IOException {
+    private void writeRecord(SegmentHandle segment, long address, LogData entry) throws IOException {
 
         LogEntry logEntry = getLogEntry(address, entry);
         Metadata metadata = getMetadata(logEntry);
@@ -1009,10 +1300,12 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             channelOffset = segment.getWriteChannel().position() + METADATA_SIZE;
             writeByteBuffer(segment.getWriteChannel(), record);
             channelsToSync.add(segment.getWriteChannel());
+            segment.getKnownAddresses().put(address,
+                    new AddressMetaData(metadata.getPayloadChecksum(), metadata.getLength(), channelOffset));
+            segment.getIndex().add(logEntry);
             syncTailSegment(address);
             logMetadata.update(entry, false);
         }
-        return new AddressMetaData(metadata.getPayloadChecksum(), metadata.getLength(), channelOffset);
     }
 
     private long getSegment(LogData entry) {
@@ -1096,7 +1389,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         try {
             Set<Long> result = new HashSet<>();
             for (long address = rangeStart; address <= rangeEnd; address++) {
-                if (getSegmentHandleForAddress(address).getKnownAddresses().containsKey(address)) {
+                if (getSegmentHandleForAddress(address).getKnownAddresses().contains(address)) {
                     result.add(address);
                 }
             }
@@ -1127,17 +1420,14 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         SegmentHandle firstSh = getSegmentHandleForAddress(first.getGlobalAddress());
         SegmentHandle lastSh = getSegmentHandleForAddress(last.getGlobalAddress());
 
-        // Extract all addresses associated with the provided write range.
-        Set<Long> pendingWrites = range.stream()
-                .map(ILogData::getGlobalAddress).collect(Collectors.toSet());
-
         // See if the provided range overlaps with any of the previously written entries.
-        Set<Long> segOneOverlap = Sets.intersection(pendingWrites,
-                firstSh.getKnownAddresses().keySet());
-        Set<Long> segTwoOverlap = Sets.intersection(pendingWrites,
-                lastSh.getKnownAddresses().keySet());
-        if (!segOneOverlap.isEmpty() || !segTwoOverlap.isEmpty()) {
-            log.error("Overlapping addresses detected: {}, {}", segOneOverlap, segTwoOverlap);
+        Set<Long> overlap = range.stream()
+                .map(ILogData::getGlobalAddress)
+                .filter(address -> firstSh.getKnownAddresses().contains(address)
+                        || lastSh.getKnownAddresses().contains(address))
+                .collect(Collectors.toSet());
+        if (!overlap.isEmpty()) {
+            log.error("Overlapping addresses detected: {}", overlap);
             throw new OverwriteException(OverwriteCause.SAME_DATA);
         }
 
@@ -1146,23 +1436,21 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         for (LogData curr : entries) {
             if (getSegment(curr) == firstSh.getSegment() &&
-                    !firstSh.getKnownAddresses().containsKey(curr.getGlobalAddress())) {
+                    !firstSh.getKnownAddresses().contains(curr.getGlobalAddress())) {
                 segOneEntries.add(curr);
             } else if (getSegment(curr) == lastSh.getSegment() &&
-                    !lastSh.getKnownAddresses().containsKey(curr.getGlobalAddress())) {
+                    !lastSh.getKnownAddresses().contains(curr.getGlobalAddress())) {
                 segTwoEntries.add(curr);
             }
         }
 
         try {
             if (!segOneEntries.isEmpty()) {
-                Map<Long, AddressMetaData> firstSegAddresses = writeRecords(firstSh, segOneEntries);
-                firstSh.getKnownAddresses().putAll(firstSegAddresses);
+                writeRecords(firstSh, segOneEntries, true);
             }
 
             if (!segTwoEntries.isEmpty()) {
-                Map<Long, AddressMetaData> lastSegAddresses = writeRecords(lastSh, segTwoEntries);
-                lastSh.getKnownAddresses().putAll(lastSegAddresses);
+                writeRecords(lastSh, segTwoEntries, true);
             }
         } catch (IOException e) {
             log.error("Disk_write[{}-{}]: Exception", first.getGlobalAddress(),
@@ -1174,6 +1462,49 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    @Override
+    public void appendBatch(List<LogData> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        LogData first = entries.get(0);
+        LogData last = entries.get(entries.size() - 1);
+        if (!verify(entries) || getSegment(first) != getSegment(last)) {
+            throw new IllegalArgumentException("Batch [" + first.getGlobalAddress() + ", "
+                    + last.getGlobalAddress() + "] is not a sequence of a single segment");
+        }
+
+        SegmentHandle segment = getSegmentHandleForAddress(first.getGlobalAddress());
+
+        try {
+            // The same checks as a single address append, before any entry is written
+            for (LogData entry : entries) {
+                long address = entry.getGlobalAddress();
+                if (isTrimmed(address)) {
+                    throw new OverwriteException(OverwriteCause.TRIM);
+                }
+
+                if (segment.getKnownAddresses().contains(address)
+                        || segment.getKnownAddresses().isTrimmed(address)) {
+                    OverwriteCause overwriteCause = getOverwriteCauseForAddress(address, entry);
+                    log.trace("Disk_write[{}]: overwritten exception, cause: {}", address, overwriteCause);
+                    throw new OverwriteException(overwriteCause);
+                }
+            }
+
+            writeRecords(segment, entries, false);
+            log.trace("Disk_write[{}-{}]: Written to disk.", first.getGlobalAddress(),
+                    last.getGlobalAddress());
+        } catch (IOException e) {
+            log.error("Disk_write[{}-{}]: Exception", first.getGlobalAddress(),
+                    last.getGlobalAddress(), e);
+            throw new RuntimeException(e);
+        } finally {
+            segment.release();
+        }
+    }
+
     @Override
     public void append(long address, LogData entry) {
         if (isTrimmed(address)) {
@@ -1185,8 +1516,8 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         try {
             // make sure the entry doesn't currently exist...
             // (probably need a faster way to do this - high watermark?)
-            if (segment.getKnownAddresses().containsKey(address)
-                    || segment.getTrimmedAddresses().contains(address)) {
+            if (segment.getKnownAddresses().contains(address)
+                    || segment.getKnownAddresses().isTrimmed(address)) {
                 if (entry.getRank() == null) {
                     OverwriteCause overwriteCause = getOverwriteCauseForAddress(address, entry);
                     log.trace("Disk_write[{}]: overwritten exception, cause: {}", address, overwriteCause);
@@ -1194,12 +1525,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 } else {
                     // the method below might throw DataOutrankedException or ValueAdoptedException
                     assertAppendPermittedUnsafe(address, entry);
-                    AddressMetaData addressMetaData = writeRecord(segment, address, entry);
-                    segment.getKnownAddresses().put(address, addressMetaData);
+                    writeRecord(segment, address, entry);
                 }
             } else {
-                AddressMetaData addressMetaData = writeRecord(segment, address, entry);
-                segment.getKnownAddresses().put(address, addressMetaData);
+                writeRecord(segment, address, entry);
             }
             log.trace("Disk_write[{}]: Written to disk.", address);
         } catch (IOException e) {
@@ -1222,7 +1551,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             SegmentHandle segment = getSegmentHandleForAddress(address);
 
             try {
-                if (segment.getPendingTrims().contains(address)) {
+                if (segment.getKnownAddresses().isPendingTrim(address)) {
                     return LogData.getTrimmed(address);
                 }
                 return readRecord(segment, address);
@@ -1253,7 +1582,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         try {
             SegmentHandle segment = getSegmentHandleForAddress(address);
-            return segment.getKnownAddresses().containsKey(address);
+            return segment.getKnownAddresses().contains(address);
         } finally {
             lock.unlock();
         }
@@ -1261,10 +1590,16 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
     @Override
     public void close() {
+        writeSealedSegmentIndexes();
+
         for (SegmentHandle fh : writeChannels.values()) {
             fh.close();
         }
 
+        synchronized (mappedSegments) {
+            mappedSegments.values().forEach(SegmentMapping::retire);
+            mappedSegments.clear();
+        }
         writeChannels = new ConcurrentHashMap<>();
     }
 
@@ -1298,6 +1633,13 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             );
         }
         channelsToSync.remove(sh.getWriteChannel());
+        synchronized (mappedSegments) {
+            SegmentMapping mapping = mappedSegments.get(sh.getSegment());
+            if (mapping != null && mapping.getSegmentHandle() == sh) {
+                mappedSegments.remove(sh.getSegment());
+                mapping.retire();
+            }
+        }
         sh.close();
         writeChannels.remove(sh.getFileName());
     }
@@ -1353,6 +1695,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             closeAllSegmentHandlers();
 
             deleteFilesMatchingFilter(file -> true);
+            deleteSegmentIndexes(Long.MAX_VALUE);
 
             dataStore.resetStartingAddress();
             dataStore.resetTailSegment();
@@ -38,10 +38,38 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
     private Map<UUID, MultiSMREntry> streamUpdates = new ConcurrentHashMap<>();
 
     /**
-     * A container to store streams and their payloads (i.e. serialized SMR updates).
+     * The serialized stream updates of a deserialized entry, i.e. the number of streams
+     * followed by the stream ids and their serialized MultiSMREntry. It is kept as is
+     * until a stream is accessed, and released once all the streams are deserialized.
      * This is required to support lazy stream deserialization.
      */
-    private final Map<UUID, byte[]> streamBuffers = new ConcurrentHashMap<>();
+    private volatile byte[] streamsPayload;
+
+    /**
+     * The location of the serialized updates of each stream in the payload, for the
+     * streams which have been indexed but not deserialized yet.
+     */
+    private final Map<UUID, StreamRange> streamBuffers = new ConcurrentHashMap<>();
+
+    // Number of streams in the payload, and how many of them have been indexed
+    private int numStreams;
+    private int numIndexedStreams;
+
+    // Offset in the payload of the next stream to index
+    private int nextStreamOffset;
+
+    /**
+     * The offset and length of the serialized updates of a stream in the payload.
+     */
+    private static class StreamRange {
+        final int offset;
+        final int length;
+
+        StreamRange(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
 
     private static final MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
 
@@ -60,7 +88,7 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
      * @param updateEntry SMREntry to add
      */
     public void addTo(UUID streamID, SMREntry updateEntry) {
-        checkState(streamBuffers.isEmpty(), "Shouldn't be called on a deserialized object");
+        checkState(streamsPayload == null, "Shouldn't be called on a deserialized object");
         MultiSMREntry multiSMREntry = streamUpdates.computeIfAbsent(streamID, k -> new MultiSMREntry());
         multiSMREntry.addTo(updateEntry);
     }
@@ -73,7 +101,7 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
      * @param other Object to merge.
      */
     public void mergeInto(MultiObjectSMREntry other) {
-        checkState(streamBuffers.isEmpty(), "Shouldn't be called on a deserialized object");
+        checkState(streamsPayload == null, "Shouldn't be called on a deserialized object");
 
         if (other == null) {
             return;
@@ -87,9 +115,12 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
 
     /**
      * This function provides the remaining buffer. Since stream updates
-     * are deserialized on access, this method will only map a stream to
-     * its payload (i.e. updates). The stream updates will be deserialized
-     * on first access.
+     * are deserialized on access, this method only copies the remaining
+     * buffer. The streams are located in the payload, and their updates
+     * deserialized, on first access.
+     *
+     * <p>A MultiObjectSMREntry is always the top-level entry of a log entry, so
+     * its streams span the rest of the buffer.
      *
      * @param b The remaining buffer.
      */
@@ -98,28 +129,52 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
         Timer deserializeTimer = metricRegistry.timer(METRIC_PREFIX + "deserialize");
         try (Timer.Context context = MetricsUtils.getConditionalContext(deserializeTimer)) {
             super.deserializeBuffer(b, rt);
-            int numStreams = b.readInt();
-            for (int i = 0; i < numStreams; i++) {
-                UUID streamId = new UUID(b.readLong(), b.readLong());
-
-                Timer streamDeserializeTimer = metricRegistry.timer(
-                        METRIC_PREFIX + "deserialize-" + streamId);
-                // The MultiObjectSMREntry payload is structure as follows:
-                // LogEntry Type | number of MultiSMREntry entries | MultiSMREntry id | serialized MultiSMREntry | ...
-                // Therefore we need to unpack the MultiSMREntry entries one-by-one
-                try (Timer.Context streamContext = MetricsUtils.getConditionalContext(streamDeserializeTimer)) {
-                    int start = b.readerIndex();
-                    MultiSMREntry.seekToEnd(b);
-                    int multiSMRLen = b.readerIndex() - start;
-                    b.readerIndex(start);
-                    byte[] streamUpdates = new byte[multiSMRLen];
-                    b.readBytes(streamUpdates);
-                    streamBuffers.put(streamId, streamUpdates);
-                }
+            byte[] payload = new byte[b.readableBytes()];
+            b.readBytes(payload);
+            numStreams = Unpooled.wrappedBuffer(payload).readInt();
+            nextStreamOffset = Integer.BYTES;
+            streamsPayload = payload;
+        }
+    }
+
+    /**
+     * Index the streams of the payload, up to a given stream or to the last stream.
+     * The payload is structured as follows:
+     * number of streams | stream id | serialized MultiSMREntry | stream id | ...
+     * Therefore the streams are located by skipping over the MultiSMREntry entries
+     * one-by-one, without deserializing them.
+     *
+     * @param id the stream to index up to, or null to index all streams
+     */
+    private synchronized void indexStreams(UUID id) {
+        if (streamsPayload == null || numIndexedStreams == numStreams) {
+            return;
+        }
+
+        ByteBuf buf = Unpooled.wrappedBuffer(streamsPayload);
+        buf.readerIndex(nextStreamOffset);
+        while (numIndexedStreams < numStreams) {
+            UUID streamId = new UUID(buf.readLong(), buf.readLong());
+            int start = buf.readerIndex();
+            MultiSMREntry.seekToEnd(buf);
+            streamBuffers.put(streamId, new StreamRange(start, buf.readerIndex() - start));
+            numIndexedStreams++;
+            nextStreamOffset = buf.readerIndex();
+            if (streamId.equals(id)) {
+                return;
             }
         }
     }
 
+    /**
+     * Release the payload once all the streams have been deserialized.
+     */
+    private synchronized void releasePayload() {
+        if (numIndexedStreams == numStreams && streamBuffers.isEmpty()) {
+            streamsPayload = null;
+        }
+    }
+
     @Override
     public void serialize(ByteBuf b) {
         Timer serializeTimer = metricRegistry.timer(METRIC_PREFIX + "serialize");
@@ -158,17 +213,26 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
         // synchronization on a per-stream basis is required.
         MultiSMREntry resMultiSmrEntry = streamUpdates.computeIfAbsent(id, k -> {
             if (!streamBuffers.containsKey(id)) {
+                indexStreams(id);
+            }
+            StreamRange range = streamBuffers.get(id);
+            if (range == null) {
                 return null;
             }
 
             // The stream exists and it needs to be deserialized
-            byte[] streamUpdatesBuf = streamBuffers.get(id);
-            ByteBuf buf = Unpooled.wrappedBuffer(streamUpdatesBuf);
-            byte magicByte = buf.readByte(); //
-            checkState(magicByte == CorfuSerializer.corfuPayloadMagic, "Not a ICorfuSerializable object");// strip magic
-            MultiSMREntry multiSMREntry = (MultiSMREntry) MultiSMREntry.deserialize(buf, null, isOpaque());
+            Timer streamDeserializeTimer = metricRegistry.timer(
+                    METRIC_PREFIX + "deserialize-" + id);
+            MultiSMREntry multiSMREntry;
+            try (Timer.Context streamContext = MetricsUtils.getConditionalContext(streamDeserializeTimer)) {
+                ByteBuf buf = Unpooled.wrappedBuffer(streamsPayload, range.offset, range.length);
+                byte magicByte = buf.readByte(); //
+                checkState(magicByte == CorfuSerializer.corfuPayloadMagic, "Not a ICorfuSerializable object");// strip magic
+                multiSMREntry = (MultiSMREntry) MultiSMREntry.deserialize(buf, null, isOpaque());
+            }
             multiSMREntry.setGlobalAddress(getGlobalAddress());
             streamBuffers.remove(id);
+            releasePayload();
             return multiSMREntry;
         });
 
@@ -192,6 +256,7 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
         // Calling getSMRUpdates is required to populate the streamUpdates
         // from the remaining streamBuffers (i.e. streams that haven't been
         // accessed and thus haven't been serialized)
+        indexStreams(null);
         for (UUID id : new HashSet<>(streamBuffers.keySet())) {
             getSMRUpdates(id);
         }
@@ -199,8 +264,13 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
         return this.streamUpdates;
     }
 
+    /**
+     * Return the streams which haven't been deserialized yet, along with the
+     * location of their updates in the payload.
+     */
     @VisibleForTesting
-    Map<UUID, byte[]> getStreamBuffers() {
+    Map<UUID, StreamRange> getStreamBuffers() {
+        indexStreams(null);
         return streamBuffers;
     }
 
@@ -14,6 +14,8 @@ import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.ToString;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.SMRMethodDictionary;
 import org.corfudb.util.serializer.CorfuSerializer;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
@@ -22,18 +24,28 @@ import org.corfudb.util.serializer.Serializers;
  * Created by mwei on 1/8/16.
  */
 @SuppressWarnings("checkstyle:abbreviation")
-@ToString(callSuper = true)
+@ToString(callSuper = true, doNotUseGetters = true)
 @NoArgsConstructor
-@EqualsAndHashCode
+@EqualsAndHashCode(doNotUseGetters = true)
 public class SMREntry extends LogEntry implements ISMRConsumable {
 
+    /** The method ID of entries which refer to their method by name. */
+    public static final int NO_METHOD_ID = -1;
+
     /**
      * The name of the SMR method. Note that this is limited to the size of a short.
+     * Null until resolved, when the entry was read with the ID of its method.
      */
     @SuppressWarnings("checkstyle:MemberName")
-    @Getter
     private String SMRMethod;
 
+    /**
+     * The ID of the SMR method (see {@link ICorfuSMR#getSMRMethodId(String)}), which the
+     * entry is serialized with instead of the name of the method, or {@link #NO_METHOD_ID}.
+     */
+    @Getter
+    private int methodId = NO_METHOD_ID;
+
     /**
      * The arguments to the SMR method, which could be 0.
      */
@@ -97,12 +109,48 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
 
     /** SMREntry constructor. */
     public SMREntry(String smrMethod, @NonNull Object[] smrArguments, ISerializer serializer) {
+        this(smrMethod, NO_METHOD_ID, smrArguments, serializer);
+    }
+
+    /** SMREntry constructor, for an entry which is serialized with the ID of its method. */
+    public SMREntry(String smrMethod, int methodId, @NonNull Object[] smrArguments,
+                    ISerializer serializer) {
         super(LogEntryType.SMR);
         this.SMRMethod = smrMethod;
+        this.methodId = methodId;
         this.SMRArguments = smrArguments;
         this.serializerType = serializer;
     }
 
+    /**
+     * Get the name of the SMR method. An entry read with the ID of its method must have been
+     * resolved by the object it updates, see {@link #resolveSMRMethod}.
+     *
+     * @return the name of the SMR method
+     * @throws IllegalStateException if the ID of the method wasn't resolved
+     */
+    public String getSMRMethod() {
+        if (SMRMethod == null) {
+            throw new IllegalStateException("SMR method with ID " + methodId
+                    + " must be resolved by the methods of its object");
+        }
+        return SMRMethod;
+    }
+
+    /**
+     * Get the name of the SMR method, resolving the ID of the method with the methods of
+     * the object this entry updates, or of its class (see {@link SMRMethodDictionary#forClass}).
+     *
+     * @param dictionary the SMR methods of the object
+     * @return the name of the SMR method, or null if the object has no such method
+     */
+    public String resolveSMRMethod(@NonNull SMRMethodDictionary dictionary) {
+        if (SMRMethod == null) {
+            SMRMethod = dictionary.getMethodName(methodId);
+        }
+        return SMRMethod;
+    }
+
     /**
      * This function provides the remaining buffer. Child entries
      * should initialize their contents based on the buffer.
@@ -115,9 +163,14 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
 
         super.deserializeBuffer(b, rt);
         short methodLength = b.readShort();
-        byte[] methodBytes = new byte[methodLength];
-        b.readBytes(methodBytes, 0, methodLength);
-        SMRMethod = new String(methodBytes);
+        if (methodLength < 0) {
+            // The ID of the method, which is resolved when the entry is applied
+            methodId = toMethodId(methodLength);
+        } else {
+            byte[] methodBytes = new byte[methodLength];
+            b.readBytes(methodBytes, 0, methodLength);
+            SMRMethod = new String(methodBytes);
+        }
         byte serializerId = b.readByte();
         byte numArguments = b.readByte();
         Object[] arguments = new Object[numArguments];
@@ -155,9 +208,11 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
         // container type
         byte type = b.readByte();
         checkState(type == LogEntryType.SMR.asByte(), "Not a SMREntry!");
-        // Method name
+        // Method name, or method ID
         short methodLength = b.readShort();
-        b.skipBytes(methodLength);
+        if (methodLength > 0) {
+            b.skipBytes(methodLength);
+        }
         // Serializer type
         b.readByte();
         // num args
@@ -172,8 +227,12 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
     public void serialize(ByteBuf b) {
         int startWriterIndex = b.writerIndex();
         super.serialize(b);
-        b.writeShort(SMRMethod.length());
-        b.writeBytes(SMRMethod.getBytes());
+        if (methodId == NO_METHOD_ID) {
+            b.writeShort(SMRMethod.length());
+            b.writeBytes(SMRMethod.getBytes());
+        } else {
+            b.writeShort(toMethodLength(methodId));
+        }
         if (opaque) {
             //TODO(Maithem) add test for serialize/desrialize of opaque entries
             if (serializerId == -1) {
@@ -201,6 +260,18 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
         serializedSize = b.writerIndex() - startWriterIndex;
     }
 
+    /*
+     * Entries which refer to their method by ID hold a negative method length instead of the
+     * name of their method, -1 for the method ID 0.
+     */
+    private static short toMethodLength(int methodId) {
+        return (short) (-1 - methodId);
+    }
+
+    private static int toMethodId(short methodLength) {
+        return -1 - methodLength;
+    }
+
     @Override
     public List<SMREntry> getSMRUpdates(UUID id) {
         // TODO: we should check that the id matches the id of this entry,
@@ -4,7 +4,6 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -25,10 +24,17 @@ import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -53,6 +59,8 @@ public class CheckpointWriter<T extends StreamingMap> {
     private long endAddress;
     private long numEntries = 0;
     private long numBytes = 0;
+    // Number of SMR entries written in CONTINUATION records, used to size byte-sized batches
+    private long numSmrEntries = 0;
 
     @SuppressWarnings("checkstyle:abbreviation")
     private final UUID checkpointStreamID;
@@ -78,6 +86,27 @@ public class CheckpointWriter<T extends StreamingMap> {
     @Setter
     private int batchSize = 50;
 
+    /** Batch size in bytes: if greater than zero, the number of SMREntry in a
+     *  CONTINUATION is sized to this many serialized bytes, based on the average
+     *  size of the SMREntry written so far, rather than on batchSize.
+     */
+    @Getter
+    @Setter
+    private long batchBytes = 0;
+
+    /** Executor to append CONTINUATION records asynchronously, while the next
+     *  ones are being built. If null, the records are appended synchronously.
+     */
+    @Getter
+    @Setter
+    private Executor appendExecutor = null;
+
+    /** Max number of CONTINUATION records being appended asynchronously.
+     */
+    @Getter
+    @Setter
+    private int maxInFlightAppends = 1;
+
     /** BiConsumer to run after every CheckpointEntry is appended to the stream.
      */
     @Getter
@@ -101,6 +130,18 @@ public class CheckpointWriter<T extends StreamingMap> {
     @Setter
     ISerializer serializer = Serializers.getDefaultSerializer();
 
+    // Registry used to report the duration and the size of every checkpoint, across all the
+    // tables and per table (checkpoint.<stream id>.duration and .bytes). The per table metrics
+    // are bounded: the tables checkpointed once MAX_TABLE_METRICS tables have their own metrics
+    // share the checkpoint.other metrics.
+    private static final MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
+    private static final String CHECKPOINT_METRIC_PREFIX =
+            CorfuComponent.GARBAGE_COLLECTION + "checkpoint.";
+    private static final String CHECKPOINT_OTHER_TABLES = "other";
+    @VisibleForTesting
+    static final int MAX_TABLE_METRICS = 100;
+    private static final Set<UUID> tablesWithMetrics = ConcurrentHashMap.newKeySet();
+
     /** Constructor for Checkpoint Writer for Corfu Maps.
      * @param rt object's runtime
      * @param streamId unique identifier of stream to checkpoint
@@ -142,6 +183,11 @@ public class CheckpointWriter<T extends StreamingMap> {
     @VisibleForTesting
     public Token appendCheckpoint(Token snapshotTimestamp) {
         long start = System.currentTimeMillis();
+        final String tableMetricPrefix = getTableMetricPrefix(streamId);
+        Timer.Context context = MetricsUtils.getConditionalContext(
+                metricRegistry.timer(CHECKPOINT_METRIC_PREFIX + "duration"));
+        Timer.Context tableContext = MetricsUtils.getConditionalContext(
+                metricRegistry.timer(tableMetricPrefix + "duration"));
 
         rt.getObjectsView().TXBuild()
                 .type(TransactionType.SNAPSHOT)
@@ -165,15 +211,51 @@ public class CheckpointWriter<T extends StreamingMap> {
             log.info("appendCheckpoint: completed checkpoint for {}, entries({}), " +
                             "cpSize({}) bytes at snapshot {} in {} ms",
                     streamId, entryCount, numBytes, snapshotTimestamp, cpDuration);
+            MetricsUtils.updateConditionalHistogram(
+                    metricRegistry.histogram(CHECKPOINT_METRIC_PREFIX + "bytes"), numBytes);
+            MetricsUtils.updateConditionalHistogram(
+                    metricRegistry.histogram(tableMetricPrefix + "bytes"), numBytes);
         } finally {
+            MetricsUtils.stopConditionalContext(tableContext);
+            MetricsUtils.stopConditionalContext(context);
             rt.getObjectsView().TXEnd();
         }
 
         return snapshotTimestamp;
     }
 
+    /**
+     * Get the prefix of the checkpoint metrics of a table, which are shared by the tables
+     * beyond the first MAX_TABLE_METRICS tables checkpointed by this process.
+     */
+    @VisibleForTesting
+    static String getTableMetricPrefix(UUID streamId) {
+        if (!tablesWithMetrics.contains(streamId)) {
+            synchronized (tablesWithMetrics) {
+                if (!tablesWithMetrics.contains(streamId)
+                        && tablesWithMetrics.size() >= MAX_TABLE_METRICS) {
+                    return CHECKPOINT_METRIC_PREFIX + CHECKPOINT_OTHER_TABLES + ".";
+                }
+                tablesWithMetrics.add(streamId);
+            }
+        }
+        return CHECKPOINT_METRIC_PREFIX + streamId + ".";
+    }
+
     private Token forceNoOpEntry() {
-        TokenResponse writeToken = rt.getSequencerView().next(streamId);
+        return forceNoOpEntry(rt, streamId);
+    }
+
+    /**
+     * Write a NO_OP entry (a hole with backpointers) to a set of streams.
+     *
+     * @param rt        runtime to write with
+     * @param streamIds streams the NO_OP entry belongs to
+     * @return Token of the NO_OP entry, which can be used as a snapshot for the checkpoints
+     *         of all these streams
+     */
+    static Token forceNoOpEntry(CorfuRuntime rt, UUID... streamIds) {
+        TokenResponse writeToken = rt.getSequencerView().next(streamIds);
         LogData logData = new LogData(DataType.HOLE);
         rt.getAddressSpaceView().write(writeToken, logData, CacheOption.WRITE_AROUND);
         return writeToken.getToken();
@@ -214,57 +296,112 @@ public class CheckpointWriter<T extends StreamingMap> {
     /** Append zero or more CONTINUATION records to this
      *  object's stream.  Each will contain a fraction of
      *  the state of the object that we're checkpointing
-     *  (up to batchSize items at a time).
+     *  (up to batchSize items, or about batchBytes bytes, at a time).
      *
      *  <p>Corfu client transaction management, if desired, is the
      *  caller's responsibility.</p>
      *
-     *  <p>The Iterators class appears to preserve the laziness
-     *  of Stream processing; we don't wish to use more
-     *  memory than strictly necessary to generate the
+     *  <p>The entries are consumed lazily from the stream; we don't
+     *  wish to use more memory than strictly necessary to generate the
      *  checkpoint.  NOTE: It would be even more useful if
      *  the map had a lazy iterator: the eagerness of
      *  map.keySet().stream() is not ideal, but at least
      *  it should be much smaller than the entire map.</p>
      *
+     *  <p>If an appendExecutor is set, up to maxInFlightAppends records
+     *  are appended asynchronously while the next ones are being built.
+     *  The order of the CONTINUATION records doesn't matter, as long as
+     *  they are all written between the START and the END records.</p>
+     *
      *  <p>NOTE: The postAppendFunc lambda is executed in the
      *  current thread context, i.e., inside of a Corfu
      *  transaction, and that transaction will be *aborted*
      *  at the end of this function.  Any Corfu data
-     *  modifying ops will be undone by the TXAbort().</p>
+     *  modifying ops will be undone by the TXAbort(). If the
+     *  records are appended asynchronously, it is executed
+     *  by the appendExecutor instead.</p>
      *
-     * @return Stream of global log addresses of the CONTINUATION records written.
+     * @return Number of entries written.
      */
     public int appendObjectState(Stream<Map.Entry> entryStream) {
         ImmutableMap<CheckpointEntry.CheckpointDictKey, String> mdkv =
                 ImmutableMap.copyOf(this.mdkv);
 
-        final Iterable<List<Map.Entry>> partitions =
-                Iterables.partition(entryStream::iterator, batchSize);
+        final boolean pipelined = appendExecutor != null && maxInFlightAppends > 1;
+        final Deque<CompletableFuture<Void>> inFlight = new ArrayDeque<>();
+        final Iterator<Map.Entry> iterator = entryStream.iterator();
         int entryCount = 0;
 
-        for (List<Map.Entry> partition : partitions) {
-            MultiSMREntry smrEntries = new MultiSMREntry();
-            for (Map.Entry entry : partition) {
+        while (iterator.hasNext()) {
+            final int currentBatchSize = nextBatchSize();
+            final MultiSMREntry smrEntries = new MultiSMREntry();
+            int count = 0;
+            while (count < currentBatchSize && iterator.hasNext()) {
+                Map.Entry entry = iterator.next();
                 smrEntries.addTo(new SMREntry("put",
                         new Object[]{keyMutator.apply(entry.getKey()),
                                 valueMutator.apply(entry.getValue())},
                         serializer));
-                entryCount++;
+                count++;
             }
+            entryCount += count;
 
+            final int batchEntries = count;
             CheckpointEntry cp = new CheckpointEntry(CheckpointEntry
                     .CheckpointEntryType.CONTINUATION,
                     author, checkpointId, streamId, mdkv, smrEntries);
-            long pos = nonCachedAppend(cp, checkpointStreamID);
-            postAppendFunc.accept(cp, pos);
+
+            if (pipelined) {
+                if (inFlight.size() >= maxInFlightAppends) {
+                    join(inFlight.poll());
+                }
+                inFlight.add(CompletableFuture.runAsync(
+                        () -> appendContinuation(cp, batchEntries), appendExecutor));
+            } else {
+                appendContinuation(cp, batchEntries);
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            join(inFlight.poll());
+        }
+
+        return entryCount;
+    }
+
+    private void appendContinuation(CheckpointEntry cp, int batchEntries) {
+        long pos = nonCachedAppend(cp, checkpointStreamID);
+        postAppendFunc.accept(cp, pos);
+        synchronized (this) {
             numEntries++;
+            numSmrEntries += batchEntries;
             // CheckpointEntry::serialize() has a side-effect we use
             // for an accurate count of serialized bytes of SRMEntries.
             numBytes += cp.getSmrEntriesBytes();
         }
+    }
 
-        return entryCount;
+    /**
+     * The number of SMREntry of the next CONTINUATION: batchSize, or if a batch size in bytes
+     * is set, the number of entries of the average size written so far that fit in batchBytes.
+     */
+    private synchronized int nextBatchSize() {
+        if (batchBytes <= 0 || numSmrEntries == 0 || numBytes == 0) {
+            return batchSize;
+        }
+        long avgEntryBytes = Math.max(1, numBytes / numSmrEntries);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, batchBytes / avgEntryBytes));
+    }
+
+    private static void join(CompletableFuture<Void> append) {
+        try {
+            append.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw ce;
+        }
     }
 
     /** Append a checkpoint END record to this object's stream.
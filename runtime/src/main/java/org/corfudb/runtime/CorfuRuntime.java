@@ -128,15 +128,14 @@ public class CorfuRuntime {
         long maxCacheEntries;
 
         /*
-         * The max in-memory size of the cache in bytes
+         * The max size of the cache in bytes, as estimated from the serialized
+         * (i.e. possibly compressed) size of the cached entries.
          */
         long maxCacheWeight;
 
         /*
-         * This is a hint to size the AddressSpaceView cache, a higher concurrency
-         * level allows for less lock contention at the cost of more memory overhead.
-         * The default value of zero will result in using the cache's internal default
-         * concurrency level (i.e. 4).
+         * This was a hint to size the AddressSpaceView cache. The cache doesn't partition
+         * its entries anymore, so this parameter is ignored.
          */
         int cacheConcurrencyLevel = 0;
 
@@ -144,6 +143,22 @@ public class CorfuRuntime {
          * Sets expireAfterAccess and expireAfterWrite in seconds.
          */
         long cacheExpiryTime = Long.MAX_VALUE;
+
+        /*
+         * Whether the AddressSpaceView cache keeps entries in their serialized form, off-heap.
+         * This reduces the heap footprint of the cache, at the cost of deserializing entries
+         * on every hit (and of losing the transient state of cached entries, e.g. undo records).
+         */
+        boolean cacheOffHeap = false;
+        // endregion
+
+        // region Sequencer Parameters
+        /*
+         * The maximum time a sequencer query (or raw token request) waits for the previous
+         * request of the same kind to complete. The requests issued in the meantime are
+         * coalesced into a single request. Zero disables batching.
+         */
+        Duration sequencerBatchDelay = Duration.ofMillis(1);
         // endregion
 
         // region Stream Parameters
@@ -187,6 +202,41 @@ public class CorfuRuntime {
          * address discovery mechanism relies on address maps instead of follow backpointers;
          */
         int checkpointReadBatchSize = 5;
+
+        /*
+         * Number of immutable snapshots of an object kept by its VersionLockedObject, to serve
+         * reads at older versions without rolling the object back. Only objects which can take
+         * snapshots cheaply (i.e. a CorfuTable over a VersionedStreamingMap) keep snapshots.
+         * Disabled by default. When enabled, the tables opened by a CorfuStore are opened over
+         * a VersionedStreamingMap, whose updates are somewhat more expensive.
+         */
+        int objectSnapshotCacheSize = 0;
+
+        /*
+         * How often the ObjectTailer brings the objects opened with a staleness bound up to
+         * date with the log. Should be well below the staleness bound of these objects.
+         */
+        Duration objectTailPeriod = Duration.ofMillis(100);
+
+        /*
+         * Whether the ObjectTailer keeps every opened object up to date with the log, so that
+         * reads rarely have to sync objects inline, under their write lock.
+         */
+        boolean backgroundObjectSync = false;
+
+        /*
+         * Whether SMR entries are written with the compact IDs of their methods instead of their
+         * names. It is opt-in: only enable it once every client which reads the log can decode
+         * method IDs.
+         */
+        boolean smrMethodIds = false;
+
+        /*
+         * Whether CorfuStore records are written in the compact type-id format of the
+         * ProtobufSerializer instead of the Any-encoded format. Enable it once all the clients
+         * which read the log decode the compact format.
+         */
+        boolean compactProtobufRecords = false;
         // endregion
 
         /*
@@ -254,6 +304,8 @@ public class CorfuRuntime {
             long maxCacheWeight;
             int cacheConcurrencyLevel = 0;
             long cacheExpiryTime = Long.MAX_VALUE;
+            boolean cacheOffHeap = false;
+            Duration sequencerBatchDelay = Duration.ofMillis(1);
             boolean followBackpointersEnabled = false;
             boolean holeFillingDisabled = false;
             int writeRetry = 5;
@@ -261,6 +313,11 @@ public class CorfuRuntime {
             int checkpointRetries = 5;
             int streamBatchSize = 10;
             int checkpointReadBatchSize = 5;
+            int objectSnapshotCacheSize = 0;
+            Duration objectTailPeriod = Duration.ofMillis(100);
+            boolean backgroundObjectSync = false;
+            boolean smrMethodIds = false;
+            boolean compactProtobufRecords = false;
             Duration runtimeGCPeriod = Duration.ofMinutes(20);
             UUID clusterId = null;
             int systemDownHandlerTriggerLimit = 20;
@@ -455,6 +512,16 @@ public class CorfuRuntime {
                 return this;
             }
 
+            public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder cacheOffHeap(boolean cacheOffHeap) {
+                this.cacheOffHeap = cacheOffHeap;
+                return this;
+            }
+
+            public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder sequencerBatchDelay(Duration sequencerBatchDelay) {
+                this.sequencerBatchDelay = sequencerBatchDelay;
+                return this;
+            }
+
             public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder followBackpointersEnabled(boolean followBackpointersEnabled) {
                 this.followBackpointersEnabled = followBackpointersEnabled;
                 return this;
@@ -490,6 +557,31 @@ public class CorfuRuntime {
                 return this;
             }
 
+            public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder objectTailPeriod(Duration objectTailPeriod) {
+                this.objectTailPeriod = objectTailPeriod;
+                return this;
+            }
+
+            public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder backgroundObjectSync(boolean backgroundObjectSync) {
+                this.backgroundObjectSync = backgroundObjectSync;
+                return this;
+            }
+
+            public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder smrMethodIds(boolean smrMethodIds) {
+                this.smrMethodIds = smrMethodIds;
+                return this;
+            }
+
+            public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder compactProtobufRecords(boolean compactProtobufRecords) {
+                this.compactProtobufRecords = compactProtobufRecords;
+                return this;
+            }
+
+            public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder objectSnapshotCacheSize(int objectSnapshotCacheSize) {
+                this.objectSnapshotCacheSize = objectSnapshotCacheSize;
+                return this;
+            }
+
             public CorfuRuntimeParameters.CorfuRuntimeParametersBuilder runtimeGCPeriod(Duration runtimeGCPeriod) {
                 this.runtimeGCPeriod = runtimeGCPeriod;
                 return this;
@@ -569,6 +661,8 @@ public class CorfuRuntime {
                 corfuRuntimeParameters.setMaxCacheWeight(maxCacheWeight);
                 corfuRuntimeParameters.setCacheConcurrencyLevel(cacheConcurrencyLevel);
                 corfuRuntimeParameters.setCacheExpiryTime(cacheExpiryTime);
+                corfuRuntimeParameters.setCacheOffHeap(cacheOffHeap);
+                corfuRuntimeParameters.setSequencerBatchDelay(sequencerBatchDelay);
                 corfuRuntimeParameters.setFollowBackpointersEnabled(followBackpointersEnabled);
                 corfuRuntimeParameters.setHoleFillingDisabled(holeFillingDisabled);
                 corfuRuntimeParameters.setWriteRetry(writeRetry);
@@ -576,6 +670,11 @@ public class CorfuRuntime {
                 corfuRuntimeParameters.setCheckpointRetries(checkpointRetries);
                 corfuRuntimeParameters.setStreamBatchSize(streamBatchSize);
                 corfuRuntimeParameters.setCheckpointReadBatchSize(checkpointReadBatchSize);
+                corfuRuntimeParameters.setObjectSnapshotCacheSize(objectSnapshotCacheSize);
+                corfuRuntimeParameters.setObjectTailPeriod(objectTailPeriod);
+                corfuRuntimeParameters.setBackgroundObjectSync(backgroundObjectSync);
+                corfuRuntimeParameters.setSmrMethodIds(smrMethodIds);
+                corfuRuntimeParameters.setCompactProtobufRecords(compactProtobufRecords);
                 corfuRuntimeParameters.setRuntimeGCPeriod(runtimeGCPeriod);
                 corfuRuntimeParameters.setClusterId(clusterId);
                 corfuRuntimeParameters.setSystemDownHandlerTriggerLimit(systemDownHandlerTriggerLimit);
@@ -680,6 +779,13 @@ public class CorfuRuntime {
     @Getter
     final ViewsGarbageCollector garbageCollector = new ViewsGarbageCollector(this);
 
+    /**
+     * Keeps the objects opened with a staleness bound (or every object, if background object
+     * sync is enabled) up to date, started on first use.
+     */
+    @Getter
+    final ObjectTailer objectTailer = new ObjectTailer(this);
+
     /**
      * Notifies that the runtime is no longer used
      * and async retries to fetch the layout can be stopped.
@@ -878,6 +984,7 @@ public class CorfuRuntime {
             tableRegistryObj.shutdown();
         }
         garbageCollector.stop();
+        objectTailer.stop();
         runtimeExecutor.shutdownNow();
         if (layout != null) {
             try {
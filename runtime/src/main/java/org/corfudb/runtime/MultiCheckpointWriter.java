@@ -2,7 +2,9 @@ package org.corfudb.runtime;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.collections.StreamingMap;
@@ -17,9 +19,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Checkpoint multiple CorfuTables serially as a prerequisite for a later log trim.
+ * Checkpoint multiple CorfuTables as a prerequisite for a later log trim.
+ *
+ * <p>By default the tables are checkpointed serially. If parallelism is greater than one,
+ * the tables are checkpointed concurrently by a bounded pool of workers, all of them at the
+ * same snapshot.</p>
  */
 @Slf4j
 public class MultiCheckpointWriter<T extends StreamingMap> {
@@ -32,6 +43,21 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
             "append-several-checkpoints";
     private final Timer appendCheckpointsTimer = metricRegistry.timer(MULTI_CHECKPOINT_TIMER_NAME);
 
+    /** Number of tables checkpointed concurrently. */
+    @Getter
+    @Setter
+    private int parallelism = 1;
+
+    /** Max number of CONTINUATION records appended asynchronously by each table checkpoint. */
+    @Getter
+    @Setter
+    private int maxInFlightAppends = 1;
+
+    /** Size in bytes of the CONTINUATION records, if greater than zero (see {@link CheckpointWriter}). */
+    @Getter
+    @Setter
+    private long batchBytes = 0;
+
     /** Add a map to the list of maps to be checkpointed by this class. */
     @SuppressWarnings("unchecked")
     public void addMap(T map) {
@@ -54,21 +80,23 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
      * @return Global log address of the first record of
      */
     public Token appendCheckpoints(CorfuRuntime rt, String author) {
+        if (parallelism > 1 && maps.size() > 1) {
+            return appendCheckpointsInParallel(rt, author);
+        }
+
         int numRetries = rt.getParameters().getCheckpointRetries();
         int retry = 0;
         log.info("appendCheckpoints: appending checkpoints for {} maps", maps.size());
 
         Token minSnapshot = Token.UNINITIALIZED;
+        final ExecutorService appenders = newAppendExecutor(1);
 
         final long cpStart = System.currentTimeMillis();
         try (Timer.Context context = MetricsUtils.getConditionalContext(appendCheckpointsTimer)) {
             for (ICorfuSMR<T> map : maps) {
-                UUID streamId = map.getCorfuStreamID();
 
-                CheckpointWriter<T> cpw = new CheckpointWriter(rt, streamId, author, (T) map);
-                ISerializer serializer = ((CorfuCompileProxy) map.getCorfuSMRProxy())
-                                .getSerializer();
-                cpw.setSerializer(serializer);
+                CheckpointWriter<T> cpw = newCheckpointWriter(rt, author, map);
+                cpw.setAppendExecutor(appenders);
 
                 Token minCPSnapshot = Token.UNINITIALIZED;
                 while (retry < numRetries) {
@@ -99,6 +127,9 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
                 }
             }
         } finally {
+            if (appenders != null) {
+                appenders.shutdownNow();
+            }
             // TODO(Maithem): print cp id?
             log.trace("appendCheckpoints: finished, author '{}' at min globalAddress {}",
                     author, minSnapshot);
@@ -111,4 +142,136 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
         return minSnapshot;
     }
 
+    /** Checkpoint multiple CorfuTables concurrently, with up to parallelism workers.
+     *
+     *  <p>A single NO_OP entry is written to the streams of all the tables, and its
+     *  address is used as the snapshot of every checkpoint. If the epoch changes while
+     *  a table is being checkpointed, the checkpoint of this table is retried at a new
+     *  snapshot (the retries are shared by all the tables).</p>
+     *
+     * @param rt CorfuRuntime
+     * @param author Author's name, stored in checkpoint metadata
+     * @return Global log address of the first record of
+     */
+    private Token appendCheckpointsInParallel(CorfuRuntime rt, String author) {
+        final int numRetries = rt.getParameters().getCheckpointRetries();
+        final AtomicInteger retries = new AtomicInteger();
+        final int numWorkers = Math.min(parallelism, maps.size());
+        log.info("appendCheckpointsInParallel: appending checkpoints for {} maps with {} workers",
+                maps.size(), numWorkers);
+
+        final ExecutorService workers = Executors.newFixedThreadPool(numWorkers,
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("MultiCheckpointWriter-worker-%d")
+                        .build());
+        final ExecutorService appenders = newAppendExecutor(numWorkers);
+
+        Token minSnapshot = Token.UNINITIALIZED;
+        final long cpStart = System.currentTimeMillis();
+        try (Timer.Context context = MetricsUtils.getConditionalContext(appendCheckpointsTimer)) {
+            final UUID[] streamIds = maps.stream()
+                    .map(ICorfuSMR::getCorfuStreamID)
+                    .toArray(UUID[]::new);
+            Token snapshot = Token.UNINITIALIZED;
+            while (snapshot == Token.UNINITIALIZED) {
+                try {
+                    snapshot = CheckpointWriter.forceNoOpEntry(rt, streamIds);
+                } catch (WrongEpochException wee) {
+                    onWrongEpoch(wee, retries, numRetries);
+                }
+            }
+
+            final Token sharedSnapshot = snapshot;
+            List<CompletableFuture<Token>> checkpoints = new ArrayList<>(maps.size());
+            for (ICorfuSMR<T> map : maps) {
+                CheckpointWriter<T> cpw = newCheckpointWriter(rt, author, map);
+                cpw.setAppendExecutor(appenders);
+                checkpoints.add(CompletableFuture.supplyAsync(() -> {
+                    Token cpSnapshot = sharedSnapshot;
+                    while (true) {
+                        try {
+                            return cpSnapshot == sharedSnapshot
+                                    ? cpw.appendCheckpoint(sharedSnapshot) : cpw.appendCheckpoint();
+                        } catch (WrongEpochException wee) {
+                            onWrongEpoch(wee, retries, numRetries);
+                            cpSnapshot = Token.UNINITIALIZED;
+                        }
+                    }
+                }, workers));
+            }
+
+            minSnapshot = sharedSnapshot;
+            for (CompletableFuture<Token> checkpoint : checkpoints) {
+                Token cpSnapshot = join(checkpoint);
+                if (cpSnapshot.compareTo(sharedSnapshot) < 0) {
+                    // A checkpoint retried at a new snapshot, which shouldn't regress.
+                    String msg = String.format("Potential epoch regression. Checkpoint returned a smaller " +
+                            "snapshot %s than the shared snapshot %s.", cpSnapshot, sharedSnapshot);
+                    throw new IllegalStateException(msg);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+            if (appenders != null) {
+                appenders.shutdownNow();
+            }
+            log.trace("appendCheckpointsInParallel: finished, author '{}' at min globalAddress {}",
+                    author, minSnapshot);
+        }
+        final long cpStop = System.currentTimeMillis();
+
+        log.info("appendCheckpointsInParallel: took {} ms to append {} checkpoints", cpStop - cpStart,
+                maps.size());
+        return minSnapshot;
+    }
+
+    private CheckpointWriter<T> newCheckpointWriter(CorfuRuntime rt, String author, ICorfuSMR<T> map) {
+        CheckpointWriter<T> cpw = new CheckpointWriter(rt, map.getCorfuStreamID(), author, (T) map);
+        ISerializer serializer = ((CorfuCompileProxy) map.getCorfuSMRProxy())
+                .getSerializer();
+        cpw.setSerializer(serializer);
+        cpw.setMaxInFlightAppends(maxInFlightAppends);
+        cpw.setBatchBytes(batchBytes);
+        return cpw;
+    }
+
+    /**
+     * Create the executor which appends the CONTINUATION records of numWorkers checkpoints
+     * being written at once, or null if the records are appended synchronously.
+     */
+    private ExecutorService newAppendExecutor(int numWorkers) {
+        if (maxInFlightAppends <= 1) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(numWorkers * maxInFlightAppends,
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("MultiCheckpointWriter-append-%d")
+                        .build());
+    }
+
+    private static void onWrongEpoch(WrongEpochException wee, AtomicInteger retries, int numRetries) {
+        int retry = retries.incrementAndGet();
+        log.info("Epoch changed to {} during append checkpoint snapshot resolution. Sequencer" +
+                " failover can lead to potential epoch regression, retry {}/{}", wee.getCorrectEpoch(),
+                retry, numRetries);
+        if (retry >= numRetries) {
+            String msg = String.format("Epochs changed during checkpoint cycle, " +
+                    "over more than %s times. Potential sequencer regressions can lead to data loss. " +
+                    "Aborting.", numRetries);
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    private static Token join(CompletableFuture<Token> checkpoint) {
+        try {
+            return checkpoint.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw ce;
+        }
+    }
 }
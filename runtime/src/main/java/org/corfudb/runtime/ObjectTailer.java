@@ -0,0 +1,168 @@
+package org.corfudb.runtime;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.protocols.wireprotocol.TokenResponse;
+import org.corfudb.runtime.object.CorfuCompileProxy;
+import org.corfudb.runtime.object.MultiStreamSync;
+import org.corfudb.util.CorfuComponent;
+import org.corfudb.util.MetricsUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the objects opened with a staleness bound (or every opened object, if background
+ * object sync is enabled) up to date with the log, so that their reads can be served from
+ * the materialized state of the object, without waiting for the object to sync.
+ *
+ * <p>Every objectTailPeriod, the tailer queries the tails of the streams of the registered
+ * objects in a single request. The objects which are up to date with their stream are just
+ * marked fresh. The other objects are synced up to the global tail in the background, by a
+ * {@link MultiStreamSync} which reads their updates in bulk. The tailer also remembers the
+ * last global tail it observed, which bounded-staleness transactions use as their snapshot.
+ */
+@Slf4j
+public class ObjectTailer {
+
+    /**
+     * A global tail, and when it was queried.
+     */
+    private static class ObservedTail {
+        final Token tail;
+        final long queriedAtNanos;
+
+        ObservedTail(Token tail, long queriedAtNanos) {
+            this.tail = tail;
+            this.queriedAtNanos = queriedAtNanos;
+        }
+    }
+
+    private final CorfuRuntime runtime;
+
+    // Objects which are not cached by the ObjectsView can still be garbage collected
+    private final Set<CorfuCompileProxy<?>> proxies =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private ScheduledExecutorService tailerThread;
+
+    private volatile boolean stopped = false;
+
+    private volatile ObservedTail lastTail;
+
+    private final MultiStreamSync multiStreamSync;
+
+    // Time to sync the registered objects, and addresses an object is behind its stream
+    private final Timer tailerTimer;
+    private final Histogram lagHistogram;
+
+    public ObjectTailer(CorfuRuntime runtime) {
+        this.runtime = runtime;
+        this.multiStreamSync = new MultiStreamSync(runtime);
+        MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        tailerTimer = metrics.timer(CorfuComponent.OBJECT + "tailer.sync");
+        lagHistogram = metrics.histogram(CorfuComponent.OBJECT + "tailer.lag");
+    }
+
+    /**
+     * Keep an object up to date with the log, starting the tailer if needed.
+     *
+     * @param proxy the proxy of the object
+     */
+    public void register(CorfuCompileProxy<?> proxy) {
+        proxies.add(proxy);
+        start();
+    }
+
+    /**
+     * Get the last global tail the objects were synced to, if it was queried within the
+     * staleness bound. Starts the tailer if needed, so that later calls find a recent tail.
+     *
+     * @param maxStaleness the staleness bound
+     * @return the recent global tail, or empty if there is none within the bound
+     */
+    public Optional<Token> getRecentTail(Duration maxStaleness) {
+        start();
+        ObservedTail observed = lastTail;
+        if (observed == null
+                || System.nanoTime() - observed.queriedAtNanos > maxStaleness.toNanos()) {
+            return Optional.empty();
+        }
+        return Optional.of(observed.tail);
+    }
+
+    private synchronized void start() {
+        if (tailerThread != null || stopped) {
+            return;
+        }
+        tailerThread = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("ObjectTailer")
+                        .build());
+        long period = runtime.getParameters().getObjectTailPeriod().toNanos();
+        tailerThread.scheduleWithFixedDelay(this::runTailer, 0, period, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        if (tailerThread != null) {
+            tailerThread.shutdownNow();
+        }
+    }
+
+    /**
+     * Query the tails of the streams of the registered objects, and bring the objects which
+     * are behind their stream up to the global tail.
+     */
+    public void runTailer() {
+        try (Timer.Context context = MetricsUtils.getConditionalContext(tailerTimer)) {
+            final List<CorfuCompileProxy<?>> registered;
+            synchronized (proxies) {
+                registered = new ArrayList<>(proxies);
+            }
+
+            final long queriedAt = System.nanoTime();
+            final TokenResponse tails = multiStreamSync.queryTails(registered);
+            final Token tail = tails.getToken();
+
+            int numBehind = 0;
+            for (CorfuCompileProxy<?> proxy : registered) {
+                final long lag = tails.getStreamTail(proxy.getStreamID())
+                        - proxy.getUnderlyingObject().getVersionUnsafe();
+                if (lag > 0) {
+                    MetricsUtils.updateConditionalHistogram(lagHistogram, lag);
+                    numBehind++;
+                }
+            }
+
+            try {
+                multiStreamSync.sync(registered, tails, queriedAt);
+            } catch (RuntimeException e) {
+                log.warn("runTailer: failed to sync some objects to {}", tail, e);
+            }
+            lastTail = new ObservedTail(tail, queriedAt);
+            log.trace("runTailer: synced {} of {} object(s) to {}", numBehind,
+                    registered.size(), tail);
+        } catch (Throwable t) {
+            // The executor never runs the task again once it throws, so the task only ends
+            // when the tailer is stopped, which also interrupts it.
+            if (stopped) {
+                log.debug("runTailer: stopped while tailing objects", t);
+            } else {
+                log.error("runTailer: encountered an error while tailing objects", t);
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package org.corfudb.runtime.collections;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongBiFunction;
+
+import javax.annotation.Nullable;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Aggregates of the records of a {@link CorfuTable}, maintained incrementally as the table is
+ * updated, like its secondary indexes.
+ * <p>
+ * An aggregate counts the records of the table and, if it has a value function, sums the
+ * values computed for them and optionally tracks their min and max. If it has a group function,
+ * the aggregate is kept for each group key computed for the records, like a GROUP BY. A group
+ * function can also be the indexing function of a secondary index of the table, named by the
+ * aggregate, so that its groups are the values of the index. Since the aggregates are updated by the upcalls of the mutators of the table and reverted by their undo
+ * functions, reading an aggregate costs the same at any version of the table.
+ */
+public class Aggregate {
+
+    /**
+     * Denotes a function that supplies the unique name of an aggregate registered to
+     * {@link CorfuTable}.
+     */
+    @FunctionalInterface
+    public interface Name extends Supplier<String> {
+    }
+
+    /**
+     * Denotes a function that takes as input the key and value of an {@link CorfuTable}
+     * record, and computes the value aggregated for the record. Values are integers, so that
+     * removing a record from a sum restores it exactly.
+     *
+     * @param <K> type of the record key.
+     * @param <V> type of the record value.
+     */
+    @FunctionalInterface
+    public interface ValueFunction<K, V> extends ToLongBiFunction<K, V> {
+    }
+
+    /**
+     * Descriptor of a named aggregate.
+     *
+     * @param <K> type of the record key.
+     * @param <V> type of the record value.
+     */
+    public static class Spec<K, V> {
+        private final Name name;
+        private final Index.Function<K, V, ? extends Comparable<?>> groupFunction;
+        private final Index.Name groupIndex;
+        private final ValueFunction<K, V> valueFunction;
+        private final boolean minMax;
+
+        /**
+         * Count the records of the table.
+         */
+        public Spec(Name name) {
+            this(name, (Index.Function<K, V, ? extends Comparable<?>>) null, null, false);
+        }
+
+        /**
+         * Count the records of each group of the table.
+         */
+        public Spec(Name name, Index.Function<K, V, ? extends Comparable<?>> groupFunction) {
+            this(name, groupFunction, null, false);
+        }
+
+        /**
+         * Count the records, and sum their values, of the table or of each of its groups.
+         * Tracking the min and max of the values keeps the count of each distinct value.
+         */
+        public Spec(Name name, @Nullable Index.Function<K, V, ? extends Comparable<?>> groupFunction,
+                    @Nullable ValueFunction<K, V> valueFunction, boolean minMax) {
+            this(name, groupFunction, null, valueFunction, minMax);
+        }
+
+        /**
+         * Count the records, and sum their values, of each value of a single-value secondary
+         * index of the table.
+         */
+        public Spec(Name name, Index.Name groupIndex,
+                    @Nullable ValueFunction<K, V> valueFunction, boolean minMax) {
+            this(name, null, groupIndex, valueFunction, minMax);
+        }
+
+        private Spec(Name name, @Nullable Index.Function<K, V, ? extends Comparable<?>> groupFunction,
+                     @Nullable Index.Name groupIndex, @Nullable ValueFunction<K, V> valueFunction,
+                     boolean minMax) {
+            if (minMax && valueFunction == null) {
+                throw new IllegalArgumentException("Aggregate " + name.get()
+                        + " has no value function to track the min and max of");
+            }
+            this.name = name;
+            this.groupFunction = groupFunction;
+            this.groupIndex = groupIndex;
+            this.valueFunction = valueFunction;
+            this.minMax = minMax;
+        }
+
+        public Name getName() {
+            return name;
+        }
+
+        public boolean isGrouped() {
+            return groupFunction != null || groupIndex != null;
+        }
+
+        /**
+         * The same aggregate, grouped by the indexing function of its group index among the
+         * indexes of the table, if it has one.
+         */
+        Spec<K, V> resolveGroupIndex(Iterable<? extends Index.Spec<K, V, ?>> indexes) {
+            if (groupIndex == null) {
+                return this;
+            }
+            for (Index.Spec<K, V, ?> index : indexes) {
+                if (!index.getName().get().equals(groupIndex.get())) {
+                    continue;
+                }
+                if (index.isMultiValue()) {
+                    throw new IllegalArgumentException("Aggregate " + name.get()
+                            + " can't be grouped by the multi-value index " + groupIndex.get());
+                }
+                Index.MultiValueFunction<K, V, ?> indexFunction = index.getMultiValueIndexFunction();
+                return new Spec<>(name,
+                        (key, value) -> indexFunction.apply(key, value).iterator().next(),
+                        null, valueFunction, minMax);
+            }
+            throw new IllegalArgumentException("Aggregate " + name.get()
+                    + " is grouped by the unknown index " + groupIndex.get());
+        }
+
+        /**
+         * The same aggregate, of the records whose values map to the values of this aggregate.
+         */
+        <W> Spec<K, W> mapValues(Function<W, V> valueMapper) {
+            return new Spec<>(name,
+                    groupFunction == null ? null
+                            : (key, value) -> groupFunction.apply(key, valueMapper.apply(value)),
+                    groupIndex,
+                    valueFunction == null ? null
+                            : (key, value) -> valueFunction.applyAsLong(key, valueMapper.apply(value)),
+                    minMax);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Spec)) return false;
+            Spec<?, ?> aggregate = (Spec<?, ?>) o;
+            return Objects.equals(name.get(), aggregate.name.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name.get());
+        }
+    }
+
+    /**
+     * Registry of the aggregates of a table.
+     *
+     * @param <K> type of the record key.
+     * @param <V> type of the record value.
+     */
+    public interface Registry<K, V> extends Iterable<Spec<K, V>> {
+
+        Registry<?, ?> EMPTY = (Registry<Object, Object>) Collections::emptyIterator;
+
+        /**
+         * Obtain a static {@link Registry} with no aggregates.
+         */
+        static <K, V> Registry<K, V> empty() {
+            @SuppressWarnings("unchecked")
+            Registry<K, V> result = (Registry<K, V>) EMPTY;
+            return result;
+        }
+
+        /**
+         * Obtain a {@link Registry} of some aggregates.
+         */
+        @SafeVarargs
+        static <K, V> Registry<K, V> of(Spec<K, V>... aggregates) {
+            List<Spec<K, V>> specs = Collections.unmodifiableList(Arrays.asList(aggregates));
+            return specs::iterator;
+        }
+    }
+
+    /**
+     * Value of an aggregate, or of a group of an aggregate.
+     */
+    @EqualsAndHashCode
+    @ToString
+    public static final class Value {
+
+        /**
+         * Value of an aggregate of no record.
+         */
+        public static final Value EMPTY = new Value(0, 0, null, null);
+
+        /**
+         * Number of records.
+         */
+        @Getter
+        private final long count;
+
+        /**
+         * Sum of the values of the records, 0 if the aggregate has no value function.
+         */
+        @Getter
+        private final long sum;
+
+        /**
+         * Smallest value of the records, null if there is no record or the min and max aren't
+         * tracked.
+         */
+        @Getter
+        private final Long min;
+
+        /**
+         * Largest value of the records, null if there is no record or the min and max aren't
+         * tracked.
+         */
+        @Getter
+        private final Long max;
+
+        Value(long count, long sum, Long min, Long max) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    /**
+     * Materialized state of an aggregate of a table.
+     */
+    static final class State<K, V> {
+
+        private final Spec<K, V> spec;
+
+        /**
+         * All the records of the table.
+         */
+        private final Group total;
+
+        /**
+         * Records by group key, if the aggregate is grouped. Groups without records are removed.
+         */
+        private final Map<Comparable<?>, Group> groups = new HashMap<>();
+
+        State(Spec<K, V> spec) {
+            this.spec = spec;
+            this.total = new Group(spec.minMax);
+        }
+
+        void add(K key, V value) {
+            long recordValue = spec.valueFunction == null ? 0 : spec.valueFunction.applyAsLong(key, value);
+            total.add(recordValue);
+            if (spec.isGrouped()) {
+                groups.computeIfAbsent(spec.groupFunction.apply(key, value), k -> new Group(spec.minMax))
+                        .add(recordValue);
+            }
+        }
+
+        void remove(K key, V value) {
+            long recordValue = spec.valueFunction == null ? 0 : spec.valueFunction.applyAsLong(key, value);
+            total.remove(recordValue);
+            if (spec.isGrouped()) {
+                Comparable<?> groupKey = spec.groupFunction.apply(key, value);
+                Group group = groups.get(groupKey);
+                if (group != null) {
+                    group.remove(recordValue);
+                    if (group.count == 0) {
+                        groups.remove(groupKey);
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            total.clear();
+            groups.clear();
+        }
+
+        /**
+         * A new state of the same aggregate, without any record.
+         */
+        State<K, V> newState() {
+            return new State<>(spec);
+        }
+
+        Value getTotal() {
+            return total.toValue();
+        }
+
+        Value getGroup(Comparable<?> groupKey) {
+            if (!spec.isGrouped()) {
+                throw new IllegalArgumentException("Aggregate " + spec.name.get() + " is not grouped.");
+            }
+            Group group = groups.get(groupKey);
+            return group == null ? Value.EMPTY : group.toValue();
+        }
+
+        Map<Comparable<?>, Value> getGroups() {
+            if (!spec.isGrouped()) {
+                throw new IllegalArgumentException("Aggregate " + spec.name.get() + " is not grouped.");
+            }
+            Map<Comparable<?>, Value> values = new HashMap<>();
+            groups.forEach((groupKey, group) -> values.put(groupKey, group.toValue()));
+            return values;
+        }
+    }
+
+    /**
+     * Count, sum and optionally the counts of the distinct values of some records.
+     */
+    private static final class Group {
+        private long count;
+        private long sum;
+        private final TreeMap<Long, Long> values;
+
+        Group(boolean minMax) {
+            this.values = minMax ? new TreeMap<>() : null;
+        }
+
+        void add(long value) {
+            count++;
+            sum += value;
+            if (values != null) {
+                values.merge(value, 1L, Long::sum);
+            }
+        }
+
+        void remove(long value) {
+            count--;
+            sum -= value;
+            if (values != null) {
+                values.computeIfPresent(value, (v, n) -> n == 1 ? null : n - 1);
+            }
+        }
+
+        void clear() {
+            count = 0;
+            sum = 0;
+            if (values != null) {
+                values.clear();
+            }
+        }
+
+        Value toValue() {
+            if (values == null || values.isEmpty()) {
+                return new Value(count, sum, null, null);
+            }
+            return new Value(count, sum, values.firstKey(), values.lastKey());
+        }
+    }
+}
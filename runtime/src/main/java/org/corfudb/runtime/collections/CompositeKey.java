@@ -0,0 +1,78 @@
+package org.corfudb.runtime.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Key of a composite secondary index, which combines the values of several fields, in the
+ * order in which the index declares them (see CompositeIndex in corfu_options.proto).
+ * <p>
+ * The values must have the types of their fields, e.g. a Long for an int64 field and an
+ * Integer for an int32 or uint32 field. Composite keys compare field by field, and a key
+ * compares lower than the longer keys it is a prefix of, so that all the entries of the
+ * leading fields of an ordered composite index can be looked up by a range, for instance:
+ * <pre>
+ *     getByIndexRange(table, "tenant_status",
+ *             CompositeKey.of("tenant1"), true, CompositeKey.of("tenant2"), false)
+ * </pre>
+ */
+@EqualsAndHashCode
+public final class CompositeKey implements Comparable<CompositeKey> {
+
+    /**
+     * Values of the fields of the key.
+     */
+    @Getter
+    private final List<Comparable<?>> values;
+
+    private CompositeKey(List<Comparable<?>> values) {
+        this.values = Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Build a composite key.
+     *
+     * @param values Values of the fields of the key, in the order of the fields of the index.
+     * @return Composite key.
+     */
+    public static CompositeKey of(@Nonnull Comparable<?>... values) {
+        return new CompositeKey(Arrays.asList(values));
+    }
+
+    /**
+     * Build a composite key.
+     *
+     * @param values Values of the fields of the key, in the order of the fields of the index.
+     * @return Composite key.
+     */
+    public static CompositeKey of(@Nonnull List<Comparable<?>> values) {
+        return new CompositeKey(new ArrayList<>(values));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int compareTo(@Nonnull CompositeKey other) {
+        int size = Math.min(values.size(), other.values.size());
+        for (int i = 0; i < size; i++) {
+            int cmp = ((Comparable<Object>) values.get(i)).compareTo(other.values.get(i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(values.size(), other.values.size());
+    }
+
+    @Override
+    public String toString() {
+        return values.stream().map(String::valueOf)
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+}
@@ -24,6 +24,18 @@ public interface ContextAwareMap<K, V> extends StreamingMap<K, V>, AutoCloseable
         return this;
     }
 
+    /**
+     * Return an immutable snapshot of this map, which doesn't change when the map
+     * is updated. Only maps which can take a snapshot cheaply (e.g. by sharing their
+     * structure with the snapshot) should implement it.
+     *
+     * @return {@link ContextAwareMap} representing the current state of the map,
+     *         or null if the map doesn't support snapshots
+     */
+    default ContextAwareMap<K, V> getSnapshot() {
+        return null;
+    }
+
     /**
      * Relinquish any resources associated with this object.
      */
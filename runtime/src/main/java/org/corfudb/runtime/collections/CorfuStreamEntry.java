@@ -8,6 +8,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.corfudb.protocols.logprotocol.SMREntry;
+import org.corfudb.runtime.object.SMRMethodDictionary;
 
 /**
  * Entry returned by CorfuStore's StreamListener interface
@@ -22,6 +23,13 @@ import org.corfudb.protocols.logprotocol.SMREntry;
  */
 @Slf4j
 public class CorfuStreamEntry<K extends Message, V extends Message, M extends Message> {
+    /**
+     * The SMR methods of a table which are translated to operations, which resolve the
+     * entries that refer to their method by ID.
+     */
+    private static final SMRMethodDictionary TABLE_METHODS = new SMRMethodDictionary(
+            new String[]{"put", "putAll", "clear", "remove"});
+
     /**
      * Key of the UFO stream entry
      */
@@ -109,7 +117,8 @@ public class CorfuStreamEntry<K extends Message, V extends Message, M extends Me
 
     private static OperationType getOperationType(@Nonnull SMREntry entry) {
         OperationType operationType;
-        switch (entry.getSMRMethod()) {
+        final String smrMethod = entry.resolveSMRMethod(TABLE_METHODS);
+        switch (smrMethod == null ? "" : smrMethod) {
             case "put":
             case "putAll":
                 operationType = OperationType.UPDATE;
@@ -121,7 +130,8 @@ public class CorfuStreamEntry<K extends Message, V extends Message, M extends Me
                 operationType = OperationType.DELETE;
                 break;
             default:
-                throw new RuntimeException("SMRMethod "+entry.getSMRMethod()
+                throw new RuntimeException("SMRMethod " + (smrMethod == null
+                        ? "with ID " + entry.getMethodId() : smrMethod)
                         + " cannot be translated to any known operation type");
         }
         return operationType;
@@ -19,16 +19,22 @@ import org.corfudb.runtime.object.ICorfuVersionPolicy;
 import org.corfudb.util.ImmutableListSetWrapper;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.BiConsumer;
@@ -36,6 +42,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -53,6 +60,10 @@ import java.util.stream.Stream;
  * that can be done on a retrieval on the index. A common projection is to emit only the
  * values.
  *
+ * <p>An index can be declared as ordered, in which case its index keys are kept sorted. Besides
+ * exact-match lookups, an ordered index supports range, prefix, min/max and top-N queries,
+ * without scanning the whole table.
+ *
  * @param <K>   The type of the primary key.
  * @param <V>   The type of the values to be mapped.
  */
@@ -76,10 +87,24 @@ public class CorfuTable<K, V> implements
                 return worker;
             }, null, true);
 
+    // The order of the index keys of ordered indexes, null index keys come first.
+    @SuppressWarnings("unchecked")
+    private static final Comparator<Comparable> INDEX_KEY_ORDER =
+            Comparator.nullsFirst((Comparable k1, Comparable k2) -> k1.compareTo(k2));
+
     // The "main" map which contains the primary key-value mappings.
     private final ContextAwareMap<K, V> mainMap;
     private final Set<Index.Spec<K, V, ? extends Comparable>> indexSpec;
     private final Map<String, Map<Comparable, Map<K, V>>> secondaryIndexes;
+    private final Map<String, Aggregate.State<K, V>> aggregates;
+    // The keys of the main map by their hash codes, so that a paged scan seeks to the position
+    // it resumes from. Only kept by tables which opt in, as it costs memory and updates. Null
+    // for other tables, disk-backed tables, which don't keep their keys in memory, and for
+    // snapshots, which are all paged by a scan of the whole map.
+    private final NavigableMap<Integer, Set<K>> keysByHash;
+    // Whether the secondary indexes and aggregates of a snapshot remain to be built from its
+    // main map, which is only done on their first query, as most snapshots are never queried.
+    private volatile boolean indexesPending = false;
     private final CorfuTable<K, V> optimisticTable;
     private final VersionPolicy versionPolicy;
 
@@ -87,40 +112,103 @@ public class CorfuTable<K, V> implements
                       Set<Index.Spec<K, V, ? extends Comparable>> indexSpec,
                       Map<String, Map<Comparable, Map<K, V>>> secondaryIndexe,
                       CorfuTable<K, V> optimisticTable) {
+        this(mainMap, indexSpec, secondaryIndexe, new HashMap<>(), optimisticTable);
+    }
+
+    public CorfuTable(ContextAwareMap<K, V> mainMap,
+                      Set<Index.Spec<K, V, ? extends Comparable>> indexSpec,
+                      Map<String, Map<Comparable, Map<K, V>>> secondaryIndexe,
+                      Map<String, Aggregate.State<K, V>> aggregates,
+                      CorfuTable<K, V> optimisticTable) {
+        this(mainMap, indexSpec, secondaryIndexe, aggregates, null, optimisticTable);
+    }
+
+    protected CorfuTable(ContextAwareMap<K, V> mainMap,
+                         Set<Index.Spec<K, V, ? extends Comparable>> indexSpec,
+                         Map<String, Map<Comparable, Map<K, V>>> secondaryIndexe,
+                         Map<String, Aggregate.State<K, V>> aggregates,
+                         NavigableMap<Integer, Set<K>> keysByHash,
+                         CorfuTable<K, V> optimisticTable) {
         this.mainMap = mainMap;
         this.indexSpec = indexSpec;
         this.secondaryIndexes = secondaryIndexe;
+        this.aggregates = aggregates;
+        this.keysByHash = keysByHash;
         this.optimisticTable = optimisticTable;
         this.versionPolicy = ICorfuVersionPolicy.DEFAULT;
     }
 
     /**
      * The main constructor that generates a table with a given implementation of the
-     * {@link StreamingMap} along with {@link Index.Registry} and {@link VersionPolicy}
-     * specification.
+     * {@link StreamingMap} along with {@link Index.Registry}, {@link Aggregate.Registry} and
+     * {@link VersionPolicy} specification.
+     *
+     * @param pagedScanIndex whether the table keeps its keys by their hash codes, so that a
+     *                       page of {@link #scanAndFilterPageByEntry} seeks to its position
+     *                       instead of scanning the whole table.
      */
     public CorfuTable(Index.Registry<K, V> indices,
+                      Aggregate.Registry<K, V> aggregateRegistry,
                       Supplier<ContextAwareMap<K, V>> streamingMapSupplier,
-                      VersionPolicy versionPolicy) {
+                      VersionPolicy versionPolicy,
+                      boolean pagedScanIndex) {
         this.indexSpec = new HashSet<>();
         this.secondaryIndexes = new HashMap<>();
+        this.aggregates = new HashMap<>();
         this.mainMap = streamingMapSupplier.get();
+        this.keysByHash = pagedScanIndex && !(mainMap instanceof PersistedStreamingMap)
+                ? new TreeMap<>() : null;
         this.versionPolicy = versionPolicy;
 
         this.optimisticTable = new CorfuTable<>(this.mainMap.getOptimisticMap(), this.indexSpec,
-                this.secondaryIndexes, null);
+                this.secondaryIndexes, this.aggregates, this.keysByHash, null);
 
         indices.forEach(index -> {
-            secondaryIndexes.put(index.getName().get(), new HashMap<>());
+            secondaryIndexes.put(index.getName().get(),
+                    index.isOrdered() ? new TreeMap<>(INDEX_KEY_ORDER) : new HashMap<>());
             indexSpec.add(index);
         });
 
+        aggregateRegistry.forEach(aggregate -> {
+            if (aggregates.put(aggregate.getName().get(),
+                    new Aggregate.State<>(aggregate.resolveGroupIndex(indexSpec))) != null) {
+                throw new IllegalArgumentException("Aggregate " + aggregate.getName().get()
+                        + " is defined more than once.");
+            }
+        });
+
         if (!secondaryIndexes.isEmpty()) {
             log.info(
                 "CorfuTable: creating CorfuTable with the following indexes: {}",
                 secondaryIndexes.keySet()
             );
         }
+        if (!aggregates.isEmpty()) {
+            log.info("CorfuTable: creating CorfuTable with the following aggregates: {}",
+                    aggregates.keySet());
+        }
+    }
+
+    /**
+     * Generate a table with a given implementation of the {@link StreamingMap} along with
+     * {@link Index.Registry}, {@link Aggregate.Registry} and {@link VersionPolicy}
+     * specification.
+     */
+    public CorfuTable(Index.Registry<K, V> indices,
+                      Aggregate.Registry<K, V> aggregateRegistry,
+                      Supplier<ContextAwareMap<K, V>> streamingMapSupplier,
+                      VersionPolicy versionPolicy) {
+        this(indices, aggregateRegistry, streamingMapSupplier, versionPolicy, false);
+    }
+
+    /**
+     * Generate a table with a given implementation of the {@link StreamingMap} along with
+     * {@link Index.Registry} and {@link VersionPolicy} specification.
+     */
+    public CorfuTable(Index.Registry<K, V> indices,
+                      Supplier<ContextAwareMap<K, V>> streamingMapSupplier,
+                      VersionPolicy versionPolicy) {
+        this(indices, Aggregate.Registry.empty(), streamingMapSupplier, versionPolicy);
     }
 
     /**
@@ -199,6 +287,16 @@ public class CorfuTable<K, V> implements
         return !secondaryIndexes.isEmpty();
     }
 
+    /** Return whether this table has the given secondary index or not.
+     *
+     * @param indexName Name of the secondary index.
+     * @return  True, if the secondary index is present. False otherwise.
+     */
+    @Accessor
+    public boolean hasSecondaryIndex(@Nonnull Index.Name indexName) {
+        return secondaryIndexes.containsKey(indexName.get());
+    }
+
     /** {@inheritDoc} */
     @Override
     @Accessor
@@ -234,8 +332,7 @@ public class CorfuTable<K, V> implements
     Collection<Entry<K, V>> getByIndex(@Nonnull Index.Name indexName, I indexKey) {
         String secondaryIndex = indexName.get();
         Map<Comparable, Map<K, V>> secondaryMap;
-        if (secondaryIndexes.containsKey(secondaryIndex) &&
-                ((secondaryMap = secondaryIndexes.get(secondaryIndex)) != null)) {
+        if ((secondaryMap = getSecondaryIndex(secondaryIndex)) != null) {
             // If secondary index exists and function for this index is not null
             Map<K, V> res = secondaryMap.get(indexKey);
 
@@ -268,8 +365,7 @@ public class CorfuTable<K, V> implements
         String secondaryIndex = indexName.get();
         Map<Comparable, Map<K, V>> secondaryMap;
 
-        if (secondaryIndexes.containsKey(secondaryIndex) &&
-                ((secondaryMap = secondaryIndexes.get(secondaryIndex)) != null)) {
+        if ((secondaryMap = getSecondaryIndex(secondaryIndex)) != null) {
             if (secondaryMap.get(indexKey) == null) {
                 entryStream = Stream.empty();
             } else {
@@ -284,13 +380,323 @@ public class CorfuTable<K, V> implements
         throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not defined.");
     }
 
+    /**
+     * Get the mappings whose index keys are within a range, in index key order.
+     * The index must be an ordered index.
+     *
+     * @param indexName     Name of the the ordered secondary index to query.
+     * @param fromKey       Low end of the range, or null if the range is unbounded below.
+     * @param fromInclusive Whether the low end is included in the range.
+     * @param toKey         High end of the range, or null if the range is unbounded above.
+     * @param toInclusive   Whether the high end is included in the range.
+     * @return A list of Map.Entry<K, V>, sorted by index key.
+     */
+    @Accessor
+    public @Nonnull
+    <I extends Comparable<I>>
+    List<Entry<K, V>> getByIndexRange(@Nonnull Index.Name indexName,
+                                      @Nullable I fromKey, boolean fromInclusive,
+                                      @Nullable I toKey, boolean toInclusive) {
+        return collectEntries(getIndexRange(indexName, fromKey, fromInclusive, toKey, toInclusive)
+                .values(), Integer.MAX_VALUE, isMultiValueIndex(indexName));
+    }
+
+    /**
+     * Count the mappings of an index key, without collecting them.
+     *
+     * @param indexName Name of the the secondary index to query.
+     * @param indexKey  The index key used to query the secondary index.
+     * @return The number of mappings of the index key.
+     */
+    @Accessor
+    public <I extends Comparable<I>> int countByIndex(@Nonnull Index.Name indexName, I indexKey) {
+        Map<Comparable, Map<K, V>> secondaryMap = getSecondaryIndex(indexName.get());
+        if (secondaryMap == null) {
+            throw new IllegalArgumentException("Secondary Index " + indexName.get()
+                    + " is not defined.");
+        }
+        Map<K, V> slot = secondaryMap.get(indexKey);
+        return slot == null ? 0 : slot.size();
+    }
+
+    /**
+     * Count the mappings whose index keys are within a range, without collecting them.
+     * The index must be an ordered index.
+     *
+     * @param indexName     Name of the the ordered secondary index to query.
+     * @param fromKey       Low end of the range, or null if the range is unbounded below.
+     * @param fromInclusive Whether the low end is included in the range.
+     * @param toKey         High end of the range, or null if the range is unbounded above.
+     * @param toInclusive   Whether the high end is included in the range.
+     * @return The number of mappings within the range.
+     */
+    @Accessor
+    public <I extends Comparable<I>> long countByIndexRange(@Nonnull Index.Name indexName,
+                                                            @Nullable I fromKey, boolean fromInclusive,
+                                                            @Nullable I toKey, boolean toInclusive) {
+        long count = 0;
+        for (Map<K, V> slot : getIndexRange(indexName, fromKey, fromInclusive, toKey, toInclusive)
+                .values()) {
+            count += slot.size();
+        }
+        return count;
+    }
+
+    /** Return whether the given secondary index is an ordered index or not.
+     *
+     * @param indexName Name of the secondary index.
+     * @return  True, if the secondary index is present and ordered. False otherwise.
+     */
+    @Accessor
+    public boolean isOrderedIndex(@Nonnull Index.Name indexName) {
+        return secondaryIndexes.get(indexName.get()) instanceof NavigableMap;
+    }
+
+    @DontInstrument
+    protected <I extends Comparable<I>> NavigableMap<Comparable, Map<K, V>> getIndexRange(
+            @Nonnull Index.Name indexName, @Nullable I fromKey, boolean fromInclusive,
+            @Nullable I toKey, boolean toInclusive) {
+        NavigableMap<Comparable, Map<K, V>> range = getOrderedIndex(indexName);
+        if (fromKey != null && toKey != null) {
+            if (fromKey.compareTo(toKey) > 0) {
+                return Collections.emptyNavigableMap();
+            }
+            range = range.subMap(fromKey, fromInclusive, toKey, toInclusive);
+        } else if (fromKey != null) {
+            range = range.tailMap(fromKey, fromInclusive);
+        } else if (toKey != null) {
+            range = range.headMap(toKey, toInclusive);
+        }
+        return range;
+    }
+
+    /**
+     * Get the mappings whose index keys start with a prefix, in index key order.
+     * The index must be an ordered index of {@link String} index keys.
+     *
+     * @param indexName Name of the the ordered secondary index to query.
+     * @param prefix    The prefix of the index keys.
+     * @return A list of Map.Entry<K, V>, sorted by index key.
+     */
+    @Accessor
+    public @Nonnull
+    List<Entry<K, V>> getByIndexPrefix(@Nonnull Index.Name indexName, @Nonnull String prefix) {
+        NavigableMap<Comparable, Map<K, V>> secondaryMap = getOrderedIndex(indexName);
+        // Null index keys are left out of the ordered index, so its first key has the type
+        // of the index keys
+        if (!secondaryMap.isEmpty() && !(secondaryMap.firstKey() instanceof String)) {
+            throw new IllegalArgumentException("Secondary Index " + indexName.get()
+                    + ": prefix queries require a string index.");
+        }
+
+        List<Map<K, V>> slots = new ArrayList<>();
+        for (Entry<Comparable, Map<K, V>> slot : secondaryMap.tailMap(prefix, true).entrySet()) {
+            if (!((String) slot.getKey()).startsWith(prefix)) {
+                break;
+            }
+            slots.add(slot.getValue());
+        }
+        return collectEntries(slots, Integer.MAX_VALUE, isMultiValueIndex(indexName));
+    }
+
+    /**
+     * Get the mappings with the smallest index keys, in ascending index key order.
+     * The index must be an ordered index.
+     *
+     * @param indexName Name of the the ordered secondary index to query.
+     * @param limit     The max number of mappings to return.
+     * @return A list of at most limit Map.Entry<K, V>, sorted by index key.
+     */
+    @Accessor
+    public @Nonnull
+    List<Entry<K, V>> getByIndexFirst(@Nonnull Index.Name indexName, int limit) {
+        return collectEntries(getOrderedIndex(indexName).values(), limit,
+                isMultiValueIndex(indexName));
+    }
+
+    /**
+     * Get the mappings with the largest index keys, in descending index key order.
+     * The index must be an ordered index.
+     *
+     * @param indexName Name of the the ordered secondary index to query.
+     * @param limit     The max number of mappings to return.
+     * @return A list of at most limit Map.Entry<K, V>, sorted by descending index key.
+     */
+    @Accessor
+    public @Nonnull
+    List<Entry<K, V>> getByIndexLast(@Nonnull Index.Name indexName, int limit) {
+        return collectEntries(getOrderedIndex(indexName).descendingMap().values(), limit,
+                isMultiValueIndex(indexName));
+    }
+
+    /**
+     * Get the smallest index key of an ordered index.
+     *
+     * @param indexName Name of the the ordered secondary index to query.
+     * @return The smallest index key, or null if the table is empty.
+     */
+    @Accessor
+    @SuppressWarnings("unchecked")
+    public @Nullable
+    <I extends Comparable<I>> I getMinIndexKey(@Nonnull Index.Name indexName) {
+        NavigableMap<Comparable, Map<K, V>> secondaryMap = getOrderedIndex(indexName);
+        return secondaryMap.isEmpty() ? null : (I) secondaryMap.firstKey();
+    }
+
+    /**
+     * Get the largest index key of an ordered index.
+     *
+     * @param indexName Name of the the ordered secondary index to query.
+     * @return The largest index key, or null if the table is empty.
+     */
+    @Accessor
+    @SuppressWarnings("unchecked")
+    public @Nullable
+    <I extends Comparable<I>> I getMaxIndexKey(@Nonnull Index.Name indexName) {
+        NavigableMap<Comparable, Map<K, V>> secondaryMap = getOrderedIndex(indexName);
+        return secondaryMap.isEmpty() ? null : (I) secondaryMap.lastKey();
+    }
+
+    /**
+     * Get the value of an aggregate over all the mappings of the table.
+     *
+     * @param aggregateName Name of the aggregate.
+     * @return The value of the aggregate.
+     */
+    @Accessor
+    public @Nonnull Aggregate.Value getAggregate(@Nonnull Aggregate.Name aggregateName) {
+        return getAggregateState(aggregateName).getTotal();
+    }
+
+    /**
+     * Get the value of a group of a grouped aggregate.
+     *
+     * @param aggregateName Name of the grouped aggregate.
+     * @param groupKey      The group key.
+     * @return The value of the aggregate over the mappings of the group, which is
+     *         {@link Aggregate.Value#EMPTY} if the group has no mappings.
+     */
+    @Accessor
+    public @Nonnull Aggregate.Value getAggregate(@Nonnull Aggregate.Name aggregateName,
+                                                 @Nullable Comparable<?> groupKey) {
+        return getAggregateState(aggregateName).getGroup(groupKey);
+    }
+
+    /**
+     * Get the values of all the groups of a grouped aggregate.
+     *
+     * @param aggregateName Name of the grouped aggregate.
+     * @return A map of the values of the aggregate by group key, for the groups with mappings.
+     */
+    @Accessor
+    public @Nonnull Map<Comparable<?>, Aggregate.Value> getAggregateGroups(
+            @Nonnull Aggregate.Name aggregateName) {
+        return getAggregateState(aggregateName).getGroups();
+    }
+
+    @DontInstrument
+    protected Aggregate.State<K, V> getAggregateState(@Nonnull Aggregate.Name aggregateName) {
+        buildPendingIndexes();
+        Aggregate.State<K, V> aggregate = aggregates.get(aggregateName.get());
+        if (aggregate == null) {
+            throw new IllegalArgumentException("Aggregate " + aggregateName.get() + " is not defined.");
+        }
+        return aggregate;
+    }
+
+    @DontInstrument
+    protected Map<Comparable, Map<K, V>> getSecondaryIndex(String indexName) {
+        buildPendingIndexes();
+        return secondaryIndexes.get(indexName);
+    }
+
+    /**
+     * Build the secondary indexes and aggregates of a snapshot, if they weren't yet. Snapshots
+     * are immutable and read without the lock of their object, so this builds them once.
+     */
+    @DontInstrument
+    protected void buildPendingIndexes() {
+        if (!indexesPending) {
+            return;
+        }
+        synchronized (this) {
+            if (indexesPending) {
+                try (Stream<Entry<K, V>> entries = mainMap.entryStream()) {
+                    entries.forEach(entry -> mapSecondaryIndexes(entry.getKey(), entry.getValue()));
+                }
+                indexesPending = false;
+            }
+        }
+    }
+
+    @DontInstrument
+    protected NavigableMap<Comparable, Map<K, V>> getOrderedIndex(@Nonnull Index.Name indexName) {
+        String secondaryIndex = indexName.get();
+        Map<Comparable, Map<K, V>> secondaryMap = getSecondaryIndex(secondaryIndex);
+        if (secondaryMap == null) {
+            log.error("CorfuTable: secondary index " + secondaryIndex + " does not exist for this table, cannot complete the query.");
+            throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not defined.");
+        }
+        if (!(secondaryMap instanceof NavigableMap)) {
+            throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not ordered.");
+        }
+        // Null index keys sort first, but they are not comparable to the other index keys,
+        // so ordered queries only see the non-null ones (null is still an exact-match key)
+        return ((NavigableMap<Comparable, Map<K, V>>) secondaryMap).tailMap(null, false);
+    }
+
+    /**
+     * Whether an index is a multi-value index, which may hold a mapping under several of
+     * its index keys.
+     */
+    @DontInstrument
+    protected boolean isMultiValueIndex(@Nonnull Index.Name indexName) {
+        for (Index.Spec<K, V, ? extends Comparable> index : indexSpec) {
+            if (index.getName().get().equals(indexName.get())) {
+                return index.isMultiValue();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collect the mappings of several index keys, in order. A mapping indexed by several of the
+     * index keys of a multi-value index is collected once, at its first index key.
+     */
+    @DontInstrument
+    protected List<Entry<K, V>> collectEntries(Collection<Map<K, V>> slots, int limit,
+                                               boolean multiValue) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Invalid limit " + limit);
+        }
+
+        List<Entry<K, V>> entries = new ArrayList<>();
+        // Only a multi-value index can hold a mapping in several slots
+        Set<K> keys = multiValue ? new HashSet<>() : null;
+        for (Map<K, V> slot : slots) {
+            for (Entry<K, V> entry : slot.entrySet()) {
+                if (entries.size() == limit) {
+                    return entries;
+                }
+                if (keys == null || keys.add(entry.getKey())) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
     /** {@inheritDoc} */
     @Override
-    @MutatorAccessor(name = "put", undoFunction = "undoPut", undoRecordFunction = "undoPutRecord")
+    @MutatorAccessor(name = "put", undoFunction = "undoPut", undoRecordFunction = "undoPutRecord",
+            overwritesKey = true)
     public V put(@ConflictParameter K key, V value) {
         V previous = mainMap.put(key, value);
-        // If we have index functions, update the secondary indexes.
-        if (!secondaryIndexes.isEmpty()) {
+        if (previous == null) {
+            addKeyByHash(key);
+        }
+        // If we have index functions or aggregates, update them.
+        if (isIndexed()) {
             unmapSecondaryIndexes(key, previous);
             mapSecondaryIndexes(key, value);
         }
@@ -360,7 +766,7 @@ public class CorfuTable<K, V> implements
 
     /** {@inheritDoc} */
     @Override
-    @Mutator(name = "put", noUpcall = true)
+    @Mutator(name = "put", noUpcall = true, overwritesKey = true)
     public void insert(@ConflictParameter K key, V value) {
         // This is just a stub, the annotation processor will generate an update with
         // put(key, value), since this method doesn't require an upcall therefore no
@@ -390,13 +796,98 @@ public class CorfuTable<K, V> implements
         }
     }
 
+    /**
+     * Scan and filter a page of the entries, in the order of the hash codes of their keys,
+     * so that a scan can be resumed after the last entry of a page. If the table keeps its
+     * keys by their hash codes (see {@link TableOptions#isPagedScanIndex()}), the scan seeks
+     * to the position it resumes from and stops once the page is full. Otherwise every page
+     * scans the whole table.
+     *
+     * @param entryPredicate The predicate to filter the entries with.
+     * @param lastKeyHash    Hash code of the key of the last entry of the previous pages,
+     *                       {@link ScanToken#FIRST_KEY_HASH} for the first page.
+     * @param lastHashKeys   Keys of the entries of the previous pages whose hash code is
+     *                       lastKeyHash.
+     * @param pageSize       Max number of entries of the page.
+     * @return The entries of the page, sorted by the hash codes of their keys.
+     */
+    @Accessor
+    public @Nonnull List<Map.Entry<K, V>> scanAndFilterPageByEntry(
+            @Nonnull Predicate<? super Map.Entry<K, V>> entryPredicate,
+            int lastKeyHash, @Nonnull Set<?> lastHashKeys, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page size " + pageSize);
+        }
+        if (keysByHash == null) {
+            return scanPageByKeyHash(entryPredicate, lastKeyHash, lastHashKeys, pageSize);
+        }
+
+        List<Map.Entry<K, V>> page = new ArrayList<>(pageSize);
+        for (Set<K> keys : keysByHash.tailMap(lastKeyHash, true).values()) {
+            for (K key : keys) {
+                Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(key,
+                        mainMap.get(key));
+                if (ScanToken.isAfter(lastKeyHash, lastHashKeys, entry)
+                        && entryPredicate.test(entry)) {
+                    page.add(entry);
+                    if (page.size() == pageSize) {
+                        return page;
+                    }
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Scan and filter a page of the entries of a table which doesn't keep its keys by their
+     * hash codes, by scanning the whole table and keeping the entries with the smallest key
+     * hashes after the position of the scan.
+     */
+    @DontInstrument
+    protected List<Map.Entry<K, V>> scanPageByKeyHash(
+            Predicate<? super Map.Entry<K, V>> entryPredicate,
+            int lastKeyHash, Set<?> lastHashKeys, int pageSize) {
+        // Max-heaps of the entries with the smallest key hashes found so far, one per
+        // thread of the parallel stream, merged at the end
+        final Comparator<Map.Entry<K, V>> byKeyHash =
+                Comparator.comparingInt(entry -> entry.getKey().hashCode());
+        final BiConsumer<PriorityQueue<Map.Entry<K, V>>, Map.Entry<K, V>> addToPage =
+                (heap, entry) -> {
+                    if (heap.size() < pageSize || byKeyHash.compare(entry, heap.peek()) < 0) {
+                        heap.add(entry);
+                        if (heap.size() > pageSize) {
+                            heap.poll();
+                        }
+                    }
+                };
+        final PriorityQueue<Map.Entry<K, V>> page;
+        try (Stream<Map.Entry<K, V>> entries = mainMap.unsafeEntryStream()) {
+            page = pool.submit(() -> entries
+                    .filter(entry -> ScanToken.isAfter(lastKeyHash, lastHashKeys, entry)
+                            && entryPredicate.test(entry))
+                    .collect(Collector.of(
+                            () -> new PriorityQueue<>(pageSize + 1, byKeyHash.reversed()),
+                            addToPage,
+                            (left, right) -> {
+                                right.forEach(entry -> addToPage.accept(left, entry));
+                                return left;
+                            }))).join();
+        }
+
+        List<Map.Entry<K, V>> sortedPage = new ArrayList<>(page);
+        sortedPage.sort(byKeyHash);
+        return sortedPage;
+    }
+
     /** {@inheritDoc} */
     @Override
     @MutatorAccessor(name = "remove", undoFunction = "undoRemove",
-            undoRecordFunction = "undoRemoveRecord")
+            undoRecordFunction = "undoRemoveRecord", overwritesKey = true)
     @SuppressWarnings("unchecked")
     public V remove(@ConflictParameter Object key) {
         V previous =  mainMap.remove(key);
+        removeKeyByHash(key);
         unmapSecondaryIndexes((K) key, previous);
         return previous;
     }
@@ -410,10 +901,14 @@ public class CorfuTable<K, V> implements
     protected void undoRemove(CorfuTable<K, V> table, V undoRecord, K key) {
         if (undoRecord == null) {
             V previous =  table.mainMap.remove(key);
+            table.removeKeyByHash(key);
             table.unmapSecondaryIndexes(key, previous);
         } else {
             V previous = table.mainMap.put(key, undoRecord);
-            if (!table.secondaryIndexes.isEmpty()) {
+            if (previous == null) {
+                table.addKeyByHash(key);
+            }
+            if (table.isIndexed()) {
                 table.unmapSecondaryIndexes(key, previous);
                 table.mapSecondaryIndexes(key, undoRecord);
             }
@@ -422,7 +917,7 @@ public class CorfuTable<K, V> implements
 
     /** {@inheritDoc} */
     @Override
-    @Mutator(name = "remove", noUpcall = true)
+    @Mutator(name = "remove", noUpcall = true, overwritesKey = true)
     public void delete(@ConflictParameter K key) {
         // This is just a stub, the annotation processor will generate an update with
         // remove(key), since this method doesn't require an upcall therefore no
@@ -436,15 +931,21 @@ public class CorfuTable<K, V> implements
             undoRecordFunction = "undoPutAllRecord",
             conflictParameterFunction = "putAllConflictFunction")
     public void putAll(@Nonnull Map<? extends K, ? extends V> m) {
-        // If we have no index functions, then just directly put all
-        if (secondaryIndexes.isEmpty()) {
+        // If we have no index functions or aggregates, then just directly put all
+        if (!isIndexed()) {
             mainMap.putAll(m);
+            if (keysByHash != null) {
+                m.keySet().forEach(this::addKeyByHash);
+            }
         } else {
             // Otherwise we must update all secondary indexes
             // TODO: Do this in parallel (need to acquire update locks, potentially)
             m.entrySet().stream()
                     .forEach(e -> {
                         V previous = mainMap.put(e.getKey(), e.getValue());
+                        if (previous == null) {
+                            addKeyByHash(e.getKey());
+                        }
                         unmapSecondaryIndexes(e.getKey(), previous);
                         mapSecondaryIndexes(e.getKey(), e.getValue());
                     });
@@ -456,7 +957,11 @@ public class CorfuTable<K, V> implements
     @Mutator(name = "clear", reset = true)
     public void clear() {
         mainMap.clear();
+        if (keysByHash != null) {
+            keysByHash.clear();
+        }
         secondaryIndexes.values().forEach(Map::clear);
+        aggregates.values().forEach(Aggregate.State::clear);
     }
 
     /** {@inheritDoc} */
@@ -653,9 +1158,15 @@ public class CorfuTable<K, V> implements
                     Map<K, V> slot = secondaryIndex.get(indexKey);
                     if (slot != null) {
                         slot.remove(key, value);
+                        // Don't keep empty slots around, they would be returned
+                        // as the min/max keys of ordered indexes
+                        if (slot.isEmpty()) {
+                            secondaryIndex.remove(indexKey);
+                        }
                     }
                 }
             }
+            aggregates.values().forEach(aggregate -> aggregate.remove(key, value));
         } catch (Exception e) {
             log.error("Received an exception while computing the index. " +
                     "This is most likely an issue with the client's indexing function. {}", e);
@@ -692,6 +1203,7 @@ public class CorfuTable<K, V> implements
                     slot.put(key, value);
                 }
             }
+            aggregates.values().forEach(aggregate -> aggregate.add(key, value));
         } catch (Exception e) {
             log.error("Received an exception while computing the index. " +
                     "This is most likely an issue with the client's indexing function.", e);
@@ -705,12 +1217,62 @@ public class CorfuTable<K, V> implements
     }
 
     /**
-     *  Disable all secondary indices for this table. Only used during error-recovery.
+     * Add a key of the main map to the keys by their hash codes. The sets of keys are
+     * copied on write, as they are only shared by the keys of colliding hash codes.
+     */
+    @DontInstrument
+    protected void addKeyByHash(K key) {
+        if (keysByHash == null) {
+            return;
+        }
+        keysByHash.merge(Objects.hashCode(key), Collections.singleton(key), (keys, added) -> {
+            if (keys.contains(key)) {
+                return keys;
+            }
+            Set<K> merged = new HashSet<>(keys);
+            merged.add(key);
+            return merged;
+        });
+    }
+
+    /**
+     * Remove a key of the main map from the keys by their hash codes.
+     */
+    @DontInstrument
+    protected void removeKeyByHash(Object key) {
+        if (keysByHash == null) {
+            return;
+        }
+        keysByHash.computeIfPresent(Objects.hashCode(key), (hash, keys) -> {
+            if (!keys.contains(key)) {
+                return keys;
+            }
+            if (keys.size() == 1) {
+                return null;
+            }
+            Set<K> remaining = new HashSet<>(keys);
+            remaining.remove(key);
+            return remaining;
+        });
+    }
+
+    /**
+     *  Disable all secondary indices and aggregates for this table. Only used during
+     *  error-recovery.
      */
     @DontInstrument
     protected void clearIndex() {
         indexSpec.clear();
         secondaryIndexes.clear();
+        aggregates.clear();
+    }
+
+    /**
+     * Whether the table has secondary indexes or aggregates to update with its mappings.
+     */
+    @DontInstrument
+    protected boolean isIndexed() {
+        return !secondaryIndexes.isEmpty() || !aggregates.isEmpty();
     }
 
     /**
@@ -726,6 +1288,36 @@ public class CorfuTable<K, V> implements
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A snapshot is only available if the main map supports snapshots (e.g. a
+     * {@link VersionedStreamingMap}). The secondary indexes and aggregates of the snapshot
+     * are built from its main map on their first query, so that taking a snapshot doesn't
+     * copy them.
+     */
+    @DontInstrument
+    @Override
+    public CorfuTable<K, V> getSnapshot() {
+        ContextAwareMap<K, V> mainMapSnapshot = mainMap.getSnapshot();
+        if (mainMapSnapshot == null) {
+            return null;
+        }
+        if (!isIndexed()) {
+            return new CorfuTable<>(mainMapSnapshot, new HashSet<>(), new HashMap<>(), null);
+        }
+
+        Map<String, Map<Comparable, Map<K, V>>> snapshotIndexes = new HashMap<>();
+        indexSpec.forEach(index -> snapshotIndexes.put(index.getName().get(),
+                index.isOrdered() ? new TreeMap<>(INDEX_KEY_ORDER) : new HashMap<>()));
+        Map<String, Aggregate.State<K, V>> snapshotAggregates = new HashMap<>();
+        aggregates.forEach((name, aggregate) -> snapshotAggregates.put(name, aggregate.newState()));
+        CorfuTable<K, V> snapshot = new CorfuTable<>(mainMapSnapshot, new HashSet<>(indexSpec),
+                snapshotIndexes, snapshotAggregates, null);
+        snapshot.indexesPending = true;
+        return snapshot;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -40,6 +40,12 @@ public class Index {
      * secondary index value, or a multi indexer {@link Function}
      * mapping a value to multiple secondary index values.
      *
+     * <p>An ordered index keeps its index values sorted, which enables range, prefix,
+     * min/max and top-N queries on top of the exact-match lookups.
+     *
+     * <p>An index built from a multi indexer {@link MultiValueFunction} is a multi-value
+     * index, whose queries may find a record under several index values.
+     *
      * @param <K> type of the record key associated with {@code IndexKey}.
      * @param <V> type of the record value associated with {@code IndexKey}.
      * @param <I> type of the index value computed using the {@code IndexKey}.
@@ -47,22 +53,44 @@ public class Index {
     public static class Spec<K, V, I extends Comparable<?>> {
         private final Name name;
         private final MultiValueFunction<K, V, I> indexFunction;
+        private final boolean ordered;
+        private final boolean multiValue;
 
         public Spec(Name name, Function<K, V, I> indexFunction) {
+            this(name, indexFunction, false);
+        }
+
+        public Spec(Name name, Function<K, V, I> indexFunction, boolean ordered) {
             this.name = name;
             this.indexFunction =
                     (k, v) -> Collections.singletonList(indexFunction.apply(k, v));
+            this.ordered = ordered;
+            this.multiValue = false;
         }
 
         public Spec(Name name, MultiValueFunction<K, V, I> indexFunction) {
+            this(name, indexFunction, false);
+        }
+
+        public Spec(Name name, MultiValueFunction<K, V, I> indexFunction, boolean ordered) {
             this.name = name;
             this.indexFunction = indexFunction;
+            this.ordered = ordered;
+            this.multiValue = true;
         }
 
         public Name getName() {
             return name;
         }
 
+        public boolean isOrdered() {
+            return ordered;
+        }
+
+        public boolean isMultiValue() {
+            return multiValue;
+        }
+
         public MultiValueFunction<K, V, I> getMultiValueIndexFunction() {
             return indexFunction;
         }
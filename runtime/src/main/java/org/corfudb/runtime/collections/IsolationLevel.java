@@ -4,6 +4,8 @@ import lombok.Getter;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CorfuStoreMetadata;
 
+import java.time.Duration;
+
 /**
  * Used to specify which transaction isolation level will be used for the TxnContext transactions.
  * Following isolation levels are supported:
@@ -12,12 +14,21 @@ import org.corfudb.runtime.CorfuStoreMetadata;
  *            or on commit in the absence of reads.
  *      1.b - timestamp: on which the transaction needs to be validated can also be explicitly provided
  *            for SNAPSHOT isolation.
+ *      1.c - bounded staleness: a recent timestamp, taken at most maxStaleness ago, is reused
+ *            instead of the latest one. Reads of tables opened with a staleness bound are then
+ *            served from their materialized state. Mostly useful for read-only transactions,
+ *            since writes are validated against the stale timestamp.
  *
  *  created by hisundar on 2020-09-09
  */
 public class IsolationLevel {
     @Getter
     private Token timestamp;
+
+    // How stale the timestamp may be, null if the latest timestamp must be used
+    @Getter
+    private Duration maxStaleness;
+
     // Initialize this class using one of the following Isolation types
     private IsolationLevel(Token timestamp) {
         this.timestamp = timestamp;
@@ -30,4 +41,10 @@ public class IsolationLevel {
     public static IsolationLevel snapshot(CorfuStoreMetadata.Timestamp timestamp) {
         return new IsolationLevel(new Token(timestamp.getEpoch(), timestamp.getSequence()));
     }
+
+    public static IsolationLevel boundedStaleness(Duration maxStaleness) {
+        IsolationLevel isolationLevel = new IsolationLevel(Token.UNINITIALIZED);
+        isolationLevel.maxStaleness = maxStaleness;
+        return isolationLevel;
+    }
 }
@@ -0,0 +1,294 @@
+package org.corfudb.runtime.collections;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.logprotocol.SMREntry;
+import org.corfudb.protocols.wireprotocol.StreamAddressRange;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.object.CorfuCompileProxy;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.VersionLockedObject;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.corfudb.util.serializer.ISerializer;
+import org.corfudb.util.serializer.Serializers;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saves the materialized state of a {@link CorfuTable} to a local file, and restores a table
+ * from such a file, so that a restarted client doesn't rebuild its tables from their
+ * checkpoint and their whole stream, but only syncs the updates made since the snapshot.
+ *
+ * <p>A snapshot holds the ID of the cluster and the version of the table (the address of its
+ * stream it was synced to, and the epoch), followed by one put for each entry of the table,
+ * serialized as the SMR entries a checkpoint would hold, and a checksum. A snapshot is
+ * discarded, and the table rebuilt from its checkpoint, if it was corrupted, if it was taken
+ * on another cluster or is ahead of the log, or if the stream of the table has been trimmed
+ * after it was taken, since the updates between the snapshot and the trim mark are lost.
+ */
+@Slf4j
+public class LocalTableSnapshot {
+
+    private static final int MAGIC = 0x434f5254;
+
+    private static final int FORMAT_VERSION = 2;
+
+    // Length which marks the end of the entries
+    private static final int END_OF_ENTRIES = -1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private LocalTableSnapshot() {
+        // Prevent instantiation of this class
+    }
+
+    /**
+     * Sync a table up to the current tail of the log, and save its state to a file. The file
+     * is replaced atomically, so that a crash while saving leaves the previous snapshot.
+     *
+     * @param runtime the runtime the table was opened with
+     * @param table   the table, as opened by the runtime
+     * @param file    the file to save the snapshot to
+     * @return the version of the snapshot
+     * @throws IOException if the snapshot could not be written
+     */
+    public static <K, V> long save(@Nonnull CorfuRuntime runtime,
+                                   @Nonnull ICorfuSMR<CorfuTable<K, V>> table,
+                                   @Nonnull Path file) throws IOException {
+        final CorfuCompileProxy<CorfuTable<K, V>> proxy = getProxy(table);
+        final VersionLockedObject<CorfuTable<K, V>> vlo = proxy.getUnderlyingObject();
+        final Token tail = runtime.getSequencerView().query().getToken();
+        final Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        try {
+            final AtomicLong version = new AtomicLong();
+            final Stream<Map.Entry<K, V>> entries = vlo.update(o -> {
+                o.syncObjectUnsafe(tail.getSequence());
+                version.set(o.getVersionUnsafe());
+                final CorfuTable<K, V> immutable = o.getObject().getSnapshot();
+                if (immutable != null) {
+                    return immutable.entryStream();
+                }
+                // The table doesn't support snapshots, copy its entries under the lock,
+                // and write them outside of it
+                final List<Map.Entry<K, V>> copy = o.getObject().entryStream()
+                        .map(AbstractMap.SimpleImmutableEntry::new)
+                        .collect(Collectors.toList());
+                return copy.stream();
+            });
+            write(tmpFile, proxy, getClusterId(runtime), entries, version.get(), tail.getEpoch());
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            log.info("save: saved snapshot of {} at version {} to {}",
+                    proxy.getStreamID(), version.get(), file);
+            return version.get();
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Restore a table from a snapshot file, if the table wasn't synced yet and the snapshot
+     * is valid. The table then only syncs the updates made after the snapshot.
+     *
+     * @param runtime the runtime the table was opened with
+     * @param table   the table, as opened by the runtime
+     * @param file    the file the snapshot was saved to
+     * @return true if the table was restored from the snapshot, false if it will be
+     *         rebuilt from its checkpoint and its stream
+     */
+    public static <K, V> boolean load(@Nonnull CorfuRuntime runtime,
+                                      @Nonnull ICorfuSMR<CorfuTable<K, V>> table,
+                                      @Nonnull Path file) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+
+        final CorfuCompileProxy<CorfuTable<K, V>> proxy = getProxy(table);
+        final UUID streamId = proxy.getStreamID();
+        final CRC32 checksum = new CRC32();
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+             DataInputStream in = new DataInputStream(new CheckedInputStream(raw, checksum))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !new UUID(in.readLong(), in.readLong()).equals(streamId)) {
+                log.warn("load: {} is not a snapshot of {}", file, streamId);
+                return false;
+            }
+            final UUID clusterId = new UUID(in.readLong(), in.readLong());
+            if (!clusterId.equals(getClusterId(runtime))) {
+                log.warn("load: snapshot {} was taken on cluster {}, not on {}",
+                        file, clusterId, getClusterId(runtime));
+                return false;
+            }
+            final long version = in.readLong();
+            final long epoch = in.readLong();
+            if (!isValid(runtime, streamId, version, epoch)) {
+                return false;
+            }
+
+            return proxy.getUnderlyingObject().update(o -> {
+                if (o.getVersionUnsafe() != Address.NEVER_READ) {
+                    return false;
+                }
+                try {
+                    o.restoreUnsafe(new EntryIterator(runtime, in), version);
+                    final long expected = checksum.getValue();
+                    if (new DataInputStream(raw).readLong() != expected) {
+                        throw new IllegalStateException("checksum mismatch");
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("load: failed to restore {} from {}", streamId, file, e);
+                    o.resetUnsafe();
+                    return false;
+                }
+                log.info("load: restored {} at version {} from {}", streamId, version, file);
+                return true;
+            });
+        } catch (IOException e) {
+            log.warn("load: failed to read snapshot {}", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Check that a snapshot isn't ahead of the log, and that the stream hasn't been trimmed
+     * after the snapshot.
+     */
+    private static boolean isValid(CorfuRuntime runtime, UUID streamId, long version, long epoch) {
+        final Token tail = runtime.getSequencerView().query().getToken();
+        if (epoch > tail.getEpoch() || version > tail.getSequence()) {
+            log.warn("load: snapshot of {} at {} (epoch {}) is ahead of the log tail {}",
+                    streamId, version, epoch, tail);
+            return false;
+        }
+
+        final long streamTail = runtime.getSequencerView().query(streamId);
+        if (streamTail > version) {
+            final StreamAddressSpace addressSpace = runtime.getSequencerView()
+                    .getStreamAddressSpace(new StreamAddressRange(streamId, streamTail, version));
+            if (Address.isAddress(addressSpace.getTrimMark())
+                    && addressSpace.getTrimMark() > version) {
+                log.info("load: snapshot of {} at {} is older than the trim mark {}",
+                        streamId, version, addressSpace.getTrimMark());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the ID of the cluster the runtime is connected to, or a nil ID if the layout
+     * doesn't have one.
+     */
+    private static UUID getClusterId(CorfuRuntime runtime) {
+        final UUID clusterId = runtime.getLayoutView().getLayout().getClusterId();
+        return clusterId == null ? new UUID(0L, 0L) : clusterId;
+    }
+
+    private static <K, V> void write(Path file, CorfuCompileProxy<CorfuTable<K, V>> proxy,
+                                     UUID clusterId, Stream<Map.Entry<K, V>> entries,
+                                     long version, long epoch) {
+        final ISerializer serializer = proxy.getSerializer();
+        final UUID streamId = proxy.getStreamID();
+        final CRC32 checksum = new CRC32();
+        final ByteBuf buf = Unpooled.buffer();
+        try (OutputStream raw = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, checksum))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(streamId.getMostSignificantBits());
+            out.writeLong(streamId.getLeastSignificantBits());
+            out.writeLong(clusterId.getMostSignificantBits());
+            out.writeLong(clusterId.getLeastSignificantBits());
+            out.writeLong(version);
+            out.writeLong(epoch);
+
+            for (Iterator<Map.Entry<K, V>> it = entries.iterator(); it.hasNext(); ) {
+                Map.Entry<K, V> entry = it.next();
+                buf.clear();
+                Serializers.CORFU.serialize(new SMREntry("put",
+                        new Object[]{entry.getKey(), entry.getValue()}, serializer), buf);
+                out.writeInt(buf.readableBytes());
+                buf.readBytes(out, buf.readableBytes());
+            }
+            out.writeInt(END_OF_ENTRIES);
+            out.flush();
+            new DataOutputStream(raw).writeLong(checksum.getValue());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static <T extends ICorfuSMR<T>> CorfuCompileProxy<T> getProxy(ICorfuSMR<T> object) {
+        return (CorfuCompileProxy<T>) object.getCorfuSMRProxy();
+    }
+
+    /**
+     * Reads the entries of a snapshot, until the end marker.
+     */
+    private static class EntryIterator implements Iterator<SMREntry> {
+        private final CorfuRuntime runtime;
+        private final DataInputStream in;
+        private int nextLength;
+
+        EntryIterator(CorfuRuntime runtime, DataInputStream in) throws IOException {
+            this.runtime = runtime;
+            this.in = in;
+            this.nextLength = in.readInt();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLength != END_OF_ENTRIES;
+        }
+
+        @Override
+        public SMREntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                byte[] bytes = new byte[nextLength];
+                in.readFully(bytes);
+                nextLength = in.readInt();
+                return (SMREntry) Serializers.CORFU.deserialize(Unpooled.wrappedBuffer(bytes),
+                        runtime);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
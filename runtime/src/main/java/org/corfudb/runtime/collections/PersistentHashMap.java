@@ -0,0 +1,435 @@
+package org.corfudb.runtime.collections;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An immutable hash map, implemented as a hash array mapped trie (HAMT).
+ *
+ * <p>Updates return a new map, which shares all but the path from the root to the updated
+ * entry with the previous map, i.e., an update copies O(log32(n)) nodes. This makes it cheap
+ * to keep several versions of a map around, since they mostly share the same nodes.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    // Number of hash bits consumed by every level of the trie
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    // A trie consumes 32 bits of hash in 7 levels, plus a level of collision nodes
+    private static final int MAX_DEPTH = 8;
+
+    private static final PersistentHashMap<?, ?> EMPTY =
+            new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the entry mapped to a key.
+     *
+     * @param key key to look up
+     * @return the entry of the key, or null if the key is not mapped
+     */
+    @SuppressWarnings("unchecked")
+    Map.Entry<K, V> getEntry(Object key) {
+        return root.find(key, hash(key), 0);
+    }
+
+    /**
+     * Returns a map which maps a key to a value, in addition to the mappings of this map.
+     *
+     * @param key   key to map
+     * @param value value to map the key to
+     * @param previous receives the entry previously mapped to the key, if any
+     * @return the updated map
+     */
+    PersistentHashMap<K, V> plus(K key, V value, Change<K, V> previous) {
+        Node newRoot = root.put(new Leaf<>(hash(key), key, value), 0, previous);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, previous.entry == null ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the mapping of a key.
+     *
+     * @param key key to remove
+     * @param previous receives the entry previously mapped to the key, if any
+     * @return the updated map
+     */
+    PersistentHashMap<K, V> minus(Object key, Change<K, V> previous) {
+        Node newRoot = root.remove(key, hash(key), 0, previous);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    private static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return h ^ (h >>> Short.SIZE);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Receives the entry replaced or removed by an update.
+     */
+    static final class Change<K, V> {
+        Map.Entry<K, V> entry;
+    }
+
+    /**
+     * An immutable key-value mapping, stored in the nodes of the trie.
+     */
+    private static final class Leaf<K, V> implements Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        final V value;
+
+        Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        boolean matches(Object otherKey, int otherHash) {
+            return hash == otherHash && Objects.equals(key, otherKey);
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("PersistentHashMap entries are immutable");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private abstract static class Node {
+
+        /** The leaves and sub-nodes of this node. */
+        abstract Object[] slots();
+
+        abstract Leaf find(Object key, int hash, int shift);
+
+        abstract Node put(Leaf leaf, int shift, Change previous);
+
+        /** Returns the node without the key, or null if the node becomes empty. */
+        abstract Node remove(Object key, int hash, int shift, Change previous);
+
+        /** Returns the leaf of this node if it is its only slot, so it can be inlined in its parent. */
+        abstract Leaf singleLeaf();
+    }
+
+    /**
+     * A node of up to 32 slots, indexed by 5 bits of the hash. Only the non-empty slots are
+     * stored, a bitmap tracks which slots are present.
+     */
+    private static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object[] slots() {
+            return slots;
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[index(bit)];
+            if (slot instanceof Leaf) {
+                return ((Leaf) slot).matches(key, hash) ? (Leaf) slot : null;
+            }
+            return ((Node) slot).find(key, hash, shift + BITS);
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift, Change previous) {
+            int bit = bit(leaf.hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) == 0) {
+                return new BitmapNode(bitmap | bit, insert(slots, idx, leaf));
+            }
+
+            Object slot = slots[idx];
+            if (slot instanceof Leaf) {
+                Leaf existing = (Leaf) slot;
+                if (existing.matches(leaf.key, leaf.hash)) {
+                    previous.entry = existing;
+                    return new BitmapNode(bitmap, replace(slots, idx, leaf));
+                }
+                return new BitmapNode(bitmap, replace(slots, idx, merge(existing, leaf, shift + BITS)));
+            }
+
+            Node subNode = (Node) slot;
+            Node newSubNode = subNode.put(leaf, shift + BITS, previous);
+            return new BitmapNode(bitmap, replace(slots, idx, newSubNode));
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift, Change previous) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int idx = index(bit);
+            Object slot = slots[idx];
+            if (slot instanceof Leaf) {
+                if (!((Leaf) slot).matches(key, hash)) {
+                    return this;
+                }
+                previous.entry = (Leaf) slot;
+                return bitmap == bit ? null : new BitmapNode(bitmap & ~bit, delete(slots, idx));
+            }
+
+            Node subNode = (Node) slot;
+            Node newSubNode = subNode.remove(key, hash, shift + BITS, previous);
+            if (newSubNode == subNode) {
+                return this;
+            }
+            if (newSubNode == null) {
+                return bitmap == bit ? null : new BitmapNode(bitmap & ~bit, delete(slots, idx));
+            }
+            Leaf single = newSubNode.singleLeaf();
+            return new BitmapNode(bitmap, replace(slots, idx, single != null ? single : newSubNode));
+        }
+
+        @Override
+        Leaf singleLeaf() {
+            return slots.length == 1 && slots[0] instanceof Leaf ? (Leaf) slots[0] : null;
+        }
+
+        private static Node merge(Leaf first, Leaf second, int shift) {
+            if (first.hash == second.hash) {
+                return new CollisionNode(first.hash, new Leaf[]{first, second});
+            }
+            int firstBit = bit(first.hash, shift);
+            int secondBit = bit(second.hash, shift);
+            if (firstBit == secondBit) {
+                return new BitmapNode(firstBit, new Object[]{merge(first, second, shift + BITS)});
+            }
+            return Integer.compareUnsigned(firstBit, secondBit) < 0
+                    ? new BitmapNode(firstBit | secondBit, new Object[]{first, second})
+                    : new BitmapNode(firstBit | secondBit, new Object[]{second, first});
+        }
+    }
+
+    /**
+     * A node holding the leaves of distinct keys with the same hash.
+     */
+    private static final class CollisionNode extends Node {
+
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (Objects.equals(leaves[i].key, key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object[] slots() {
+            return leaves;
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            if (hash != this.hash) {
+                return null;
+            }
+            int idx = indexOf(key);
+            return idx < 0 ? null : leaves[idx];
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift, Change previous) {
+            if (leaf.hash != hash) {
+                // Push this node one level down, next to the new leaf.
+                return new BitmapNode(bit(hash, shift), new Object[]{this}).put(leaf, shift, previous);
+            }
+            int idx = indexOf(leaf.key);
+            if (idx >= 0) {
+                previous.entry = leaves[idx];
+                return new CollisionNode(hash, (Leaf[]) replace(leaves, idx, leaf));
+            }
+            return new CollisionNode(hash, (Leaf[]) insert(leaves, leaves.length, leaf));
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift, Change previous) {
+            int idx = hash == this.hash ? indexOf(key) : -1;
+            if (idx < 0) {
+                return this;
+            }
+            previous.entry = leaves[idx];
+            if (leaves.length == 2) {
+                Leaf remaining = leaves[1 - idx];
+                return new BitmapNode(bit(hash, shift), new Object[]{remaining});
+            }
+            return new CollisionNode(hash, (Leaf[]) delete(leaves, idx));
+        }
+
+        @Override
+        Leaf singleLeaf() {
+            return null;
+        }
+    }
+
+    private static Object[] insert(Object[] array, int idx, Object value) {
+        Object[] copy = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, idx, copy, idx + 1, array.length - idx);
+        copy[idx] = value;
+        return copy;
+    }
+
+    private static Object[] replace(Object[] array, int idx, Object value) {
+        Object[] copy = array.clone();
+        copy[idx] = value;
+        return copy;
+    }
+
+    private static Object[] delete(Object[] array, int idx) {
+        Object[] copy = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, idx + 1, copy, idx, array.length - idx - 1);
+        return copy;
+    }
+
+    /**
+     * Depth-first iterator over the leaves of a trie.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Object[][] stack = new Object[MAX_DEPTH + 1][];
+        private final int[] positions = new int[MAX_DEPTH + 1];
+        private int depth = 0;
+        private Leaf next;
+
+        EntryIterator(Node root) {
+            stack[0] = root.slots();
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Object[] slots = stack[depth];
+                if (positions[depth] == slots.length) {
+                    depth--;
+                    continue;
+                }
+                Object slot = slots[positions[depth]++];
+                if (slot instanceof Leaf) {
+                    next = (Leaf) slot;
+                    return;
+                }
+                depth++;
+                stack[depth] = ((Node) slot).slots();
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Leaf current = next;
+            advance();
+            return current;
+        }
+    }
+}
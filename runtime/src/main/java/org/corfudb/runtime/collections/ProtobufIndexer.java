@@ -7,15 +7,21 @@ import com.google.protobuf.Message;
 import org.corfudb.common.util.ClassUtils;
 import org.corfudb.runtime.CorfuOptions;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * This layer implements the
  * ProtobufIndexer uses the special FieldOptions that the application can place on its
  * protobuf definitions (like secondary_key) and create secondary indexes callbacks over CorfuTable
  * based on that.
+ * The composite indexes declared in the message options of the protobuf (composite_index) are
+ * keyed by the {@link CompositeKey} of the values of their fields.
  *
  * Created by hisundar on 2019-08-12.
  */
@@ -27,26 +33,159 @@ public class ProtobufIndexer implements Index.Registry<Message, CorfuRecord<Mess
             indices = new HashMap<>();
 
     ProtobufIndexer(Message payloadSchema) {
-        payloadSchema.getDescriptorForType().getFields().forEach(this::registerIndices);
+        Descriptors.Descriptor descriptor = payloadSchema.getDescriptorForType();
+        descriptor.getFields().forEach(this::registerIndices);
+        descriptor.getOptions().getExtension(CorfuOptions.tableSchema).getCompositeIndexList()
+                .forEach(compositeIndex -> registerCompositeIndex(descriptor, compositeIndex));
     }
 
     private <T extends Comparable<T>> Index.Spec<Message, CorfuRecord<Message, Message>, ? extends Comparable<?>>
-    getIndex(String indexName, FieldDescriptor fieldDescriptor) {
+    getIndex(String indexName, FieldDescriptor fieldDescriptor, boolean ordered) {
 
         return new Index.Spec<>(
                 () -> indexName,
                 (Index.Function<Message, CorfuRecord<Message, Message>, T>)
-                        (key, val) -> ClassUtils.cast(val.getPayload().getField(fieldDescriptor)));
+                        (key, val) -> ClassUtils.cast(val.getPayload().getField(fieldDescriptor)),
+                ordered);
     }
 
     void registerIndices(final Descriptors.FieldDescriptor fieldDescriptor) {
 
-        if (fieldDescriptor.getOptions().getExtension(CorfuOptions.schema).getSecondaryKey()) {
+        CorfuOptions.SchemaOptions schemaOptions = fieldDescriptor.getOptions().getExtension(CorfuOptions.schema);
+        if (schemaOptions.getSecondaryKey()) {
             final String indexName = fieldDescriptor.getName();
             if (fieldDescriptor.getType() == FieldDescriptor.Type.GROUP) {
                 throw new IllegalArgumentException("group is a deprecated, unsupported type");
             }
-            indices.put(indexName, getIndex(indexName, fieldDescriptor));
+            if (schemaOptions.getOrdered() && !isOrderable(fieldDescriptor)) {
+                throw new IllegalArgumentException("ordered index " + indexName
+                        + " is not supported on fields of type " + fieldDescriptor.getType());
+            }
+            indices.put(indexName, getIndex(indexName, fieldDescriptor, schemaOptions.getOrdered()));
+        }
+    }
+
+    void registerCompositeIndex(final Descriptors.Descriptor descriptor,
+                                final CorfuOptions.CompositeIndex compositeIndex) {
+
+        final String indexName = compositeIndex.getIndexName();
+        if (indexName.isEmpty()) {
+            throw new IllegalArgumentException("composite index of " + descriptor.getFullName()
+                    + " has no name");
+        }
+        if (indices.containsKey(indexName)) {
+            throw new IllegalArgumentException("index " + indexName + " of "
+                    + descriptor.getFullName() + " is declared more than once");
+        }
+        // Indexes share their names with fields, and queries use the index named after a field
+        if (descriptor.findFieldByName(indexName) != null) {
+            throw new IllegalArgumentException("composite index " + indexName + " of "
+                    + descriptor.getFullName() + " has the name of a field");
+        }
+        if (compositeIndex.getFieldCount() < 2) {
+            throw new IllegalArgumentException("composite index " + indexName
+                    + " needs at least 2 fields");
+        }
+
+        final List<List<FieldDescriptor>> fieldPaths = compositeIndex.getFieldList().stream()
+                .map(fieldPath -> resolveFieldPath(descriptor, indexName, fieldPath))
+                .collect(Collectors.toList());
+        indices.put(indexName, new Index.Spec<>(
+                () -> indexName,
+                (Index.MultiValueFunction<Message, CorfuRecord<Message, Message>, CompositeKey>)
+                        (key, val) -> getCompositeKeys(val.getPayload(), fieldPaths),
+                compositeIndex.getOrdered()));
+    }
+
+    /**
+     * Resolve a path of field names, like "location.region", to the fields it goes through.
+     */
+    private static List<FieldDescriptor> resolveFieldPath(final Descriptors.Descriptor descriptor,
+                                                          final String indexName,
+                                                          final String fieldPath) {
+        List<FieldDescriptor> fieldDescriptors = new ArrayList<>();
+        Descriptors.Descriptor messageDescriptor = descriptor;
+        for (String fieldName : fieldPath.split("\\.", -1)) {
+            if (messageDescriptor == null) {
+                throw new IllegalArgumentException("field " + fieldPath + " of composite index "
+                        + indexName + " is not a message field");
+            }
+            FieldDescriptor fieldDescriptor = messageDescriptor.findFieldByName(fieldName);
+            if (fieldDescriptor == null) {
+                throw new IllegalArgumentException("composite index " + indexName + " of "
+                        + descriptor.getFullName() + " has an unknown field " + fieldPath);
+            }
+            fieldDescriptors.add(fieldDescriptor);
+            messageDescriptor = fieldDescriptor.getJavaType() == FieldDescriptor.JavaType.MESSAGE
+                    ? fieldDescriptor.getMessageType() : null;
+        }
+
+        FieldDescriptor leaf = fieldDescriptors.get(fieldDescriptors.size() - 1);
+        if (!isOrderableType(leaf)) {
+            throw new IllegalArgumentException("composite index " + indexName
+                    + " is not supported on field " + fieldPath + " of type " + leaf.getType());
+        }
+        return fieldDescriptors;
+    }
+
+    /**
+     * Compute the keys of a composite index: one key per combination of the values of its
+     * fields, as the repeated fields along the paths of the fields have several values.
+     */
+    private static List<CompositeKey> getCompositeKeys(final Message payload,
+                                                       final List<List<FieldDescriptor>> fieldPaths) {
+        List<List<Comparable<?>>> keys = Collections.singletonList(Collections.emptyList());
+        for (List<FieldDescriptor> fieldPath : fieldPaths) {
+            List<Comparable<?>> fieldValues = new ArrayList<>();
+            collectFieldValues(payload, fieldPath, 0, fieldValues);
+
+            List<List<Comparable<?>>> extendedKeys = new ArrayList<>();
+            for (List<Comparable<?>> key : keys) {
+                for (Comparable<?> fieldValue : fieldValues) {
+                    List<Comparable<?>> extendedKey = new ArrayList<>(key);
+                    extendedKey.add(fieldValue);
+                    extendedKeys.add(extendedKey);
+                }
+            }
+            keys = extendedKeys;
+        }
+        return keys.stream().map(CompositeKey::of).distinct().collect(Collectors.toList());
+    }
+
+    private static void collectFieldValues(final Message message,
+                                           final List<FieldDescriptor> fieldPath, int depth,
+                                           final List<Comparable<?>> fieldValues) {
+        FieldDescriptor fieldDescriptor = fieldPath.get(depth);
+        List<?> values = fieldDescriptor.isRepeated()
+                ? (List<?>) message.getField(fieldDescriptor)
+                : Collections.singletonList(message.getField(fieldDescriptor));
+        for (Object value : values) {
+            if (depth == fieldPath.size() - 1) {
+                fieldValues.add((Comparable<?>) value);
+            } else {
+                collectFieldValues((Message) value, fieldPath, depth + 1, fieldValues);
+            }
+        }
+    }
+
+    /**
+     * Only the fields whose values are {@link Comparable} with each other can be kept sorted.
+     */
+    private static boolean isOrderable(final Descriptors.FieldDescriptor fieldDescriptor) {
+        return !fieldDescriptor.isRepeated() && isOrderableType(fieldDescriptor);
+    }
+
+    private static boolean isOrderableType(final Descriptors.FieldDescriptor fieldDescriptor) {
+        switch (fieldDescriptor.getJavaType()) {
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+            case BOOLEAN:
+            case STRING:
+                return true;
+            default:
+                return false;
         }
     }
 
@@ -6,14 +6,20 @@ import com.google.protobuf.Message;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -388,6 +394,169 @@ public class Query {
                 .collect(Collectors.toList()));
     }
 
+    /**
+     * Execute an equi-join of 2 tables, which joins the values of the same join key.
+     *
+     * @param table1         First table object.
+     * @param table2         Second table to join with the first one.
+     * @param query1         Predicate to filter entries in table 1.
+     * @param query2         Predicate to filter entries in table 2.
+     * @param queryOptions1  Query options to transform table 1 filtered values.
+     * @param queryOptions2  Query options to transform table 2 filtered values.
+     * @param joinKey1       Join key of the values of table 1.
+     * @param joinKey2       Join key of the values of table 2.
+     * @param indexName2     Secondary index of table 2 on the join key, null if none.
+     * @param joinFunction   Function to merge entries.
+     * @param joinProjection Project the merged entries.
+     * @param <R>            Type of projected values from table 1.
+     * @param <S>            Type of projected values from table 2.
+     * @param <T>            Type of resultant value after merging type R and type S.
+     * @param <U>            Type of value projected from T.
+     * @return Result of query.
+     * @see #executeJoinQuery(Table, Table, Predicate, Predicate, QueryOptions, QueryOptions,
+     *      Function, Function, String, BiFunction, Function, Consumer)
+     */
+    @Nonnull
+    public static <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message,
+            R, S, T, U>
+    QueryResult<U> executeJoinQuery(
+            @Nonnull final Table<K1, V1, M1> table1,
+            @Nonnull final Table<K2, V2, M2> table2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final QueryOptions<K1, V1, M1, R> queryOptions1,
+            @Nonnull final QueryOptions<K2, V2, M2, S> queryOptions2,
+            @Nonnull final Function<R, ?> joinKey1,
+            @Nonnull final Function<S, ?> joinKey2,
+            @Nullable final String indexName2,
+            @Nonnull final BiFunction<R, S, T> joinFunction,
+            final Function<T, U> joinProjection) {
+        List<U> joinResult = new ArrayList<>();
+        executeJoinQuery(table1, table2, query1, query2, queryOptions1, queryOptions2,
+                joinKey1, joinKey2, indexName2, joinFunction, joinProjection, joinResult::add);
+        return new QueryResult<>(joinResult);
+    }
+
+    /**
+     * Execute an equi-join of 2 tables, which joins the values of the same join key, and pass
+     * each joined value to a consumer as soon as it is produced, rather than collecting them.
+     *
+     * <p>If table 2 has the secondary index indexName2, whose index keys are the join keys of
+     * its values, the join is executed as an index lookup join: the entries of table 2 joined
+     * with a value of table 1 are looked up in the index, so table 2 isn't scanned. In this
+     * case the distinct option of queryOptions2 only applies to the entries of each lookup.
+     *
+     * <p>Otherwise the join is executed as a hash join: the values of the smaller of the 2
+     * filtered tables are hashed by join key, and the values of the other table probe them.
+     *
+     * <p>Values with a null join key aren't joined. The order of the joined values is
+     * unspecified.
+     *
+     * @param table1         First table object.
+     * @param table2         Second table to join with the first one.
+     * @param query1         Predicate to filter entries in table 1.
+     * @param query2         Predicate to filter entries in table 2.
+     * @param queryOptions1  Query options to transform table 1 filtered values.
+     * @param queryOptions2  Query options to transform table 2 filtered values.
+     * @param joinKey1       Join key of the values of table 1.
+     * @param joinKey2       Join key of the values of table 2.
+     * @param indexName2     Secondary index of table 2 on the join key, null if none.
+     * @param joinFunction   Function to merge entries.
+     * @param joinProjection Project the merged entries.
+     * @param resultConsumer Consumer of the projected merged entries.
+     * @param <R>            Type of projected values from table 1.
+     * @param <S>            Type of projected values from table 2.
+     * @param <T>            Type of resultant value after merging type R and type S.
+     * @param <U>            Type of value projected from T.
+     */
+    public static <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message,
+            R, S, T, U>
+    void executeJoinQuery(
+            @Nonnull final Table<K1, V1, M1> table1,
+            @Nonnull final Table<K2, V2, M2> table2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final QueryOptions<K1, V1, M1, R> queryOptions1,
+            @Nonnull final QueryOptions<K2, V2, M2, S> queryOptions2,
+            @Nonnull final Function<R, ?> joinKey1,
+            @Nonnull final Function<S, ?> joinKey2,
+            @Nullable final String indexName2,
+            @Nonnull final BiFunction<R, S, T> joinFunction,
+            final Function<T, U> joinProjection,
+            @Nonnull final Consumer<U> resultConsumer) {
+
+        Collection<R> queryResult1 = transform(
+                table1.scanAndFilterByEntry(query1),
+                initializeResultCollection(queryOptions1),
+                queryOptions1.getProjection());
+        BiConsumer<R, S> join = (value1, value2) -> resultConsumer.accept(
+                project(joinFunction.apply(value1, value2), joinProjection));
+
+        if (indexName2 != null && table2.hasSecondaryIndex(indexName2)) {
+            for (R value1 : queryResult1) {
+                Object key = joinKey1.apply(value1);
+                if (key == null) {
+                    continue;
+                }
+                List<CorfuStoreEntry<K2, V2, M2>> filterResult2 =
+                        getByIndex(table2, indexName2, key).stream()
+                                .filter(query2)
+                                .collect(Collectors.toList());
+                transform(filterResult2, initializeResultCollection(queryOptions2),
+                        queryOptions2.getProjection())
+                        .forEach(value2 -> join.accept(value1, value2));
+            }
+            return;
+        }
+
+        Collection<S> queryResult2 = transform(
+                table2.scanAndFilterByEntry(query2),
+                initializeResultCollection(queryOptions2),
+                queryOptions2.getProjection());
+
+        if (queryResult1.size() <= queryResult2.size()) {
+            Map<Object, List<R>> hashTable = hashByJoinKey(queryResult1, joinKey1);
+            for (S value2 : queryResult2) {
+                hashTable.getOrDefault(joinKey2.apply(value2), Collections.emptyList())
+                        .forEach(value1 -> join.accept(value1, value2));
+            }
+        } else {
+            Map<Object, List<S>> hashTable = hashByJoinKey(queryResult2, joinKey2);
+            for (R value1 : queryResult1) {
+                hashTable.getOrDefault(joinKey1.apply(value1), Collections.emptyList())
+                        .forEach(value2 -> join.accept(value1, value2));
+            }
+        }
+    }
+
+    private static <R> Map<Object, List<R>> hashByJoinKey(Collection<R> values,
+                                                          Function<R, ?> joinKey) {
+        Map<Object, List<R>> hashTable = new HashMap<>();
+        for (R value : values) {
+            Object key = joinKey.apply(value);
+            if (key != null) {
+                hashTable.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+            }
+        }
+        return hashTable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Message, V extends Message, M extends Message>
+    List<CorfuStoreEntry<K, V, M>> getByIndex(Table<K, V, M> table, String indexName, Object indexKey) {
+        return table.getByIndex(indexName, (Comparable) indexKey);
+    }
+
+    private static <T, U> U project(T value, Function<T, U> projection) {
+        return Optional.ofNullable(projection)
+                .map(function -> function.apply(value))
+                .orElse((U) value);
+    }
+
     /**
      * Merge Function which combines the result two tables at a time.
      *
@@ -414,34 +583,39 @@ public class Query {
      * @param mergePayload Payload for the next merge level. Starts with an empty list.
      * @param func         Merge function specified by the user.
      * @param depth        Current depth. Starts at 0.
+     * @param consumer     Consumer of the non null merged values.
      * @param <R>          Return type.
-     * @return List of values after merge.
      */
-    private <R> List<R> merge(@Nonnull List<Collection<?>> list,
-                              @Nonnull List<Object> mergePayload,
-                              @Nonnull MergeFunction<R> func,
-                              int depth) {
+    private static <R> void merge(@Nonnull List<? extends Collection<?>> list,
+                                  @Nonnull List<Object> mergePayload,
+                                  @Nonnull MergeFunction<R> func,
+                                  int depth,
+                                  @Nonnull Consumer<R> consumer) {
         Collection<?> collection = list.get(depth);
         if (list.size() - 1 == depth) {
-            List<R> result = new ArrayList<>();
             for (Object o : collection) {
                 List<Object> finalMergeList = new ArrayList<>(mergePayload);
                 finalMergeList.add(o);
                 R mergeResult = func.merge(finalMergeList);
                 if (mergeResult != null) {
-                    result.add(mergeResult);
+                    consumer.accept(mergeResult);
                 }
             }
-            return result;
+            return;
         }
 
-        List<R> result = new ArrayList<>();
         for (Object o : collection) {
             List<Object> mergeList = new ArrayList<>(mergePayload);
             mergeList.add(o);
-            result.addAll(merge(list, mergeList, func, depth + 1));
+            merge(list, mergeList, func, depth + 1, consumer);
         }
-        return result;
+    }
+
+    private List<Message> getPayloads(@Nonnull final String tableName) {
+        return scanAndFilterByEntry(tableName, null, corfuStoreEntry -> true)
+                .stream()
+                .map(CorfuStoreEntry::getPayload)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -459,15 +633,78 @@ public class Query {
 
         List<Collection<?>> values = new ArrayList<>();
         for (String tableName : tableNames) {
-            Collection<Message> messages = scanAndFilterByEntry(tableName, null, corfuStoreEntry -> true)
-                    .stream()
-                    .map(CorfuStoreEntry::getPayload)
-                    .collect(Collectors.toList());
-            values.add(messages);
+            values.add(getPayloads(tableName));
         }
 
         int mergeJoinDepth = 0; // shallow merges for now
-        Collection<R> mergedResults = merge(values, new ArrayList<>(), joinFunction, mergeJoinDepth);
+        List<R> mergedResults = new ArrayList<>();
+        merge(values, new ArrayList<>(), joinFunction, mergeJoinDepth, mergedResults::add);
         return new QueryResult<>(mergedResults);
     }
+
+    /**
+     * Performs an equi-join of multiple tables, which only merges the values of the same join
+     * key across the tables, rather than all the combinations of values.
+     *
+     * <p>The values of each table are hashed by join key, and the values of each join key
+     * found in all the tables are merged, the ones with a null join key aren't merged.
+     *
+     * @param tableNames   Collection of table names to be joined.
+     * @param joinKey      Join key of the values of the tables.
+     * @param joinFunction MergeFunction to perform the join across the specified tables.
+     * @param <R>          Type of resultant Object.
+     * @return Result of the query.
+     */
+    @Nonnull
+    @Deprecated
+    public <R> QueryResult<R> executeMultiJoinQuery(@Nonnull final Collection<String> tableNames,
+                                                    @Nonnull final Function<Message, ?> joinKey,
+                                                    @Nonnull final MergeFunction<R> joinFunction) {
+        List<R> mergedResults = new ArrayList<>();
+        executeMultiJoinQuery(tableNames, joinKey, joinFunction, mergedResults::add);
+        return new QueryResult<>(mergedResults);
+    }
+
+    /**
+     * Performs an equi-join of multiple tables, and passes each merged value to a consumer as
+     * soon as it is produced, rather than collecting them.
+     *
+     * @param tableNames     Collection of table names to be joined.
+     * @param joinKey        Join key of the values of the tables.
+     * @param joinFunction   MergeFunction to perform the join across the specified tables.
+     * @param resultConsumer Consumer of the merged values.
+     * @param <R>            Type of resultant Object.
+     * @see #executeMultiJoinQuery(Collection, Function, MergeFunction)
+     */
+    @Deprecated
+    public <R> void executeMultiJoinQuery(@Nonnull final Collection<String> tableNames,
+                                          @Nonnull final Function<Message, ?> joinKey,
+                                          @Nonnull final MergeFunction<R> joinFunction,
+                                          @Nonnull final Consumer<R> resultConsumer) {
+        List<Map<Object, List<Message>>> hashTables = new ArrayList<>();
+        for (String tableName : tableNames) {
+            hashTables.add(hashByJoinKey(getPayloads(tableName), joinKey));
+        }
+        if (hashTables.isEmpty()) {
+            return;
+        }
+
+        // Probe the other tables with the keys of the table which has the fewest of them
+        Map<Object, List<Message>> probe = Collections.min(hashTables,
+                Comparator.comparingInt(Map::size));
+        int mergeJoinDepth = 0;
+        for (Object key : probe.keySet()) {
+            List<List<Message>> values = new ArrayList<>();
+            for (Map<Object, List<Message>> hashTable : hashTables) {
+                List<Message> matches = hashTable.get(key);
+                if (matches == null) {
+                    break;
+                }
+                values.add(matches);
+            }
+            if (values.size() == hashTables.size()) {
+                merge(values, new ArrayList<>(), joinFunction, mergeJoinDepth, resultConsumer);
+            }
+        }
+    }
 }
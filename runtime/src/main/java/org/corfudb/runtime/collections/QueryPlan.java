@@ -0,0 +1,316 @@
+package org.corfudb.runtime.collections;
+
+import com.google.protobuf.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import lombok.Getter;
+
+/**
+ * The plan of a query of a table by a {@link QueryPredicate}, as chosen by the
+ * {@link QueryPlanner}.
+ * <p>
+ * A plan is a tree of steps, which either scan the table, look entries up in its secondary
+ * indexes, or combine the entries of other steps. Each step has the number of entries it is
+ * expected to return, and its estimated cost, which {@link #explain()} shows to tune the
+ * queries and the indexes of a table.
+ */
+public abstract class QueryPlan {
+
+    /**
+     * Expected number of entries returned by this step.
+     */
+    @Getter
+    private final long estimatedRows;
+
+    /**
+     * Estimated cost of this step, including the cost of the steps it combines.
+     */
+    @Getter
+    private final double cost;
+
+    private QueryPlan(long estimatedRows, double cost) {
+        this.estimatedRows = estimatedRows;
+        this.cost = cost;
+    }
+
+    /**
+     * @return True if this plan scans the whole table.
+     */
+    public boolean isScan() {
+        return false;
+    }
+
+    /**
+     * @return Description of this step.
+     */
+    abstract String describe();
+
+    /**
+     * @return Steps combined by this step.
+     */
+    List<QueryPlan> getInputs() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Execute this step.
+     *
+     * @param table Table to query.
+     * @return Entries of this step, by key.
+     */
+    abstract <K extends Message, V extends Message, M extends Message>
+    Map<K, CorfuStoreEntry<K, V, M>> collect(Table<K, V, M> table);
+
+    /**
+     * Execute this plan.
+     *
+     * @param table Table to query, which the plan was planned for.
+     * @return Entries which match the predicate of the query.
+     */
+    @Nonnull
+    <K extends Message, V extends Message, M extends Message>
+    List<CorfuStoreEntry<K, V, M>> execute(@Nonnull Table<K, V, M> table) {
+        return new ArrayList<>(collect(table).values());
+    }
+
+    /**
+     * Explain this plan, one step per line, the steps combined by a step being indented below it.
+     *
+     * @return Description of the plan.
+     */
+    @Nonnull
+    public String explain() {
+        StringBuilder explanation = new StringBuilder();
+        explain(explanation, 0);
+        return explanation.toString();
+    }
+
+    private void explain(StringBuilder explanation, int depth) {
+        if (depth > 0) {
+            explanation.append(System.lineSeparator());
+        }
+        for (int i = 0; i < depth; i++) {
+            explanation.append("  ");
+        }
+        explanation.append(describe())
+                .append(" rows=").append(estimatedRows)
+                .append(" cost=").append(String.format("%.1f", cost));
+        getInputs().forEach(input -> input.explain(explanation, depth + 1));
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+
+    private static <K extends Message, V extends Message, M extends Message>
+    Map<K, CorfuStoreEntry<K, V, M>> byKey(List<CorfuStoreEntry<K, V, M>> entries) {
+        Map<K, CorfuStoreEntry<K, V, M>> entriesByKey = new LinkedHashMap<>();
+        entries.forEach(entry -> entriesByKey.put(entry.getKey(), entry));
+        return entriesByKey;
+    }
+
+    /**
+     * Scan the table, and filter its entries.
+     */
+    static final class Scan extends QueryPlan {
+
+        private final QueryPredicate predicate;
+
+        Scan(QueryPredicate predicate, long estimatedRows, double cost) {
+            super(estimatedRows, cost);
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean isScan() {
+            return true;
+        }
+
+        @Override
+        String describe() {
+            return "SCAN " + predicate;
+        }
+
+        @Override
+        <K extends Message, V extends Message, M extends Message>
+        Map<K, CorfuStoreEntry<K, V, M>> collect(Table<K, V, M> table) {
+            return byKey(table.scanAndFilterByEntry(entry -> predicate.test(entry.getPayload())));
+        }
+    }
+
+    /**
+     * Filter the entries of a step.
+     */
+    static final class Filter extends QueryPlan {
+
+        private final QueryPredicate predicate;
+        private final QueryPlan input;
+
+        Filter(QueryPredicate predicate, QueryPlan input, double cost) {
+            super(input.getEstimatedRows(), cost);
+            this.predicate = predicate;
+            this.input = input;
+        }
+
+        @Override
+        String describe() {
+            return "FILTER " + predicate;
+        }
+
+        @Override
+        List<QueryPlan> getInputs() {
+            return Collections.singletonList(input);
+        }
+
+        @Override
+        <K extends Message, V extends Message, M extends Message>
+        Map<K, CorfuStoreEntry<K, V, M>> collect(Table<K, V, M> table) {
+            Map<K, CorfuStoreEntry<K, V, M>> entries = input.collect(table);
+            entries.values().removeIf(entry -> !predicate.test(entry.getPayload()));
+            return entries;
+        }
+    }
+
+    /**
+     * Look up the entries of some keys of a secondary index.
+     */
+    static final class IndexLookup extends QueryPlan {
+
+        private final String indexName;
+        private final List<Comparable<?>> indexKeys;
+
+        IndexLookup(String indexName, List<Comparable<?>> indexKeys, long estimatedRows, double cost) {
+            super(estimatedRows, cost);
+            this.indexName = indexName;
+            this.indexKeys = indexKeys;
+        }
+
+        @Override
+        String describe() {
+            return "INDEX LOOKUP " + indexName
+                    + (indexKeys.size() == 1 ? " = " + indexKeys.get(0) : " IN " + indexKeys);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <K extends Message, V extends Message, M extends Message>
+        Map<K, CorfuStoreEntry<K, V, M>> collect(Table<K, V, M> table) {
+            Map<K, CorfuStoreEntry<K, V, M>> entries = new LinkedHashMap<>();
+            for (Comparable indexKey : indexKeys) {
+                entries.putAll(byKey(table.getByIndex(indexName, indexKey)));
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Look up the entries of a range of keys of an ordered secondary index.
+     */
+    static final class IndexRange extends QueryPlan {
+
+        private final String indexName;
+        private final Comparable<?> fromKey;
+        private final boolean fromInclusive;
+        private final Comparable<?> toKey;
+        private final boolean toInclusive;
+
+        IndexRange(String indexName, Comparable<?> fromKey, boolean fromInclusive,
+                   Comparable<?> toKey, boolean toInclusive, long estimatedRows, double cost) {
+            super(estimatedRows, cost);
+            this.indexName = indexName;
+            this.fromKey = fromKey;
+            this.fromInclusive = fromInclusive;
+            this.toKey = toKey;
+            this.toInclusive = toInclusive;
+        }
+
+        @Override
+        String describe() {
+            return "INDEX RANGE " + indexName + " IN " + (fromInclusive ? "[" : "(")
+                    + (fromKey == null ? "" : fromKey) + ", "
+                    + (toKey == null ? "" : toKey) + (toInclusive ? "]" : ")");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <K extends Message, V extends Message, M extends Message>
+        Map<K, CorfuStoreEntry<K, V, M>> collect(Table<K, V, M> table) {
+            return byKey(table.getByIndexRange(indexName,
+                    (Comparable) fromKey, fromInclusive, (Comparable) toKey, toInclusive));
+        }
+    }
+
+    /**
+     * Keep the entries returned by all of several steps.
+     */
+    static final class Intersection extends QueryPlan {
+
+        private final List<QueryPlan> inputs;
+
+        Intersection(List<QueryPlan> inputs, long estimatedRows, double cost) {
+            super(estimatedRows, cost);
+            this.inputs = inputs;
+        }
+
+        @Override
+        String describe() {
+            return "INTERSECT";
+        }
+
+        @Override
+        List<QueryPlan> getInputs() {
+            return inputs;
+        }
+
+        @Override
+        <K extends Message, V extends Message, M extends Message>
+        Map<K, CorfuStoreEntry<K, V, M>> collect(Table<K, V, M> table) {
+            Iterator<QueryPlan> it = inputs.iterator();
+            Map<K, CorfuStoreEntry<K, V, M>> entries = it.next().collect(table);
+            while (it.hasNext() && !entries.isEmpty()) {
+                entries.keySet().retainAll(it.next().collect(table).keySet());
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Keep the entries returned by any of several steps.
+     */
+    static final class Union extends QueryPlan {
+
+        private final List<QueryPlan> inputs;
+
+        Union(List<QueryPlan> inputs, long estimatedRows, double cost) {
+            super(estimatedRows, cost);
+            this.inputs = inputs;
+        }
+
+        @Override
+        String describe() {
+            return "UNION";
+        }
+
+        @Override
+        List<QueryPlan> getInputs() {
+            return inputs;
+        }
+
+        @Override
+        <K extends Message, V extends Message, M extends Message>
+        Map<K, CorfuStoreEntry<K, V, M>> collect(Table<K, V, M> table) {
+            Map<K, CorfuStoreEntry<K, V, M>> entries = new LinkedHashMap<>();
+            inputs.forEach(input -> entries.putAll(input.collect(table)));
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.corfudb.runtime.collections;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.corfudb.runtime.collections.QueryPredicate.And;
+import org.corfudb.runtime.collections.QueryPredicate.FieldPredicate;
+import org.corfudb.runtime.collections.QueryPredicate.In;
+import org.corfudb.runtime.collections.QueryPredicate.Or;
+import org.corfudb.runtime.collections.QueryPredicate.Range;
+
+/**
+ * Plans the queries of a table by a {@link QueryPredicate}.
+ * <p>
+ * The conditions on the fields which have a secondary index are answered by index lookups, and
+ * ranges by the lookup of a range of an ordered index. The access paths of the predicates of an
+ * AND are intersected as long as this reduces the estimated cost of the query, while an OR is
+ * answered by the union of the access paths of its predicates, provided they all have one. The
+ * number of entries of each index key, read from the indexes themselves, drives the estimates.
+ * The entries found through the indexes are then filtered by the whole predicate, and the table
+ * is only scanned when no access path is cheaper than the scan.
+ */
+@Slf4j
+final class QueryPlanner {
+
+    /**
+     * Cost of reading an entry of the table, by a scan or an index.
+     */
+    static final double ENTRY_COST = 1.0;
+
+    /**
+     * Cost of looking up a key of an index.
+     */
+    static final double LOOKUP_COST = 1.0;
+
+    /**
+     * Cost of evaluating a field condition of the predicate on an entry.
+     */
+    static final double CONDITION_COST = 0.5;
+
+    private QueryPlanner() {
+        // prevent instantiation of this class
+    }
+
+    /**
+     * Plan a query.
+     *
+     * @param table     Table to query.
+     * @param predicate Predicate of the query.
+     * @return Cheapest plan of the query.
+     * @throws IllegalArgumentException If the predicate queries fields which the values of the
+     *                                  table don't have, or compares them to values they can't
+     *                                  be compared to.
+     */
+    @Nonnull
+    static QueryPlan plan(@Nonnull Table<?, ?, ?> table, @Nonnull QueryPredicate predicate) {
+        predicate.validate(table.getValueDescriptor());
+
+        final long tableSize = table.count();
+        final double filterCost = CONDITION_COST * countConditions(predicate);
+        final QueryPlan scan = new QueryPlan.Scan(predicate, tableSize,
+                tableSize * (ENTRY_COST + filterCost));
+
+        QueryPlan plan = scan;
+        QueryPlan accessPath = planAccessPath(table, predicate, tableSize, filterCost);
+        if (accessPath != null) {
+            QueryPlan filter = new QueryPlan.Filter(predicate, accessPath,
+                    accessPath.getCost() + accessPath.getEstimatedRows() * filterCost);
+            if (filter.getCost() < scan.getCost()) {
+                plan = filter;
+            }
+        }
+
+        log.trace("plan[{}]: {}", table.getFullyQualifiedTableName(), plan);
+        return plan;
+    }
+
+    /**
+     * Plan the cheapest access path of the entries which may match a predicate.
+     *
+     * @return Access path, or null if the predicate can only be answered by a scan.
+     */
+    private static QueryPlan planAccessPath(Table<?, ?, ?> table, QueryPredicate predicate,
+                                            long tableSize, double filterCost) {
+        if (predicate instanceof In) {
+            return planLookup(table, (In) predicate);
+        } else if (predicate instanceof Range) {
+            return planRange(table, (Range) predicate);
+        } else if (predicate instanceof And) {
+            return planIntersection(table, (And) predicate, tableSize, filterCost);
+        } else if (predicate instanceof Or) {
+            return planUnion(table, (Or) predicate, tableSize, filterCost);
+        }
+        return null;
+    }
+
+    private static QueryPlan planLookup(Table<?, ?, ?> table, In predicate) {
+        if (!table.hasSecondaryIndex(predicate.getField())) {
+            return null;
+        }
+
+        FieldDescriptor fieldDescriptor = predicate.getFieldDescriptor(table.getValueDescriptor());
+        List<Comparable<?>> indexKeys = new ArrayList<>();
+        long rows = 0;
+        for (Object value : predicate.getFieldValues(fieldDescriptor)) {
+            if (!(value instanceof Comparable)) {
+                // Enum and message fields have no index keys to look up, they are scanned
+                return null;
+            }
+            Comparable indexKey = (Comparable) value;
+            indexKeys.add(indexKey);
+            rows += countByIndex(table, predicate.getField(), indexKey);
+        }
+        return new QueryPlan.IndexLookup(predicate.getField(), indexKeys, rows,
+                indexKeys.size() * LOOKUP_COST + rows * ENTRY_COST);
+    }
+
+    private static QueryPlan planRange(Table<?, ?, ?> table, Range predicate) {
+        if (!table.isOrderedIndex(predicate.getField())) {
+            return null;
+        }
+
+        FieldDescriptor fieldDescriptor = predicate.getFieldDescriptor(table.getValueDescriptor());
+        Comparable fromKey = predicate.getFromValue() == null ? null
+                : (Comparable) FieldPredicate.toFieldValue(fieldDescriptor, predicate.getFromValue());
+        Comparable toKey = predicate.getToValue() == null ? null
+                : (Comparable) FieldPredicate.toFieldValue(fieldDescriptor, predicate.getToValue());
+        long rows = countByIndexRange(table, predicate.getField(),
+                fromKey, predicate.isFromInclusive(), toKey, predicate.isToInclusive());
+        return new QueryPlan.IndexRange(predicate.getField(),
+                fromKey, predicate.isFromInclusive(), toKey, predicate.isToInclusive(),
+                rows, LOOKUP_COST + rows * ENTRY_COST);
+    }
+
+    /**
+     * Starting with the access path which returns the fewest entries, intersect the access paths
+     * of the predicates of an AND as long as the entries saved on the filter outweigh the cost of
+     * the additional lookups. Predicates without an access path are left to the filter.
+     */
+    private static QueryPlan planIntersection(Table<?, ?, ?> table, And predicate,
+                                              long tableSize, double filterCost) {
+        List<QueryPlan> accessPaths = predicate.getPredicates().stream()
+                .map(child -> planAccessPath(table, child, tableSize, filterCost))
+                .filter(accessPath -> accessPath != null)
+                .sorted(Comparator.comparingLong(QueryPlan::getEstimatedRows)
+                        .thenComparingDouble(QueryPlan::getCost))
+                .collect(Collectors.toList());
+        if (accessPaths.isEmpty()) {
+            return null;
+        }
+
+        List<QueryPlan> inputs = new ArrayList<>();
+        inputs.add(accessPaths.get(0));
+        long rows = accessPaths.get(0).getEstimatedRows();
+        double cost = accessPaths.get(0).getCost();
+        for (QueryPlan accessPath : accessPaths.subList(1, accessPaths.size())) {
+            // Assume the predicates are independent
+            long intersectedRows = Math.round(
+                    (double) rows * accessPath.getEstimatedRows() / Math.max(tableSize, 1));
+            double intersectedCost = cost + accessPath.getCost();
+            if (intersectedCost + intersectedRows * filterCost >= cost + rows * filterCost) {
+                break;
+            }
+            inputs.add(accessPath);
+            rows = intersectedRows;
+            cost = intersectedCost;
+        }
+
+        return inputs.size() == 1 ? inputs.get(0)
+                : new QueryPlan.Intersection(inputs, rows, cost);
+    }
+
+    private static QueryPlan planUnion(Table<?, ?, ?> table, Or predicate,
+                                       long tableSize, double filterCost) {
+        List<QueryPlan> inputs = new ArrayList<>();
+        long rows = 0;
+        double cost = 0;
+        for (QueryPredicate child : predicate.getPredicates()) {
+            QueryPlan accessPath = planAccessPath(table, child, tableSize, filterCost);
+            if (accessPath == null) {
+                return null;
+            }
+            inputs.add(accessPath);
+            rows += accessPath.getEstimatedRows();
+            cost += accessPath.getCost();
+        }
+        if (inputs.isEmpty()) {
+            return null;
+        }
+
+        return inputs.size() == 1 ? inputs.get(0)
+                : new QueryPlan.Union(inputs, Math.min(rows, tableSize), cost);
+    }
+
+    private static int countConditions(QueryPredicate predicate) {
+        if (predicate instanceof And) {
+            return ((And) predicate).getPredicates().stream()
+                    .mapToInt(QueryPlanner::countConditions).sum();
+        } else if (predicate instanceof Or) {
+            return ((Or) predicate).getPredicates().stream()
+                    .mapToInt(QueryPlanner::countConditions).sum();
+        }
+        return 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int countByIndex(Table<?, ?, ?> table, String indexName, Comparable indexKey) {
+        return table.countByIndex(indexName, indexKey);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long countByIndexRange(Table<?, ?, ?> table, String indexName,
+                                          Comparable fromKey, boolean fromInclusive,
+                                          Comparable toKey, boolean toInclusive) {
+        return table.countByIndexRange(indexName, fromKey, fromInclusive, toKey, toInclusive);
+    }
+}
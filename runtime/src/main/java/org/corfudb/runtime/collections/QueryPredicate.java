@@ -0,0 +1,370 @@
+package org.corfudb.runtime.collections;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.google.protobuf.ProtocolMessageEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.Getter;
+
+/**
+ * A structured predicate over the fields of the values of a table.
+ * <p>
+ * Unlike an opaque {@link java.util.function.Predicate}, the queries of a structured predicate
+ * can be planned: the conditions on the fields which have a secondary index are answered by
+ * index lookups rather than by a scan of the table (see {@link QueryPlan}).
+ * <p>
+ * Predicates are built with the factory methods of this class, for instance:
+ * <pre>
+ *     QueryPredicate.and(
+ *             QueryPredicate.eq("name", "event_1"),
+ *             QueryPredicate.range("event_time", 10L, true, 20L, false))
+ * </pre>
+ * Fields are the non repeated fields of the values, referred to by their name. Numeric values
+ * are converted to the type of their field, and the values of enum fields can be given as enum
+ * constants, names or numbers. Ranges only apply to the fields whose values are ordered, which
+ * excludes enum, bytes and message fields.
+ */
+public abstract class QueryPredicate {
+
+    private QueryPredicate() {
+        // Only the predicates of this class can be planned
+    }
+
+    /**
+     * Field is equal to a value.
+     *
+     * @param field Name of the field.
+     * @param value Value of the field.
+     * @return Predicate.
+     */
+    public static QueryPredicate eq(@Nonnull String field, @Nonnull Object value) {
+        return new In(field, Collections.singletonList(value));
+    }
+
+    /**
+     * Field is equal to one of several values.
+     *
+     * @param field  Name of the field.
+     * @param values Values of the field.
+     * @return Predicate.
+     */
+    public static QueryPredicate in(@Nonnull String field, @Nonnull Collection<?> values) {
+        return new In(field, new ArrayList<>(values));
+    }
+
+    /**
+     * Field is within a range of values.
+     *
+     * @param field         Name of the field.
+     * @param fromValue     Low end of the range, null if the range is unbounded below.
+     * @param fromInclusive Whether the low end is included in the range.
+     * @param toValue       High end of the range, null if the range is unbounded above.
+     * @param toInclusive   Whether the high end is included in the range.
+     * @return Predicate.
+     */
+    public static QueryPredicate range(@Nonnull String field,
+                                       @Nullable Comparable<?> fromValue, boolean fromInclusive,
+                                       @Nullable Comparable<?> toValue, boolean toInclusive) {
+        return new Range(field, fromValue, fromInclusive, toValue, toInclusive);
+    }
+
+    /**
+     * All the predicates hold.
+     *
+     * @param predicates Predicates.
+     * @return Predicate.
+     */
+    public static QueryPredicate and(@Nonnull QueryPredicate... predicates) {
+        return new And(Arrays.asList(predicates));
+    }
+
+    /**
+     * At least one of the predicates holds.
+     *
+     * @param predicates Predicates.
+     * @return Predicate.
+     */
+    public static QueryPredicate or(@Nonnull QueryPredicate... predicates) {
+        return new Or(Arrays.asList(predicates));
+    }
+
+    /**
+     * Test a value of the table.
+     *
+     * @param value Value of the table.
+     * @return True if the predicate holds for the value.
+     */
+    public abstract boolean test(@Nonnull Message value);
+
+    /**
+     * Check that the fields of this predicate are fields of the values of a table.
+     *
+     * @param descriptor Descriptor of the values.
+     * @throws IllegalArgumentException If a field isn't a non repeated field of the values, or
+     *                                  if its values can't be compared to the condition.
+     */
+    abstract void validate(@Nonnull Descriptors.Descriptor descriptor);
+
+    /**
+     * A condition on a field of the values.
+     */
+    abstract static class FieldPredicate extends QueryPredicate {
+
+        @Getter
+        private final String field;
+
+        FieldPredicate(String field) {
+            this.field = field;
+        }
+
+        FieldDescriptor getFieldDescriptor(Descriptors.Descriptor descriptor) {
+            FieldDescriptor fieldDescriptor = descriptor.findFieldByName(field);
+            if (fieldDescriptor == null) {
+                throw new IllegalArgumentException(descriptor.getFullName()
+                        + " has no field " + field);
+            }
+            if (fieldDescriptor.isRepeated()) {
+                throw new IllegalArgumentException("Repeated field " + field
+                        + " of " + descriptor.getFullName() + " cannot be queried");
+            }
+            return fieldDescriptor;
+        }
+
+        @Override
+        void validate(Descriptors.Descriptor descriptor) {
+            getFieldDescriptor(descriptor);
+        }
+
+        /**
+         * Convert a value to the type of the values of a field, which is also the type of the
+         * index keys of the field.
+         *
+         * @return The value of the field, or null if an enum field has no such value.
+         */
+        static Object toFieldValue(FieldDescriptor fieldDescriptor, Object value) {
+            if (fieldDescriptor.getJavaType() == FieldDescriptor.JavaType.ENUM) {
+                return toEnumValue(fieldDescriptor, value);
+            }
+            if (!(value instanceof Number)) {
+                return value;
+            }
+            switch (fieldDescriptor.getJavaType()) {
+                case INT:
+                    return ((Number) value).intValue();
+                case LONG:
+                    return ((Number) value).longValue();
+                case FLOAT:
+                    return ((Number) value).floatValue();
+                case DOUBLE:
+                    return ((Number) value).doubleValue();
+                default:
+                    return value;
+            }
+        }
+
+        /**
+         * Convert an enum constant, or the name or number of an enum value, to the descriptor
+         * of the value, which is the value of an enum field.
+         */
+        private static Descriptors.EnumValueDescriptor toEnumValue(
+                FieldDescriptor fieldDescriptor, Object value) {
+            final Descriptors.EnumDescriptor enumType = fieldDescriptor.getEnumType();
+            final Descriptors.EnumValueDescriptor enumValue;
+            if (value instanceof Descriptors.EnumValueDescriptor) {
+                enumValue = (Descriptors.EnumValueDescriptor) value;
+            } else if (value instanceof ProtocolMessageEnum) {
+                enumValue = ((ProtocolMessageEnum) value).getValueDescriptor();
+            } else if (value instanceof String) {
+                enumValue = enumType.findValueByName((String) value);
+            } else if (value instanceof Number) {
+                enumValue = enumType.findValueByNumber(((Number) value).intValue());
+            } else {
+                enumValue = null;
+            }
+            return enumValue != null && enumValue.getType().equals(enumType) ? enumValue : null;
+        }
+    }
+
+    /**
+     * Field is equal to one of several values.
+     */
+    static final class In extends FieldPredicate {
+
+        @Getter
+        private final List<Object> values;
+
+        In(String field, List<Object> values) {
+            super(field);
+            this.values = values;
+        }
+
+        List<Object> getFieldValues(FieldDescriptor fieldDescriptor) {
+            return values.stream()
+                    .map(value -> toFieldValue(fieldDescriptor, value))
+                    .distinct()
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        void validate(Descriptors.Descriptor descriptor) {
+            FieldDescriptor fieldDescriptor = getFieldDescriptor(descriptor);
+            for (Object value : values) {
+                if (toFieldValue(fieldDescriptor, value) == null) {
+                    throw new IllegalArgumentException(value + " is not a value of the field "
+                            + getField() + " of " + descriptor.getFullName());
+                }
+            }
+        }
+
+        @Override
+        public boolean test(Message value) {
+            FieldDescriptor fieldDescriptor = getFieldDescriptor(value.getDescriptorForType());
+            Object fieldValue = value.getField(fieldDescriptor);
+            for (Object candidate : values) {
+                if (fieldValue.equals(toFieldValue(fieldDescriptor, candidate))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return values.size() == 1 ? getField() + " = " + values.get(0)
+                    : getField() + " IN " + values;
+        }
+    }
+
+    /**
+     * Field is within a range of values.
+     */
+    static final class Range extends FieldPredicate {
+
+        @Getter
+        private final Comparable<?> fromValue;
+        @Getter
+        private final boolean fromInclusive;
+        @Getter
+        private final Comparable<?> toValue;
+        @Getter
+        private final boolean toInclusive;
+
+        Range(String field, Comparable<?> fromValue, boolean fromInclusive,
+              Comparable<?> toValue, boolean toInclusive) {
+            super(field);
+            this.fromValue = fromValue;
+            this.fromInclusive = fromInclusive;
+            this.toValue = toValue;
+            this.toInclusive = toInclusive;
+        }
+
+        @Override
+        void validate(Descriptors.Descriptor descriptor) {
+            FieldDescriptor fieldDescriptor = getFieldDescriptor(descriptor);
+            switch (fieldDescriptor.getJavaType()) {
+                case ENUM:
+                case BYTE_STRING:
+                case MESSAGE:
+                    throw new IllegalArgumentException("Field " + getField() + " of "
+                            + descriptor.getFullName() + " has unordered values of type "
+                            + fieldDescriptor.getJavaType() + ", and cannot be queried by range");
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean test(Message value) {
+            FieldDescriptor fieldDescriptor = getFieldDescriptor(value.getDescriptorForType());
+            Comparable<Object> fieldValue = (Comparable<Object>) value.getField(fieldDescriptor);
+            if (fromValue != null) {
+                int cmp = fieldValue.compareTo(toFieldValue(fieldDescriptor, fromValue));
+                if (cmp < 0 || (cmp == 0 && !fromInclusive)) {
+                    return false;
+                }
+            }
+            if (toValue != null) {
+                int cmp = fieldValue.compareTo(toFieldValue(fieldDescriptor, toValue));
+                return cmp < 0 || (cmp == 0 && toInclusive);
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return getField() + " IN " + (fromInclusive ? "[" : "(")
+                    + (fromValue == null ? "" : fromValue) + ", "
+                    + (toValue == null ? "" : toValue) + (toInclusive ? "]" : ")");
+        }
+    }
+
+    /**
+     * All the predicates hold.
+     */
+    static final class And extends QueryPredicate {
+
+        @Getter
+        private final List<QueryPredicate> predicates;
+
+        And(List<QueryPredicate> predicates) {
+            this.predicates = predicates;
+        }
+
+        @Override
+        public boolean test(Message value) {
+            return predicates.stream().allMatch(predicate -> predicate.test(value));
+        }
+
+        @Override
+        void validate(Descriptors.Descriptor descriptor) {
+            predicates.forEach(predicate -> predicate.validate(descriptor));
+        }
+
+        @Override
+        public String toString() {
+            return predicates.stream().map(Object::toString)
+                    .collect(Collectors.joining(" AND ", "(", ")"));
+        }
+    }
+
+    /**
+     * At least one of the predicates holds.
+     */
+    static final class Or extends QueryPredicate {
+
+        @Getter
+        private final List<QueryPredicate> predicates;
+
+        Or(List<QueryPredicate> predicates) {
+            this.predicates = predicates;
+        }
+
+        @Override
+        public boolean test(Message value) {
+            return predicates.stream().anyMatch(predicate -> predicate.test(value));
+        }
+
+        @Override
+        void validate(Descriptors.Descriptor descriptor) {
+            predicates.forEach(predicate -> predicate.validate(descriptor));
+        }
+
+        @Override
+        public String toString() {
+            return predicates.stream().map(Object::toString)
+                    .collect(Collectors.joining(" OR ", "(", ")"));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.corfudb.runtime.collections;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * A page of a paged scan of a table.
+ *
+ * @param <E> Type of the entries.
+ */
+@EqualsAndHashCode
+public class ScanPage<E> {
+
+    /**
+     * Entries of the page, in the order of the hash codes of their keys.
+     */
+    @Getter
+    private final List<E> entries;
+
+    /**
+     * Token to resume the scan after this page, null if this is the last page.
+     */
+    @Getter
+    @Nullable
+    private final ScanToken resumeToken;
+
+    public ScanPage(List<E> entries, @Nullable ScanToken resumeToken) {
+        this.entries = entries;
+        this.resumeToken = resumeToken;
+    }
+
+    /**
+     * @return True if this is the last page of the scan.
+     */
+    public boolean isLast() {
+        return resumeToken == null;
+    }
+}
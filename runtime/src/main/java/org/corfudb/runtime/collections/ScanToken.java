@@ -0,0 +1,103 @@
+package org.corfudb.runtime.collections;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.corfudb.runtime.CorfuStoreMetadata.Timestamp;
+
+/**
+ * Token to resume a paged scan of a table after its last page.
+ * <p>
+ * A paged scan returns the entries of a table in the order of the hash codes of their keys,
+ * which doesn't depend on how the table stores its entries. The token holds the position of
+ * the last entry of the page, and the snapshot timestamp of the scan, so that every page is
+ * read from the same version of the table.
+ * <p>
+ * The hash code of a key may differ between JVMs, e.g. the hash code of a protobuf message
+ * depends on the identity hash code of its descriptor. A token is thus only valid in the JVM
+ * which returned it, and must not be persisted or sent to another client.
+ */
+@EqualsAndHashCode
+@ToString
+public class ScanToken {
+
+    /**
+     * Position of a scan which hasn't returned any entry yet.
+     */
+    static final int FIRST_KEY_HASH = Integer.MIN_VALUE;
+
+    /**
+     * Snapshot timestamp of the scan.
+     */
+    @Getter
+    private final Timestamp timestamp;
+
+    /**
+     * Hash code of the key of the last entry of the scan.
+     */
+    @Getter
+    private final int lastKeyHash;
+
+    /**
+     * Keys of the entries of the scan whose hash code is lastKeyHash.
+     */
+    @Getter
+    private final Set<Object> lastHashKeys;
+
+    ScanToken(@Nonnull Timestamp timestamp, int lastKeyHash, @Nonnull Set<Object> lastHashKeys) {
+        this.timestamp = timestamp;
+        this.lastKeyHash = lastKeyHash;
+        this.lastHashKeys = Collections.unmodifiableSet(lastHashKeys);
+    }
+
+    /**
+     * Get the token to resume a scan after a page.
+     *
+     * @param timestamp Snapshot timestamp of the scan.
+     * @param previous  Token the page was resumed from, null for the first page.
+     * @param keys      Keys of the entries of the page, in the order of their hash codes.
+     * @return Token to resume the scan after the page.
+     */
+    static ScanToken after(@Nonnull Timestamp timestamp, @Nullable ScanToken previous,
+                           @Nonnull List<?> keys) {
+        if (keys.isEmpty()) {
+            return previous;
+        }
+
+        final int lastKeyHash = keys.get(keys.size() - 1).hashCode();
+        Set<Object> lastHashKeys = new HashSet<>();
+        if (previous != null && previous.getLastKeyHash() == lastKeyHash) {
+            // Keys of the same hash code can span several pages
+            lastHashKeys.addAll(previous.getLastHashKeys());
+        }
+        for (int i = keys.size() - 1; i >= 0 && keys.get(i).hashCode() == lastKeyHash; i--) {
+            lastHashKeys.add(keys.get(i));
+        }
+        return new ScanToken(timestamp, lastKeyHash, lastHashKeys);
+    }
+
+    /**
+     * Whether an entry comes after the position of this token, i.e. is returned by the pages
+     * which follow it.
+     *
+     * @param lastKeyHash  Hash code of the key of the last entry of the scan.
+     * @param lastHashKeys Keys of the entries of the scan whose hash code is lastKeyHash.
+     * @param entry        Entry of the table.
+     * @return True if the entry comes after the position.
+     */
+    static boolean isAfter(int lastKeyHash, @Nonnull Set<?> lastHashKeys,
+                           @Nonnull Map.Entry<?, ?> entry) {
+        final int keyHash = entry.getKey().hashCode();
+        return keyHash > lastKeyHash
+                || (keyHash == lastKeyHash && !lastHashKeys.contains(entry.getKey()));
+    }
+}
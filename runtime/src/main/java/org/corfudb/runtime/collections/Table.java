@@ -3,6 +3,7 @@ package org.corfudb.runtime.collections;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.Message;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -13,9 +14,13 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import lombok.NonNull;
+import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CorfuOptions;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.CorfuStoreMetadata.Timestamp;
+import org.corfudb.runtime.object.ICorfuSMR;
 import org.corfudb.runtime.object.ICorfuVersionPolicy;
+import org.corfudb.runtime.object.transactions.Transaction;
 import org.corfudb.runtime.object.transactions.TransactionType;
 
 import org.corfudb.runtime.object.transactions.TransactionalContext;
@@ -67,6 +72,12 @@ public class Table<K extends Message, V extends Message, M extends Message> {
     @Getter
     private final Class<M> metadataClass;
 
+    /**
+     * Descriptor of the values, to resolve the fields queried by a {@link QueryPredicate}.
+     */
+    @Getter
+    private final Descriptors.Descriptor valueDescriptor;
+
     /**
      * Returns a Table instance backed by a CorfuTable.
      *
@@ -81,6 +92,11 @@ public class Table<K extends Message, V extends Message, M extends Message> {
      * @param serializer              protobuf serializer
      * @param streamingMapSupplier    supplier of underlying map data structure
      * @param versionPolicy           versioning policy
+     * @param maxStaleness            how stale reads outside of transactions may be, or null
+     *                                if they must be linearizable
+     * @param aggregates              aggregates of the keys and values to maintain
+     * @param pagedScanIndex          whether the table keeps its keys by their hash codes
+     *                                for paged scans
      */
     @Nonnull
     public Table(@Nonnull final String namespace,
@@ -93,7 +109,10 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                  @Nonnull final CorfuRuntime corfuRuntime,
                  @Nonnull final ISerializer serializer,
                  @Nonnull final Supplier<StreamingMap<K, V>> streamingMapSupplier,
-                 @NonNull final ICorfuVersionPolicy.VersionPolicy versionPolicy) {
+                 @NonNull final ICorfuVersionPolicy.VersionPolicy versionPolicy,
+                 @Nullable final Duration maxStaleness,
+                 @Nonnull final Aggregate.Registry<K, V> aggregates,
+                 final boolean pagedScanIndex) {
 
         this.corfuRuntime = corfuRuntime;
         this.namespace = namespace;
@@ -110,12 +129,15 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                 .setTypeToken(CorfuTable.<K, CorfuRecord<V, M>>getTableType())
                 .setStreamName(this.fullyQualifiedTableName)
                 .setSerializer(serializer)
-                .setArguments(new ProtobufIndexer(valueSchema), streamingMapSupplier, versionPolicy)
+                .setArguments(new ProtobufIndexer(valueSchema), toRecordAggregates(aggregates),
+                        streamingMapSupplier, versionPolicy, pagedScanIndex)
+                .setMaxStaleness(maxStaleness)
                 .open();
         this.metrics = new TableMetrics(this.fullyQualifiedTableName, corfuRuntime.getParameters().getMetricRegistry());
         this.keyClass = kClass;
         this.valueClass = vClass;
         this.metadataClass = mClass;
+        this.valueDescriptor = valueSchema.getDescriptorForType();
     }
 
     /**
@@ -296,6 +318,25 @@ public class Table<K extends Message, V extends Message, M extends Message> {
         }
     }
 
+    /**
+     * Get the Corfu object backing this table, e.g. to sync it along with other tables.
+     *
+     * @return the object backing this table.
+     */
+    public ICorfuSMR<CorfuTable<K, CorfuRecord<V, M>>> getCorfuObject() {
+        return corfuTable;
+    }
+
+    /**
+     * The aggregates of the keys and values of a table, as aggregates of its records.
+     */
+    private static <K extends Message, V extends Message, M extends Message>
+    Aggregate.Registry<K, CorfuRecord<V, M>> toRecordAggregates(Aggregate.Registry<K, V> aggregates) {
+        List<Aggregate.Spec<K, CorfuRecord<V, M>>> recordAggregates = new ArrayList<>();
+        aggregates.forEach(aggregate -> recordAggregates.add(aggregate.mapValues(CorfuRecord::getPayload)));
+        return recordAggregates::iterator;
+    }
+
     /**
      * Count of records in the table.
      *
@@ -347,6 +388,69 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Scan and filter a page of entries, and return the token to resume the scan after it.
+     * <p>
+     * Every page of a scan is read at the snapshot timestamp of its first page. If this is
+     * called in a transaction, the snapshot of the transaction must be the one of the resume
+     * token. Otherwise the page is read in a snapshot transaction of its own, which ends
+     * once the page is read, so large scans neither hold the table, nor all of its matching
+     * entries, until their last page.
+     *
+     * @param entryPredicate Predicate to filter the entries.
+     * @param pageSize       Max number of entries of the page.
+     * @param resumeToken    Token returned with the previous page in this JVM, see
+     *                       {@link ScanToken}, null for the first page.
+     * @return Page of filtered entries.
+     */
+    @Nonnull
+    public ScanPage<CorfuStoreEntry<K, V, M>> scanAndFilterByEntry(
+            @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> entryPredicate,
+            int pageSize,
+            @Nullable final ScanToken resumeToken) {
+        boolean beganNewTxn = false;
+        try {
+            if (!TransactionalContext.isInTransaction()) {
+                Transaction.TransactionBuilder transactionBuilder = corfuRuntime.getObjectsView()
+                        .TXBuild()
+                        .type(TransactionType.SNAPSHOT);
+                if (resumeToken != null) {
+                    transactionBuilder.snapshot(new Token(resumeToken.getTimestamp().getEpoch(),
+                            resumeToken.getTimestamp().getSequence()));
+                }
+                transactionBuilder.build().begin();
+                beganNewTxn = true;
+            }
+
+            Token snapshot = TransactionalContext.getRootContext().getSnapshotTimestamp();
+            Timestamp timestamp = Timestamp.newBuilder()
+                    .setEpoch(snapshot.getEpoch())
+                    .setSequence(snapshot.getSequence())
+                    .build();
+            if (resumeToken != null && !resumeToken.getTimestamp().equals(timestamp)) {
+                throw new IllegalArgumentException("Scan of " + fullyQualifiedTableName
+                        + " resumed at " + snapshot + " rather than at its snapshot "
+                        + resumeToken.getTimestamp());
+            }
+
+            List<Map.Entry<K, CorfuRecord<V, M>>> page = corfuTable.scanAndFilterPageByEntry(
+                    recordEntry -> entryPredicate.test(new CorfuStoreEntry<>(
+                            recordEntry.getKey(),
+                            recordEntry.getValue().getPayload(),
+                            recordEntry.getValue().getMetadata())),
+                    resumeToken == null ? ScanToken.FIRST_KEY_HASH : resumeToken.getLastKeyHash(),
+                    resumeToken == null ? Collections.emptySet() : resumeToken.getLastHashKeys(),
+                    pageSize);
+            ScanToken nextToken = page.size() < pageSize ? null : ScanToken.after(timestamp,
+                    resumeToken, page.stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+            return new ScanPage<>(toCorfuStoreEntries(page), nextToken);
+        } finally {
+            if (beganNewTxn) {
+                TxEnd();
+            }
+        }
+    }
+
     /**
      * Stream the whole table out in chunks, useful for very large tables
      * that won't fit completely in memory.
@@ -362,6 +466,51 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                          entry.getValue().getMetadata()));
     }
 
+    /**
+     * Get the value of an aggregate over all the records of the table.
+     *
+     * @param aggregateName Aggregate name.
+     * @return Value of the aggregate.
+     */
+    @Nonnull
+    Aggregate.Value getAggregate(@Nonnull final String aggregateName) {
+        return corfuTable.getAggregate(() -> aggregateName);
+    }
+
+    /**
+     * Get the value of a group of a grouped aggregate.
+     *
+     * @param aggregateName Aggregate name.
+     * @param groupKey      Group key.
+     * @return Value of the aggregate over the records of the group.
+     */
+    @Nonnull
+    Aggregate.Value getAggregate(@Nonnull final String aggregateName,
+                                 @Nullable final Comparable<?> groupKey) {
+        return corfuTable.getAggregate(() -> aggregateName, groupKey);
+    }
+
+    /**
+     * Get the values of all the groups of a grouped aggregate.
+     *
+     * @param aggregateName Aggregate name.
+     * @return Values of the aggregate by group key.
+     */
+    @Nonnull
+    Map<Comparable<?>, Aggregate.Value> getAggregateGroups(@Nonnull final String aggregateName) {
+        return corfuTable.getAggregateGroups(() -> aggregateName);
+    }
+
+    /**
+     * Whether this table has a secondary index.
+     *
+     * @param indexName Index name.
+     * @return True if the table has the secondary index.
+     */
+    boolean hasSecondaryIndex(@Nonnull final String indexName) {
+        return corfuTable.hasSecondaryIndex(() -> indexName);
+    }
+
     /**
      * Get by secondary index.
      *
@@ -381,6 +530,129 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Count the entries of a secondary index key.
+     *
+     * @param <I>       Type of index key.
+     * @param indexName Index name.
+     * @param indexKey  Index key.
+     * @return Number of entries of the index key.
+     */
+    <I extends Comparable<I>> int countByIndex(@Nonnull final String indexName,
+                                               @Nonnull final I indexKey) {
+        return corfuTable.countByIndex(() -> indexName, indexKey);
+    }
+
+    /**
+     * Count the entries of a range of an ordered secondary index.
+     *
+     * @param <I>           Type of index key.
+     * @param indexName     Index name.
+     * @param fromKey       Low end of the range, null if unbounded.
+     * @param fromInclusive Whether the low end is included.
+     * @param toKey         High end of the range, null if unbounded.
+     * @param toInclusive   Whether the high end is included.
+     * @return Number of entries within the range.
+     */
+    <I extends Comparable<I>> long countByIndexRange(@Nonnull final String indexName,
+                                                     @Nullable final I fromKey, boolean fromInclusive,
+                                                     @Nullable final I toKey, boolean toInclusive) {
+        return corfuTable.countByIndexRange(() -> indexName, fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * Whether a secondary index of this table is ordered.
+     *
+     * @param indexName Index name.
+     * @return True if the table has the secondary index, and it is ordered.
+     */
+    boolean isOrderedIndex(@Nonnull final String indexName) {
+        return corfuTable.isOrderedIndex(() -> indexName);
+    }
+
+    /**
+     * Get by a range of an ordered secondary index.
+     *
+     * @param <I>           Type of index key.
+     * @param indexName     Index name.
+     * @param fromKey       Low end of the range, null if unbounded.
+     * @param fromInclusive Whether the low end is included.
+     * @param toKey         High end of the range, null if unbounded.
+     * @param toInclusive   Whether the high end is included.
+     * @return List of entries within the range, sorted by index key.
+     */
+    @Nonnull
+    <I extends Comparable<I>>
+    List<CorfuStoreEntry<K, V, M>> getByIndexRange(@Nonnull final String indexName,
+                                                   @Nullable final I fromKey, boolean fromInclusive,
+                                                   @Nullable final I toKey, boolean toInclusive) {
+        return toCorfuStoreEntries(corfuTable.getByIndexRange(() -> indexName,
+                fromKey, fromInclusive, toKey, toInclusive));
+    }
+
+    /**
+     * Get by a prefix of an ordered secondary index of strings.
+     *
+     * @param indexName Index name.
+     * @param prefix    Prefix of the index keys.
+     * @return List of entries whose index keys start with the prefix, sorted by index key.
+     */
+    @Nonnull
+    List<CorfuStoreEntry<K, V, M>> getByIndexPrefix(@Nonnull final String indexName,
+                                                    @Nonnull final String prefix) {
+        return toCorfuStoreEntries(corfuTable.getByIndexPrefix(() -> indexName, prefix));
+    }
+
+    /**
+     * Get the top-N entries of an ordered secondary index.
+     *
+     * @param indexName  Index name.
+     * @param limit      Max number of entries.
+     * @param descending Whether the entries with the largest index keys are returned,
+     *                   rather than the ones with the smallest index keys.
+     * @return List of at most limit entries, sorted by index key.
+     */
+    @Nonnull
+    List<CorfuStoreEntry<K, V, M>> getByIndexTopN(@Nonnull final String indexName,
+                                                  int limit, boolean descending) {
+        return toCorfuStoreEntries(descending
+                ? corfuTable.getByIndexLast(() -> indexName, limit)
+                : corfuTable.getByIndexFirst(() -> indexName, limit));
+    }
+
+    /**
+     * Get the smallest index key of an ordered secondary index.
+     *
+     * @param <I>       Type of index key.
+     * @param indexName Index name.
+     * @return The smallest index key, null if the table is empty.
+     */
+    @Nullable
+    <I extends Comparable<I>> I getMinIndexKey(@Nonnull final String indexName) {
+        return corfuTable.getMinIndexKey(() -> indexName);
+    }
+
+    /**
+     * Get the largest index key of an ordered secondary index.
+     *
+     * @param <I>       Type of index key.
+     * @param indexName Index name.
+     * @return The largest index key, null if the table is empty.
+     */
+    @Nullable
+    <I extends Comparable<I>> I getMaxIndexKey(@Nonnull final String indexName) {
+        return corfuTable.getMaxIndexKey(() -> indexName);
+    }
+
+    private List<CorfuStoreEntry<K, V, M>> toCorfuStoreEntries(
+            @Nonnull final List<Map.Entry<K, CorfuRecord<V, M>>> entries) {
+        return entries.stream()
+                .map(entry -> new CorfuStoreEntry<K, V, M>(entry.getKey(),
+                        entry.getValue().getPayload(),
+                        entry.getValue().getMetadata()))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Get by secondary index.
      *
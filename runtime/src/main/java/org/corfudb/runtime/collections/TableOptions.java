@@ -3,6 +3,7 @@ package org.corfudb.runtime.collections;
 import lombok.Builder;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -13,12 +14,64 @@ public class TableOptions<K, V> {
 
     private final Index.Registry<K, V> indexRegistry;
 
+    /**
+     * Aggregates of the keys and values of the table, which {@link CorfuStore} maintains as the
+     * table is updated.
+     */
+    private final Aggregate.Registry<K, V> aggregateRegistry;
+
     /**
      * If this path is set, {@link CorfuStore} will utilize disk-backed {@link CorfuTable}.
      */
     private final Path persistentDataPath;
 
+    /**
+     * If this is set, reads of the table outside of transactions may return a state of the
+     * table which was up to date at most maxStaleness ago.
+     */
+    private final Duration maxStaleness;
+
+    /**
+     * If this path is set, the state of the table is saved to a snapshot in this directory
+     * when the runtime shuts down, and restored from it when the table is opened,
+     * so that the table only syncs the updates made since the snapshot.
+     */
+    private final Path localSnapshotPath;
+
+    /**
+     * If this is set along with localSnapshotPath, the snapshot of the table is also saved
+     * with this period.
+     */
+    private final Duration localSnapshotPeriod;
+
+    /**
+     * If this is set, the table keeps its keys by their hash codes, so that every page of a
+     * paged scan seeks to its position instead of scanning the whole table. This costs some
+     * memory and work on every update, so it should only be set for tables scanned by pages.
+     */
+    private final boolean pagedScanIndex;
+
+    public Aggregate.Registry<K, V> getAggregateRegistry() {
+        return aggregateRegistry == null ? Aggregate.Registry.empty() : aggregateRegistry;
+    }
+
     public Optional<Path> getPersistentDataPath() {
         return Optional.ofNullable(persistentDataPath);
     }
+
+    public Optional<Duration> getMaxStaleness() {
+        return Optional.ofNullable(maxStaleness);
+    }
+
+    public Optional<Path> getLocalSnapshotPath() {
+        return Optional.ofNullable(localSnapshotPath);
+    }
+
+    public Optional<Duration> getLocalSnapshotPeriod() {
+        return Optional.ofNullable(localSnapshotPeriod);
+    }
+
+    public boolean isPagedScanIndex() {
+        return pagedScanIndex;
+    }
 }
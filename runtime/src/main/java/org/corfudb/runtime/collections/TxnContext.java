@@ -23,6 +23,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -374,6 +375,7 @@ public class TxnContext implements AutoCloseable {
      *
      * @param table Table object.
      * @param indexName Index name. In case of protobuf-defined secondary index it is the field name.
+     *                  Composite indexes are queried by their name, with a {@link CompositeKey}.
      * @param indexKey  Key to query.
      * @param <K>       Type of Key.
      * @param <V>       Type of Value.
@@ -409,6 +411,104 @@ public class TxnContext implements AutoCloseable {
         return this.getByIndex(this.getTable(tableName), indexName, indexKey);
     }
 
+    /**
+     * Query by a range of an ordered secondary index.
+     *
+     * @param table         Table object.
+     * @param indexName     Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param fromKey       Low end of the range, null if the range is unbounded below.
+     * @param fromInclusive Whether the low end is included in the range.
+     * @param toKey         High end of the range, null if the range is unbounded above.
+     * @param toInclusive   Whether the high end is included in the range.
+     * @param <K>           Type of Key.
+     * @param <V>           Type of Value.
+     * @param <I>           Type of index/secondary key.
+     * @return Result of the query, sorted by index key.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message, I extends Comparable<I>>
+    List<CorfuStoreEntry<K, V, M>> getByIndexRange(@Nonnull Table<K, V, M> table,
+                                                   @Nonnull final String indexName,
+                                                   @Nullable final I fromKey, boolean fromInclusive,
+                                                   @Nullable final I toKey, boolean toInclusive) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumGetByIndexes();
+        return table.getByIndexRange(indexName, fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * Query by a prefix of an ordered secondary index of strings.
+     *
+     * @param table     Table object.
+     * @param indexName Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param prefix    Prefix of the index keys to query.
+     * @param <K>       Type of Key.
+     * @param <V>       Type of Value.
+     * @return Result of the query, sorted by index key.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    List<CorfuStoreEntry<K, V, M>> getByIndexPrefix(@Nonnull Table<K, V, M> table,
+                                                    @Nonnull final String indexName,
+                                                    @Nonnull final String prefix) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumGetByIndexes();
+        return table.getByIndexPrefix(indexName, prefix);
+    }
+
+    /**
+     * Query the records with the smallest (or largest) index keys of an ordered secondary index.
+     *
+     * @param table      Table object.
+     * @param indexName  Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param limit      Max number of records to return.
+     * @param descending Whether the records with the largest index keys are returned.
+     * @param <K>        Type of Key.
+     * @param <V>        Type of Value.
+     * @return Result of the query, sorted by index key.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    List<CorfuStoreEntry<K, V, M>> getByIndexTopN(@Nonnull Table<K, V, M> table,
+                                                  @Nonnull final String indexName,
+                                                  int limit, boolean descending) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumGetByIndexes();
+        return table.getByIndexTopN(indexName, limit, descending);
+    }
+
+    /**
+     * Get the smallest index key of an ordered secondary index.
+     *
+     * @param table     Table object.
+     * @param indexName Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param <I>       Type of index/secondary key.
+     * @return The smallest index key, null if the table is empty.
+     */
+    @Nullable
+    public <K extends Message, V extends Message, M extends Message, I extends Comparable<I>>
+    I getMinIndexKey(@Nonnull Table<K, V, M> table, @Nonnull final String indexName) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumGetByIndexes();
+        return table.getMinIndexKey(indexName);
+    }
+
+    /**
+     * Get the largest index key of an ordered secondary index.
+     *
+     * @param table     Table object.
+     * @param indexName Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param <I>       Type of index/secondary key.
+     * @return The largest index key, null if the table is empty.
+     */
+    @Nullable
+    public <K extends Message, V extends Message, M extends Message, I extends Comparable<I>>
+    I getMaxIndexKey(@Nonnull Table<K, V, M> table, @Nonnull final String indexName) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumGetByIndexes();
+        return table.getMaxIndexKey(indexName);
+    }
+
     /**
      * Gets the count of records in the table at a particular timestamp.
      *
@@ -432,6 +532,57 @@ public class TxnContext implements AutoCloseable {
         return this.count(this.getTable(tableName));
     }
 
+    /**
+     * Gets the value of an aggregate of the table, maintained as the table is updated
+     * (see {@link TableOptions#getAggregateRegistry()}).
+     *
+     * @param table         - the table whose aggregate is requested.
+     * @param aggregateName - name of the aggregate.
+     * @return Value of the aggregate over all the records of the table.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    Aggregate.Value getAggregate(@Nonnull final Table<K, V, M> table,
+                                 @Nonnull final String aggregateName) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumCounts();
+        return table.getAggregate(aggregateName);
+    }
+
+    /**
+     * Gets the value of a group of a grouped aggregate of the table.
+     *
+     * @param table         - the table whose aggregate is requested.
+     * @param aggregateName - name of the grouped aggregate.
+     * @param groupKey      - key of the group.
+     * @return Value of the aggregate over the records of the group.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    Aggregate.Value getAggregate(@Nonnull final Table<K, V, M> table,
+                                 @Nonnull final String aggregateName,
+                                 @Nullable final Comparable<?> groupKey) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumCounts();
+        return table.getAggregate(aggregateName, groupKey);
+    }
+
+    /**
+     * Gets the values of all the groups of a grouped aggregate of the table.
+     *
+     * @param table         - the table whose aggregate is requested.
+     * @param aggregateName - name of the grouped aggregate.
+     * @return Values of the aggregate by group key.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    Map<Comparable<?>, Aggregate.Value> getAggregateGroups(@Nonnull final Table<K, V, M> table,
+                                                           @Nonnull final String aggregateName) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumCounts();
+        return table.getAggregateGroups(aggregateName);
+    }
+
     /**
      * Gets all the keys of a table.
      *
@@ -484,6 +635,64 @@ public class TxnContext implements AutoCloseable {
         return this.executeQuery(this.getTable(tableName), entryPredicate);
     }
 
+    /**
+     * Scan and filter a page of entries, and return the token to resume the scan after it.
+     * A scan is resumed in a transaction at the snapshot of its resume token, i.e. with the
+     * isolation level IsolationLevel.snapshot(resumeToken.getTimestamp()).
+     *
+     * @param table          Table< K, V, M > object on which the scan must be done.
+     * @param entryPredicate Predicate to filter the entries.
+     * @param pageSize       Max number of entries of the page.
+     * @param resumeToken    Token returned with the previous page in this JVM, see
+     *                       {@link ScanToken}, null for the first page.
+     * @return Page of filtered entries.
+     */
+    public <K extends Message, V extends Message, M extends Message>
+    ScanPage<CorfuStoreEntry<K, V, M>> executeQuery(@Nonnull final Table<K, V, M> table,
+                                                    @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> entryPredicate,
+                                                    int pageSize,
+                                                    @Nullable final ScanToken resumeToken) {
+        applyWritesForReadOnTable(table);
+        table.getMetrics().incNumScans();
+        return table.scanAndFilterByEntry(entryPredicate, pageSize, resumeToken);
+    }
+
+    /**
+     * Query a table by a structured predicate. The query is answered through the secondary
+     * indexes of the table when this is cheaper than a scan (see {@link QueryPlanner}).
+     *
+     * @param table     Table< K, V, M > object to query.
+     * @param predicate Predicate over the fields of the values.
+     * @return Collection of matching entries.
+     */
+    public <K extends Message, V extends Message, M extends Message>
+    List<CorfuStoreEntry<K, V, M>> executeQuery(@Nonnull final Table<K, V, M> table,
+                                                @Nonnull final QueryPredicate predicate) {
+        applyWritesForReadOnTable(table);
+        QueryPlan plan = QueryPlanner.plan(table, predicate);
+        if (plan.isScan()) {
+            table.getMetrics().incNumScans();
+        } else {
+            table.getMetrics().incNumGetByIndexes();
+        }
+        return plan.execute(table);
+    }
+
+    /**
+     * Explain how a query by a structured predicate would be answered, without executing it.
+     *
+     * @param table     Table< K, V, M > object to query.
+     * @param predicate Predicate over the fields of the values.
+     * @return Plan of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    QueryPlan explainQuery(@Nonnull final Table<K, V, M> table,
+                           @Nonnull final QueryPredicate predicate) {
+        applyWritesForReadOnTable(table);
+        return QueryPlanner.plan(table, predicate);
+    }
+
     /**
      * Execute a join of 2 tables.
      *
@@ -561,6 +770,99 @@ public class TxnContext implements AutoCloseable {
                 queryOptions2, joinPredicate, joinFunction, joinProjection);
     }
 
+    /**
+     * Execute an equi-join of 2 tables, as a hash join or as an index lookup join.
+     *
+     * @param table1         First table object.
+     * @param table2         Second table to join with the first one.
+     * @param query1         Predicate to filter entries in table 1.
+     * @param query2         Predicate to filter entries in table 2.
+     * @param queryOptions1  Query options to transform table 1 filtered values.
+     * @param queryOptions2  Query options to transform table 2 filtered values.
+     * @param joinKey1       Join key of the values of table 1.
+     * @param joinKey2       Join key of the values of table 2.
+     * @param indexName2     Secondary index of table 2 on the join key, null if none.
+     * @param joinFunction   Function to merge entries.
+     * @param joinProjection Project the merged entries.
+     * @param <R>            Type of projected values from table 1.
+     * @param <S>            Type of projected values from table 2.
+     * @param <T>            Type of resultant value after merging type R and type S.
+     * @param <U>            Type of value projected from T.
+     * @return Result of query.
+     * @see Query#executeJoinQuery(Table, Table, Predicate, Predicate, QueryOptions, QueryOptions,
+     *      Function, Function, String, BiFunction, Function, Consumer)
+     */
+    @Nonnull
+    public <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message,
+            R, S, T, U>
+    QueryResult<U> executeJoinQuery(
+            @Nonnull final Table<K1, V1, M1> table1,
+            @Nonnull final Table<K2, V2, M2> table2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final QueryOptions<K1, V1, M1, R> queryOptions1,
+            @Nonnull final QueryOptions<K2, V2, M2, S> queryOptions2,
+            @Nonnull final Function<R, ?> joinKey1,
+            @Nonnull final Function<S, ?> joinKey2,
+            @Nullable final String indexName2,
+            @Nonnull final BiFunction<R, S, T> joinFunction,
+            final Function<T, U> joinProjection) {
+        List<U> joinResult = new ArrayList<>();
+        executeJoinQuery(table1, table2, query1, query2, queryOptions1, queryOptions2,
+                joinKey1, joinKey2, indexName2, joinFunction, joinProjection, joinResult::add);
+        return new QueryResult<>(joinResult);
+    }
+
+    /**
+     * Execute an equi-join of 2 tables, as a hash join or as an index lookup join, and pass
+     * each joined value to a consumer as soon as it is produced.
+     *
+     * @param table1         First table object.
+     * @param table2         Second table to join with the first one.
+     * @param query1         Predicate to filter entries in table 1.
+     * @param query2         Predicate to filter entries in table 2.
+     * @param queryOptions1  Query options to transform table 1 filtered values.
+     * @param queryOptions2  Query options to transform table 2 filtered values.
+     * @param joinKey1       Join key of the values of table 1.
+     * @param joinKey2       Join key of the values of table 2.
+     * @param indexName2     Secondary index of table 2 on the join key, null if none.
+     * @param joinFunction   Function to merge entries.
+     * @param joinProjection Project the merged entries.
+     * @param resultConsumer Consumer of the projected merged entries.
+     * @param <R>            Type of projected values from table 1.
+     * @param <S>            Type of projected values from table 2.
+     * @param <T>            Type of resultant value after merging type R and type S.
+     * @param <U>            Type of value projected from T.
+     * @see Query#executeJoinQuery(Table, Table, Predicate, Predicate, QueryOptions, QueryOptions,
+     *      Function, Function, String, BiFunction, Function, Consumer)
+     */
+    public <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message,
+            R, S, T, U>
+    void executeJoinQuery(
+            @Nonnull final Table<K1, V1, M1> table1,
+            @Nonnull final Table<K2, V2, M2> table2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final QueryOptions<K1, V1, M1, R> queryOptions1,
+            @Nonnull final QueryOptions<K2, V2, M2, S> queryOptions2,
+            @Nonnull final Function<R, ?> joinKey1,
+            @Nonnull final Function<S, ?> joinKey2,
+            @Nullable final String indexName2,
+            @Nonnull final BiFunction<R, S, T> joinFunction,
+            final Function<T, U> joinProjection,
+            @Nonnull final Consumer<U> resultConsumer) {
+        applyWritesForReadOnTable(table1);
+        table1.getMetrics().incNumJoins();
+        applyWritesForReadOnTable(table2);
+        table2.getMetrics().incNumJoins();
+        Query.executeJoinQuery(table1, table2, query1, query2, queryOptions1, queryOptions2,
+                joinKey1, joinKey2, indexName2, joinFunction, joinProjection, resultConsumer);
+    }
+
     /**
      * Test if a record exists in a table.
      *
@@ -636,6 +938,9 @@ public class TxnContext implements AutoCloseable {
                 .type(TransactionType.WRITE_AFTER_WRITE);
         if (isolationLevel.getTimestamp() != Token.UNINITIALIZED) {
             transactionBuilder.snapshot(isolationLevel.getTimestamp());
+        } else if (isolationLevel.getMaxStaleness() != null) {
+            this.objectsView.getRecentSnapshot(isolationLevel.getMaxStaleness())
+                    .ifPresent(transactionBuilder::snapshot);
         }
         transactionBuilder.build().begin();
     }
@@ -0,0 +1,154 @@
+package org.corfudb.runtime.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An in-memory {@link StreamingMap} backed by an immutable (persistent) hash map, which is
+ * replaced on every update.
+ *
+ * <p>Since every version of the map shares most of its structure with the previous one,
+ * taking a snapshot of the map is O(1), and a snapshot never changes. This lets the
+ * VersionLockedObject keep several versions of a {@link CorfuTable} around, and serve
+ * reads at these versions without rolling the table back. Updates are somewhat more
+ * expensive than with a {@link StreamingMapDecorator} over a {@link java.util.HashMap},
+ * since they copy the path from the root of the map to the updated entry.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class VersionedStreamingMap<K, V> extends AbstractMap<K, V>
+        implements ContextAwareMap<K, V> {
+
+    private PersistentHashMap<K, V> map;
+
+    // Snapshots are read-only
+    private final boolean readOnly;
+
+    public VersionedStreamingMap() {
+        this(PersistentHashMap.empty(), false);
+    }
+
+    private VersionedStreamingMap(PersistentHashMap<K, V> map, boolean readOnly) {
+        this.map = map;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ContextAwareMap<K, V> getSnapshot() {
+        return readOnly ? this : new VersionedStreamingMap<>(map, true);
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Cannot modify a snapshot of the map");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The stream is over the version of the map at the time of the call,
+     * so it doesn't need to copy the entries.
+     */
+    @Override
+    public Stream<Entry<K, V>> entryStream() {
+        return StreamSupport.stream(Spliterators.spliterator(map.iterator(), map.size(),
+                Spliterator.DISTINCT | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return map.getEntry(key) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(Object key) {
+        Map.Entry<K, V> entry = map.getEntry(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(K key, V value) {
+        checkWritable();
+        PersistentHashMap.Change<K, V> previous = new PersistentHashMap.Change<>();
+        map = map.plus(key, value, previous);
+        return previous.entry == null ? null : previous.entry.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V remove(Object key) {
+        checkWritable();
+        PersistentHashMap.Change<K, V> previous = new PersistentHashMap.Change<>();
+        map = map.minus(key, previous);
+        return previous.entry == null ? null : previous.entry.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        checkWritable();
+        map = PersistentHashMap.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entry set is a read-only view of the current version of the map.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        final PersistentHashMap<K, V> current = map;
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return current.iterator();
+            }
+
+            @Override
+            public int size() {
+                return current.size();
+            }
+        };
+    }
+}
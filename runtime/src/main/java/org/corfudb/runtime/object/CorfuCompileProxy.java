@@ -33,6 +33,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.time.Duration;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -110,6 +111,35 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
     private final Timer timerUpcall;
     private final Counter counterTxnRetry1;
     private final Counter counterTxnRetryN;
+    private final Counter counterStaleReads;
+
+    /**
+     * A version the object is known to be up to date with, and when it was the tail.
+     */
+    private static class FreshVersion {
+        final long version;
+        final long observedAtNanos;
+
+        FreshVersion(long version, long observedAtNanos) {
+            this.version = version;
+            this.observedAtNanos = observedAtNanos;
+        }
+    }
+
+    /**
+     * How stale reads outside of transactions may be, in nanoseconds, or
+     * NO_STALENESS if these reads are linearizable.
+     */
+    private final long maxStalenessNanos;
+
+    private static final long NO_STALENESS = -1L;
+
+    private static final Object NOT_FRESH = new Object();
+
+    /**
+     * The latest version the object is known to be up to date with.
+     */
+    private final AtomicReference<FreshVersion> freshVersion = new AtomicReference<>();
 
     /**
      * Correctness Logging
@@ -130,6 +160,26 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
     public CorfuCompileProxy(CorfuRuntime rt, UUID streamID, Class<T> type, Object[] args,
                              ISerializer serializer, ICorfuSMR<T> wrapperObject
     ) {
+        this(rt, streamID, type, args, serializer, wrapperObject, null);
+    }
+
+    /**
+     * Creates a CorfuCompileProxy object on a particular stream, whose reads outside of
+     * transactions may be stale.
+     *
+     * @param rt                  Connected CorfuRuntime instance.
+     * @param streamID            StreamID of the log.
+     * @param type                Type of underlying object to instantiate a new instance.
+     * @param args                Arguments to create this proxy.
+     * @param serializer          Serializer used by the SMR entries to serialize the arguments.
+     * @param wrapperObject       The wrapper of the object.
+     * @param maxStaleness        How stale reads outside of transactions may be, or null if
+     *                            they must be linearizable.
+     */
+    @SuppressWarnings("checkstyle:abbreviation")
+    public CorfuCompileProxy(CorfuRuntime rt, UUID streamID, Class<T> type, Object[] args,
+                             ISerializer serializer, ICorfuSMR<T> wrapperObject,
+                             Duration maxStaleness) {
         this.rt = rt;
         this.streamID = streamID;
         this.type = type;
@@ -140,7 +190,7 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
         // because the VLO will control access to the stream
         underlyingObject = new VersionLockedObject<T>(this::getNewInstance,
                 new StreamViewSMRAdapter(rt, rt.getStreamsView().getUnsafe(streamID)),
-                wrapperObject);
+                wrapperObject, rt.getParameters().getObjectSnapshotCacheSize());
 
         final MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
         timerAccess = metrics.timer(CorfuComponent.OBJECT + "access");
@@ -150,6 +200,8 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
         timerUpcall = metrics.timer(CorfuComponent.OBJECT + "upcall");
         counterTxnRetry1 = metrics.counter(CorfuComponent.OBJECT + "txn-first-retry");
         counterTxnRetryN = metrics.counter(CorfuComponent.OBJECT + "txn-extra-retries");
+        counterStaleReads = metrics.counter(CorfuComponent.OBJECT + "stale-reads");
+        maxStalenessNanos = maxStaleness == null ? NO_STALENESS : maxStaleness.toNanos();
     }
 
     /**
@@ -173,6 +225,7 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
         }
     }
 
+    @SuppressWarnings("unchecked")
     private <R> R accessInner(ICorfuSMRAccess<R, T> accessMethod,
                               Object[] conflictObject) {
         if (TransactionalContext.isInTransaction()) {
@@ -185,13 +238,21 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
             }
         }
 
+        if (maxStalenessNanos != NO_STALENESS) {
+            Object result = staleAccess(accessMethod);
+            if (result != NOT_FRESH) {
+                return (R) result;
+            }
+        }
+
         // Linearize this read against a timestamp
+        final long queriedAt = System.nanoTime();
         AtomicLong timestamp = new AtomicLong(rt.getSequencerView().query(getStreamID()));
 
         log.debug("Access[{}] conflictObj={} version={}", this, conflictObject, timestamp);
 
         // Perform underlying access
-        return underlyingObject.access(o -> o.getVersionUnsafe() >= timestamp.get()
+        R result = underlyingObject.access(o -> o.getVersionUnsafe() >= timestamp.get()
                         && !o.isOptimisticallyModifiedUnsafe(),
                 o -> {
                     for (int x = 0; x < rt.getParameters().getTrimRetry(); x++) {
@@ -214,6 +275,79 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
                     }
                 },
                 o -> accessMethod.access(o));
+        if (maxStalenessNanos != NO_STALENESS) {
+            markFresh(timestamp.get(), queriedAt);
+        }
+        return result;
+    }
+
+    /**
+     * Access the object at a version which was its tail within the staleness bound, without
+     * querying the sequencer. The object is usually up to date thanks to the ObjectTailer,
+     * so the access takes the optimistic read path.
+     *
+     * @return the result of the access, or NOT_FRESH if there is no fresh enough version,
+     *         in which case the caller should do a linearizable access
+     */
+    private <R> Object staleAccess(ICorfuSMRAccess<R, T> accessMethod) {
+        final FreshVersion fresh = freshVersion.get();
+        if (fresh == null || System.nanoTime() - fresh.observedAtNanos > maxStalenessNanos) {
+            return NOT_FRESH;
+        }
+
+        try {
+            R result = underlyingObject.access(o -> o.getVersionUnsafe() >= fresh.version
+                            && !o.isOptimisticallyModifiedUnsafe(),
+                    o -> o.syncObjectUnsafe(Long.max(fresh.version, o.getVersionUnsafe())),
+                    o -> accessMethod.access(o));
+            MetricsUtils.incConditionalCounter(counterStaleReads, 1);
+            return result;
+        } catch (TrimmedException te) {
+            log.info("staleAccess[{}]: trimmed at version {}, falling back to a linearizable read",
+                    this, fresh.version);
+            underlyingObject.update(o -> {
+                o.resetUnsafe();
+                return null;
+            });
+            freshVersion.set(null);
+            return NOT_FRESH;
+        }
+    }
+
+    /**
+     * Record that the object was up to date with a version, which was the tail of the
+     * log (or of the stream) at the given time.
+     */
+    private void markFresh(long version, long observedAtNanos) {
+        freshVersion.accumulateAndGet(new FreshVersion(version, observedAtNanos),
+                (current, update) -> current == null
+                        || update.observedAtNanos > current.observedAtNanos ? update : current);
+    }
+
+    /**
+     * Sync the object up to a global tail queried at the given time, if it is behind it.
+     * Used by the {@link org.corfudb.runtime.ObjectTailer} to keep objects with a staleness
+     * bound fresh, off the read path.
+     *
+     * @param tail            the global tail
+     * @param observedAtNanos when the tail was queried
+     */
+    public void syncToTail(long tail, long observedAtNanos) {
+        if (underlyingObject.getVersionUnsafe() < tail) {
+            underlyingObject.update(o -> {
+                if (o.getVersionUnsafe() < tail) {
+                    try {
+                        o.syncObjectUnsafe(tail);
+                    } catch (TrimmedException te) {
+                        // Reset the object, so that the next access rebuilds it
+                        o.resetUnsafe();
+                        throw te;
+                    }
+                }
+                return null;
+            });
+        }
+        markFresh(tail, observedAtNanos);
     }
 
     /**
@@ -234,7 +368,7 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
         if (TransactionalContext.isInTransaction()) {
             try {
                 // We generate an entry to avoid exposing the serializer to the tx context.
-                SMREntry entry = new SMREntry(smrUpdateFunction, args, serializer);
+                SMREntry entry = newSMREntry(smrUpdateFunction, args);
                 return TransactionalContext.getCurrentContext()
                         .logUpdate(this, entry, conflictObject);
             } catch (Exception e) {
@@ -245,7 +379,7 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
 
         // If we aren't in a transaction, we can just write the modification.
         // We need to add the acquired token into the pending upcall list.
-        SMREntry smrEntry = new SMREntry(smrUpdateFunction, args, serializer);
+        SMREntry smrEntry = newSMREntry(smrUpdateFunction, args);
         long address = underlyingObject.logUpdate(smrEntry, keepUpcallResult);
         log.trace("Update[{}] {}@{} ({}) conflictObj={}",
                 this, smrUpdateFunction, address, args, conflictObject);
@@ -253,6 +387,16 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
         return address;
     }
 
+    /**
+     * Create the entry of an update, which refers to its method by ID if the object has
+     * a dictionary of its methods, see {@link SMRMethodDictionary}.
+     */
+    private SMREntry newSMREntry(String smrUpdateFunction, Object[] args) {
+        final int methodId = rt.getParameters().isSmrMethodIds()
+                ? underlyingObject.getMethodId(smrUpdateFunction) : SMREntry.NO_METHOD_ID;
+        return new SMREntry(smrUpdateFunction, methodId, args, serializer);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1,5 +1,6 @@
 package org.corfudb.runtime.object;
 
+import java.time.Duration;
 import java.util.UUID;
 
 import org.corfudb.runtime.CorfuRuntime;
@@ -34,6 +35,30 @@ public class CorfuCompileWrapperBuilder {
                                                          UUID streamID, Object[] args,
                                                          ISerializer serializer)
             throws Exception {
+        return getWrapper(type, rt, streamID, args, serializer, null);
+    }
+
+    /**
+     * Returns a wrapper for the underlying SMR Object, whose reads outside of transactions
+     * may be stale.
+     *
+     * @param type         Type of SMR object.
+     * @param rt           Connected instance of the CorfuRuntime.
+     * @param streamID     StreamID of the SMR Object.
+     * @param args         Arguments passed to instantiate the object.
+     * @param serializer   Serializer to be used to serialize the object arguments.
+     * @param maxStaleness How stale reads outside of transactions may be, or null if they
+     *                     must be linearizable.
+     * @param <T>          Type
+     * @return Returns the wrapper to the object.
+     * @throws Exception if the wrapper cannot be instantiated.
+     */
+    @SuppressWarnings("checkstyle:abbreviation")
+    public static <T extends ICorfuSMR<T>> T getWrapper(Class<T> type, CorfuRuntime rt,
+                                                         UUID streamID, Object[] args,
+                                                         ISerializer serializer,
+                                                         Duration maxStaleness)
+            throws Exception {
         // Do we have a compiled wrapper for this type?
         Class<ICorfuSMR<T>> wrapperClass = (Class<ICorfuSMR<T>>)
                 Class.forName(type.getName() + ICorfuSMR.CORFUSMR_SUFFIX);
@@ -44,14 +69,20 @@ public class CorfuCompileWrapperBuilder {
 
         // Now we create the proxy, which actually manages
         // instances of this object. The wrapper delegates calls to the proxy.
-        wrapperObject.setCorfuSMRProxy(new CorfuCompileProxy<T>(rt, streamID,
-                type, args, serializer, wrapperObject));
+        CorfuCompileProxy<T> proxy = new CorfuCompileProxy<>(rt, streamID,
+                type, args, serializer, wrapperObject, maxStaleness);
+        wrapperObject.setCorfuSMRProxy(proxy);
 
         if (wrapperObject instanceof ICorfuSMRProxyWrapper) {
             ((ICorfuSMRProxyWrapper) wrapperObject)
                     .setProxy$CORFUSMR(wrapperObject.getCorfuSMRProxy());
         }
 
+        // Objects with stale reads are kept up to date in the background
+        if (maxStaleness != null || rt.getParameters().isBackgroundObjectSync()) {
+            rt.getObjectTailer().register(proxy);
+        }
+
         return (T) wrapperObject;
     }
 
@@ -60,6 +91,7 @@ public class CorfuCompileWrapperBuilder {
                 smrObject.getRuntime(),
                 smrObject.getStreamID(),
                 smrObject.getArguments(),
-                smrObject.getSerializer());
+                smrObject.getSerializer(),
+                smrObject.getMaxStaleness());
     }
 }
@@ -36,6 +36,14 @@ public interface ISMRStream {
 
     void seek(long globalAddress);
 
+    /**
+     * Resume the stream after the address a snapshot of the object was taken at.
+     *
+     * @param globalAddress the address the snapshot was taken at
+     * @see org.corfudb.runtime.view.stream.IStreamView#resumeFromSnapshot(long)
+     */
+    void resumeFromSnapshot(long globalAddress);
+
     void gc(long trimMark);
 
     Stream<SMREntry> stream();
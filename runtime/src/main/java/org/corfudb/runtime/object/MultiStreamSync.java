@@ -0,0 +1,232 @@
+package org.corfudb.runtime.object;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.logprotocol.CheckpointEntry.CheckpointEntryType;
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.StreamAddressRange;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.protocols.wireprotocol.TokenResponse;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.ReadOptions;
+import org.corfudb.runtime.view.SequencerView.PrefetchedStreams;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.corfudb.util.CorfuComponent;
+import org.corfudb.util.MetricsUtils;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Syncs many objects at once, reading every log entry they need a single time.
+ *
+ * <p>Syncing objects one by one makes the stream view of each object query the sequencer
+ * for the tail and the address map of its stream (and of its checkpoint stream, when the
+ * object is first synced), and read the entries of its stream. An entry which updates
+ * several of the objects, i.e. a transaction, is then read once per object.
+ *
+ * <p>This class instead queries the tails of all the streams in one request, and the address
+ * maps of the streams which are behind in one STREAMS_ADDRESS_REQUEST. It reads the union
+ * of these addresses in bulk into the address space cache, and then syncs the objects up to
+ * the global tail. The stream views of the objects get their tails and address maps from
+ * these requests, and find their entries in the cache. Since the cache keeps deserialized
+ * entries, the updates of a MultiObjectSMREntry are decoded once per stream, and handed to
+ * each of the objects of these streams.
+ */
+@Slf4j
+public class MultiStreamSync {
+
+    // Fetching the updates of the objects is an optimization, trims are handled by the objects
+    private static final ReadOptions PREFETCH_OPTIONS = ReadOptions.builder()
+            .ignoreTrim(true)
+            .build();
+
+    private final CorfuRuntime runtime;
+
+    // Time to sync a set of objects, and number of entries read for them
+    private final Timer syncTimer;
+    private final Histogram prefetchedEntries;
+
+    public MultiStreamSync(CorfuRuntime runtime) {
+        this.runtime = runtime;
+        MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        syncTimer = metrics.timer(CorfuComponent.OBJECT + "multi-stream-sync");
+        prefetchedEntries = metrics.histogram(CorfuComponent.OBJECT + "multi-stream-sync.entries");
+    }
+
+    /**
+     * Sync objects up to the current global tail.
+     *
+     * @param proxies the proxies of the objects to sync
+     * @return the global tail the objects were synced to
+     */
+    public Token sync(Collection<CorfuCompileProxy<?>> proxies) {
+        final long queriedAt = System.nanoTime();
+        final TokenResponse tails = queryTails(proxies);
+        sync(proxies, tails, queriedAt);
+        return tails.getToken();
+    }
+
+    /**
+     * Query the global tail and the tails of the streams of objects, in a single request.
+     * The tails of the checkpoint streams of the objects which were never synced are
+     * queried as well.
+     *
+     * @param proxies the proxies of the objects
+     * @return the global tail and the tail of each stream
+     */
+    public TokenResponse queryTails(Collection<CorfuCompileProxy<?>> proxies) {
+        Set<UUID> streams = new LinkedHashSet<>();
+        for (CorfuCompileProxy<?> proxy : proxies) {
+            streams.add(proxy.getStreamID());
+            if (isNeverSynced(proxy)) {
+                streams.add(CorfuRuntime.getCheckpointStreamIdFromId(proxy.getStreamID()));
+            }
+        }
+        return runtime.getSequencerView().query(streams.toArray(new UUID[0]));
+    }
+
+    /**
+     * Sync objects up to a global tail. The objects which have no update since their last
+     * sync are just marked fresh.
+     *
+     * @param proxies   the proxies of the objects to sync
+     * @param tails     the global tail and the tails of the streams, see {@link #queryTails}
+     * @param queriedAt when the tails were queried
+     * @throws RuntimeException the failure to sync the first object which couldn't be
+     *                          synced, the other objects are synced nonetheless
+     */
+    public void sync(Collection<CorfuCompileProxy<?>> proxies, TokenResponse tails, long queriedAt) {
+        try (Timer.Context context = MetricsUtils.getConditionalContext(syncTimer)) {
+            final Token tail = tails.getToken();
+
+            List<CorfuCompileProxy<?>> behind = new ArrayList<>();
+            for (CorfuCompileProxy<?> proxy : proxies) {
+                final long streamTail = tails.getStreamTail(proxy.getStreamID());
+                if (proxy.getUnderlyingObject().getVersionUnsafe() >= streamTail) {
+                    // No update since the last sync
+                    proxy.syncToTail(streamTail, queriedAt);
+                } else {
+                    behind.add(proxy);
+                }
+            }
+            if (behind.isEmpty()) {
+                return;
+            }
+
+            final PrefetchedStreams prefetched = prefetch(behind, tails);
+            final List<RuntimeException> failures = new ArrayList<>();
+            runtime.getSequencerView().runWithPrefetchedStreams(prefetched, () -> {
+                for (CorfuCompileProxy<?> proxy : behind) {
+                    try {
+                        proxy.syncToTail(tail.getSequence(), queriedAt);
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                    }
+                }
+            });
+            log.debug("sync: synced {} of {} object(s) to {}, {} failed", behind.size(),
+                    proxies.size(), tail, failures.size());
+
+            if (!failures.isEmpty()) {
+                RuntimeException failure = failures.get(0);
+                failures.subList(1, failures.size()).forEach(failure::addSuppressed);
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Fetch the address maps of the streams of objects which are behind their stream in one
+     * request, and read their updates with bulk reads, so that syncing the objects finds them
+     * in the address space cache. Objects which were never synced fetch the address maps of
+     * their checkpoint stream too, and the last entry of their checkpoint stream, i.e. the END
+     * record of their latest checkpoint. Only the updates after the snapshot of that checkpoint
+     * are read, as the objects load the checkpoint instead of the updates it covers. If the
+     * last checkpoint entry isn't an END record (e.g. a checkpoint is in progress), the
+     * updates of the object aren't read here. The other checkpoint entries aren't read here,
+     * the objects read their latest checkpoint themselves.
+     *
+     * <p>Best effort: the objects fetch whatever could not be fetched here.
+     *
+     * @param behind the proxies of the objects which are behind their stream
+     * @param tails  the tails of the streams of these objects
+     * @return the tails and the address maps fetched for these streams
+     */
+    private PrefetchedStreams prefetch(Collection<CorfuCompileProxy<?>> behind, TokenResponse tails) {
+        final Map<UUID, Long> streamTails = new HashMap<>();
+        final Map<UUID, StreamAddressRange> ranges = new HashMap<>();
+        final Set<UUID> checkpointStreams = new LinkedHashSet<>();
+        // The tails of the checkpoint streams of the objects which were never synced, by stream
+        final Map<UUID, Long> checkpointTails = new HashMap<>();
+        for (CorfuCompileProxy<?> proxy : behind) {
+            final UUID streamId = proxy.getStreamID();
+            final long version = proxy.getUnderlyingObject().getVersionUnsafe();
+            streamTails.put(streamId, tails.getStreamTail(streamId));
+            ranges.put(streamId, new StreamAddressRange(streamId, tails.getStreamTail(streamId),
+                    Address.isAddress(version) ? version : Address.NON_ADDRESS));
+
+            final UUID checkpointId = CorfuRuntime.getCheckpointStreamIdFromId(streamId);
+            final Long checkpointTail = tails.getStreamTail(checkpointId);
+            if (isNeverSynced(proxy) && checkpointTail != null) {
+                checkpointStreams.add(checkpointId);
+                streamTails.put(checkpointId, checkpointTail);
+                if (Address.isAddress(checkpointTail)) {
+                    ranges.put(checkpointId, new StreamAddressRange(checkpointId, checkpointTail,
+                            Address.NEVER_READ));
+                    checkpointTails.put(streamId, checkpointTail);
+                }
+            }
+        }
+
+        Map<UUID, StreamAddressSpace> addressSpaces = Collections.emptyMap();
+        try {
+            addressSpaces = runtime.getSequencerView()
+                    .getStreamsAddressSpace(new ArrayList<>(ranges.values()));
+
+            final Map<Long, ILogData> checkpointEnds = runtime.getAddressSpaceView()
+                    .read(checkpointTails.values(), PREFETCH_OPTIONS);
+
+            Roaring64NavigableMap addresses = new Roaring64NavigableMap();
+            addressSpaces.forEach((streamId, addressSpace) -> {
+                if (checkpointStreams.contains(streamId)) {
+                    return;
+                }
+                final Long checkpointTail = checkpointTails.get(streamId);
+                if (checkpointTail == null) {
+                    addresses.or(addressSpace.getAddressMap());
+                    return;
+                }
+                final ILogData checkpointEnd = checkpointEnds.get(checkpointTail);
+                if (checkpointEnd != null && checkpointEnd.hasCheckpointMetadata()
+                        && checkpointEnd.getCheckpointType() == CheckpointEntryType.END) {
+                    addresses.or(addressSpace.getAddressesInRange(new StreamAddressRange(
+                            streamId, streamTails.get(streamId),
+                            checkpointEnd.getCheckpointedStreamStartLogAddress())));
+                }
+            });
+            List<Long> toRead = new ArrayList<>();
+            addresses.forEach(toRead::add);
+            MetricsUtils.updateConditionalHistogram(prefetchedEntries, toRead.size());
+            runtime.getAddressSpaceView().read(toRead, PREFETCH_OPTIONS);
+        } catch (RuntimeException e) {
+            log.debug("prefetch: failed to read updates of {} object(s)", behind.size(), e);
+        }
+        return new PrefetchedStreams(streamTails, ranges, addressSpaces);
+    }
+
+    private static boolean isNeverSynced(CorfuCompileProxy<?> proxy) {
+        return !Address.isAddress(proxy.getUnderlyingObject().getVersionUnsafe());
+    }
+}
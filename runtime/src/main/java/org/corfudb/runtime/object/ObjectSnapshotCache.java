@@ -0,0 +1,96 @@
+package org.corfudb.runtime.object;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * A bounded set of immutable snapshots of an object, each of them valid over a
+ * range of versions.
+ *
+ * <p>A snapshot taken when the object is at version v, and whose last update was
+ * applied at version u, is the state of the object at every version in [u, v]. Readers
+ * look up the snapshot of a version without locking, while snapshots are added (under the
+ * write lock of the VersionLockedObject) when the object is synced to a new version.
+ *
+ * @param <T> The type of the underlying object.
+ */
+class ObjectSnapshotCache<T> {
+
+    /**
+     * A snapshot of the object, and the last version at which it is known to be valid.
+     */
+    private static class Snapshot<T> {
+        final T object;
+        volatile long lastVersion;
+
+        Snapshot(T object, long lastVersion) {
+            this.object = object;
+            this.lastVersion = lastVersion;
+        }
+    }
+
+    private final int maxSnapshots;
+
+    // Snapshots indexed by the first version at which they are valid
+    private final ConcurrentSkipListMap<Long, Snapshot<T>> snapshots = new ConcurrentSkipListMap<>();
+
+    ObjectSnapshotCache(int maxSnapshots) {
+        this.maxSnapshots = maxSnapshots;
+    }
+
+    boolean isEnabled() {
+        return maxSnapshots > 0;
+    }
+
+    /**
+     * Returns the snapshot of the object at a version.
+     *
+     * @param version version of the object
+     * @return the snapshot of the object at this version, or null if none is retained
+     */
+    T get(long version) {
+        Map.Entry<Long, Snapshot<T>> entry = snapshots.floorEntry(version);
+        if (entry == null || entry.getValue().lastVersion < version) {
+            return null;
+        }
+        return entry.getValue().object;
+    }
+
+    /**
+     * Records that the state of the object is valid between two versions, taking a snapshot
+     * of the object if there is none of this state yet. The oldest snapshot is evicted when
+     * there are more than maxSnapshots snapshots.
+     *
+     * <p>Unsafe, requires that the caller has acquired the write lock of the object.
+     *
+     * @param firstVersion version of the last update applied to the object
+     * @param lastVersion  current version of the object
+     * @param snapshotFn   function which takes a snapshot of the object, returning null
+     *                     if it doesn't support snapshots
+     */
+    void putUnsafe(long firstVersion, long lastVersion, Supplier<T> snapshotFn) {
+        Snapshot<T> snapshot = snapshots.get(firstVersion);
+        if (snapshot != null) {
+            // Same state, at a later version.
+            if (lastVersion > snapshot.lastVersion) {
+                snapshot.lastVersion = lastVersion;
+            }
+            return;
+        }
+
+        T object = snapshotFn.get();
+        if (object == null) {
+            return;
+        }
+
+        snapshots.put(firstVersion, new Snapshot<>(object, lastVersion));
+        while (snapshots.size() > maxSnapshots) {
+            snapshots.pollFirstEntry();
+        }
+    }
+
+    int size() {
+        return snapshots.size();
+    }
+}
@@ -0,0 +1,111 @@
+package org.corfudb.runtime.object;
+
+import org.corfudb.protocols.logprotocol.SMREntry;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SMR methods of an object, by their compact ID (see {@link ICorfuSMR#getSMRMethodId}).
+ *
+ * <p>SMR entries can refer to their method by its ID, which saves the bytes of the name in
+ * the log, and the allocation of a new name for each entry read. Since IDs are only unique
+ * for the methods of an object, the ID of an entry is resolved by the object the entry is
+ * applied to. Resolving an ID returns the name held by the dictionary, so that all the
+ * entries of a method share the same string, and looking up their upcall doesn't hash or
+ * compare their name again.
+ *
+ * <p>An ID is never resolved among the methods of other objects: the methods of two classes
+ * can have the same ID, and a class whose objects were never opened by this process would
+ * silently resolve to the method of another class. The entries read outside of an object
+ * (e.g. by stream listeners) are resolved by the dictionary of the class they update, see
+ * {@link #forClass(Class)}.
+ */
+public class SMRMethodDictionary {
+
+    // Dictionary of each class of objects
+    private static final Map<Class<?>, SMRMethodDictionary> dictionaries =
+            new ConcurrentHashMap<>();
+
+    // Sorted method IDs, and the name of each method
+    private final int[] methodIds;
+    private final String[] methodNames;
+
+    /**
+     * Create the dictionary of the methods of an object.
+     *
+     * @param smrMethods the names of the methods, see {@link ICorfuSMR#getCorfuSMRMethodNames()}
+     * @throws IllegalArgumentException if two of the methods have the same ID
+     */
+    public SMRMethodDictionary(@Nonnull String[] smrMethods) {
+        String[] sorted = smrMethods.clone();
+        Arrays.sort(sorted, (a, b) ->
+                Integer.compare(ICorfuSMR.getSMRMethodId(a), ICorfuSMR.getSMRMethodId(b)));
+        methodIds = new int[sorted.length];
+        methodNames = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            methodIds[i] = ICorfuSMR.getSMRMethodId(sorted[i]);
+            methodNames[i] = sorted[i].intern();
+            if (i > 0 && methodIds[i] == methodIds[i - 1]) {
+                throw new IllegalArgumentException("SMR methods " + methodNames[i - 1]
+                        + " and " + methodNames[i] + " have the same method ID");
+            }
+        }
+    }
+
+    /**
+     * Get the dictionary of the methods of an object, which is shared by all the objects of
+     * its class.
+     *
+     * @param object the object, as generated by the annotation processor
+     * @return the dictionary of the methods of the object
+     */
+    public static SMRMethodDictionary forObject(@Nonnull ICorfuSMR<?> object) {
+        return dictionaries.computeIfAbsent(object.getClass(),
+                c -> new SMRMethodDictionary(object.getCorfuSMRMethodNames()));
+    }
+
+    /**
+     * Get the dictionary of the methods of a class of objects, whose objects were opened by
+     * this process.
+     *
+     * @param type the class of the objects, as generated by the annotation processor
+     * @return the dictionary of the methods of the class
+     * @throws IllegalStateException if no object of this class was opened
+     */
+    public static SMRMethodDictionary forClass(@Nonnull Class<?> type) {
+        final SMRMethodDictionary dictionary = dictionaries.get(type);
+        if (dictionary == null) {
+            throw new IllegalStateException("No SMR method dictionary for " + type.getName());
+        }
+        return dictionary;
+    }
+
+    /**
+     * Get the ID which SMR entries of a method can hold instead of its name.
+     *
+     * @param smrMethod the name of the method
+     * @return the ID of the method, or {@link SMREntry#NO_METHOD_ID} if it isn't in the
+     *         dictionary
+     */
+    public int getMethodId(@Nonnull String smrMethod) {
+        final int methodId = ICorfuSMR.getSMRMethodId(smrMethod);
+        final String name = getMethodName(methodId);
+        return smrMethod.equals(name) ? methodId : SMREntry.NO_METHOD_ID;
+    }
+
+    /**
+     * Get the name of a method from its ID.
+     *
+     * @param methodId the ID of the method
+     * @return the name of the method, or null if no method of the dictionary has this ID
+     */
+    @Nullable
+    public String getMethodName(int methodId) {
+        final int index = Arrays.binarySearch(methodIds, methodId);
+        return index < 0 ? null : methodNames[index];
+    }
+}
@@ -140,6 +140,11 @@ public class StreamViewSMRAdapter implements ISMRStream {
         streamView.seek(globalAddress);
     }
 
+    @Override
+    public void resumeFromSnapshot(long globalAddress) {
+        streamView.resumeFromSnapshot(globalAddress);
+    }
+
     @Override
     public Stream<SMREntry> stream() {
         return streamUpTo(Address.MAX);
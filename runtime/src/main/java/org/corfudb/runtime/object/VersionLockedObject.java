@@ -19,6 +19,7 @@ import org.corfudb.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -113,6 +114,16 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
      */
     private final Set<String> resetSet;
 
+    /**
+     * The set of methods which overwrite a key of this object.
+     */
+    private final Set<String> overwriteSet;
+
+    /**
+     * The SMR methods of this object, which resolve the method IDs of the entries.
+     */
+    private final SMRMethodDictionary methodDictionary;
+
     /**
      * A function that generates a new instance of this object.
      */
@@ -126,6 +137,21 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
     private final String syncStreamTimer;
     private final String syncStreamCount;
 
+    /**
+     * Immutable snapshots of recent versions of the object, which serve reads
+     * at these versions without locking or rolling back the object.
+     */
+    private final ObjectSnapshotCache<T> snapshotCache;
+
+    /**
+     * The version at which the last update was applied to the object, i.e., the state of the
+     * object is the same at every version from this one to the current version, or
+     * UNKNOWN_VERSION if it isn't known.
+     */
+    private long lastUpdateVersion = Address.NEVER_READ;
+
+    private static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+
     /**
      * The VersionLockedObject maintains a versioned object which is backed by an ISMRStream,
      * and is optionally backed by an additional optimistic update stream.
@@ -136,12 +162,31 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
     public VersionLockedObject(Supplier<T> newObjectFn,
                                StreamViewSMRAdapter smrStream,
                                ICorfuSMR<T> wrapperObject) {
+        this(newObjectFn, smrStream, wrapperObject, 0);
+    }
+
+    /**
+     * The VersionLockedObject maintains a versioned object which is backed by an ISMRStream,
+     * and is optionally backed by an additional optimistic update stream.
+     *
+     * @param newObjectFn       A function passed to instantiate a new instance of this object.
+     * @param smrStream         Stream View backing this object.
+     * @param maxSnapshots      Max number of snapshots of the object to keep, if the object
+     *                          supports snapshots.
+     */
+    public VersionLockedObject(Supplier<T> newObjectFn,
+                               StreamViewSMRAdapter smrStream,
+                               ICorfuSMR<T> wrapperObject,
+                               int maxSnapshots) {
         this.smrStream = smrStream;
+        this.snapshotCache = new ObjectSnapshotCache<>(maxSnapshots);
 
         this.upcallTargetMap = wrapperObject.getCorfuSMRUpcallMap();
         this.undoRecordFunctionMap = wrapperObject.getCorfuUndoRecordMap();
         this.undoFunctionMap = wrapperObject.getCorfuUndoMap();
         this.resetSet = wrapperObject.getCorfuResetSet();
+        this.overwriteSet = wrapperObject.getCorfuOverwriteSet();
+        this.methodDictionary = SMRMethodDictionary.forObject(wrapperObject);
 
         wrapperObject.closeWrapper();
         this.newObjectFn = newObjectFn;
@@ -255,6 +300,7 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
                 return ret;
             }
             // If not, perform the update operations
+            MetricsUtils.incConditionalCounter(VloMetricsHelper.getInlineSyncCounter(), 1);
             updateFunction.accept(this);
             correctnessLogger.trace("Version, {}", getVersionUnsafe());
             log.trace("Access [{}] Updated (writelock) access at {}", this, getVersionUnsafe());
@@ -307,6 +353,8 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         try {
             log.trace("Rollback[{}] to {}", this, timestamp);
             rollbackStreamUnsafe(smrStream, timestamp);
+            // The updates after the current position of the stream have been undone.
+            lastUpdateVersion = Address.isAddress(smrStream.pos()) ? smrStream.pos() : UNKNOWN_VERSION;
             log.trace("Rollback[{}] completed", this);
         } catch (NoRollbackException nre) {
             log.warn("SyncObjectUnsafe[{}] to {} failed {}", this, timestamp, nre);
@@ -331,7 +379,48 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
     public void syncObjectUnsafe(long timestamp) {
         try (Timer.Context updateDuration = VloMetricsHelper.getVloSyncContext()) {
             syncObjectUnsafeInner(timestamp);
+            addSnapshotUnsafe(timestamp);
+        }
+    }
+
+    /**
+     * Keep a snapshot of the object at the given version, if the object is at this version
+     * without optimistic updates, and it supports snapshots.
+     *
+     * @param timestamp The version the object has been synced to.
+     */
+    private void addSnapshotUnsafe(long timestamp) {
+        if (!snapshotCache.isEnabled()
+                || object.getVersionPolicy() == ICorfuVersionPolicy.MONOTONIC
+                || isOptimisticallyModifiedUnsafe()
+                || !Address.isAddress(timestamp) || timestamp == Address.MAX
+                || getVersionUnsafe() != timestamp
+                || lastUpdateVersion == UNKNOWN_VERSION
+                || lastUpdateVersion > timestamp) {
+            return;
+        }
+        snapshotCache.putUnsafe(lastUpdateVersion, timestamp, object::getSnapshot);
+    }
+
+    /**
+     * Get a snapshot of the object at the given version, if one is kept. The snapshot is
+     * immutable, so it can be accessed without any lock.
+     *
+     * @param timestamp The version of the object.
+     * @return The snapshot of the object, or null if there is no snapshot at this version.
+     */
+    public T getSnapshot(long timestamp) {
+        if (!snapshotCache.isEnabled()) {
+            return null;
+        }
+
+        T snapshot = snapshotCache.get(timestamp);
+        if (snapshot == null) {
+            MetricsUtils.incConditionalCounter(VloMetricsHelper.getSnapshotMissCounter(), 1);
+            return null;
         }
+        MetricsUtils.incConditionalCounter(VloMetricsHelper.getSnapshotHitCounter(), 1);
+        return snapshot.getContext(ICorfuExecutionContext.DEFAULT);
     }
 
     /**
@@ -473,6 +562,32 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         object = newObjectFn.get();
         smrStream.reset();
         optimisticStream = null;
+        lastUpdateVersion = Address.NEVER_READ;
+    }
+
+    /**
+     * Restore this object from a snapshot of its state, taken at the given version by a
+     * previous instance of the object. The updates of the snapshot are applied to the
+     * uninitialized object, and its stream resumes after the snapshot, so that the next sync
+     * only applies the updates made since.
+     *
+     * <p>Unsafe, requires that the caller has acquired the write lock of the object.
+     *
+     * @param updates the updates which rebuild the state of the object
+     * @param version the version the snapshot was taken at
+     */
+    public void restoreUnsafe(Iterator<SMREntry> updates, long version) {
+        if (getVersionUnsafe() != Address.NEVER_READ || optimisticStream != null) {
+            throw new IllegalStateException("Cannot restore a snapshot of " + this
+                    + ", the object was already synced");
+        }
+        // Resume the stream first, so that a stream which cannot be resumed fails
+        // before the object is mutated.
+        smrStream.resumeFromSnapshot(version);
+        while (updates.hasNext()) {
+            applyUpdateUnsafe(updates.next(), version);
+        }
+        lastUpdateVersion = UNKNOWN_VERSION;
     }
 
     /**
@@ -519,16 +634,51 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         return ICorfuExecutionContext.DEFAULT;
     }
 
+    /**
+     * Get the ID which the entries of an SMR method of this object can refer to the
+     * method by.
+     *
+     * @param smrMethod the name of the SMR method
+     * @return the ID of the method, or {@link SMREntry#NO_METHOD_ID} if the object has no
+     *         dictionary of its methods
+     */
+    public int getMethodId(String smrMethod) {
+        return methodDictionary.getMethodId(smrMethod);
+    }
+
+    /**
+     * Whether the updates of an SMR method reset this object, so that the updates before them
+     * have no effect on its state.
+     *
+     * @param smrMethod the name of the SMR method
+     * @return true if the method resets the object
+     */
+    public boolean isResetMethod(String smrMethod) {
+        return resetSet.contains(smrMethod);
+    }
+
+    /**
+     * Whether the updates of an SMR method overwrite the key given as their first argument,
+     * so that the updates of this key before them have no effect on the state of this object.
+     *
+     * @param smrMethod the name of the SMR method
+     * @return true if the method overwrites a key of the object
+     */
+    public boolean isOverwriteMethod(String smrMethod) {
+        return overwriteSet.contains(smrMethod);
+    }
+
     /**
      * Given a SMR entry with an undo entry, undo the update.
      *
      * @param entry The entry to undo.
      */
     private void applyUndoRecordUnsafe(SMREntry entry, ISMRStream stream) {
-        log.trace("Undo[{}] of {}@{} ({})", this, entry.getSMRMethod(),
+        final String smrMethod = entry.resolveSMRMethod(methodDictionary);
+        log.trace("Undo[{}] of {}@{} ({})", this, smrMethod,
                 Address.isAddress(entry.getGlobalAddress()) ? entry.getGlobalAddress() : "OPT",
                 entry.getUndoRecord());
-        IUndoFunction<T> undoFunction = undoFunctionMap.get(entry.getSMRMethod());
+        IUndoFunction<T> undoFunction = undoFunctionMap.get(smrMethod);
         ICorfuExecutionContext.Context context = getContext(stream);
 
         // If the undo function exists, apply it.
@@ -537,7 +687,7 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
                     object.getContext(context),
                     entry.getUndoRecord(), entry.getSMRArguments());
             return;
-        } else if (resetSet.contains(entry.getSMRMethod())) {
+        } else if (resetSet.contains(smrMethod)) {
             // If this is a reset, undo by restoring the
             // previous state.
             object = (T) entry.getUndoRecord();
@@ -574,13 +724,18 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
      * @param entry The entry to apply.
      */
     private Object applyUpdateUnsafe(SMREntry entry, long timestamp) {
-        log.trace("Apply[{}] of {}@{} ({})", this, entry.getSMRMethod(),
+        // Entries read with the ID of their method get the name held by the dictionary,
+        // which the lookups below find without comparing the strings
+        final String smrMethod = entry.resolveSMRMethod(methodDictionary);
+        log.trace("Apply[{}] of {}@{} ({})", this, smrMethod,
                 Address.isAddress(entry.getGlobalAddress()) ? entry.getGlobalAddress() : "OPT",
                 entry.getSMRArguments());
 
-        ICorfuSMRUpcallTarget<T> target = upcallTargetMap.get(entry.getSMRMethod());
+        ICorfuSMRUpcallTarget<T> target = smrMethod == null ? null
+                : upcallTargetMap.get(smrMethod);
         if (target == null) {
-            throw new RuntimeException("Unknown upcall " + entry.getSMRMethod());
+            throw new RuntimeException("Unknown upcall "
+                    + (smrMethod == null ? "with ID " + entry.getMethodId() : smrMethod));
         }
 
         ICorfuExecutionContext.Context context = getContext(timestamp);
@@ -592,15 +747,14 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         // undo -- this is the case without snapshot isolation.
         if (!entry.isUndoable() || !Address.isAddress(entry.getGlobalAddress())) {
             // Can we generate an undo record?
-            IUndoRecordFunction<T> undoRecordTarget =
-                    undoRecordFunctionMap.get(entry.getSMRMethod());
+            IUndoRecordFunction<T> undoRecordTarget = undoRecordFunctionMap.get(smrMethod);
             // If there was no previously calculated undo entry
             if (undoRecordTarget != null) {
                 // Calculate the undo record.
                 entry.setUndoRecord(undoRecordTarget
                         .getUndoRecord(object.getContext(context), entry.getSMRArguments()));
                 log.trace("Apply[{}] Undo->{}", this, entry.getUndoRecord());
-            } else if (resetSet.contains(entry.getSMRMethod())) {
+            } else if (resetSet.contains(smrMethod)) {
                 // This entry actually resets the object. So here
                 // we can safely get a new instance, and add the
                 // previous instance to the undo log.
@@ -646,6 +800,8 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
                 }
             } else {
                 Optional<SMREntry> entry = entries.stream().findFirst();
+                // Entries read again from the log only have the ID of their method
+                entry.ifPresent(e -> e.resolveSMRMethod(methodDictionary));
                 if (log.isTraceEnabled()) {
                     log.trace("rollbackStreamUnsafe: one or more stream entries in address @{} are not undoable. " +
                                     "Undoable entries: {}/{}", stream.pos(),
@@ -686,6 +842,10 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
                     .forEachOrdered(entry -> {
                         try {
                             counter.count++;
+                            counter.maxAddress = counter.maxAddress == UNKNOWN_VERSION
+                                    || !Address.isAddress(entry.getGlobalAddress())
+                                    ? UNKNOWN_VERSION
+                                    : Math.max(counter.maxAddress, entry.getGlobalAddress());
                             Object res = applyUpdateUnsafe(entry, timestamp);
                             if (timestamp == Address.OPTIMISTIC) {
                                 entry.setUpcallResult(res);
@@ -705,6 +865,16 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         }
         if (timestamp != Address.OPTIMISTIC) {
             histogram.update(counter.count);
+            if (counter.count > 0) {
+                updateLastUpdateVersion(counter.maxAddress);
+            }
+        }
+    }
+
+    private void updateLastUpdateVersion(long address) {
+        if (lastUpdateVersion != UNKNOWN_VERSION) {
+            lastUpdateVersion = Address.isAddress(address)
+                    ? Math.max(lastUpdateVersion, address) : UNKNOWN_VERSION;
         }
     }
 
@@ -731,6 +901,7 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
      */
     public void applyUpdateToStreamUnsafe(SMREntry entry, long globalAddress) {
         applyUpdateUnsafe(entry, globalAddress);
+        updateLastUpdateVersion(globalAddress);
         seek(globalAddress + 1);
     }
 
@@ -746,6 +917,7 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
 
     private static class Counter {
         long count;
+        long maxAddress = Address.NEVER_READ;
     }
 
     /**
@@ -761,6 +933,25 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         private static final String VLO_UPDATE = CorfuComponent.OBJECT.toString() + "vlo.update";
         private static final String VLO_SYNC = CorfuComponent.OBJECT.toString() + "vlo.sync";
         private static final String VLO_GC = CorfuComponent.OBJECT.toString() + "vlo.gc";
+        // Accesses which had to update the object under the write lock
+        private static final String VLO_INLINE_SYNC = CorfuComponent.OBJECT.toString() +
+                "vlo.inline-sync";
+        private static final String VLO_SNAPSHOT_HIT = CorfuComponent.OBJECT.toString() +
+                "vlo.snapshot.hit";
+        private static final String VLO_SNAPSHOT_MISS = CorfuComponent.OBJECT.toString() +
+                "vlo.snapshot.miss";
+
+        private static com.codahale.metrics.Counter getInlineSyncCounter() {
+            return metrics.counter(VLO_INLINE_SYNC);
+        }
+
+        private static com.codahale.metrics.Counter getSnapshotHitCounter() {
+            return metrics.counter(VLO_SNAPSHOT_HIT);
+        }
+
+        private static com.codahale.metrics.Counter getSnapshotMissCounter() {
+            return metrics.counter(VLO_SNAPSHOT_MISS);
+        }
 
         private static Timer.Context getVloSyncContext() {
             return MetricsUtils.getConditionalContext(metrics.timer(VLO_SYNC));
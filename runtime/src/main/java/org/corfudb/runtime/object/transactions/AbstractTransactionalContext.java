@@ -363,11 +363,16 @@ public abstract class AbstractTransactionalContext implements
     }
 
     /**
-     * convert our write set into a new MultiObjectSMREntry.
+     * convert our write set into a new MultiObjectSMREntry, compacted if the transaction
+     * compacts its write set (see {@link WriteSetCompactor}).
      *
      * @return  the write set
      */
     MultiObjectSMREntry collectWriteSetEntries() {
+        if (transaction.isCompactWriteSet()) {
+            return WriteSetCompactor.compact(getWriteSetInfo().getWriteSet(),
+                    getWriteSetInfo().getProxies());
+        }
         return getWriteSetInfo().getWriteSet();
     }
 
@@ -85,6 +85,20 @@ public class OptimisticTransactionalContext extends AbstractTransactionalContext
         // updates.
         // Get snapshot timestamp in advance so it is not performed under the VLO lock
         long ts = getSnapshotTimestamp().getSequence();
+
+        // If this transaction has no updates on the object, and a snapshot of the object at
+        // the read position is kept, access it without locking. Updates of parent transactions
+        // aren't in the write set of this context, so nested transactions can't use snapshots.
+        if (!TransactionalContext.isInNestedTransaction()
+                && getWriteSetEntrySize(proxy.getStreamID()) == 0) {
+            long streamReadPosition = getKnownStreamPosition().getOrDefault(proxy.getStreamID(), ts);
+            T snapshot = proxy.getUnderlyingObject().getSnapshot(streamReadPosition);
+            if (snapshot != null) {
+                getKnownStreamPosition().put(proxy.getStreamID(), streamReadPosition);
+                return accessFunction.access(snapshot);
+            }
+        }
+
         return proxy
                 .getUnderlyingObject()
                 .access(o -> {
@@ -44,6 +44,13 @@ public class SnapshotTransactionalContext extends AbstractTransactionalContext {
         // In snapshot transactions, there are no conflicts.
         // Hence, we do not need to add this access to a conflict set
         // do not add: addToReadSet(proxy, conflictObject);
+
+        // If a snapshot of the object at this version is kept, access it without locking.
+        T snapshot = proxy.getUnderlyingObject().getSnapshot(getSnapshotTimestamp().getSequence());
+        if (snapshot != null) {
+            return accessFunction.access(snapshot);
+        }
+
         return proxy.getUnderlyingObject().access(o -> o.getVersionUnsafe()
                         == getSnapshotTimestamp().getSequence()
                         && !o.isOptimisticallyModifiedUnsafe(),
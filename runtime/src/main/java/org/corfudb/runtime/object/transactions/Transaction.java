@@ -40,6 +40,13 @@ public class Transaction {
     @Default
     final Token snapshot = Token.UNINITIALIZED;;
 
+    /**
+     * Whether the updates of the transaction are compacted before they are
+     * appended to the log, see {@link WriteSetCompactor}.
+     */
+    @Default
+    final boolean compactWriteSet = false;
+
     /**
      * Start the transaction with the parameters given
      * to the builder.
@@ -0,0 +1,108 @@
+package org.corfudb.runtime.object.transactions;
+
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.logprotocol.MultiObjectSMREntry;
+import org.corfudb.protocols.logprotocol.MultiSMREntry;
+import org.corfudb.protocols.logprotocol.SMREntry;
+import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
+import org.corfudb.runtime.object.VersionLockedObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Compacts the write set of a transaction before it is appended to the log, so that an object
+ * updated many times by a transaction (e.g. a key put several times, or put then removed) only
+ * gets the updates which determine its state once the transaction is applied.
+ *
+ * <p>The updates of each stream are compacted with the semantics of the methods of its object,
+ * as declared by their annotations:
+ * <ul>
+ *     <li>An update of a method which resets the object (e.g. clear()) drops all the updates
+ *     before it.</li>
+ *     <li>An update of a method which overwrites a key (e.g. put() and remove()) drops the
+ *     updates of the same key before it which overwrite the key as well.</li>
+ *     <li>Any other update may depend on the state of the object, so it keeps all the updates
+ *     before it.</li>
+ * </ul>
+ *
+ * <p>The write set itself is left as is, since the optimistic state of the objects is rolled
+ * back with its updates. The updates of a compacted object are logged as copies without their
+ * undo records, which were computed against the intermediate state of the transaction: once
+ * an update before them is dropped, they would roll the object back to a state which was
+ * never committed.
+ */
+@Slf4j
+public class WriteSetCompactor {
+
+    private WriteSetCompactor() {
+        // Prevent instantiation of this class
+    }
+
+    /**
+     * Compact a write set.
+     *
+     * @param writeSet the updates of the transaction
+     * @param proxies  the proxy of each updated object, the updates of the streams which have
+     *                 no proxy (i.e. written without an object) are kept as is
+     * @return the compacted updates
+     */
+    public static MultiObjectSMREntry compact(MultiObjectSMREntry writeSet,
+                                              Map<UUID, ICorfuSMRProxyInternal> proxies) {
+        MultiObjectSMREntry compacted = new MultiObjectSMREntry();
+        for (Map.Entry<UUID, MultiSMREntry> stream : writeSet.getEntryMap().entrySet()) {
+            final List<SMREntry> updates = stream.getValue().getUpdates();
+            final ICorfuSMRProxyInternal<?> proxy = proxies.get(stream.getKey());
+            final List<SMREntry> kept = proxy == null ? updates
+                    : compact(updates, proxy.getUnderlyingObject());
+            kept.forEach(update -> compacted.addTo(stream.getKey(), update));
+
+            log.trace("compact: kept {} of {} update(s) to {}", kept.size(), updates.size(),
+                    stream.getKey());
+        }
+        return compacted;
+    }
+
+    /**
+     * Compact the updates of an object, walking them from the last one.
+     */
+    private static List<SMREntry> compact(List<SMREntry> updates, VersionLockedObject<?> object) {
+        final List<SMREntry> kept = new ArrayList<>(updates.size());
+        final Set<Object> overwrittenKeys = new HashSet<>();
+        for (int i = updates.size() - 1; i >= 0; i--) {
+            final SMREntry update = updates.get(i);
+            final String smrMethod = update.getSMRMethod();
+
+            if (object.isResetMethod(smrMethod)) {
+                kept.add(update);
+                break;
+            } else if (object.isOverwriteMethod(smrMethod)
+                    && update.getSMRArguments().length > 0) {
+                if (overwrittenKeys.add(update.getSMRArguments()[0])) {
+                    kept.add(update);
+                }
+            } else {
+                kept.add(update);
+                overwrittenKeys.clear();
+            }
+        }
+        if (kept.size() == updates.size()) {
+            // Nothing was dropped, the undo records of the updates are still valid
+            Collections.reverse(kept);
+            return kept;
+        }
+
+        final List<SMREntry> copies = new ArrayList<>(kept.size());
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            final SMREntry update = kept.get(i);
+            copies.add(new SMREntry(update.getSMRMethod(), update.getMethodId(),
+                    update.getSMRArguments(), update.getSerializerType()));
+        }
+        return copies;
+    }
+}
@@ -1,6 +1,8 @@
 package org.corfudb.runtime.object.transactions;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -25,11 +27,15 @@ public class WriteSetInfo extends ConflictSetInfo {
     /** The actual updates to mutated objects. */
     MultiObjectSMREntry writeSet = new MultiObjectSMREntry();
 
+    /** The proxy of each mutated object, which tells how its updates can be compacted. */
+    Map<UUID, ICorfuSMRProxyInternal> proxies = new HashMap<>();
+
     public long add(ICorfuSMRProxyInternal proxy, SMREntry updateEntry, Object[] conflictObjects) {
         synchronized (getRootContext().getTransactionID()) {
 
             // add the SMRentry to the list of updates for this stream
             writeSet.addTo(proxy.getStreamID(), updateEntry);
+            proxies.putIfAbsent(proxy.getStreamID(), proxy);
 
             super.add(proxy, conflictObjects);
 
@@ -53,5 +59,6 @@ public class WriteSetInfo extends ConflictSetInfo {
         super.mergeInto(other);
         affectedStreams.addAll(((WriteSetInfo) other).affectedStreams);
         writeSet.mergeInto(((WriteSetInfo) other).writeSet);
+        ((WriteSetInfo) other).proxies.forEach(proxies::putIfAbsent);
     }
 }
@@ -230,6 +230,11 @@ public class WriteSetSMRStream implements ISMRStream {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void resumeFromSnapshot(long globalAddress) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Stream<SMREntry> stream() {
         return streamUpTo(Address.MAX);
@@ -1,17 +1,14 @@
 package org.corfudb.runtime.view;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.netty.handler.timeout.TimeoutException;
 import java.time.Duration;
 import java.util.ArrayList;
@@ -22,12 +19,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableSet;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
@@ -61,13 +61,10 @@ import org.corfudb.util.Utils;
 @Slf4j
 public class AddressSpaceView extends AbstractView {
 
-    private final static long CACHE_KEY_SIZE = MetricsUtils.sizeOf.deepSizeOf(0L);
-    private final static long DEFAULT_MAX_CACHE_ENTRIES = 5000;
-
     /**
      * A cache for read results.
      */
-    private final Cache<Long, ILogData> readCache;
+    private final LogDataCache readCache;
     private final ReadOptions defaultReadOptions = ReadOptions.builder()
             .ignoreTrim(false)
             .waitForHole(true)
@@ -76,41 +73,33 @@ public class AddressSpaceView extends AbstractView {
             .build();
 
     /**
-     * Constructor for the Address Space View.
+     * The reads which are being fetched from the log units, by address and read options.
+     * Concurrent cache misses on the same address with the same read options wait for the
+     * read in flight instead of fetching the address again.
      */
-    public AddressSpaceView(@Nonnull final CorfuRuntime runtime) {
-        super(runtime);
-
-        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+    private final ConcurrentMap<InFlightRead, CompletableFuture<ILogData>> inFlightReads = new ConcurrentHashMap<>();
 
-        final boolean cacheDisabled = runtime.getParameters().isCacheDisabled();
-        final long maxCacheEntries = runtime.getParameters().getMaxCacheEntries();
-        final long maxCacheWeight = runtime.getParameters().getMaxCacheWeight();
-        final int concurrencyLevel = runtime.getParameters().getCacheConcurrencyLevel();
-
-        if (maxCacheWeight != 0) {
-            cacheBuilder.maximumWeight(maxCacheWeight);
-            cacheBuilder.weigher((k, v) -> (int) (CACHE_KEY_SIZE + MetricsUtils.sizeOf.deepSizeOf(v)));
-        }
+    /**
+     * The key of a read in flight. Readers only share a read if their options match, as the
+     * options change what is fetched and cached.
+     */
+    @Value
+    private static class InFlightRead {
+        long address;
+        ReadOptions options;
+    }
 
-        if (cacheDisabled) {
-            cacheBuilder.maximumSize(0); // Do not allocate memory when cache is disabled.
-        } else if (maxCacheEntries != 0) {
-            cacheBuilder.maximumSize(maxCacheEntries);
-        } else if (maxCacheWeight == 0) {
-            // If cache weight/size are not set, then we default to using size based cache.
-            cacheBuilder.maximumSize(DEFAULT_MAX_CACHE_ENTRIES);
-        }
+    private final Counter readHits;
+    private final Counter readMisses;
+    private final Counter coalescedReads;
 
-        if (concurrencyLevel != 0) {
-            cacheBuilder.concurrencyLevel(concurrencyLevel);
-        }
+    /**
+     * Constructor for the Address Space View.
+     */
+    public AddressSpaceView(@Nonnull final CorfuRuntime runtime) {
+        super(runtime);
 
-        readCache = cacheBuilder.expireAfterAccess(runtime.getParameters().getCacheExpiryTime(), TimeUnit.SECONDS)
-                .expireAfterWrite(runtime.getParameters().getCacheExpiryTime(), TimeUnit.SECONDS)
-                .removalListener(this::handleEviction)
-                .recordStats()
-                .build();
+        readCache = new LogDataCache(runtime.getParameters());
 
         MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
         final String pfx = String.format("%s0x%x.cache.", CorfuComponent.ADDRESS_SPACE_VIEW.toString(),
@@ -120,19 +109,16 @@ public class AddressSpaceView extends AbstractView {
         metrics.register(pfx + "hit-rate", (Gauge<Double>) () -> readCache.stats().hitRate());
         metrics.register(pfx + "hits", (Gauge<Long>) () -> readCache.stats().hitCount());
         metrics.register(pfx + "misses", (Gauge<Long>) () -> readCache.stats().missCount());
-    }
-
-    private void handleEviction(RemovalNotification<Long, ILogData> notification) {
-        if (log.isTraceEnabled()) {
-            log.trace("handleEviction: evicting {} cause {}", notification.getKey(), notification.getCause());
-        }
+        readHits = metrics.counter(pfx + "read-hits");
+        readMisses = metrics.counter(pfx + "read-misses");
+        coalescedReads = metrics.counter(pfx + "read-coalesced");
     }
 
     /**
      * Remove all log entries that are less than the trim mark
      */
     public void gc(long trimMark) {
-        readCache.asMap().entrySet().removeIf(e -> e.getKey() < trimMark);
+        readCache.invalidateBelow(trimMark);
     }
 
     /**
@@ -299,19 +285,93 @@ public class AddressSpaceView extends AbstractView {
         // 5. Thread B finishes loading and caches the loaded value replacing
         //    the cached value from step 4 (i.e. loss of undo records computed
         //    by thread A)
-        ILogData data = readCache.getIfPresent(address);
-        if (data == null) {
-            // Loading a value without the cache loader can result in
-            // redundant loading calls (i.e. multiple threads try to
-            // load the same value), but currently a redundant RPC
-            // is much cheaper than the cost of a NoRollBackException, therefore
-            // this trade-off is reasonable
-            final ILogData loadedVal = fetch(address);
-            return cacheLoadAndGet(readCache, address, loadedVal, options);
+        //
+        // Therefore, a loaded value never replaces a cached value. Instead of a
+        // cache loader, concurrent misses on the same address are collapsed into
+        // a single in-flight read, which inserts the loaded value into the cache
+        // only if it is absent, before handing the cached value to the other readers.
+        // If that read fails with an Error (e.g. its reader was interrupted), the other
+        // readers read the address themselves.
+        final InFlightRead key = new InFlightRead(address, options);
+        ILogData data;
+        CompletableFuture<ILogData> read;
+        while (true) {
+            data = readCache.getIfPresent(address);
+            if (data != null) {
+                MetricsUtils.incConditionalCounter(readHits, 1);
+                return data;
+            }
+
+            read = new CompletableFuture<>();
+            CompletableFuture<ILogData> inFlightRead = inFlightReads.putIfAbsent(key, read);
+            if (inFlightRead == null) {
+                break;
+            }
+
+            MetricsUtils.incConditionalCounter(coalescedReads, 1);
+            data = joinRead(inFlightRead);
+            if (data != null) {
+                checkLogDataThrowException(address, data);
+                return data;
+            }
+        }
+
+        MetricsUtils.incConditionalCounter(readMisses, 1);
+        final ILogData loadedVal;
+        try {
+            loadedVal = layoutHelper(e -> e.getLayout().getReplicationMode(address)
+                    .getReplicationProtocol(runtime)
+                    .read(e, address));
+        } catch (Throwable t) {
+            // Errors (e.g. an interrupted read) also fail the read, otherwise
+            // the readers waiting for it would be blocked forever. The read is
+            // removed first, so that these readers can read the address again.
+            inFlightReads.remove(key, read);
+            read.completeExceptionally(t);
+            throw t;
         }
+
+        data = loadedVal;
+        try {
+            if (isLogDataValid(address, loadedVal, false)) {
+                data = cacheLoadAndGet(address, loadedVal, options);
+            }
+        } finally {
+            // The read is only removed once its value is cached, so that
+            // the next reader hits the cache instead of reading it again.
+            inFlightReads.remove(key, read);
+            read.complete(data);
+        }
+
+        checkLogDataThrowException(address, data);
         return data;
     }
 
+    /**
+     * Wait for a read in flight, and unwrap the exception it failed with, if any.
+     * An Error (e.g. an UnrecoverableCorfuInterruptedError) is specific to the thread
+     * of the reader which failed with it, so it isn't thrown to the waiting readers.
+     *
+     * @param read the read in flight
+     * @return the data read, which hasn't been validated, or null if the read failed
+     *         with an Error and the address must be read again
+     */
+    @Nullable
+    private ILogData joinRead(CompletableFuture<ILogData> read) {
+        try {
+            return read.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                return null;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
     /**
      * This method reads a batch of addresses if 'nextRead' is not found in the cache.
      * In the case of a cache miss, it piggybacks on the read for nextRead.
@@ -381,27 +441,14 @@ public class AddressSpaceView extends AbstractView {
     /**
      * Attempts to insert a loaded value into the cache and return the cached value for a particular key.
      */
-    private ILogData cacheLoadAndGet(@NonNull Cache<Long, ILogData> cache, long address,
-                                     @NonNull ILogData loadedValue,
+    private ILogData cacheLoadAndGet(long address, @NonNull ILogData loadedValue,
                                      @NonNull ReadOptions options) {
 
         if (!options.isClientCacheable()) {
             return loadedValue;
         }
 
-        try {
-            return cache.get(address, () -> loadedValue);
-        } catch (ExecutionException | UncheckedExecutionException e) {
-            // Guava wraps the exceptions thrown from the lower layers, therefore
-            // we need to unwrap them before throwing them to the upper layers that
-            // don't understand the guava exceptions
-            Throwable cause = e.getCause();
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            } else {
-                throw new RuntimeException(cause);
-            }
-        }
+        return readCache.putIfAbsent(address, loadedValue);
     }
 
     /**
@@ -414,14 +461,65 @@ public class AddressSpaceView extends AbstractView {
         final Map<Long, ILogData> cachedData = readCache.getAllPresent(addresses);
         final Set<Long> addressesToFetch = Sets.difference(
                 Sets.newHashSet(addresses), cachedData.keySet());
+        MetricsUtils.incConditionalCounter(readHits, cachedData.size());
+
+        // Only fetch the addresses which aren't already being read, and wait
+        // for the reads in flight of the other addresses.
+        final Map<Long, CompletableFuture<ILogData>> reads = new HashMap<>();
+        final Map<Long, CompletableFuture<ILogData>> inFlight = new HashMap<>();
+        for (Long address : addressesToFetch) {
+            CompletableFuture<ILogData> read = new CompletableFuture<>();
+            CompletableFuture<ILogData> inFlightRead =
+                    inFlightReads.putIfAbsent(new InFlightRead(address, options), read);
+            if (inFlightRead == null) {
+                reads.put(address, read);
+            } else {
+                inFlight.put(address, inFlightRead);
+            }
+        }
+        MetricsUtils.incConditionalCounter(readMisses, reads.size());
+        MetricsUtils.incConditionalCounter(coalescedReads, inFlight.size());
+
+        Map<Long, ILogData> uncachedData = new HashMap<>();
+        Throwable failure = null;
+        try {
+            uncachedData = fetchAll(reads.keySet(), options);
+            // Cache the fetched values before handing them to the other readers
+            uncachedData.replaceAll((address, data) -> isLogDataValid(address, data, false)
+                    ? cacheLoadAndGet(address, data, options) : data);
+        } catch (Throwable t) {
+            // Errors also fail the reads, rather than handing missing values to their readers
+            failure = t;
+            throw t;
+        } finally {
+            for (Entry<Long, CompletableFuture<ILogData>> read : reads.entrySet()) {
+                inFlightReads.remove(new InFlightRead(read.getKey(), options), read.getValue());
+                if (failure != null) {
+                    read.getValue().completeExceptionally(failure);
+                } else {
+                    read.getValue().complete(uncachedData.get(read.getKey()));
+                }
+            }
+        }
+
+        // The addresses whose reads in flight failed with an Error are read again
+        final List<Long> retries = new ArrayList<>();
+        for (Entry<Long, CompletableFuture<ILogData>> read : inFlight.entrySet()) {
+            ILogData data = joinRead(read.getValue());
+            if (data == null) {
+                retries.add(read.getKey());
+            } else {
+                uncachedData.put(read.getKey(), data);
+            }
+        }
+        if (!retries.isEmpty()) {
+            uncachedData.putAll(read(retries, options));
+        }
 
-        final Map<Long, ILogData> uncachedData = fetchAll(addressesToFetch, options);
         final List<Long> trimmedAddresses = filterTrimmedAddresses(uncachedData);
         trimmedAddresses.forEach(uncachedData::remove);
 
-        final Map<Long, ILogData> result = uncachedData.entrySet().stream()
-                .collect(Collectors.toMap(Entry::getKey, entry ->
-                        cacheLoadAndGet(readCache, entry.getKey(), entry.getValue(), options)));
+        final Map<Long, ILogData> result = uncachedData;
         result.putAll(cachedData);
 
         if (!trimmedAddresses.isEmpty()) {
@@ -745,7 +843,7 @@ public class AddressSpaceView extends AbstractView {
     }
 
     @VisibleForTesting
-    Cache<Long, ILogData> getReadCache() {
+    LogDataCache getReadCache() {
         return readCache;
     }
 }
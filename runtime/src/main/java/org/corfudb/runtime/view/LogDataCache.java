@@ -0,0 +1,189 @@
+package org.corfudb.runtime.view;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.runtime.CorfuRuntime.CorfuRuntimeParameters;
+
+/**
+ * The client cache of the log entries read and written through the {@link AddressSpaceView}.
+ *
+ * <p>The cache uses W-TinyLFU admission: a new entry only replaces an entry of the
+ * main region of the cache if it has been accessed more frequently. One-time scans
+ * (e.g. checkpoint reads or snapshot syncs) therefore don't flush the entries of the
+ * hot streams out of the cache.
+ *
+ * <p>When the cache is bounded by weight, entries are weighed by the size of their
+ * serialized payload, which is known in O(1), rather than by walking their object graph.
+ *
+ * <p>The entries are kept as is, or in their serialized form in direct (off-heap)
+ * buffers if the runtime is configured with cacheOffHeap. Off-heap entries are
+ * deserialized on every hit.
+ */
+@Slf4j
+class LogDataCache {
+
+    private static final long DEFAULT_MAX_CACHE_ENTRIES = 5000;
+
+    // Approximate footprint of a cached entry, besides its payload
+    private static final int ENTRY_OVERHEAD = 256;
+
+    /**
+     * Either {@link ILogData} or, when off-heap, serialized {@link ByteBuffer} values.
+     */
+    private final Cache<Long, Object> cache;
+
+    private final boolean offHeap;
+
+    LogDataCache(@Nonnull CorfuRuntimeParameters parameters) {
+        Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder();
+
+        final boolean cacheDisabled = parameters.isCacheDisabled();
+        final long maxCacheEntries = parameters.getMaxCacheEntries();
+        final long maxCacheWeight = parameters.getMaxCacheWeight();
+        final long cacheExpiryTime = parameters.getCacheExpiryTime();
+
+        if (maxCacheWeight != 0) {
+            cacheBuilder.maximumWeight(maxCacheWeight);
+            cacheBuilder.weigher((Long k, Object v) -> weigh(v));
+        }
+
+        if (cacheDisabled) {
+            cacheBuilder.maximumSize(0); // Do not allocate memory when cache is disabled.
+        } else if (maxCacheEntries != 0) {
+            cacheBuilder.maximumSize(maxCacheEntries);
+        } else if (maxCacheWeight == 0) {
+            // If cache weight/size are not set, then we default to using size based cache.
+            cacheBuilder.maximumSize(DEFAULT_MAX_CACHE_ENTRIES);
+        }
+
+        if (cacheExpiryTime != Long.MAX_VALUE) {
+            cacheBuilder.expireAfterAccess(cacheExpiryTime, TimeUnit.SECONDS)
+                    .expireAfterWrite(cacheExpiryTime, TimeUnit.SECONDS);
+        }
+
+        offHeap = parameters.isCacheOffHeap();
+        cache = cacheBuilder
+                // Evict on the calling threads, like the previous cache did, rather
+                // than on the common pool.
+                .executor(Runnable::run)
+                .removalListener(this::handleEviction)
+                .recordStats()
+                .build();
+    }
+
+    private void handleEviction(Long address, Object value, RemovalCause cause) {
+        if (log.isTraceEnabled()) {
+            log.trace("handleEviction: evicting {} cause {}", address, cause);
+        }
+    }
+
+    private static int weigh(Object value) {
+        if (value instanceof ByteBuffer) {
+            return ENTRY_OVERHEAD + ((ByteBuffer) value).capacity();
+        }
+        return ENTRY_OVERHEAD + ((ILogData) value).getSizeEstimate();
+    }
+
+    private Object toCacheValue(ILogData data) {
+        if (!offHeap || !(data instanceof LogData)) {
+            return data;
+        }
+
+        ByteBuf buf = Unpooled.buffer(data.getSizeEstimate() + ENTRY_OVERHEAD);
+        try {
+            ((LogData) data).doSerialize(buf);
+            ByteBuffer serialized = ByteBuffer.allocateDirect(buf.readableBytes());
+            buf.readBytes(serialized);
+            serialized.flip();
+            return serialized;
+        } finally {
+            buf.release();
+        }
+    }
+
+    private ILogData fromCacheValue(@Nullable Object value) {
+        if (value == null || value instanceof ILogData) {
+            return (ILogData) value;
+        }
+        return new LogData(Unpooled.wrappedBuffer(((ByteBuffer) value).duplicate()));
+    }
+
+    /**
+     * Returns the entry cached for an address, if any.
+     */
+    @Nullable
+    ILogData getIfPresent(long address) {
+        return fromCacheValue(cache.getIfPresent(address));
+    }
+
+    /**
+     * Returns the entries cached for a set of addresses.
+     */
+    Map<Long, ILogData> getAllPresent(Iterable<Long> addresses) {
+        Map<Long, Object> values = cache.getAllPresent(addresses);
+        return offHeap ? Maps.newHashMap(Maps.transformValues(values, this::fromCacheValue))
+                : (Map) values;
+    }
+
+    /**
+     * Caches an entry for an address, unless an entry is already cached for it.
+     *
+     * @return the entry cached for the address
+     */
+    ILogData putIfAbsent(long address, @Nonnull ILogData data) {
+        Object cached = cache.getIfPresent(address);
+        if (cached == null) {
+            cached = cache.asMap().putIfAbsent(address, toCacheValue(data));
+            if (cached == null) {
+                return data;
+            }
+        }
+        return fromCacheValue(cached);
+    }
+
+    /**
+     * Caches an entry for an address, replacing any cached entry.
+     */
+    void put(long address, @Nonnull ILogData data) {
+        cache.put(address, toCacheValue(data));
+    }
+
+    /**
+     * Removes the entries of all the addresses lower than a given address.
+     */
+    void invalidateBelow(long address) {
+        cache.asMap().keySet().removeIf(a -> a < address);
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    long size() {
+        return cache.estimatedSize();
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns a view of the cached entries.
+     */
+    Map<Long, ILogData> asMap() {
+        return offHeap ? Maps.transformValues(cache.asMap(), this::fromCacheValue) : (Map) cache.asMap();
+    }
+}
@@ -17,6 +17,7 @@ import org.corfudb.runtime.exceptions.WriteSizeException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
 import org.corfudb.runtime.object.CorfuCompileProxy;
 import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.MultiStreamSync;
 import org.corfudb.runtime.object.transactions.AbstractTransactionalContext;
 import org.corfudb.runtime.object.transactions.Transaction;
 import org.corfudb.runtime.object.transactions.Transaction.TransactionBuilder;
@@ -26,7 +27,12 @@ import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
 
 import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -52,8 +58,11 @@ public class ObjectsView extends AbstractView {
     @Getter
     Map<ObjectID, Object> objectCache = new ConcurrentHashMap<>();
 
+    private final MultiStreamSync multiStreamSync;
+
     public ObjectsView(@Nonnull final CorfuRuntime runtime) {
         super(runtime);
+        this.multiStreamSync = new MultiStreamSync(runtime);
     }
 
     /**
@@ -205,6 +214,38 @@ public class ObjectsView extends AbstractView {
         }
     }
 
+    /**
+     * Get a recent global tail, queried at most maxStaleness ago, to use as the snapshot of
+     * a transaction which tolerates stale reads. Objects opened with a staleness bound are
+     * kept synced to this tail, so such a transaction can read them without syncing.
+     *
+     * @param maxStaleness how stale the snapshot may be
+     * @return a recent global tail, or empty if there is none within the staleness bound
+     */
+    public Optional<Token> getRecentSnapshot(@Nonnull Duration maxStaleness) {
+        return runtime.getObjectTailer().getRecentTail(maxStaleness);
+    }
+
+    /**
+     * Sync many objects up to the current global tail at once. The tails and the address maps
+     * of their streams are fetched in one request each, and the log entries which update
+     * these objects are read only once, however many of the objects they update. This is
+     * much cheaper than accessing the objects one by one, e.g. after opening many of them.
+     *
+     * @param objects the objects to sync, as returned by {@link SMRObject.Builder#open()}
+     * @return the global tail the objects were synced to
+     */
+    public Token syncObjects(@Nonnull Collection<?> objects) {
+        List<CorfuCompileProxy<?>> proxies = new ArrayList<>(objects.size());
+        for (Object object : objects) {
+            if (!(object instanceof ICorfuSMR)) {
+                throw new IllegalArgumentException(object.getClass() + " is not a Corfu object");
+            }
+            proxies.add((CorfuCompileProxy<?>) ((ICorfuSMR<?>) object).getCorfuSMRProxy());
+        }
+        return multiStreamSync.sync(proxies);
+    }
+
     /**
      * Run garbage collection on all opened objects. Note that objects
      * open with the NO_CACHE options will not be gc'd
@@ -14,6 +14,7 @@ import org.corfudb.runtime.object.ICorfuSMR;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 
+import java.time.Duration;
 import java.util.UUID;
 
 /**
@@ -51,12 +52,17 @@ public class SMRObject<T extends ICorfuSMR<T>> {
     @NonNull
     private final Object[] arguments;
 
+    /**
+     * How stale reads outside of transactions may be, or null if they must be linearizable.
+     */
+    private final Duration maxStaleness;
 
     public static class Builder<T extends ICorfuSMR<T>> {
 
         private ISerializer serializer = Serializers.getDefaultSerializer();
         private ObjectOpenOption option = ObjectOpenOption.CACHE;
         private Object[] arguments = new Object[0];
+        private Duration maxStaleness = null;
         @Getter
         private Class<T> type;
         @Getter
@@ -107,13 +113,27 @@ public class SMRObject<T extends ICorfuSMR<T>> {
             return this;
         }
 
+        /**
+         * Let reads outside of transactions return a state of the object which was up to
+         * date at most maxStaleness ago, instead of querying the sequencer and syncing the
+         * object on every read. The object is kept up to date by the ObjectTailer.
+         *
+         * @param maxStaleness how stale reads may be
+         * @return the builder
+         */
+        public SMRObject.Builder<T> setMaxStaleness(Duration maxStaleness) {
+            this.maxStaleness = maxStaleness;
+            return this;
+        }
+
 
         public SMRObject<T> build() {
             if (streamID == null && streamName != null) {
                 streamID = UUID.nameUUIDFromBytes(streamName.getBytes());
             }
             verify();
-            return new SMRObject<>(runtime, type, streamID, streamName, serializer, option, arguments);
+            return new SMRObject<>(runtime, type, streamID, streamName, serializer, option, arguments,
+                    maxStaleness);
         }
 
         public T open() {
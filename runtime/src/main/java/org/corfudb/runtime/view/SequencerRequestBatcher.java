@@ -0,0 +1,135 @@
+package org.corfudb.runtime.view;
+
+import com.codahale.metrics.Histogram;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.TokenResponse;
+import org.corfudb.util.MetricsUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+/**
+ * Coalesces concurrent sequencer requests of the same kind into a single request.
+ *
+ * <p>Requests are grouped into batches. The first request of a batch (its leader) waits
+ * for the previously sent batch to complete, for at most the max delay, and then sends
+ * the whole batch as one request. Requests submitted in the meantime join the batch, so
+ * an idle client sends its requests right away, while a busy client sends at most one
+ * request per round trip (or per max delay) instead of one request per caller.
+ *
+ * <p>A request only joins a batch that has not been sent yet, so the response of a batch
+ * reflects every update that completed before any of its requests was submitted.
+ *
+ * @param <T> the type of a single request
+ */
+@Slf4j
+class SequencerRequestBatcher<T> {
+
+    /**
+     * A group of requests sent together, and the response to all of them.
+     */
+    static class Batch<T> {
+        final List<T> requests = new ArrayList<>();
+        final CompletableFuture<TokenResponse> response = new CompletableFuture<>();
+    }
+
+    /**
+     * A request submitted to the batcher: the batch it belongs to, and its index in it.
+     */
+    static class Ticket<T> {
+        final Batch<T> batch;
+        final int index;
+
+        Ticket(Batch<T> batch, int index) {
+            this.batch = batch;
+            this.index = index;
+        }
+    }
+
+    private final long maxDelayNanos;
+
+    // Sends the requests of a batch with the layout of its leader
+    private final BiFunction<RuntimeLayout, List<T>, CompletableFuture<TokenResponse>> sender;
+
+    private final Histogram batchSizes;
+
+    // The batch which is accepting requests, guarded by this
+    private Batch<T> pending;
+
+    // The last batch sent, guarded by this
+    private Batch<T> sent;
+
+    SequencerRequestBatcher(Duration maxDelay,
+                            BiFunction<RuntimeLayout, List<T>, CompletableFuture<TokenResponse>> sender,
+                            Histogram batchSizes) {
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.sender = sender;
+        this.batchSizes = batchSizes;
+    }
+
+    /**
+     * Add a request to the pending batch, sending the batch if this is its first request.
+     *
+     * @param layout  the layout to send the batch with, if this request leads the batch
+     * @param request the request to submit
+     * @return the ticket of the request
+     */
+    Ticket<T> submit(RuntimeLayout layout, T request) {
+        final Batch<T> batch;
+        final Batch<T> previous;
+        final int index;
+        synchronized (this) {
+            previous = pending == null ? sent : null;
+            if (pending == null) {
+                pending = new Batch<>();
+            }
+            batch = pending;
+            index = batch.requests.size();
+            batch.requests.add(request);
+        }
+
+        if (index == 0) {
+            send(layout, batch, previous);
+        }
+        return new Ticket<>(batch, index);
+    }
+
+    private void send(RuntimeLayout layout, Batch<T> batch, Batch<T> previous) {
+        if (previous != null && !previous.response.isDone()) {
+            try {
+                previous.response.get(maxDelayNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // Send the batch anyway, the failure of the previous batch is its own
+            } catch (InterruptedException ie) {
+                // The other requests of the batch depend on this thread, so send it
+                // and let the caller handle the interrupt
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this) {
+            pending = null;
+            sent = batch;
+        }
+
+        MetricsUtils.updateConditionalHistogram(batchSizes, batch.requests.size());
+        log.trace("send: batch of {} requests", batch.requests.size());
+        try {
+            sender.apply(layout, batch.requests).whenComplete((response, ex) -> {
+                if (ex != null) {
+                    batch.response.completeExceptionally(ex);
+                } else {
+                    batch.response.complete(response);
+                }
+            });
+        } catch (RuntimeException ex) {
+            batch.response.completeExceptionally(ex);
+        }
+    }
+}
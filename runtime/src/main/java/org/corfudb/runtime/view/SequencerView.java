@@ -1,11 +1,13 @@
 package org.corfudb.runtime.view;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
 import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
+import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
 import org.corfudb.runtime.CorfuRuntime;
@@ -13,12 +15,16 @@ import org.corfudb.util.CFUtils;
 import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by mwei on 12/10/15.
@@ -35,11 +41,109 @@ public class SequencerView extends AbstractView {
     private Timer sequencerTrimCache;
     private static final MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
 
+    // Coalesce concurrent queries, and concurrent raw token requests, if batching is enabled
+    private final SequencerRequestBatcher<List<UUID>> queryBatcher;
+    private final SequencerRequestBatcher<Long> rawTokenBatcher;
+
+    // Stream tails and address maps fetched in bulk, for the queries of a thread syncing objects
+    private final ThreadLocal<PrefetchedStreams> prefetchedStreams = new ThreadLocal<>();
+
+    /**
+     * The tails of some streams and their address maps, all fetched at (or after) the same
+     * global tail, so that they can answer the queries of the stream views syncing up to
+     * this global tail instead of the sequencer.
+     */
+    public static class PrefetchedStreams {
+        final Map<UUID, Long> tails;
+        final Map<UUID, StreamAddressRange> ranges;
+        final Map<UUID, StreamAddressSpace> addressSpaces;
+
+        /**
+         * @param tails         the tails of the streams, from a single query
+         * @param ranges        the ranges of the address maps fetched after this query
+         * @param addressSpaces the address maps of these ranges
+         */
+        public PrefetchedStreams(Map<UUID, Long> tails,
+                                 Map<UUID, StreamAddressRange> ranges,
+                                 Map<UUID, StreamAddressSpace> addressSpaces) {
+            this.tails = tails;
+            this.ranges = ranges;
+            this.addressSpaces = addressSpaces;
+        }
+    }
+
     public SequencerView(CorfuRuntime runtime) {
         super(runtime);
 
         // Setup timers
         setupTimers();
+
+        Duration batchDelay = runtime.getParameters().getSequencerBatchDelay();
+        if (batchDelay.isZero()) {
+            queryBatcher = null;
+            rawTokenBatcher = null;
+        } else {
+            Histogram queryBatchSize = metricRegistry.histogram(CorfuComponent.CLIENT_SEQUENCER +
+                    "query-batch-size");
+            Histogram rawTokenBatchSize = metricRegistry.histogram(CorfuComponent.CLIENT_SEQUENCER +
+                    "raw-next-batch-size");
+            queryBatcher = new SequencerRequestBatcher<>(batchDelay,
+                    SequencerView::sendQueries, queryBatchSize);
+            rawTokenBatcher = new SequencerRequestBatcher<>(batchDelay,
+                    SequencerView::sendRawTokenRequests, rawTokenBatchSize);
+        }
+    }
+
+    /**
+     * Send a batch of queries as a single query for the union of their streams.
+     */
+    private static CompletableFuture<TokenResponse> sendQueries(RuntimeLayout layout,
+                                                                List<List<UUID>> queries) {
+        Set<UUID> streams = new LinkedHashSet<>();
+        queries.forEach(streams::addAll);
+        return layout.getPrimarySequencerClient().nextToken(new ArrayList<>(streams), 0);
+    }
+
+    /**
+     * Send a batch of raw token requests as a single request for all their tokens.
+     */
+    private static CompletableFuture<TokenResponse> sendRawTokenRequests(RuntimeLayout layout,
+                                                                         List<Long> numTokens) {
+        long total = numTokens.stream().mapToLong(Long::longValue).sum();
+        return layout.getPrimarySequencerClient().nextToken(Collections.emptyList(), total);
+    }
+
+    /**
+     * Query the sequencer, through the query batcher if batching is enabled. The response
+     * of a batched query holds the tails of every stream of the batch, which is a
+     * superset of the requested streams.
+     */
+    private TokenResponse query(List<UUID> streamIds) {
+        if (queryBatcher == null) {
+            return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
+                    .nextToken(streamIds, 0)));
+        }
+        return layoutHelper(e -> CFUtils.getUninterruptibly(
+                queryBatcher.submit(e, streamIds).batch.response));
+    }
+
+    /**
+     * Acquire raw (global) tokens, through the raw token batcher if batching is enabled.
+     * A batched request is assigned its own sub-range of the tokens of the batch.
+     */
+    private TokenResponse nextRaw(long numTokens) {
+        if (rawTokenBatcher == null) {
+            return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
+                    .nextToken(Collections.emptyList(), numTokens)));
+        }
+        return layoutHelper(e -> {
+            SequencerRequestBatcher.Ticket<Long> ticket = rawTokenBatcher.submit(e, numTokens);
+            TokenResponse response = CFUtils.getUninterruptibly(ticket.batch.response);
+            long offset = ticket.batch.requests.subList(0, ticket.index).stream()
+                    .mapToLong(Long::longValue).sum();
+            Token token = new Token(response.getEpoch(), response.getSequence() + offset);
+            return new TokenResponse(token, Collections.emptyMap());
+        });
     }
 
     /**
@@ -69,13 +173,7 @@ public class SequencerView extends AbstractView {
      */
     public TokenResponse query(UUID... streamIds) {
         try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerQuery)){
-            if (streamIds.length == 0) {
-                return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
-                        .nextToken(Collections.emptyList(), 0)));
-            } else {
-                return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
-                        .nextToken(Arrays.asList(streamIds), 0)));
-            }
+            return query(Arrays.asList(streamIds));
         }
     }
 
@@ -86,9 +184,12 @@ public class SequencerView extends AbstractView {
      * @return the stream tail
      */
     public long query(UUID streamId) {
+        PrefetchedStreams prefetched = prefetchedStreams.get();
+        if (prefetched != null && prefetched.tails.containsKey(streamId)) {
+            return prefetched.tails.get(streamId);
+        }
         try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerQuery)) {
-                return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
-                        .nextToken(Arrays.asList(streamId), 0))).getStreamTail(streamId);
+            return query(Collections.singletonList(streamId)).getStreamTail(streamId);
         }
     }
 
@@ -100,6 +201,11 @@ public class SequencerView extends AbstractView {
      */
     public TokenResponse next(UUID ... streamIds) {
         try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerNextOneStream)) {
+            if (streamIds.length == 0) {
+                return nextRaw(1);
+            }
+            // Stream tokens are not batched: a multi-stream request assigns every token of
+            // the request to all of its streams.
             return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
                     .nextToken(Arrays.asList(streamIds), 1)));
         }
@@ -112,9 +218,46 @@ public class SequencerView extends AbstractView {
      * @return address space composed of the trim mark and collection of all addresses belonging to this stream.
      */
     public StreamAddressSpace getStreamAddressSpace(StreamAddressRange streamsAddressesRange) {
+        PrefetchedStreams prefetched = prefetchedStreams.get();
+        if (prefetched != null) {
+            final UUID streamId = streamsAddressesRange.getStreamID();
+            final StreamAddressRange range = prefetched.ranges.get(streamId);
+            final StreamAddressSpace addressSpace = prefetched.addressSpaces.get(streamId);
+            // The prefetched map covers the requested range if it ends at the same tail
+            // and starts before the requested range
+            if (range != null && addressSpace != null
+                    && range.getStart() == streamsAddressesRange.getStart()
+                    && range.getEnd() <= streamsAddressesRange.getEnd()) {
+                return new StreamAddressSpace(addressSpace.getTrimMark(),
+                        addressSpace.getAddressesInRange(streamsAddressesRange));
+            }
+        }
         return getStreamsAddressSpace(Arrays.asList(streamsAddressesRange)).get(streamsAddressesRange.getStreamID());
     }
 
+    /**
+     * Run a function on this thread, answering its queries of the tail or the address map
+     * of the prefetched streams from the prefetched ones. Only valid if the function doesn't
+     * need to observe updates after the global tail the streams were fetched at, e.g. if it
+     * syncs objects up to this global tail.
+     *
+     * @param prefetched the prefetched streams
+     * @param function   the function to run
+     */
+    public void runWithPrefetchedStreams(PrefetchedStreams prefetched, Runnable function) {
+        PrefetchedStreams previous = prefetchedStreams.get();
+        prefetchedStreams.set(prefetched);
+        try {
+            function.run();
+        } finally {
+            if (previous == null) {
+                prefetchedStreams.remove();
+            } else {
+                prefetchedStreams.set(previous);
+            }
+        }
+    }
+
     /**
      * Retrieve multiple streams address space.
      *
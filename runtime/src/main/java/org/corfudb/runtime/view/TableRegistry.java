@@ -1,11 +1,14 @@
 package org.corfudb.runtime.view;
 
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
 import com.google.protobuf.Descriptors.Descriptor;
 import com.google.protobuf.Descriptors.FileDescriptor;
 import com.google.protobuf.Message;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.LinkedList;
@@ -13,11 +16,15 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CorfuOptions;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.CorfuStoreMetadata.TableDescriptors;
@@ -25,12 +32,14 @@ import org.corfudb.runtime.CorfuStoreMetadata.TableName;
 import org.corfudb.runtime.CorfuStoreMetadata.TableMetadata;
 import org.corfudb.runtime.collections.CorfuRecord;
 import org.corfudb.runtime.collections.CorfuTable;
+import org.corfudb.runtime.collections.LocalTableSnapshot;
 import org.corfudb.runtime.collections.PersistedStreamingMap;
 import org.corfudb.runtime.collections.StreamManager;
 import org.corfudb.runtime.collections.StreamingMap;
 import org.corfudb.runtime.collections.StreamingMapDecorator;
 import org.corfudb.runtime.collections.Table;
 import org.corfudb.runtime.collections.TableOptions;
+import org.corfudb.runtime.collections.VersionedStreamingMap;
 import org.corfudb.runtime.exceptions.SerializerException;
 import org.corfudb.runtime.exceptions.TransactionAbortedException;
 import org.corfudb.runtime.object.ICorfuVersionPolicy;
@@ -64,6 +73,8 @@ public class TableRegistry {
     public static final String CORFU_SYSTEM_NAMESPACE = "CorfuSystem";
     public static final String REGISTRY_TABLE_NAME = "RegistryTable";
 
+    private static final String LOCAL_SNAPSHOT_SUFFIX = ".snapshot";
+
     /**
      * Connected runtime instance.
      */
@@ -79,6 +90,16 @@ public class TableRegistry {
      */
     private final ConcurrentMap<String, Table<Message, Message, Message>> tableMap;
 
+    /**
+     * Snapshot files of the tables opened with a local snapshot path, by table name.
+     */
+    private final ConcurrentMap<String, Path> localSnapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Saves the local snapshots which are saved periodically, created on demand.
+     */
+    private ScheduledExecutorService snapshotter;
+
     /**
      * Serializer to be used for protobuf messages.
      */
@@ -106,7 +127,8 @@ public class TableRegistry {
         } catch (SerializerException se) {
             // This means the protobuf serializer had not been registered yet
             classMapTmp = new ConcurrentHashMap<>();
-            protoSerializer = new ProtobufSerializer(classMapTmp);
+            protoSerializer = new ProtobufSerializer(classMapTmp,
+                    runtime.getParameters().isCompactProtobufRecords());
             Serializers.registerSerializer(protoSerializer);
         }
         this.protobufSerializer = protoSerializer;
@@ -269,7 +291,17 @@ public class TableRegistry {
      * @return Type url string.
      */
     public static String getTypeUrl(Descriptor descriptor) {
-        return "type.googleapis.com/" + descriptor.getFullName();
+        return getTypeUrl(descriptor.getFullName());
+    }
+
+    /**
+     * Gets the type Url of a protobuf message from its full name.
+     *
+     * @param fullName Full name of the message, including its package.
+     * @return Type url string.
+     */
+    public static String getTypeUrl(String fullName) {
+        return "type.googleapis.com/" + fullName;
     }
 
     /**
@@ -335,9 +367,18 @@ public class TableRegistry {
             addTypeToClassMap(defaultMetadataMessage);
         }
 
+        if (tableOptions.getPersistentDataPath().isPresent()
+                && tableOptions.getLocalSnapshotPath().isPresent()) {
+            throw new IllegalArgumentException("A disk-backed table can't have a local snapshot");
+        }
+
         String fullyQualifiedTableName = getFullyQualifiedTableName(namespace, tableName);
         ICorfuVersionPolicy.VersionPolicy versionPolicy = ICorfuVersionPolicy.DEFAULT;
-        Supplier<StreamingMap<K, V>> mapSupplier = () -> new StreamingMapDecorator();
+        // Tables are opened over a map which can take snapshots cheaply if the runtime keeps
+        // snapshots of its objects, so that snapshot reads don't roll them back
+        Supplier<StreamingMap<K, V>> mapSupplier =
+                runtime.getParameters().getObjectSnapshotCacheSize() > 0
+                        ? VersionedStreamingMap::new : StreamingMapDecorator::new;
         if (tableOptions.getPersistentDataPath().isPresent()) {
             versionPolicy = ICorfuVersionPolicy.MONOTONIC;
             mapSupplier = () -> new PersistedStreamingMap<>(
@@ -357,13 +398,75 @@ public class TableRegistry {
                 defaultMetadataMessage,
                 this.runtime,
                 this.protobufSerializer,
-                mapSupplier, versionPolicy);
+                mapSupplier, versionPolicy,
+                tableOptions.getMaxStaleness().orElse(null),
+                tableOptions.getAggregateRegistry(),
+                tableOptions.isPagedScanIndex());
         tableMap.put(fullyQualifiedTableName, (Table<Message, Message, Message>) table);
+        if (tableOptions.getLocalSnapshotPath().isPresent()) {
+            openLocalSnapshot(table, tableOptions);
+        }
 
         registerTable(namespace, tableName, kClass, vClass, mClass, tableOptions);
         return table;
     }
 
+    /**
+     * Sync opened tables up to the current global tail at once, e.g. after opening them.
+     * The log entries which update several of these tables are read only once.
+     *
+     * @param tables the tables to sync.
+     * @return the global tail the tables were synced to.
+     */
+    public Token syncTables(@Nonnull final Collection<? extends Table<?, ?, ?>> tables) {
+        return runtime.getObjectsView().syncObjects(tables.stream()
+                .map(Table::getCorfuObject)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Restore a table from its local snapshot, if there is a valid one, and save its snapshot
+     * periodically if requested.
+     */
+    private <K extends Message, V extends Message, M extends Message>
+    void openLocalSnapshot(Table<K, V, M> table, TableOptions<K, V> tableOptions) {
+        final Path file = tableOptions.getLocalSnapshotPath().get()
+                .resolve(table.getStreamUUID() + LOCAL_SNAPSHOT_SUFFIX);
+        LocalTableSnapshot.load(runtime, table.getCorfuObject(), file);
+
+        if (localSnapshots.putIfAbsent(table.getFullyQualifiedTableName(), file) == null) {
+            tableOptions.getLocalSnapshotPeriod().ifPresent(period -> getSnapshotter()
+                    .scheduleWithFixedDelay(() -> saveLocalSnapshot(table, file),
+                            period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private synchronized ScheduledExecutorService getSnapshotter() {
+        if (snapshotter == null) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("TableSnapshotter")
+                    .build());
+        }
+        return snapshotter;
+    }
+
+    private void saveLocalSnapshot(Table<?, ?, ?> table, Path file) {
+        try {
+            LocalTableSnapshot.save(runtime, table.getCorfuObject(), file);
+        } catch (IOException | RuntimeException e) {
+            log.error("saveLocalSnapshot: failed to save {} to {}",
+                    table.getFullyQualifiedTableName(), file, e);
+        }
+    }
+
+    /**
+     * Save the local snapshots of all the tables opened with a local snapshot path.
+     */
+    public void saveLocalSnapshots() {
+        localSnapshots.forEach((tableName, file) -> saveLocalSnapshot(tableMap.get(tableName), file));
+    }
+
     /**
      * Get an already opened table. Fetches the table from the cache given only the namespace and table name.
      * Throws a NoSuchElementException if table is not previously opened and not present in cache.
@@ -462,6 +565,10 @@ public class TableRegistry {
     }
 
     public synchronized void shutdown() {
+        if (this.snapshotter != null) {
+            this.snapshotter.shutdownNow();
+        }
+        saveLocalSnapshots();
         if (this.streamManager != null) {
             this.streamManager.shutdown();
         }
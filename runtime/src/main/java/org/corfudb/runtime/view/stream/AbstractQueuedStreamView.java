@@ -624,7 +624,22 @@ public abstract class AbstractQueuedStreamView extends
      */
     @Override
     public void close() {}
-    
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The stream is resolved up to the snapshot, without a checkpoint, so the next
+     * fill of the read queue only discovers the addresses after the snapshot. If the stream
+     * has been trimmed after the snapshot was taken, it raises a TrimmedException, since
+     * neither the snapshot nor the stream have the updates before the trim mark.
+     */
+    @Override
+    public synchronized void resumeFromSnapshot(long globalAddress) {
+        reset();
+        seek(globalAddress + 1);
+        getCurrentContext().setCheckpoint(StreamCheckpoint.INITIALIZED);
+    }
+
     // Keeps the latest valid checkpoint (based on the snapshot it covers)
     private StreamCheckpoint latestValidCheckpoint = new StreamCheckpoint();
 
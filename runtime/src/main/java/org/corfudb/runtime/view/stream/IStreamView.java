@@ -47,6 +47,14 @@ public interface IStreamView extends
      */
     void seek(long globalAddress);
 
+    /** Resume the stream from a snapshot of the state it was resolved to at the given
+     * address, taken by a previous view of the stream. The next read will begin after
+     * this address, and the checkpoints of the stream are not loaded, as the snapshot
+     * supersedes them.
+     * @param globalAddress Address the snapshot was taken at
+     */
+    void resumeFromSnapshot(long globalAddress);
+
     /** Append an object to the stream, returning the global address
      * it was written at.
      * <p>
@@ -3,6 +3,7 @@ package org.corfudb.util;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.CsvReporter;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.MetricSet;
@@ -275,6 +276,12 @@ public class MetricsUtils {
         }
     }
 
+    public static void updateConditionalHistogram(@NonNull Histogram histogram, long value) {
+        if (metricsCollectionEnabled) {
+            histogram.update(value);
+        }
+    }
+
     /**
      * return a gauge on direct memory used by netty's PooledByteBufAllocator
      */
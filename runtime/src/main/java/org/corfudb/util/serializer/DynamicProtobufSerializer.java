@@ -52,8 +52,10 @@ import static org.corfudb.runtime.view.TableRegistry.getTypeUrl;
  * - Message name in the FileDescriptorProto to name of the FileDescriptorProto.
  * This is to fetch all the depending FileDescriptorProtos required to desrialize a particular Message.
  * <p>
- * On deserialization, we extract the typeUrl from the Any field of the message. From the typeUrl, we get the
- * message name. Using this message name we build the FileDescriptor recursively to deserialize the byteString.
+ * On deserialization, we extract the typeUrl from the Any field of the message, or from the
+ * type id of the messages written in the compact format of {@link ProtobufSerializer}.
+ * From the typeUrl, we get the message name. Using this message name we build the FileDescriptor
+ * recursively to deserialize the byteString.
  * On serialization, we create the Any message ot be persisted. The typeUrl is provided from {@link CorfuDynamicKey}
  * or {@link CorfuDynamicRecord}.
  */
@@ -78,6 +80,12 @@ public class DynamicProtobufSerializer implements ISerializer {
      */
     private final ConcurrentMap<String, String> messagesFdProtoNameMap = new ConcurrentHashMap<>();
 
+    /**
+     * This map is generated on initialization.
+     * Maps the type id of the messages to their typeUrl.
+     */
+    private final ConcurrentMap<Long, String> typeUrlMap = new ConcurrentHashMap<>();
+
     /**
      * This is used as a file descriptor cache. Used for optimization.
      */
@@ -145,6 +153,8 @@ public class DynamicProtobufSerializer implements ISerializer {
         for (DescriptorProtos.DescriptorProto descriptorProto : fileDescriptorProto.getMessageTypeList()) {
             String messageName = fileDescriptorProto.getPackage() + "." + descriptorProto.getName();
             messagesFdProtoNameMap.putIfAbsent(messageName, fileDescriptorProto.getName());
+            String typeUrl = getTypeUrl(messageName);
+            typeUrlMap.putIfAbsent(ProtobufSerializer.getTypeId(typeUrl), typeUrl);
         }
     }
 
@@ -186,11 +196,10 @@ public class DynamicProtobufSerializer implements ISerializer {
      * Example. typeUrl: type.googleapis.com/org.corfudb.runtime.TableName
      * This returns TableName.
      *
-     * @param message Any message.
+     * @param typeUrl Type url of the message.
      * @return Message name.
      */
-    private String getMessageName(Any message) {
-        String typeUrl = message.getTypeUrl();
+    private String getMessageName(String typeUrl) {
         return typeUrl.substring(typeUrl.lastIndexOf('.') + 1);
     }
 
@@ -199,14 +208,60 @@ public class DynamicProtobufSerializer implements ISerializer {
      * Example. typeUrl: type.googleapis.com/org.corfudb.runtime.TableName
      * This returns org.corfudb.runtime.TableName.
      *
-     * @param message Any message.
+     * @param typeUrl Type url of the message.
      * @return Full name of the message.
      */
-    private String getFullMessageName(Any message) {
-        String typeUrl = message.getTypeUrl();
+    private String getFullMessageName(String typeUrl) {
         return typeUrl.substring(typeUrl.lastIndexOf('/') + 1);
     }
 
+    /**
+     * Gets the descriptor of a message from its type url.
+     *
+     * @param typeUrl Type url of the message.
+     * @return Descriptor of the message.
+     * @throws DescriptorValidationException If FileDescriptor construction fails.
+     */
+    private Descriptor getMessageDescriptor(String typeUrl) throws DescriptorValidationException {
+        FileDescriptor fileDescriptor =
+                getDescriptor(messagesFdProtoNameMap.get(getFullMessageName(typeUrl)));
+        return fileDescriptor.findMessageTypeByName(getMessageName(typeUrl));
+    }
+
+    /**
+     * Reads the type id of a message written in the compact format, and returns its type url.
+     *
+     * @param b The bytebuf to read from.
+     * @return Type url of the message.
+     */
+    private String readTypeUrl(ByteBuf b) {
+        long typeId = b.readLong();
+        String typeUrl = typeUrlMap.get(typeId);
+        if (typeUrl == null) {
+            log.error("DynamicProtobufSerializer failed to deserialize unknown type id {}", typeId);
+            throw new SerializerException(
+                    "DynamicProtobufSerializer type id " + typeId + " was never seen in registry");
+        }
+        return typeUrl;
+    }
+
+    /**
+     * Reads a message of a given type written in the compact format.
+     *
+     * @param typeUrl Type url of the message.
+     * @param b       The bytebuf to read from.
+     * @return The message.
+     * @throws IOException                   If the message can't be parsed.
+     * @throws DescriptorValidationException If FileDescriptor construction fails.
+     */
+    private DynamicMessage readCompactMessage(String typeUrl, ByteBuf b)
+            throws IOException, DescriptorValidationException {
+        Descriptor descriptor = getMessageDescriptor(typeUrl);
+        int size = b.readInt();
+        return ProtobufSerializer.readMessage(
+                DynamicMessage.getDefaultInstance(descriptor).getParserForType(), size, b);
+    }
+
     /**
      * Deserialize an object from a given byte buffer.
      *
@@ -218,15 +273,29 @@ public class DynamicProtobufSerializer implements ISerializer {
 
         try (ByteBufInputStream bbis = new ByteBufInputStream(b)) {
             MessageType type = MessageType.valueOf(bbis.readInt());
+            if (type == MessageType.COMPACT_KEY || type == MessageType.COMPACT_VALUE) {
+                String typeUrl = readTypeUrl(b);
+                DynamicMessage value = readCompactMessage(typeUrl, b);
+                if (type == MessageType.COMPACT_KEY) {
+                    return new CorfuDynamicKey(typeUrl, value);
+                }
+
+                String metadataTypeUrl = null;
+                DynamicMessage metadata = null;
+                if (b.readBoolean()) {
+                    metadataTypeUrl = readTypeUrl(b);
+                    metadata = readCompactMessage(metadataTypeUrl, b);
+                }
+                return new CorfuDynamicRecord(typeUrl, value, metadataTypeUrl, metadata);
+            }
+
             int size = bbis.readInt();
             byte[] data = new byte[size];
             bbis.readFully(data);
             Record record = Record.parseFrom(data);
             Any payload = record.getPayload();
 
-            FileDescriptor valueFileDescriptor
-                    = getDescriptor(messagesFdProtoNameMap.get(getFullMessageName(payload)));
-            Descriptor valueDescriptor = valueFileDescriptor.findMessageTypeByName(getMessageName(payload));
+            Descriptor valueDescriptor = getMessageDescriptor(payload.getTypeUrl());
             DynamicMessage value = DynamicMessage.parseFrom(valueDescriptor, payload.getValue());
 
             if (type.equals(MessageType.KEY)) {
@@ -239,9 +308,7 @@ public class DynamicProtobufSerializer implements ISerializer {
                 Any anyMetadata = record.getMetadata();
                 metadataTypeUrl = anyMetadata.getTypeUrl();
 
-                FileDescriptor metaFileDescriptor
-                        = getDescriptor(messagesFdProtoNameMap.get(getFullMessageName(anyMetadata)));
-                Descriptor metaDescriptor = metaFileDescriptor.findMessageTypeByName(getMessageName(anyMetadata));
+                Descriptor metaDescriptor = getMessageDescriptor(metadataTypeUrl);
                 metadata = DynamicMessage.parseFrom(metaDescriptor, anyMetadata.getValue());
             }
             return new CorfuDynamicRecord(payload.getTypeUrl(), value, metadataTypeUrl, metadata);
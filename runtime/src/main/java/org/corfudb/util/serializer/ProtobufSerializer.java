@@ -1,15 +1,22 @@
 package org.corfudb.util.serializer;
 
+import com.google.common.hash.Hashing;
 import com.google.protobuf.Any;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Internal;
 import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import lombok.Getter;
@@ -18,6 +25,7 @@ import org.corfudb.runtime.CorfuStoreMetadata.Record;
 import org.corfudb.runtime.collections.CorfuRecord;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.exceptions.SerializerException;
+import org.corfudb.runtime.view.TableRegistry;
 
 /**
  * The Protobuf serializer is the main component that allows CorfuStore to use Protobufs to
@@ -29,6 +37,16 @@ import org.corfudb.runtime.exceptions.SerializerException;
  * Any type carries with it a typeUrl which helps identify the class uniquely.
  * This typeUrl is then used to index the classMap to retrieve the actual Protobuf message
  * while deserializing.
+ *
+ * <p>Since the type urls are often larger than the messages themselves, messages can be
+ * written in a compact format, which identifies their type with a 64-bit id derived from
+ * the type url (see {@link #getTypeId(String)}) and writes them directly into the buffer:
+ * <pre>
+ * key:   COMPACT_KEY | type id | size | message
+ * value: COMPACT_VALUE | type id | size | message | has metadata | [type id | size | metadata]
+ * </pre>
+ * Both formats are always read, but the compact format is only written when enabled, since
+ * clients of previous releases only read the original Any-encoded format (KEY and VALUE).
  */
 @Slf4j
 public class ProtobufSerializer implements ISerializer {
@@ -40,14 +58,46 @@ public class ProtobufSerializer implements ISerializer {
     @Getter
     private final ConcurrentMap<String, Class<? extends Message>> classMap;
 
+    /**
+     * Whether records are written in the compact format rather than the Any-encoded format.
+     */
+    @Getter
+    private final boolean compactRecords;
+
     public ProtobufSerializer(ConcurrentMap<String, Class<? extends Message>> classMap) {
+        this(classMap, false);
+    }
+
+    /**
+     * Creates a protobuf serializer.
+     *
+     * @param classMap       Map of the type urls of the messages to their classes.
+     * @param compactRecords Whether records are written in the compact format.
+     */
+    public ProtobufSerializer(ConcurrentMap<String, Class<? extends Message>> classMap,
+                              boolean compactRecords) {
         this.type = PROTOBUF_SERIALIZER_CODE;
         this.classMap = classMap;
+        this.compactRecords = compactRecords;
     }
 
+    /**
+     * Maps the type ids to the default instance of their messages, which are used to parse
+     * the messages of the compact format. Built from the classMap on demand, since the
+     * classMap can be updated by its users.
+     */
+    private final ConcurrentMap<Long, Message> typeIdMap = new ConcurrentHashMap<>();
+
+    /**
+     * Cache of the type ids of the messages being serialized.
+     */
+    private final ConcurrentMap<Descriptor, Long> descriptorTypeIds = new ConcurrentHashMap<>();
+
     enum MessageType {
         KEY(1),
-        VALUE(2);
+        VALUE(2),
+        COMPACT_KEY(3),
+        COMPACT_VALUE(4);
 
         static final Map<Integer, MessageType> valToTypeMap = new HashMap<>();
 
@@ -73,6 +123,115 @@ public class ProtobufSerializer implements ISerializer {
         return type;
     }
 
+    /**
+     * Gets the type id of a protobuf type url, which identifies the type of the messages
+     * written in the compact format. The id is derived from the type url only, so all the
+     * clients agree on it without any coordination.
+     *
+     * @param typeUrl Type url of the message.
+     * @return 64-bit type id.
+     */
+    public static long getTypeId(String typeUrl) {
+        return Hashing.murmur3_128().hashString(typeUrl, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * Gets the default instance of the message type with a given type id.
+     *
+     * @param typeId Type id of the message.
+     * @return Default instance of the message.
+     */
+    private Message getDefaultInstance(long typeId) {
+        Message defaultInstance = typeIdMap.get(typeId);
+        if (defaultInstance != null) {
+            return defaultInstance;
+        }
+
+        // The type might have been added to the classMap since it was last indexed.
+        Map<Long, String> typeUrls = new HashMap<>();
+        for (Map.Entry<String, Class<? extends Message>> entry : classMap.entrySet()) {
+            long id = getTypeId(entry.getKey());
+            String previous = typeUrls.put(id, entry.getKey());
+            if (previous != null && !previous.equals(entry.getKey())) {
+                throw new SerializerException("Type id collision between " + previous
+                        + " and " + entry.getKey());
+            }
+            typeIdMap.computeIfAbsent(id, k -> Internal.getDefaultInstance(entry.getValue()));
+        }
+
+        defaultInstance = typeIdMap.get(typeId);
+        if (defaultInstance == null) {
+            log.error("Deserialization error: Encountered a log update for type id {} but its "
+                    + "corresponding class type cannot be found in in-memory type map. "
+                    + "Dumping map..\n", typeId);
+            for (String entry: classMap.keySet()) {
+                log.error(entry + "=>" + classMap.get(entry));
+            }
+            throw new SerializerException("Type id " + typeId + " not in map!");
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Write a message and its type id into a buffer. When the buffer is backed by a single
+     * memory region, the message is encoded directly into it.
+     *
+     * @param message Message to write.
+     * @param typeId  Type id of the message.
+     * @param b       Buffer to write into.
+     */
+    static void writeMessage(Message message, long typeId, ByteBuf b) throws IOException {
+        int size = message.getSerializedSize();
+        b.writeLong(typeId);
+        b.writeInt(size);
+        b.ensureWritable(size);
+        if (b.nioBufferCount() == 1) {
+            CodedOutputStream output =
+                    CodedOutputStream.newInstance(b.nioBuffer(b.writerIndex(), size));
+            message.writeTo(output);
+            output.checkNoSpaceLeft();
+            b.writerIndex(b.writerIndex() + size);
+        } else {
+            try (ByteBufOutputStream bbos = new ByteBufOutputStream(b)) {
+                message.writeTo(bbos);
+            }
+        }
+    }
+
+    /**
+     * Parse a message of a given size from a buffer. When the buffer is backed by a single
+     * memory region, the message is parsed directly from it.
+     *
+     * @param parser Parser of the message type.
+     * @param size   Size of the message.
+     * @param b      Buffer to read from.
+     * @return The parsed message.
+     */
+    static <T> T readMessage(Parser<T> parser, int size, ByteBuf b) throws IOException {
+        T message;
+        if (b.nioBufferCount() == 1) {
+            message = parser.parseFrom(b.nioBuffer(b.readerIndex(), size));
+        } else {
+            byte[] data = new byte[size];
+            b.getBytes(b.readerIndex(), data);
+            message = parser.parseFrom(data);
+        }
+        b.skipBytes(size);
+        return message;
+    }
+
+    private Message readCompactMessage(ByteBuf b) throws IOException {
+        Message defaultInstance = getDefaultInstance(b.readLong());
+        int size = b.readInt();
+        return readMessage(defaultInstance.getParserForType(), size, b);
+    }
+
+    private void writeCompactMessage(Message message, ByteBuf b) throws IOException {
+        long typeId = descriptorTypeIds.computeIfAbsent(message.getDescriptorForType(),
+                descriptor -> getTypeId(TableRegistry.getTypeUrl(descriptor)));
+        writeMessage(message, typeId, b);
+    }
+
     /**
      * Deserialize an object from a given byte buffer.
      *
@@ -84,18 +243,27 @@ public class ProtobufSerializer implements ISerializer {
 
         try (ByteBufInputStream bbis = new ByteBufInputStream(b)) {
             MessageType type = MessageType.valueOf(bbis.readInt());
+            if (type == MessageType.COMPACT_KEY) {
+                return readCompactMessage(b);
+            } else if (type == MessageType.COMPACT_VALUE) {
+                Message value = readCompactMessage(b);
+                Message metadata = b.readBoolean() ? readCompactMessage(b) : null;
+                return new CorfuRecord(value, metadata);
+            }
+
             int size = bbis.readInt();
             byte[] data = new byte[size];
             bbis.readFully(data);
             Record record = Record.parseFrom(data);
             Any payload = record.getPayload();
             if (!classMap.containsKey(payload.getTypeUrl())) {
-                log.error("Deserialization error: Encountered a log update for this class "+payload.getTypeUrl()
-                        +" but its corresponding class type cannot be found in in-memory type map. Dumping map..\n");
+                log.error("Deserialization error: Encountered a log update for this class "
+                        + payload.getTypeUrl() + " but its corresponding class type cannot be "
+                        + "found in in-memory type map. Dumping map..\n");
                 for (String entry: classMap.keySet()) {
                     log.error(entry + "=>" + classMap.get(entry));
                 }
-                throw new SerializerException(payload.getTypeUrl()+" not in map!");
+                throw new SerializerException(payload.getTypeUrl() + " not in map!");
             }
             Message value = payload.unpack(classMap.get(payload.getTypeUrl()));
 
@@ -123,6 +291,37 @@ public class ProtobufSerializer implements ISerializer {
      */
     @Override
     public void serialize(Object o, ByteBuf b) {
+        if (!compactRecords) {
+            serializeAny(o, b);
+            return;
+        }
+
+        try {
+            if (o instanceof CorfuRecord) {
+                CorfuRecord corfuRecord = (CorfuRecord) o;
+                b.writeInt(MessageType.COMPACT_VALUE.val);
+                writeCompactMessage(corfuRecord.getPayload(), b);
+                b.writeBoolean(corfuRecord.getMetadata() != null);
+                if (corfuRecord.getMetadata() != null) {
+                    writeCompactMessage(corfuRecord.getMetadata(), b);
+                }
+            } else {
+                b.writeInt(MessageType.COMPACT_KEY.val);
+                writeCompactMessage((Message) o, b);
+            }
+        } catch (IOException ie) {
+            log.error("Exception during serialization!", ie);
+            throw new SerializerException(ie);
+        }
+    }
+
+    /**
+     * Serialize an object into a given byte buffer, in the original Any-encoded format.
+     *
+     * @param o The object to serialize.
+     * @param b The bytebuf to serialize it into.
+     */
+    private void serializeAny(Object o, ByteBuf b) {
 
         Record record;
         MessageType type;
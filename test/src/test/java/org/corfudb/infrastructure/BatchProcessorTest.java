@@ -0,0 +1,211 @@
+package org.corfudb.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.corfudb.AbstractCorfuTest;
+import org.corfudb.infrastructure.BatchProcessor.SyncPolicy;
+import org.corfudb.infrastructure.BatchWriterOperation.Type;
+import org.corfudb.infrastructure.LogUnitServer.LogUnitServerConfig;
+import org.corfudb.infrastructure.log.StreamLog;
+import org.corfudb.infrastructure.log.StreamLogFiles;
+import org.corfudb.protocols.logprotocol.CheckpointEntry.CheckpointEntryType;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.TailsRequest;
+import org.corfudb.protocols.wireprotocol.TailsResponse;
+import org.corfudb.protocols.wireprotocol.WriteRequest;
+import org.corfudb.runtime.exceptions.OverwriteException;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.corfudb.util.serializer.Serializers;
+import org.junit.Test;
+
+/**
+ * Tests the group commit of the {@link BatchProcessor}.
+ */
+public class BatchProcessorTest extends AbstractCorfuTest {
+
+    private static final int NUM_WRITES = 300;
+
+    private StreamLog getStreamLog() {
+        ServerContext context = new ServerContextBuilder()
+                .setLogPath(PARAMETERS.TEST_TEMP_DIR)
+                .setMemory(false)
+                .build();
+        return new StreamLogFiles(context, false);
+    }
+
+    private WriteRequest getWriteRequest(long address) {
+        ByteBuf b = Unpooled.buffer();
+        Serializers.CORFU.serialize(Long.toString(address).getBytes(), b);
+        WriteRequest request = WriteRequest.builder()
+                .data(new LogData(DataType.DATA, b))
+                .build();
+        request.setGlobalAddress(address);
+        request.setBackpointerMap(Collections.emptyMap());
+        return request;
+    }
+
+    private CompletableFuture<Void> write(BatchProcessor processor, WriteRequest request) {
+        CorfuPayloadMsg<WriteRequest> msg = CorfuMsgType.WRITE.payloadMsg(request);
+        msg.setEpoch(0L);
+        return processor.addTask(Type.WRITE, msg);
+    }
+
+    private CompletableFuture<Void> write(BatchProcessor processor, long address) {
+        return write(processor, getWriteRequest(address));
+    }
+
+    /**
+     * Writes to adjacent addresses are coalesced, while every write still gets its own result.
+     */
+    @Test
+    public void testCoalescedWrites() {
+        final long overwrittenAddress = 5L;
+        StreamLog streamLog = getStreamLog();
+        BatchProcessor processor = new BatchProcessor(streamLog, 0L, true);
+
+        write(processor, overwrittenAddress).join();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (long address = 0; address < NUM_WRITES; address++) {
+            futures.add(write(processor, address));
+        }
+
+        for (long address = 0; address < NUM_WRITES; address++) {
+            CompletableFuture<Void> future = futures.get((int) address);
+            if (address == overwrittenAddress) {
+                assertThatThrownBy(future::join).hasCauseExactlyInstanceOf(OverwriteException.class);
+            } else {
+                future.join();
+            }
+            assertThat(streamLog.read(address).getPayload(null))
+                    .isEqualTo(Long.toString(address).getBytes());
+        }
+
+        assertThat(streamLog.getLogTail()).isEqualTo(NUM_WRITES - 1);
+        processor.close();
+        streamLog.close();
+    }
+
+    /**
+     * A checkpoint END record written by a client with coalesced writes updates the tail
+     * of the checkpointed stream, but doesn't move its trim mark, which is only set by
+     * explicit trims (or a state transfer) like for single address writes.
+     */
+    @Test
+    public void testCoalescedCheckpointEnd() {
+        final long checkpointEndAddress = NUM_WRITES / 2;
+        final UUID streamId = UUID.randomUUID();
+        StreamLog streamLog = getStreamLog();
+        BatchProcessor processor = new BatchProcessor(streamLog, 0L, true);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (long address = 0; address < NUM_WRITES; address++) {
+            WriteRequest request = getWriteRequest(address);
+            if (address < checkpointEndAddress) {
+                request.setBackpointerMap(Collections.singletonMap(streamId, Address.NON_ADDRESS));
+            } else if (address == checkpointEndAddress) {
+                request.setCheckpointType(CheckpointEntryType.END);
+                request.setCheckpointId(UUID.randomUUID());
+                request.setCheckpointedStreamId(streamId);
+                request.setCheckpointedStreamStartLogAddress(checkpointEndAddress - 1);
+            }
+            futures.add(write(processor, request));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        StreamAddressSpace addressSpace = streamLog.getStreamsAddressSpace()
+                .getAddressMap().get(streamId);
+        assertThat(addressSpace.getTrimMark()).isEqualTo(Address.NON_EXIST);
+        assertThat(addressSpace.getAddressMap().getLongCardinality()).isEqualTo(checkpointEndAddress);
+        assertThat(streamLog.getTails(Collections.singletonList(streamId)).getStreamTails())
+                .containsEntry(streamId, checkpointEndAddress - 1);
+        processor.close();
+        streamLog.close();
+    }
+
+    /**
+     * Writes are completed with the interval and bytes sync policies, even when the
+     * sync threshold is not reached.
+     */
+    @Test
+    public void testDeferredSyncPolicies() {
+        for (SyncPolicy policy : new SyncPolicy[]{SyncPolicy.INTERVAL, SyncPolicy.BYTES}) {
+            StreamLog streamLog = getStreamLog();
+            streamLog.reset();
+            LogUnitServerConfig config = LogUnitServerConfig.builder()
+                    .syncPolicy(policy)
+                    .syncBytes(Long.MAX_VALUE)
+                    .build();
+            BatchProcessor processor = new BatchProcessor(streamLog, 0L, config);
+            assertThat(processor.getSyncPolicy()).isEqualTo(policy);
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (long address = 0; address < NUM_WRITES; address++) {
+                futures.add(write(processor, address));
+            }
+            futures.forEach(CompletableFuture::join);
+
+            assertThat(streamLog.getLogTail()).isEqualTo(NUM_WRITES - 1);
+            assertThat(processor.getBatchSize())
+                    .isBetween(BatchProcessor.MIN_BATCH_SIZE, BatchProcessor.MAX_BATCH_SIZE);
+            processor.close();
+            streamLog.close();
+        }
+    }
+
+    /**
+     * With the bytes sync policy, writes under the sync threshold are synced once the sync
+     * interval has elapsed, even when operations that write no bytes keep arriving.
+     */
+    @Test
+    public void testBytesSyncPolicyWithTrickle() {
+        final long syncIntervalMs = 10;
+        final long queryLatencyMs = 1;
+        final int numQueries = 500;
+        StreamLog streamLog = spy(getStreamLog());
+        streamLog.reset();
+        doAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(queryLatencyMs);
+            return invocation.callRealMethod();
+        }).when(streamLog).getLogTail();
+        LogUnitServerConfig config = LogUnitServerConfig.builder()
+                .syncPolicy(SyncPolicy.BYTES)
+                .syncIntervalMs(syncIntervalMs)
+                .syncBytes(Long.MAX_VALUE)
+                .build();
+        BatchProcessor processor = new BatchProcessor(streamLog, 0L, config);
+
+        // The queries keep the processor busy for many sync intervals after the write
+        long startTime = System.nanoTime();
+        CompletableFuture<Void> future = write(processor, 0L);
+        List<CompletableFuture<TailsResponse>> queries = new ArrayList<>();
+        for (int i = 0; i < numQueries; i++) {
+            CorfuPayloadMsg<TailsRequest> query = CorfuMsgType.TAIL_REQUEST
+                    .payloadMsg(new TailsRequest(TailsRequest.LOG_TAIL));
+            query.setEpoch(0L);
+            queries.add(processor.addTask(Type.TAILS_QUERY, query));
+        }
+
+        future.join();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime))
+                .isLessThan(numQueries * queryLatencyMs / 2);
+        queries.forEach(CompletableFuture::join);
+        processor.close();
+        streamLog.close();
+    }
+}
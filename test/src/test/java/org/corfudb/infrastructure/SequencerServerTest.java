@@ -2,9 +2,14 @@ package org.corfudb.infrastructure;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -17,6 +22,7 @@ import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenRequest;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TokenType;
+import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
 import org.corfudb.runtime.view.Address;
 import org.junit.Before;
 import org.junit.Test;
@@ -35,7 +41,11 @@ public class SequencerServerTest extends AbstractServerTest {
 
     @Override
     public AbstractServer getDefaultServer() {
-        ServerContext serverContext = new ServerContextBuilder().setSingle(true).build();
+        return getServer(new ServerContextBuilder().setSingle(true));
+    }
+
+    private SequencerServer getServer(ServerContextBuilder contextBuilder) {
+        ServerContext serverContext = contextBuilder.build();
         serverContext.installSingleNodeLayoutIfAbsent();
         serverContext.setServerRouter(router);
         router.setServerContext(serverContext);
@@ -296,4 +306,114 @@ public class SequencerServerTest extends AbstractServerTest {
                         Collections.emptyMap(), Collections.emptyMap()));
     }
 
+    /**
+     * Verifies that a partitioned sequencer hands out unique tokens and consistent
+     * backpointers to concurrent requests, and still detects conflicts across partitions.
+     */
+    @Test
+    public void partitionedSequencer() {
+        final int numThreads = 4;
+        final int numStreams = 8;
+        server.shutdown();
+        server = getServer(new ServerContextBuilder()
+                .setSingle(true)
+                .setSequencerThreads(Integer.toString(numThreads)));
+        setServer(server);
+        server.setSequencerEpoch(0L);
+
+        List<UUID> streams = new ArrayList<>();
+        for (int i = 0; i < numStreams; i++) {
+            streams.add(UUID.nameUUIDFromBytes(("stream" + i).getBytes()));
+        }
+
+        List<CompletableFuture<TokenResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_MODERATE; i++) {
+            UUID stream = streams.get(i % numStreams);
+            futures.add(sendRequest(new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                    new TokenRequest(1L, Collections.singletonList(stream)))));
+        }
+
+        // Every token is unique and the backpointers of each stream form a chain
+        Map<UUID, Map<Long, Long>> backpointers = new HashMap<>();
+        Set<Long> tokens = new HashSet<>();
+        for (int i = 0; i < futures.size(); i++) {
+            UUID stream = streams.get(i % numStreams);
+            TokenResponse response = futures.get(i).join();
+            assertThat(tokens.add(response.getSequence())).isTrue();
+            backpointers.computeIfAbsent(stream, s -> new TreeMap<>())
+                    .put(response.getSequence(), response.getBackpointerMap().get(stream));
+        }
+
+        for (UUID stream : streams) {
+            long previous = Address.NON_EXIST;
+            for (Map.Entry<Long, Long> entry : backpointers.get(stream).entrySet()) {
+                assertThat(entry.getValue()).isEqualTo(previous);
+                previous = entry.getKey();
+            }
+
+            CompletableFuture<TokenResponse> future = sendRequest(new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                    new TokenRequest(0L, Collections.singletonList(stream))));
+            assertThat(future.join().getStreamTail(stream)).isEqualTo(previous);
+        }
+        assertThat(server.getGlobalLogTail()).isEqualTo(PARAMETERS.NUM_ITERATIONS_MODERATE);
+
+        // A transaction that read a stream written after its snapshot aborts
+        Token snapshot = new Token(0L, 0L);
+        TxResolutionInfo txInfo = new TxResolutionInfo(UUID.randomUUID(), snapshot,
+                Collections.singletonMap(streams.get(1), Collections.emptySet()),
+                Collections.emptyMap());
+        CompletableFuture<TokenResponse> future = sendRequest(new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                new TokenRequest(1L, Collections.singletonList(streams.get(0)), txInfo)));
+        assertThat(future.join().getRespType()).isEqualTo(TokenType.TX_ABORT_CONFLICT);
+    }
+
+    /**
+     * Measures the transactions per second of a sequencer with one thread and of a partitioned
+     * sequencer, which are reported in the status of the test. The transactions write disjoint
+     * streams from concurrent clients, so that the partitioned sequencer serves them in parallel.
+     */
+    @Test
+    public void partitionedSequencerThroughput() throws Exception {
+        final int numStreams = 16;
+        final int numClients = PARAMETERS.CONCURRENCY_SOME;
+        final int numRequests = PARAMETERS.NUM_ITERATIONS_LARGE;
+        final int requestsPerClient = numRequests / numClients;
+
+        List<UUID> streams = new ArrayList<>();
+        for (int i = 0; i < numStreams; i++) {
+            streams.add(UUID.nameUUIDFromBytes(("stream" + i).getBytes()));
+        }
+
+        for (int numThreads : new int[]{1, PARAMETERS.CONCURRENCY_SOME}) {
+            // Stops the executor of the sequencer measured before
+            server.shutdown();
+            server = getServer(new ServerContextBuilder()
+                    .setSingle(true)
+                    .setSequencerThreads(Integer.toString(numThreads)));
+            setServer(server);
+            server.setSequencerEpoch(0L);
+
+            scheduleConcurrently(numClients, client -> {
+                List<CompletableFuture<TokenResponse>> futures = new ArrayList<>();
+                for (int i = 0; i < requestsPerClient; i++) {
+                    UUID stream = streams.get((client + i * numClients) % numStreams);
+                    byte[] conflictKey = (client + ":" + i).getBytes();
+                    TxResolutionInfo txInfo = new TxResolutionInfo(UUID.randomUUID(),
+                            new Token(0L, 0L), Collections.emptyMap(),
+                            Collections.singletonMap(stream, Collections.singleton(conflictKey)));
+                    futures.add(sendRequest(new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                            new TokenRequest(1L, Collections.singletonList(stream), txInfo))));
+                }
+                for (CompletableFuture<TokenResponse> future : futures) {
+                    assertThat(future.join().getRespType()).isEqualTo(TokenType.NORMAL);
+                }
+            });
+
+            long startTime = System.currentTimeMillis();
+            executeScheduled(numClients, PARAMETERS.TIMEOUT_LONG);
+            calculateRequestsPerSecond("TPS" + numThreads, requestsPerClient * numClients,
+                    startTime);
+            assertThat(server.getGlobalLogTail()).isEqualTo(requestsPerClient * numClients);
+        }
+    }
 }
@@ -36,7 +36,9 @@ public class ServerContextBuilder {
     String address = "test";
     int port = 9000;
     String seqCache = "1000";
+    String sequencerThreads = "1";
     String logSizeLimitPercentage = "100.0";
+    String mmapSegments = "0";
     String batchSize = "100";
     String managementBootstrapEndpoint = null;
     IServerRouter serverRouter;
@@ -60,7 +62,9 @@ public class ServerContextBuilder {
                 .put("--Threads", numThreads)
                 .put("--HandshakeTimeout", handshakeTimeout)
                 .put("--sequencer-cache-size", seqCache)
+                .put("--sequencer-threads", sequencerThreads)
                 .put("--log-size-quota-percentage", logSizeLimitPercentage)
+                .put("--mmap-segments", mmapSegments)
                 .put("--batch-size", batchSize)
                 .put("--metadata-retention", retention);
         if (logPath != null) {
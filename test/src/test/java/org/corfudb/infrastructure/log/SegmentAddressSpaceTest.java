@@ -0,0 +1,101 @@
+package org.corfudb.infrastructure.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.corfudb.infrastructure.log.StreamLogFiles.RECORDS_PER_LOG_FILE;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.corfudb.AbstractCorfuTest;
+import org.junit.Test;
+
+public class SegmentAddressSpaceTest extends AbstractCorfuTest {
+
+    @Test
+    public void testPutAndGet() {
+        final long segment = 3L;
+        final long firstAddress = segment * RECORDS_PER_LOG_FILE;
+        final long lastAddress = firstAddress + RECORDS_PER_LOG_FILE - 1;
+        final int checksum = -7;
+        final int length = 100;
+        final long offset = Integer.MAX_VALUE + 1L;
+
+        SegmentAddressSpace addressSpace = new SegmentAddressSpace(segment);
+        assertThat(addressSpace.isEmpty()).isTrue();
+        assertThat(addressSpace.get(firstAddress)).isNull();
+        assertThat(addressSpace.contains(firstAddress)).isFalse();
+
+        addressSpace.put(firstAddress, new AddressMetaData(checksum, length, offset));
+        addressSpace.put(lastAddress, new AddressMetaData(checksum, length, offset + length));
+
+        AddressMetaData metaData = addressSpace.get(firstAddress);
+        assertThat(metaData.checksum).isEqualTo(checksum);
+        assertThat(metaData.length).isEqualTo(length);
+        assertThat(metaData.offset).isEqualTo(offset);
+        assertThat(addressSpace.get(lastAddress).offset).isEqualTo(offset + length);
+        assertThat(addressSpace.contains(firstAddress + 1)).isFalse();
+        assertThat(addressSpace.size()).isEqualTo(2);
+
+        // Overwriting an address (i.e. a ranked write) doesn't change the size
+        addressSpace.put(firstAddress, new AddressMetaData(checksum, length, offset + 1));
+        assertThat(addressSpace.get(firstAddress).offset).isEqualTo(offset + 1);
+        assertThat(addressSpace.size()).isEqualTo(2);
+
+        List<Long> addresses = new ArrayList<>();
+        addressSpace.forEachAddress(addresses::add);
+        assertThat(addresses).containsExactly(firstAddress, lastAddress);
+
+        // Addresses of other segments are never contained in this segment
+        assertThat(addressSpace.contains(lastAddress + 1)).isFalse();
+        assertThat(addressSpace.get(firstAddress - 1)).isNull();
+        assertThatThrownBy(() -> addressSpace.put(lastAddress + 1,
+                new AddressMetaData(checksum, length, offset)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testReadsAreNotTornByOverwrites() throws Exception {
+        final long segment = 2L;
+        final long address = segment * RECORDS_PER_LOG_FILE;
+        final int overwrites = 100_000;
+        final int scale = 10;
+
+        // Every metadata written has length = checksum * scale and offset = length * scale
+        SegmentAddressSpace addressSpace = new SegmentAddressSpace(segment);
+        addressSpace.put(address, new AddressMetaData(1, scale, scale * scale));
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= overwrites; i++) {
+                addressSpace.put(address, new AddressMetaData(i, i * scale, (long) i * scale * scale));
+            }
+        });
+        writer.start();
+
+        while (writer.isAlive()) {
+            AddressMetaData metaData = addressSpace.get(address);
+            assertThat(metaData.length).isEqualTo(metaData.checksum * scale);
+            assertThat(metaData.offset).isEqualTo((long) metaData.length * scale);
+        }
+        writer.join();
+        assertThat(addressSpace.get(address).checksum).isEqualTo(overwrites);
+        assertThat(addressSpace.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTrimmedAddresses() {
+        final long segment = 1L;
+        final long address = segment * RECORDS_PER_LOG_FILE + 5;
+
+        SegmentAddressSpace addressSpace = new SegmentAddressSpace(segment);
+        assertThat(addressSpace.isTrimmed(address)).isFalse();
+        assertThat(addressSpace.isPendingTrim(address)).isFalse();
+
+        addressSpace.trim(address);
+        addressSpace.addPendingTrim(address + 1);
+
+        assertThat(addressSpace.isTrimmed(address)).isTrue();
+        assertThat(addressSpace.isTrimmed(address + 1)).isFalse();
+        assertThat(addressSpace.isPendingTrim(address + 1)).isTrue();
+        assertThat(addressSpace.isPendingTrim(address)).isFalse();
+        assertThat(addressSpace.isTrimmed(address + RECORDS_PER_LOG_FILE)).isFalse();
+    }
+}
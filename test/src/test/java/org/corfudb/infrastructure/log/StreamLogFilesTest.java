@@ -16,9 +16,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.io.FileUtils;
 import org.assertj.core.api.Assertions;
@@ -31,9 +33,11 @@ import org.corfudb.infrastructure.log.LogFormat.LogHeader;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.runtime.exceptions.DataCorruptionException;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.test.LsofSpec;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
@@ -49,11 +53,14 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
     }
 
     private ServerContext getContext() {
+        return getContextBuilder().build();
+    }
+
+    private ServerContextBuilder getContextBuilder() {
         String path = getDirPath();
         return new ServerContextBuilder()
                 .setLogPath(path)
-                .setMemory(false)
-                .build();
+                .setMemory(false);
     }
 
     /**
@@ -749,6 +756,151 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(log.read(address0).getPayload(null)).isEqualTo(streamEntry);
     }
 
+    /**
+     * Writes three segments worth of data to two streams, restarts the stream log and
+     * verifies that the sealed segments are loaded from their persisted indexes and
+     * that the log metadata is equivalent to the one built by scanning the log.
+     */
+    @Test
+    public void testSegmentIndexStartUp() throws Exception {
+        String indexDir = getContext().getServerConfig().get("--log-path") + File.separator + "index";
+        StreamLogFiles log = new StreamLogFiles(getContext(), false);
+        UUID streamA = UUID.randomUUID();
+        UUID streamB = UUID.randomUUID();
+
+        final long numSegments = 3;
+        final long hole = RECORDS_PER_LOG_FILE / 2;
+        for (long x = 0; x < RECORDS_PER_LOG_FILE * numSegments; x++) {
+            if (x != hole) {
+                writeToLog(log, x, x % 2 == 0 ? streamA : streamB);
+            }
+        }
+
+        StreamsAddressResponse expected = log.getStreamsAddressSpace();
+        log.close();
+
+        // Only sealed segments have an index
+        assertThat(new File(indexDir).list()).containsExactlyInAnyOrder("0.index", "1.index");
+
+        log = new StreamLogFiles(getContext(), false);
+        assertThat(log.getLogTail()).isEqualTo(RECORDS_PER_LOG_FILE * numSegments - 1);
+        assertStreamsAddressSpace(log.getStreamsAddressSpace(), expected, streamA, streamB);
+        assertThat(log.read(hole)).isNull();
+        assertThat(log.read(hole + 1).getPayload(null)).isEqualTo("Payload".getBytes());
+
+        // Fill the hole of a sealed segment, the record is appended after the indexed records
+        writeToLog(log, hole, streamA);
+        expected = log.getStreamsAddressSpace();
+        log = new StreamLogFiles(getContext(), false);
+        assertStreamsAddressSpace(log.getStreamsAddressSpace(), expected, streamA, streamB);
+        assertThat(log.read(hole).getPayload(null)).isEqualTo("Payload".getBytes());
+
+        // A corrupted index falls back to a scan of the segment
+        try (RandomAccessFile indexFile = new RandomAccessFile(indexDir + File.separator + "1.index", "rw")) {
+            indexFile.seek(METADATA_SIZE + 1);
+            indexFile.writeInt(-1);
+        }
+        log = new StreamLogFiles(getContext(), false);
+        assertStreamsAddressSpace(log.getStreamsAddressSpace(), expected, streamA, streamB);
+        assertThat(log.read(RECORDS_PER_LOG_FILE + 1).getPayload(null)).isEqualTo("Payload".getBytes());
+    }
+
+    private void assertStreamsAddressSpace(StreamsAddressResponse actual, StreamsAddressResponse expected,
+                                           UUID... streams) {
+        for (UUID stream : streams) {
+            StreamAddressSpace actualSpace = actual.getAddressMap().get(stream);
+            StreamAddressSpace expectedSpace = expected.getAddressMap().get(stream);
+            assertThat(actualSpace.getAddressMap()).isEqualTo(expectedSpace.getAddressMap());
+            assertThat(actualSpace.getTrimMark()).isEqualTo(expectedSpace.getTrimMark());
+        }
+    }
+
+    private void writeToLog(StreamLog log, long address, UUID stream) {
+        ByteBuf b = Unpooled.buffer();
+        byte[] streamEntry = "Payload".getBytes();
+        Serializers.CORFU.serialize(streamEntry, b);
+        LogData data = new LogData(DataType.DATA, b);
+        data.setBackpointerMap(Collections.singletonMap(stream, Address.NON_EXIST));
+        data.setGlobalAddress(address);
+        log.append(address, data);
+    }
+
+    /**
+     * Verifies that records of sealed segments are served from memory-mapped
+     * segments, that the number of mapped segments is bounded and that the
+     * mappings of trimmed segments are released.
+     */
+    @Test
+    public void testMappedSegmentReads() {
+        StreamLogFiles log = new StreamLogFiles(getContextBuilder().setMmapSegments("2").build(), false);
+
+        final long numSegments = 4;
+        final long hole = RECORDS_PER_LOG_FILE + 1;
+        for (long x = 0; x < RECORDS_PER_LOG_FILE * numSegments; x++) {
+            if (x != hole) {
+                writeToLog(log, x);
+            }
+        }
+
+        for (long x = 0; x < RECORDS_PER_LOG_FILE * numSegments; x++) {
+            if (x != hole) {
+                assertThat(log.read(x).getPayload(null)).isEqualTo("Payload".getBytes());
+            }
+        }
+
+        // Only two of the three sealed segments remain mapped, the tail segment is never mapped
+        assertThat(log.getSegmentMappings()).containsOnlyKeys(1L, 2L);
+
+        // A record written to a sealed segment after it has been mapped is still readable
+        writeToLog(log, hole);
+        assertThat(log.read(hole).getPayload(null)).isEqualTo("Payload".getBytes());
+
+        // Mappings of trimmed segments are released
+        log.prefixTrim(RECORDS_PER_LOG_FILE * 2 + 1);
+        log.compact();
+        assertThat(log.getSegmentMappings()).containsOnlyKeys(2L);
+        assertThat(log.read(RECORDS_PER_LOG_FILE * 2 + 2).getPayload(null)).isEqualTo("Payload".getBytes());
+        log.close();
+    }
+
+    /**
+     * Verifies that the least recently read segment is unmapped first, and that the
+     * mapping of a trimmed segment is unmapped once the last reader retaining it
+     * releases it.
+     */
+    @Test
+    public void testMappedSegmentsUnmapping() {
+        StreamLogFiles log = new StreamLogFiles(getContextBuilder().setMmapSegments("2").build(), false);
+
+        final long numSegments = 4;
+        for (long x = 0; x < RECORDS_PER_LOG_FILE * numSegments; x++) {
+            writeToLog(log, x);
+        }
+
+        // Segment 0 is read again after segment 1, so mapping segment 2 evicts segment 1
+        log.read(0);
+        log.read(RECORDS_PER_LOG_FILE);
+        log.read(0);
+        SegmentMapping evicted = log.getSegmentMappings().get(1L);
+        log.read(RECORDS_PER_LOG_FILE * 2);
+        assertThat(log.getSegmentMappings()).containsOnlyKeys(0L, 2L);
+        assertThat(evicted.isUnmapped()).isTrue();
+
+        // A reader still retains the mapping of segment 0 while it is trimmed
+        SegmentMapping trimmed = log.getSegmentMappings().get(0L);
+        trimmed.retain();
+        log.prefixTrim(RECORDS_PER_LOG_FILE + 1);
+        log.compact();
+        assertThat(log.getSegmentMappings()).containsOnlyKeys(2L);
+        assertThat(trimmed.isUnmapped()).isFalse();
+        trimmed.release();
+        assertThat(trimmed.isUnmapped()).isTrue();
+
+        SegmentMapping closed = log.getSegmentMappings().get(2L);
+        log.close();
+        assertThat(closed.isUnmapped()).isTrue();
+    }
+
     @Test
     public void estimateSizeTest() throws IOException {
         // Create two nested directories and create files in each,
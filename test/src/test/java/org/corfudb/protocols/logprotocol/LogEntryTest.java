@@ -4,12 +4,17 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.corfudb.CustomSerializer;
 import org.corfudb.runtime.exceptions.SerializerException;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.SMRMethodDictionary;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.After;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -51,6 +56,50 @@ public class LogEntryTest {
         assertThat(buf.readerIndex()).isEqualTo(buf.writerIndex());
     }
 
+    @Test
+    public void smrEntryWithMethodId() {
+        // An entry which refers to its method by ID is smaller than the same entry
+        // with the name of the method, and is resolved by the dictionary of the object
+        final String method = "method";
+        SMRMethodDictionary dictionary = new SMRMethodDictionary(new String[]{method, "other"});
+        SMREntry byName = new SMREntry(method, new Object[]{"arg1"}, Serializers.PRIMITIVE);
+        SMREntry byId = new SMREntry(method, dictionary.getMethodId(method),
+                new Object[]{"arg1"}, Serializers.PRIMITIVE);
+        assertThat(byId.getMethodId()).isEqualTo(ICorfuSMR.getSMRMethodId(method));
+        assertThat(dictionary.getMethodId("unknown")).isEqualTo(SMREntry.NO_METHOD_ID);
+
+        ByteBuf buf = Unpooled.buffer();
+        Serializers.CORFU.serialize(byName, buf);
+        final int nameSize = buf.readableBytes();
+        Serializers.CORFU.serialize(byId, buf);
+        assertThat(buf.readableBytes() - nameSize).isEqualTo(nameSize - method.length());
+
+        // Both formats are decoded, and can be skipped
+        SMREntry recoveredByName = (SMREntry) Serializers.CORFU.deserialize(buf, null);
+        assertThat(recoveredByName).isEqualTo(byName);
+        final int idIndex = buf.readerIndex();
+        SMREntry recoveredById = (SMREntry) Serializers.CORFU.deserialize(buf, null);
+        assertThat(recoveredById.getMethodId()).isEqualTo(byId.getMethodId());
+        assertThat(recoveredById.getSMRArguments()).containsExactly("arg1");
+        // The ID is only resolved by the methods of the object, not by the methods of
+        // the other dictionaries, and classes without a dictionary are rejected
+        assertThatThrownBy(recoveredById::getSMRMethod)
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> SMRMethodDictionary.forClass(LogEntryTest.class))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(recoveredById.resolveSMRMethod(dictionary)).isSameAs(
+                dictionary.getMethodName(byId.getMethodId()));
+        assertThat(recoveredById).isEqualTo(byId);
+        buf.readerIndex(idIndex);
+        SMREntry.seekToEnd(buf);
+        assertThat(buf.readerIndex()).isEqualTo(buf.writerIndex());
+
+        // Re-serializing an entry keeps the ID of its method
+        ByteBuf copy = Unpooled.buffer();
+        Serializers.CORFU.serialize(recoveredById, copy);
+        assertThat(copy.readableBytes()).isEqualTo(buf.writerIndex() - nameSize);
+    }
+
     @Test
     public void seekToEndMultiSMREntry() {
         // Create a buffer with two serialized MultiSMR entries
@@ -161,4 +210,35 @@ public class LogEntryTest {
         multiSMREntry2.getUpdates().stream().forEach(entry -> assertThat(entry.getGlobalAddress())
                 .isEqualTo(entryAddress));
     }
+
+    @Test
+    public void testLazyStreamIndexing() {
+        // This test verifies that the streams of a deserialized MultiObjectSMREntry
+        // can be accessed in any order, and that accessing a stream which isn't part
+        // of the entry yields no updates.
+        final int numStreams = 10;
+        MultiObjectSMREntry multiObjSmrEntry = new MultiObjectSMREntry();
+        Map<UUID, SMREntry> updates = new LinkedHashMap<>();
+        for (int i = 0; i < numStreams; i++) {
+            UUID id = UUID.randomUUID();
+            SMREntry update = new SMREntry("method" + i, new Object[]{"arg" + i}, Serializers.PRIMITIVE);
+            updates.put(id, update);
+            multiObjSmrEntry.addTo(id, update);
+        }
+
+        ByteBuf buf = Unpooled.buffer();
+        multiObjSmrEntry.serialize(buf);
+        MultiObjectSMREntry deserializedEntry = (MultiObjectSMREntry) LogEntry.deserialize(buf, null);
+        assertThat(buf.readerIndex()).isEqualTo(buf.writerIndex());
+
+        List<UUID> ids = new ArrayList<>(updates.keySet());
+        Collections.reverse(ids);
+        UUID lastId = ids.get(0);
+        assertThat(deserializedEntry.getSMRUpdates(lastId)).containsExactly(updates.get(lastId));
+        assertThat(deserializedEntry.getSMRUpdates(UUID.randomUUID())).isEmpty();
+        ids.forEach(id -> assertThat(deserializedEntry.getSMRUpdates(id)).containsExactly(updates.get(id)));
+
+        assertThat(deserializedEntry.getStreamBuffers()).isEmpty();
+        assertThat(deserializedEntry.getEntryMap().keySet()).isEqualTo(updates.keySet());
+    }
 }
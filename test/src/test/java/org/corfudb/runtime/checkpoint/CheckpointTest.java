@@ -383,6 +383,48 @@ public class CheckpointTest extends AbstractObjectTest {
         }
     }
 
+    /**
+     * This test checkpoints two maps one after the other, then concurrently at a shared
+     * snapshot, with pipelined, byte-sized CONTINUATION records, then trims the log up to
+     * the checkpoint and verifies that the maps are rebuilt from the checkpoints.
+     */
+    @Test
+    public void parallelCkpointTrimTest() throws Exception {
+        final int mapSize = PARAMETERS.NUM_ITERATIONS_LOW;
+        final int maxInFlightAppends = 4;
+        final long batchBytes = 64;
+
+        CorfuRuntime rt = getNewRuntime();
+
+        try {
+            Map<String, Long> mapA = openMap(rt, streamNameA);
+            Map<String, Long> mapB = openMap(rt, streamNameB);
+            populateMaps(mapSize, mapA, mapB);
+
+            for (int parallelism : new int[]{1, 2}) {
+                MultiCheckpointWriter mcw = new MultiCheckpointWriter();
+                mcw.addMap((CorfuTable) mapA);
+                mcw.addMap((CorfuTable) mapB);
+                mcw.setParallelism(parallelism);
+                mcw.setMaxInFlightAppends(maxInFlightAppends);
+                mcw.setBatchBytes(batchBytes);
+                Token checkpointAddress = mcw.appendCheckpoints(rt, author);
+
+                // The checkpoints are taken after all the updates
+                assertThat(checkpointAddress.getSequence()).isGreaterThanOrEqualTo(mapSize * 2L);
+
+                rt.getAddressSpaceView().prefixTrim(checkpointAddress);
+                rt.getAddressSpaceView().gc();
+                rt.getAddressSpaceView().invalidateServerCaches();
+                rt.getAddressSpaceView().invalidateClientCache();
+
+                validateMapRebuild(mapSize, true, false);
+            }
+        } finally {
+            rt.shutdown();
+        }
+    }
+
     /**
      * This test verifies that a stream can be rebuilt from a checkpoint even
      * when the prefix trim message has not reached the sequencer but yet addresses
@@ -6,24 +6,37 @@ import com.google.protobuf.DynamicMessage;
 import com.google.protobuf.Message;
 
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CorfuOptions;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.CorfuStoreMetadata;
 import org.corfudb.runtime.CorfuStoreMetadata.Timestamp;
+import org.corfudb.runtime.object.CorfuCompileProxy;
+import org.corfudb.runtime.object.VersionLockedObject;
 import org.corfudb.runtime.view.AbstractViewTest;
 import org.corfudb.runtime.view.TableRegistry;
 import org.corfudb.test.SampleSchema;
+import org.corfudb.test.SampleSchema.CompositeIndexNamedAfterField;
+import org.corfudb.test.SampleSchema.Device;
 import org.corfudb.test.SampleSchema.EventInfo;
+import org.corfudb.test.SampleSchema.InvalidCompositeIndex;
+import org.corfudb.test.SampleSchema.Location;
+import org.corfudb.test.SampleSchema.Severity;
 import org.corfudb.test.SampleSchema.Uuid;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static com.google.protobuf.DescriptorProtos.DescriptorProto;
@@ -159,6 +172,526 @@ public class CorfuStoreTest extends AbstractViewTest {
 
     }
 
+    /**
+     * Demonstrates the range, prefix, top-N and min/max queries on the ordered secondary
+     * indexes declared in the protobuf schema, and the rollback of the ordered indexes on abort.
+     */
+    @Test
+    public void orderedSecondaryIndexTest() throws Exception {
+        CorfuStore corfuStore = new CorfuStore(getDefaultRuntime());
+        final String nsxManager = "nsx-manager";
+        final String tableName = "EventInfo";
+        Table<Uuid, EventInfo, ManagedResources> table = corfuStore.openTable(
+                nsxManager,
+                tableName,
+                Uuid.class,
+                EventInfo.class,
+                ManagedResources.class,
+                TableOptions.builder().build());
+
+        final int count = 20;
+        final long rangeStart = 10L;
+        final long rangeEnd = 15L;
+        final int topN = 3;
+        final long lateEventTime = 100L;
+        ManagedResources metadata = ManagedResources.newBuilder().setCreateUser("MrProto").build();
+
+        TxnContext writeTx = corfuStore.txn(nsxManager);
+        for (int i = 0; i < count; i++) {
+            writeTx.putRecord(table, Uuid.newBuilder().setLsb(i).setMsb(i).build(),
+                    EventInfo.newBuilder().setId(i).setName("event_" + i).setEventTime(i).build(),
+                    metadata);
+        }
+        writeTx.commit();
+
+        TxnContext tx = corfuStore.txn(nsxManager);
+        assertThat(tx.getByIndexRange(table, "event_time", rangeStart, true, rangeEnd, false)
+                .stream().map(entry -> entry.getPayload().getEventTime()))
+                .containsExactlyElementsOf(LongStream.range(rangeStart, rangeEnd).boxed()
+                        .collect(Collectors.toList()));
+        assertThat(tx.getByIndexRange(table, "event_time", rangeEnd, true, rangeStart, true))
+                .isEmpty();
+        // Names are sorted lexicographically: event_1, event_10, ..., event_19
+        List<Integer> expectedIds = new ArrayList<>();
+        expectedIds.add(1);
+        IntStream.range((int) rangeStart, count).forEach(expectedIds::add);
+        assertThat(tx.getByIndexPrefix(table, "name", "event_1")
+                .stream().map(entry -> entry.getPayload().getId()))
+                .containsExactlyElementsOf(expectedIds);
+        assertThat(tx.getByIndexTopN(table, "event_time", topN, true)
+                .stream().map(entry -> entry.getPayload().getEventTime()))
+                .containsExactly(count - 1L, count - 2L, (long) count - topN);
+        assertThat((Long) tx.getMinIndexKey(table, "event_time")).isZero();
+        assertThat((Long) tx.getMaxIndexKey(table, "event_time")).isEqualTo(count - 1L);
+
+        // Exact-match lookups are unaffected
+        assertThat(tx.getByIndex(table, "event_time", rangeStart)).hasSize(1);
+
+        // The ordered indexes reflect the writes of the transaction...
+        tx.putRecord(table, Uuid.newBuilder().setLsb(0L).setMsb(0L).build(),
+                EventInfo.newBuilder().setId(0).setName("event_0").setEventTime(lateEventTime).build(),
+                metadata);
+        assertThat((Long) tx.getMinIndexKey(table, "event_time")).isEqualTo(1L);
+        assertThat((Long) tx.getMaxIndexKey(table, "event_time")).isEqualTo(lateEventTime);
+        tx.txAbort();
+
+        // ...and are rolled back once it aborts
+        TxnContext readTx = corfuStore.txn(nsxManager);
+        assertThat((Long) readTx.getMinIndexKey(table, "event_time")).isZero();
+        assertThat((Long) readTx.getMaxIndexKey(table, "event_time")).isEqualTo(count - 1L);
+        assertThat(readTx.getByIndexTopN(table, "event_time", 1, false)
+                .stream().map(entry -> entry.getPayload().getId()))
+                .containsExactly(0);
+        readTx.commit();
+    }
+
+    /**
+     * Demonstrates the equi-join of 2 tables on a join key, executed as a hash join on either
+     * side, or as an index lookup join on a secondary index, and the equi-join of multiple
+     * tables. They all join the same values as a join on the equality predicate.
+     */
+    @Test
+    public void equiJoinTest() throws Exception {
+        CorfuStore corfuStore = new CorfuStore(getDefaultRuntime());
+        final String nsxManager = "nsx-manager";
+        final String eventTableName = "EventInfo";
+        final String alarmTableName = "AlarmInfo";
+        Table<Uuid, EventInfo, ManagedResources> events = corfuStore.openTable(nsxManager,
+                eventTableName, Uuid.class, EventInfo.class, ManagedResources.class,
+                TableOptions.builder().build());
+        Table<Uuid, EventInfo, ManagedResources> alarms = corfuStore.openTable(nsxManager,
+                alarmTableName, Uuid.class, EventInfo.class, ManagedResources.class,
+                TableOptions.builder().build());
+
+        // Several events share an event time, and only some of them have alarms
+        final int eventCount = 30;
+        final int alarmCount = 8;
+        final int eventTimes = 10;
+        TxnContext writeTx = corfuStore.txn(nsxManager);
+        for (int i = 0; i < eventCount; i++) {
+            writeTx.putRecord(events, Uuid.newBuilder().setLsb(i).build(),
+                    EventInfo.newBuilder().setId(i).setEventTime(i % eventTimes).build(), null);
+        }
+        for (int i = 0; i < alarmCount; i++) {
+            writeTx.putRecord(alarms, Uuid.newBuilder().setLsb(i).build(),
+                    EventInfo.newBuilder().setId(eventCount + i).setEventTime(i * 2).build(), null);
+        }
+        writeTx.commit();
+
+        QueryOptions<Uuid, EventInfo, ManagedResources, EventInfo> payloads =
+                QueryOptions.QueryOptionsBuilder.<Uuid, EventInfo, ManagedResources, EventInfo>newBuilder()
+                        .setProjection(CorfuStoreEntry::getPayload)
+                        .build();
+        TxnContext tx = corfuStore.txn(nsxManager);
+        List<String> expected = tx.executeJoinQuery(events, alarms, entry -> true, entry -> true,
+                payloads, payloads,
+                (event, alarm) -> event.getEventTime() == alarm.getEventTime(),
+                (event, alarm) -> event.getId() + "-" + alarm.getId(),
+                null).getResult().stream().map(String.class::cast).collect(Collectors.toList());
+        final int joinedCount = 15;
+        assertThat(expected).hasSize(joinedCount);
+
+        // Hash join, built on the alarms
+        assertThat(tx.executeJoinQuery(events, alarms, entry -> true, entry -> true,
+                payloads, payloads, EventInfo::getEventTime, EventInfo::getEventTime, null,
+                (event, alarm) -> event.getId() + "-" + alarm.getId(), Function.identity()).getResult())
+                .containsExactlyInAnyOrder(expected.toArray(new String[0]));
+
+        // Hash join, built on the events
+        final int filteredEventCount = 5;
+        List<String> streamed = new ArrayList<>();
+        tx.executeJoinQuery(events, alarms,
+                entry -> entry.getPayload().getId() < filteredEventCount, entry -> true,
+                payloads, payloads, EventInfo::getEventTime, EventInfo::getEventTime, null,
+                (event, alarm) -> event.getId() + "-" + alarm.getId(), Function.identity(), streamed::add);
+        assertThat(streamed).containsExactlyInAnyOrder("0-30", "2-31", "4-32");
+
+        // Index lookup join on the event time of the alarms
+        assertThat(alarms.hasSecondaryIndex("event_time")).isTrue();
+        assertThat(tx.executeJoinQuery(events, alarms, entry -> true, entry -> true,
+                payloads, payloads, EventInfo::getEventTime, EventInfo::getEventTime, "event_time",
+                (event, alarm) -> event.getId() + "-" + alarm.getId(), Function.identity()).getResult())
+                .containsExactlyInAnyOrder(expected.toArray(new String[0]));
+        tx.commit();
+
+        // Join of multiple tables
+        Query q = corfuStore.query(nsxManager);
+        List<String> tableNames = Arrays.asList(eventTableName, alarmTableName, alarmTableName);
+        Query.MergeFunction<String> mergeFunction = arguments -> arguments.stream()
+                .map(event -> Integer.toString(((EventInfo) event).getId()))
+                .collect(Collectors.joining("-"));
+        Collection<String> multiJoinResult = q.executeMultiJoinQuery(tableNames,
+                arguments -> arguments.stream()
+                        .map(event -> ((EventInfo) event).getEventTime())
+                        .distinct().count() == 1
+                        ? mergeFunction.merge(arguments) : null).getResult();
+        assertThat(multiJoinResult).hasSize(joinedCount);
+        assertThat(q.executeMultiJoinQuery(tableNames,
+                event -> ((EventInfo) event).getEventTime(), mergeFunction).getResult())
+                .containsExactlyInAnyOrder(multiJoinResult.toArray(new String[0]));
+    }
+
+    /**
+     * Demonstrates a paged scan, which is resumed in a new transaction at the snapshot of the
+     * resume token of the previous page, and doesn't see the updates made after its snapshot.
+     */
+    @Test
+    public void pagedScanTest() throws Exception {
+        CorfuStore corfuStore = new CorfuStore(getDefaultRuntime());
+        final String nsxManager = "nsx-manager";
+        final String tableName = "EventInfo";
+        Table<Uuid, EventInfo, ManagedResources> table = corfuStore.openTable(nsxManager,
+                tableName, Uuid.class, EventInfo.class, ManagedResources.class,
+                TableOptions.builder().build());
+
+        final int count = 50;
+        final int pageSize = 7;
+        TxnContext writeTx = corfuStore.txn(nsxManager);
+        for (int i = 0; i < count; i++) {
+            writeTx.putRecord(table, Uuid.newBuilder().setLsb(i).build(),
+                    EventInfo.newBuilder().setId(i).build(), null);
+        }
+        writeTx.commit();
+
+        List<Integer> expectedIds = IntStream.range(0, count).filter(i -> i % 2 == 0)
+                .boxed().collect(Collectors.toList());
+        List<Integer> scannedIds = new ArrayList<>();
+        TxnContext tx = corfuStore.txn(nsxManager);
+        ScanPage<CorfuStoreEntry<Uuid, EventInfo, ManagedResources>> page = tx.executeQuery(
+                table, entry -> entry.getPayload().getId() % 2 == 0, pageSize, null);
+        tx.commit();
+        while (true) {
+            assertThat(page.getEntries().size()).isLessThanOrEqualTo(pageSize);
+            page.getEntries().forEach(entry -> scannedIds.add(entry.getPayload().getId()));
+            if (page.isLast()) {
+                break;
+            }
+
+            // Updates made after the snapshot of the scan aren't scanned
+            writeTx = corfuStore.txn(nsxManager);
+            writeTx.putRecord(table, Uuid.newBuilder().setLsb(count + scannedIds.size()).build(),
+                    EventInfo.newBuilder().setId(count + scannedIds.size()).build(), null);
+            writeTx.delete(table, Uuid.newBuilder().setLsb(scannedIds.size()).build());
+            writeTx.commit();
+
+            tx = corfuStore.txn(nsxManager,
+                    IsolationLevel.snapshot(page.getResumeToken().getTimestamp()));
+            page = tx.executeQuery(table, entry -> entry.getPayload().getId() % 2 == 0,
+                    pageSize, page.getResumeToken());
+            tx.commit();
+        }
+        assertThat(scannedIds).containsExactlyInAnyOrder(expectedIds.toArray(new Integer[0]));
+
+        // A scan must be resumed at its snapshot
+        ScanToken resumeToken = table.scanAndFilterByEntry(entry -> true, pageSize, null)
+                .getResumeToken();
+        writeTx = corfuStore.txn(nsxManager);
+        writeTx.delete(table, Uuid.newBuilder().setLsb(0).build());
+        writeTx.commit();
+        TxnContext latestTx = corfuStore.txn(nsxManager);
+        assertThatThrownBy(() -> latestTx.executeQuery(table, entry -> true, pageSize, resumeToken))
+                .isInstanceOf(IllegalArgumentException.class);
+        latestTx.txAbort();
+
+        // Outside of a transaction, each page is read at the snapshot of the scan
+        List<Uuid> scannedKeys = new ArrayList<>();
+        ScanToken token = resumeToken;
+        do {
+            ScanPage<CorfuStoreEntry<Uuid, EventInfo, ManagedResources>> nextPage =
+                    table.scanAndFilterByEntry(entry -> true, pageSize, token);
+            nextPage.getEntries().forEach(entry -> scannedKeys.add(entry.getKey()));
+            token = nextPage.getResumeToken();
+        } while (token != null);
+        assertThat(scannedKeys).doesNotHaveDuplicates()
+                .hasSize(table.count() + 1 - pageSize);
+    }
+
+    /**
+     * Demonstrates queries by structured predicates, which are answered through the secondary
+     * indexes of the table when this is cheaper than a scan, and the explanation of their plans.
+     */
+    @Test
+    public void plannedQueryTest() throws Exception {
+        CorfuStore corfuStore = new CorfuStore(getDefaultRuntime());
+        final String nsxManager = "nsx-manager";
+        final String tableName = "EventInfo";
+        Table<Uuid, EventInfo, ManagedResources> table = corfuStore.openTable(nsxManager,
+                tableName, Uuid.class, EventInfo.class, ManagedResources.class,
+                TableOptions.builder().build());
+
+        final int count = 100;
+        final int names = 10;
+        final int ports = 4;
+        TxnContext writeTx = corfuStore.txn(nsxManager);
+        for (int i = 0; i < count; i++) {
+            writeTx.putRecord(table, Uuid.newBuilder().setLsb(i).build(),
+                    EventInfo.newBuilder().setId(i).setName("event_" + i % names)
+                            .setEventTime(i).setPort(i % ports)
+                            .setSeverity(i % 2 == 0 ? Severity.HIGH : Severity.LOW).build(), null);
+        }
+        writeTx.commit();
+
+        final int from = 30;
+        final int to = 40;
+        final int last = 95;
+        final int name = 3;
+        TxnContext tx = corfuStore.txn(nsxManager);
+        Function<QueryPredicate, List<Integer>> scan = predicate -> tx.executeQuery(table,
+                (CorfuStoreEntry<Uuid, EventInfo, ManagedResources> entry) ->
+                        predicate.test(entry.getPayload()))
+                .stream().map(entry -> entry.getPayload().getId()).collect(Collectors.toList());
+        Function<QueryPredicate, List<Integer>> query = predicate -> tx.executeQuery(table, predicate)
+                .stream().map(entry -> entry.getPayload().getId()).collect(Collectors.toList());
+
+        // Equality on an indexed field is an index lookup, numbers are converted to the field type
+        QueryPredicate byName = QueryPredicate.eq("name", "event_" + name);
+        assertThat(tx.explainQuery(table, byName).explain())
+                .startsWith("FILTER name = event_" + name)
+                .contains("INDEX LOOKUP name = event_" + name + " rows=" + count / names);
+        assertThat(query.apply(byName)).hasSize(count / names)
+                .containsExactlyInAnyOrder(scan.apply(byName).toArray(new Integer[0]));
+        assertThat(query.apply(QueryPredicate.in("event_time", Arrays.asList(1, 2, 2))))
+                .containsExactlyInAnyOrder(1, 2);
+
+        // Selective conditions of an AND are intersected
+        QueryPredicate byNameAndTime = QueryPredicate.and(byName,
+                QueryPredicate.range("event_time", from, true, to, false),
+                QueryPredicate.eq("port", 1));
+        QueryPlan plan = tx.explainQuery(table, byNameAndTime);
+        assertThat(plan.explain()).contains("INTERSECT").contains("INDEX LOOKUP name")
+                .contains("INDEX RANGE event_time IN [" + from + ", " + to + ")");
+        assertThat(plan.getCost()).isLessThan(tx.explainQuery(table,
+                QueryPredicate.eq("port", 1)).getCost());
+        assertThat(query.apply(byNameAndTime)).containsExactly(from + name);
+
+        // An OR is a union, when all its conditions can be answered by an index
+        QueryPredicate byNameOrTime = QueryPredicate.or(byName,
+                QueryPredicate.range("event_time", last, true, null, false));
+        assertThat(tx.explainQuery(table, byNameOrTime).explain()).contains("UNION");
+        assertThat(query.apply(byNameOrTime))
+                .containsExactlyInAnyOrder(scan.apply(byNameOrTime).toArray(new Integer[0]));
+
+        // Otherwise, and when the indexes are not selective enough, the table is scanned
+        QueryPredicate byNameOrPort = QueryPredicate.or(byName, QueryPredicate.eq("port", 1));
+        QueryPredicate byAnyTime = QueryPredicate.range("event_time", 0, true, null, false);
+        assertThat(tx.explainQuery(table, byNameOrPort).isScan()).isTrue();
+        assertThat(tx.explainQuery(table, byAnyTime).explain()).startsWith("SCAN");
+        assertThat(query.apply(byNameOrPort))
+                .containsExactlyInAnyOrder(scan.apply(byNameOrPort).toArray(new Integer[0]));
+        assertThat(query.apply(byAnyTime)).hasSize(count);
+
+        // Updates of the transaction are queried
+        tx.delete(table, Uuid.newBuilder().setLsb(from + name).build());
+        assertThat(query.apply(byNameAndTime)).isEmpty();
+
+        // Enum values are given as constants, names or numbers, and only compared for equality
+        assertThat(query.apply(QueryPredicate.eq("severity", Severity.HIGH))).hasSize(count / 2)
+                .containsExactlyInAnyOrder(query.apply(QueryPredicate.in("severity",
+                        Arrays.asList("HIGH", 1))).toArray(new Integer[0]));
+        assertThatThrownBy(() -> tx.executeQuery(table, QueryPredicate.eq("severity", "MEDIUM")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tx.executeQuery(table,
+                QueryPredicate.range("severity", 0, true, null, false)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> QueryPredicate.range("location", null, true, null, false)
+                .validate(Device.getDescriptor()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> tx.executeQuery(table, QueryPredicate.eq("unknown", 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        tx.commit();
+    }
+
+    /**
+     * Demonstrates the aggregates registered in the table options, here grouped by a secondary
+     * index, which are maintained as the table is updated and read at the snapshot of the
+     * transaction.
+     */
+    @Test
+    public void aggregateTest() throws Exception {
+        CorfuStore corfuStore = new CorfuStore(getDefaultRuntime());
+        final String nsxManager = "nsx-manager";
+        final String tableName = "EventInfo";
+        final String timeByName = "timeByName";
+        Table<Uuid, EventInfo, ManagedResources> table = corfuStore.openTable(nsxManager,
+                tableName, Uuid.class, EventInfo.class, ManagedResources.class,
+                TableOptions.<Uuid, EventInfo>builder()
+                        .aggregateRegistry(Aggregate.Registry.of(new Aggregate.Spec<>(() -> timeByName,
+                                () -> "name", (key, value) -> value.getEventTime(), true)))
+                        .build());
+
+        final int count = 10;
+        final int names = 2;
+        TxnContext writeTx = corfuStore.txn(nsxManager);
+        for (int i = 0; i < count; i++) {
+            writeTx.putRecord(table, Uuid.newBuilder().setLsb(i).build(),
+                    EventInfo.newBuilder().setId(i).setName("event_" + i % names)
+                            .setEventTime(i).build(), null);
+        }
+        writeTx.commit();
+
+        final int evenTimes = 20;
+        final int lastEven = 8;
+        TxnContext tx = corfuStore.txn(nsxManager);
+        assertThat(tx.getAggregate(table, timeByName).getCount()).isEqualTo(count);
+        assertThat(tx.getAggregate(table, timeByName, "event_0"))
+                .isEqualTo(new Aggregate.Value(count / names, evenTimes, 0L, (long) lastEven));
+        assertThat(tx.getAggregateGroups(table, timeByName)).containsOnlyKeys("event_0", "event_1");
+
+        // Updates of the transaction are aggregated
+        tx.delete(table, Uuid.newBuilder().setLsb(lastEven).build());
+        assertThat(tx.getAggregate(table, timeByName, "event_0").getMax()).isEqualTo(lastEven - 2);
+        tx.commit();
+
+        assertThatThrownBy(() -> corfuStore.txn(nsxManager).getAggregate(table, "unknown"))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Demonstrates that with an object snapshot cache, the tables opened by a CorfuStore keep
+     * snapshots of their recent versions, whose secondary indexes and aggregates serve
+     * snapshot reads without rolling the table back.
+     */
+    @Test
+    public void snapshotReadsOfIndexedTables() throws Exception {
+        final int snapshots = 4;
+        getDefaultRuntime().getParameters().setObjectSnapshotCacheSize(snapshots);
+        CorfuStore corfuStore = new CorfuStore(getDefaultRuntime());
+        final String nsxManager = "nsx-manager";
+        final String tableName = "EventInfo";
+        final String timeByName = "timeByName";
+        Table<Uuid, EventInfo, ManagedResources> table = corfuStore.openTable(nsxManager,
+                tableName, Uuid.class, EventInfo.class, ManagedResources.class,
+                TableOptions.<Uuid, EventInfo>builder()
+                        .aggregateRegistry(Aggregate.Registry.of(new Aggregate.Spec<>(
+                                () -> timeByName, (key, value) -> value.getName(),
+                                (key, value) -> value.getEventTime(), true)))
+                        .build());
+        final Uuid key = Uuid.newBuilder().setLsb(1L).build();
+        final long oldTime = 1L;
+        final long newTime = 2L;
+
+        TxnContext writeTx = corfuStore.txn(nsxManager);
+        writeTx.putRecord(table, key,
+                EventInfo.newBuilder().setName("event").setEventTime(oldTime).build(), null);
+        writeTx.commit();
+        // Syncs the table, which keeps a snapshot of this version
+        TxnContext tx = corfuStore.txn(nsxManager);
+        assertThat(tx.getByIndex(table, "event_time", oldTime)).hasSize(1);
+        tx.commit();
+        Token token = getDefaultRuntime().getSequencerView().query().getToken();
+        Timestamp snapshot = Timestamp.newBuilder()
+                .setEpoch(token.getEpoch()).setSequence(token.getSequence()).build();
+
+        writeTx = corfuStore.txn(nsxManager);
+        writeTx.putRecord(table, key,
+                EventInfo.newBuilder().setName("event").setEventTime(newTime).build(), null);
+        writeTx.commit();
+        tx = corfuStore.txn(nsxManager);
+        assertThat(tx.getByIndex(table, "event_time", newTime)).hasSize(1);
+        tx.commit();
+        VersionLockedObject<?> vlo = ((CorfuCompileProxy<?>) table.getCorfuObject()
+                .getCorfuSMRProxy()).getUnderlyingObject();
+        final long latestVersion = vlo.getVersionUnsafe();
+
+        tx = corfuStore.txn(nsxManager, IsolationLevel.snapshot(snapshot));
+        assertThat(tx.getByIndex(table, "event_time", oldTime)).hasSize(1);
+        assertThat(tx.getByIndex(table, "event_time", newTime)).isEmpty();
+        assertThat(tx.getAggregate(table, timeByName).getMax()).isEqualTo(oldTime);
+        tx.commit();
+        assertThat(vlo.getVersionUnsafe()).isEqualTo(latestVersion);
+
+        tx = corfuStore.txn(nsxManager);
+        assertThat(tx.getByIndex(table, "event_time", oldTime)).isEmpty();
+        assertThat(tx.getAggregate(table, timeByName).getMax()).isEqualTo(newTime);
+        tx.commit();
+    }
+
+    /**
+     * Demonstrates the composite secondary indexes declared in the message options of the
+     * protobuf schema, which are looked up by the combination of the values of several fields.
+     */
+    @Test
+    public void compositeIndexTest() throws Exception {
+        CorfuStore corfuStore = new CorfuStore(getDefaultRuntime());
+        final String nsxManager = "nsx-manager";
+        final String tableName = "Device";
+        Table<Uuid, Device, ManagedResources> table = corfuStore.openTable(nsxManager,
+                tableName, Uuid.class, Device.class, ManagedResources.class,
+                TableOptions.builder().build());
+
+        final int count = 12;
+        final int tenants = 3;
+        final int tenant = 1;
+        final int tag = 3;
+        TxnContext writeTx = corfuStore.txn(nsxManager);
+        for (int i = 0; i < count; i++) {
+            writeTx.putRecord(table, Uuid.newBuilder().setLsb(i).build(),
+                    Device.newBuilder().setTenant("tenant" + i % tenants)
+                            .setStatus(i % 2 == 0 ? "up" : "down")
+                            .setLocation(Location.newBuilder().setRegion("region" + i % 2))
+                            .addTag("tag" + i).addTag("all")
+                            .build(), null);
+        }
+        writeTx.commit();
+
+        Function<IntPredicate, Long[]> expectedKeys = filter -> LongStream.range(0, count)
+                .filter(i -> filter.test((int) i)).boxed().toArray(Long[]::new);
+        Function<List<CorfuStoreEntry<Uuid, Device, ManagedResources>>, List<Long>> keys =
+                entries -> entries.stream().map(entry -> entry.getKey().getLsb())
+                        .collect(Collectors.toList());
+
+        TxnContext tx = corfuStore.txn(nsxManager);
+        assertThat(keys.apply(tx.getByIndex(table, "tenant_status",
+                CompositeKey.of("tenant" + tenant, "up"))))
+                .containsExactlyInAnyOrder(expectedKeys.apply(i -> i % tenants == tenant && i % 2 == 0));
+
+        // Nested fields are indexed by their path, and repeated fields by each of their elements
+        assertThat(keys.apply(tx.getByIndex(table, "region_tag", CompositeKey.of("region1", "all"))))
+                .containsExactlyInAnyOrder(expectedKeys.apply(i -> i % 2 == 1));
+        assertThat(keys.apply(tx.getByIndex(table, "region_tag", CompositeKey.of("region1", "tag" + tag))))
+                .containsExactly((long) tag);
+        assertThat(tx.getByIndex(table, "region_tag", CompositeKey.of("region0", "tag" + tag))).isEmpty();
+
+        // The leading fields of an ordered composite index are looked up by a range
+        assertThat(keys.apply(tx.getByIndexRange(table, "region_tag",
+                CompositeKey.of("region0"), true, CompositeKey.of("region1"), false)))
+                .containsExactlyInAnyOrder(expectedKeys.apply(i -> i % 2 == 0));
+
+        // The index is maintained on updates and deletes
+        tx.putRecord(table, Uuid.newBuilder().setLsb(tenant).build(),
+                Device.newBuilder().setTenant("tenant" + tenant).setStatus("up").build(), null);
+        tx.delete(table, Uuid.newBuilder().setLsb(tenant + tenants).build());
+        tx.commit();
+
+        TxnContext readTx = corfuStore.txn(nsxManager);
+        assertThat(keys.apply(readTx.getByIndex(table, "tenant_status",
+                CompositeKey.of("tenant" + tenant, "up"))))
+                .containsExactlyInAnyOrder(expectedKeys.apply(i -> i % tenants == tenant
+                        && (i % 2 == 0 || i == tenant) && i != tenant + tenants));
+        assertThat(keys.apply(readTx.getByIndex(table, "tenant_status",
+                CompositeKey.of("tenant" + tenant, "down"))))
+                .containsExactlyInAnyOrder(expectedKeys.apply(i -> i % tenants == tenant
+                        && i % 2 == 1 && i != tenant));
+        readTx.commit();
+
+        // Prefix queries are only supported by string indexes
+        assertThatThrownBy(() -> corfuStore.txn(nsxManager)
+                .getByIndexPrefix(table, "region_tag", "region"))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+
+        // The fields of a composite index must be scalars
+        assertThatThrownBy(() -> new ProtobufIndexer(InvalidCompositeIndex.getDefaultInstance()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("tenant_location");
+
+        // A composite index can't be named after a field, which queries resolve by name
+        assertThatThrownBy(() ->
+                new ProtobufIndexer(CompositeIndexNamedAfterField.getDefaultInstance()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("name of a field");
+    }
+
     /**
      * CorfuStore stores 3 pieces of information - key, value and metadata
      * This test demonstrates how metadata field options esp "version" can be used and verified.
@@ -4,23 +4,34 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.google.common.reflect.TypeToken;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
 import org.assertj.core.data.MapEntry;
+import org.corfudb.protocols.logprotocol.ISMRConsumable;
+import org.corfudb.protocols.logprotocol.SMREntry;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.CorfuStoreMetadata.Timestamp;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
 import org.corfudb.runtime.object.CorfuCompileProxy;
 import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.ICorfuVersionPolicy;
+import org.corfudb.runtime.object.VersionLockedObject;
 import org.corfudb.runtime.object.transactions.TransactionType;
 import org.corfudb.runtime.view.AbstractViewTest;
 import org.junit.Test;
@@ -114,6 +125,105 @@ public class CorfuTableTest extends AbstractViewTest {
         corfuTable.getByIndexAndFilter(StringIndexer.BY_FIRST_LETTER, p -> p.getValue().contains("cd"), "a");
     }
 
+    /**
+     * Verify that a paged scan returns every entry exactly once, even when the keys of
+     * several entries have the same hash code and span several pages, whether or not the
+     * table keeps its keys by their hash codes.
+     */
+    @Test
+    public void pagedScanReturnsEachEntryOnce() {
+        for (boolean pagedScanIndex : new boolean[]{false, true}) {
+            CorfuTable<String, String> corfuTable = openPagedTable(pagedScanIndex);
+
+            // "AaAa", "AaBB", "BBAa" and "BBBB" have the same hash code
+            final List<String> keys = Arrays.asList("AaAa", "AaBB", "BBAa", "BBBB", "k1", "k2", "k3");
+            keys.forEach(key -> corfuTable.put(key, "v" + key));
+
+            for (int pageSize = 1; pageSize <= keys.size(); pageSize++) {
+                assertThat(scanPages(corfuTable, entry -> !entry.getKey().equals("k3"), pageSize))
+                        .containsExactlyInAnyOrder("AaAa", "AaBB", "BBAa", "BBBB", "k1", "k2");
+            }
+        }
+    }
+
+    /**
+     * Verify that a paged scan follows the updates of the table, including the ones undone
+     * by an aborted transaction, and that a snapshot of the table can be paged as well.
+     */
+    @Test
+    public void pagedScanFollowsUpdates() {
+        final List<String> keys = Arrays.asList("AaAa", "AaBB", "BBAa", "BBBB", "k1", "k2", "k3");
+        for (boolean pagedScanIndex : new boolean[]{false, true}) {
+            CorfuTable<String, String> corfuTable = openPagedTable(pagedScanIndex);
+
+            keys.forEach(key -> corfuTable.put(key, "v" + key));
+            corfuTable.remove("AaBB");
+            corfuTable.remove("k1");
+
+            getDefaultRuntime().getObjectsView().TXBegin();
+            corfuTable.put("k4", "v4");
+            corfuTable.remove("BBBB");
+            assertThat(scanPages(corfuTable, entry -> true, keys.size()))
+                    .containsExactlyInAnyOrder("AaAa", "BBAa", "k2", "k3", "k4");
+            getDefaultRuntime().getObjectsView().TXAbort();
+
+            for (int pageSize = 1; pageSize <= keys.size(); pageSize++) {
+                assertThat(scanPages(corfuTable, entry -> true, pageSize))
+                        .containsExactlyInAnyOrder("AaAa", "BBAa", "BBBB", "k2", "k3");
+            }
+            corfuTable.clear();
+            assertThat(scanPages(corfuTable, entry -> true, keys.size())).isEmpty();
+        }
+
+        CorfuTable<String, String> table = new CorfuTable<>(VersionedStreamingMap::new,
+                ICorfuVersionPolicy.DEFAULT);
+        keys.forEach(key -> table.put(key, "v" + key));
+        CorfuTable<String, String> snapshot = table.getSnapshot();
+        table.remove("k1");
+        for (int pageSize = 1; pageSize <= keys.size(); pageSize++) {
+            assertThat(scanPages(snapshot, entry -> true, pageSize))
+                    .containsExactlyInAnyOrder(keys.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Open a table on its own stream, which keeps its keys by their hash codes for paged
+     * scans if pagedScanIndex is set.
+     */
+    private CorfuTable<String, String> openPagedTable(boolean pagedScanIndex) {
+        Supplier<StreamingMap<String, String>> mapSupplier = StreamingMapDecorator::new;
+        return getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .setStreamName("test-" + pagedScanIndex)
+                .setArguments(Index.Registry.empty(), Aggregate.Registry.empty(), mapSupplier,
+                        ICorfuVersionPolicy.DEFAULT, pagedScanIndex)
+                .open();
+    }
+
+    /**
+     * Scan all the pages of a table, and return the keys of their entries.
+     */
+    private static List<String> scanPages(CorfuTable<String, String> table,
+                                          Predicate<Map.Entry<String, String>> predicate,
+                                          int pageSize) {
+        final Timestamp timestamp = Timestamp.getDefaultInstance();
+        List<String> scannedKeys = new ArrayList<>();
+        ScanToken token = null;
+        List<Map.Entry<String, String>> page;
+        do {
+            page = table.scanAndFilterPageByEntry(predicate,
+                    token == null ? ScanToken.FIRST_KEY_HASH : token.getLastKeyHash(),
+                    token == null ? Collections.emptySet() : token.getLastHashKeys(),
+                    pageSize);
+            assertThat(page.size()).isLessThanOrEqualTo(pageSize);
+            List<String> pageKeys = page.stream().map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            scannedKeys.addAll(pageKeys);
+            token = ScanToken.after(timestamp, token, pageKeys);
+        } while (page.size() == pageSize);
+        return scannedKeys;
+    }
+
     /**
      * Can create create multiple index for the same value
      */
@@ -241,6 +351,181 @@ public class CorfuTableTest extends AbstractViewTest {
                 .containsExactly("a");
     }
 
+    /**
+     * Verify the range, prefix, top-N and min/max queries on an ordered index,
+     * and that the ordered index is rolled back when reading an older snapshot.
+     */
+    @Test
+    public void canQueryOrderedIndex() {
+        CorfuTable<String, String>
+                corfuTable = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringIndexer.OrderedIndex())
+                .setStreamName("test")
+                .open();
+
+        final Index.Name index = StringIndexer.OrderedIndex.BY_VALUE_ORDERED;
+        corfuTable.put("k1", "b");
+        corfuTable.put("k2", "ab");
+        corfuTable.put("k3", "a");
+        corfuTable.put("k4", "c");
+        Token snapshot = getDefaultRuntime().getSequencerView().query().getToken();
+
+        assertThat(project(corfuTable.getByIndexRange(index, "ab", true, "c", false)))
+                .containsExactly("ab", "b");
+        assertThat(project(corfuTable.getByIndexRange(index, null, false, "ab", true)))
+                .containsExactly("a", "ab");
+        assertThat(project(corfuTable.getByIndexPrefix(index, "a")))
+                .containsExactly("a", "ab");
+        assertThat(project(corfuTable.getByIndexFirst(index, 2))).containsExactly("a", "ab");
+        assertThat(project(corfuTable.getByIndexLast(index, 2))).containsExactly("c", "b");
+        assertThat((String) corfuTable.getMinIndexKey(index)).isEqualTo("a");
+        assertThat((String) corfuTable.getMaxIndexKey(index)).isEqualTo("c");
+        assertThat(project(corfuTable.getByIndex(index, "b"))).containsExactly("b");
+
+        // Unordered indexes only support exact-match lookups
+        Assertions.assertThatThrownBy(() -> corfuTable.getByIndexFirst(StringIndexer.BY_FIRST_LETTER, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        corfuTable.remove("k3");
+        corfuTable.put("k4", "d");
+        assertThat((String) corfuTable.getMinIndexKey(index)).isEqualTo("ab");
+        assertThat((String) corfuTable.getMaxIndexKey(index)).isEqualTo("d");
+
+        // Reading the older snapshot undoes the updates on the ordered index
+        getDefaultRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(snapshot)
+                .build()
+                .begin();
+        assertThat((String) corfuTable.getMinIndexKey(index)).isEqualTo("a");
+        assertThat(project(corfuTable.getByIndexLast(index, 1))).containsExactly("c");
+        getDefaultRuntime().getObjectsView().TXEnd();
+
+        assertThat(project(corfuTable.getByIndexFirst(index, Integer.MAX_VALUE)))
+                .containsExactly("ab", "b", "d");
+    }
+
+    /**
+     * Verify that the null index keys of an ordered index are left out of its ordered
+     * queries, and don't prevent prefix queries on a string index.
+     */
+    @Test
+    public void canQueryOrderedIndexWithNullKeys() {
+        CorfuTable<String, String>
+                corfuTable = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringIndexer.NullableOrderedIndex())
+                .setStreamName("test")
+                .open();
+
+        final Index.Name index = StringIndexer.NullableOrderedIndex.BY_TAG_ORDERED;
+        final int taggedValues = 3;
+        corfuTable.put("k1", "a:x");
+        corfuTable.put("k2", "b");
+        corfuTable.put("k3", "c:xy");
+        corfuTable.put("k4", "d:y");
+
+        assertThat(project(corfuTable.getByIndexPrefix(index, "x")))
+                .containsExactly("a:x", "c:xy");
+        assertThat(project(corfuTable.getByIndexRange(index, null, false, "xy", true)))
+                .containsExactly("a:x", "c:xy");
+        assertThat(project(corfuTable.getByIndexRange(index, "x", false, null, false)))
+                .containsExactly("c:xy", "d:y");
+        assertThat(project(corfuTable.getByIndexFirst(index, Integer.MAX_VALUE)))
+                .containsExactly("a:x", "c:xy", "d:y");
+        assertThat(corfuTable.countByIndexRange(index, null, false, null, false))
+                .isEqualTo(taggedValues);
+        assertThat((String) corfuTable.getMinIndexKey(index)).isEqualTo("x");
+        assertThat(project(corfuTable.getByIndex(index, (String) null))).containsExactly("b");
+    }
+
+    /**
+     * Ensure that the aggregates, grouped or not by an index, are maintained as the table is
+     * updated, that they are rolled back when reading an older snapshot, and reverted when a transaction aborts.
+     */
+    @Test
+    @SuppressWarnings("checkstyle:magicnumber")
+    public void canReadAggregates() {
+        final Aggregate.Name count = () -> "count";
+        final Aggregate.Name lengthByLetter = () -> "lengthByLetter";
+        CorfuTable<String, String>
+                corfuTable = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringIndexer(),
+                        Aggregate.Registry.<String, String>of(
+                                new Aggregate.Spec<>(count),
+                                new Aggregate.Spec<>(lengthByLetter, StringIndexer.BY_FIRST_LETTER,
+                                        (key, value) -> value.length(), true)),
+                        (Supplier<ContextAwareMap<String, String>>) StreamingMapDecorator::new,
+                        ICorfuVersionPolicy.DEFAULT)
+                .setStreamName("test")
+                .open();
+
+        corfuTable.put("k1", "a");
+        corfuTable.put("k2", "abc");
+        corfuTable.put("k3", "bb");
+        corfuTable.put("k4", "abcde");
+        Token snapshot = getDefaultRuntime().getSequencerView().query().getToken();
+
+        assertThat(corfuTable.getAggregate(count)).isEqualTo(new Aggregate.Value(4, 0, null, null));
+        assertThat(corfuTable.getAggregate(lengthByLetter))
+                .isEqualTo(new Aggregate.Value(4, 11, 1L, 5L));
+        assertThat(corfuTable.getAggregate(lengthByLetter, "a"))
+                .isEqualTo(new Aggregate.Value(3, 9, 1L, 5L));
+        assertThat(corfuTable.getAggregateGroups(lengthByLetter)).containsOnlyKeys("a", "b");
+        assertThat(corfuTable.getAggregate(lengthByLetter, "c")).isEqualTo(Aggregate.Value.EMPTY);
+
+        // Updates, removes and putAll update the aggregates
+        corfuTable.put("k4", "bbbb");
+        corfuTable.remove("k1");
+        corfuTable.putAll(Collections.singletonMap("k5", "cc"));
+        assertThat(corfuTable.getAggregate(count).getCount()).isEqualTo(4);
+        assertThat(corfuTable.getAggregate(lengthByLetter, "a"))
+                .isEqualTo(new Aggregate.Value(1, 3, 3L, 3L));
+        assertThat(corfuTable.getAggregate(lengthByLetter, "b"))
+                .isEqualTo(new Aggregate.Value(2, 6, 2L, 4L));
+        assertThat(corfuTable.getAggregate(lengthByLetter))
+                .isEqualTo(new Aggregate.Value(4, 11, 2L, 4L));
+
+        // Reading the older snapshot undoes the updates on the aggregates
+        getDefaultRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(snapshot)
+                .build()
+                .begin();
+        assertThat(corfuTable.getAggregate(lengthByLetter, "a"))
+                .isEqualTo(new Aggregate.Value(3, 9, 1L, 5L));
+        assertThat(corfuTable.getAggregateGroups(lengthByLetter)).containsOnlyKeys("a", "b");
+        getDefaultRuntime().getObjectsView().TXEnd();
+
+        // The updates of an aborted transaction are reverted
+        getDefaultRuntime().getObjectsView().TXBegin();
+        corfuTable.remove("k2");
+        corfuTable.put("k6", "aaaaaaa");
+        assertThat(corfuTable.getAggregate(lengthByLetter, "a"))
+                .isEqualTo(new Aggregate.Value(1, 7, 7L, 7L));
+        getDefaultRuntime().getObjectsView().TXAbort();
+        assertThat(corfuTable.getAggregate(lengthByLetter))
+                .isEqualTo(new Aggregate.Value(4, 11, 2L, 4L));
+
+        corfuTable.clear();
+        assertThat(corfuTable.getAggregate(count)).isEqualTo(Aggregate.Value.EMPTY);
+        assertThat(corfuTable.getAggregateGroups(lengthByLetter)).isEmpty();
+
+        Assertions.assertThatThrownBy(() -> corfuTable.getAggregate(() -> "unknown"))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> corfuTable.getAggregate(count, "a"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // An aggregate can only be grouped by an index of the table
+        Assertions.assertThatThrownBy(() -> new CorfuTable<>(new StringIndexer(),
+                Aggregate.Registry.<String, String>of(
+                        new Aggregate.Spec<>(count, () -> "unknown", null, false)),
+                StreamingMapDecorator::new, ICorfuVersionPolicy.DEFAULT))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     /**
      * Ensure that {@link StreamingMap#entryStream()} always operates on a snapshot.
      * If it does not, this test will throw {@link ConcurrentModificationException}.
@@ -255,6 +540,85 @@ public class CorfuTableTest extends AbstractViewTest {
         result.forEach(e -> map.put(new Random().nextInt(), 0));
     }
 
+    /**
+     * Ensure that the updates of a runtime which writes SMR entries with method IDs are
+     * applied by a runtime which writes them with method names.
+     */
+    @Test
+    public void updatesWrittenWithMethodIdsAreApplied() {
+        getDefaultRuntime().getParameters().setSmrMethodIds(true);
+        CorfuTable<String, String> writer = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .setStreamName("test")
+                .open();
+        writer.put("k1", "a");
+        writer.put("k2", "b");
+        writer.remove("k2");
+
+        final long tail = getDefaultRuntime().getSequencerView().query().getSequence();
+        ISMRConsumable payload = (ISMRConsumable) getDefaultRuntime().getAddressSpaceView()
+                .read(tail).getPayload(getDefaultRuntime());
+        assertThat(payload.getSMRUpdates(CorfuRuntime.getStreamID("test")).get(0).getMethodId())
+                .isNotEqualTo(SMREntry.NO_METHOD_ID);
+
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        assertThat(rt.getParameters().isSmrMethodIds()).isFalse();
+        CorfuTable<String, String> reader = rt.getObjectsView().build()
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .setStreamName("test")
+                .open();
+        assertThat(reader.get("k1")).isEqualTo("a");
+        assertThat(reader.containsKey("k2")).isFalse();
+        reader.put("k3", "c");
+        assertThat(writer.get("k3")).isEqualTo("c");
+    }
+
+    /**
+     * Ensure that a table over a {@link VersionedStreamingMap} serves snapshot reads at
+     * a version it has already been synced to from a kept snapshot, without rolling back.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void snapshotReadsDontRollBack() {
+        final int snapshots = 4;
+        getDefaultRuntime().getParameters().setObjectSnapshotCacheSize(snapshots);
+        CorfuTable<String, String> corfuTable = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .setArguments((Supplier<ContextAwareMap<String, String>>) VersionedStreamingMap::new,
+                        ICorfuVersionPolicy.DEFAULT)
+                .setStreamName("test")
+                .open();
+        VersionLockedObject vlo = ((CorfuCompileProxy) ((ICorfuSMR) corfuTable)
+                .getCorfuSMRProxy()).getUnderlyingObject();
+
+        corfuTable.put("k1", "a");
+        corfuTable.put("k2", "b");
+        Token snapshot = getDefaultRuntime().getSequencerView().query().getToken();
+        corfuTable.put("k1", "c");
+        corfuTable.remove("k2");
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertThat(corfuTable.get("k1")).isEqualTo("c");
+            assertThat(corfuTable.containsKey("k2")).isFalse();
+            final long latestVersion = vlo.getVersionUnsafe();
+
+            getDefaultRuntime().getObjectsView().TXBuild()
+                    .type(TransactionType.SNAPSHOT)
+                    .snapshot(snapshot)
+                    .build()
+                    .begin();
+            assertThat(corfuTable.get("k1")).isEqualTo("a");
+            assertThat(corfuTable.get("k2")).isEqualTo("b");
+            assertThat(corfuTable.size()).isEqualTo(2);
+            getDefaultRuntime().getObjectsView().TXEnd();
+
+            // The first snapshot read rolls the object back, the next ones use the kept snapshot.
+            if (i > 0) {
+                assertThat(vlo.getVersionUnsafe()).isEqualTo(latestVersion);
+            }
+        }
+    }
+
     @Test
     @SuppressWarnings({"unchecked", "checkstyle:magicnumber"})
     public void canHandleHoleInTail() {
@@ -0,0 +1,188 @@
+package org.corfudb.runtime.collections;
+
+import com.google.common.reflect.TypeToken;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.ReadRequest;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.MultiCheckpointWriter;
+import org.corfudb.runtime.clients.TestRule;
+import org.corfudb.runtime.object.CorfuCompileProxy;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.test.SampleSchema.EventInfo;
+import org.corfudb.test.SampleSchema.Uuid;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests saving tables to local snapshots, and restoring them.
+ */
+public class LocalTableSnapshotTest extends AbstractViewTest {
+
+    private static final String STREAM_NAME = "snapshotted";
+
+    private final Path snapshotFile = Paths.get(PARAMETERS.TEST_TEMP_DIR, STREAM_NAME);
+
+    private CorfuTable<String, String> openTable(CorfuRuntime rt) {
+        return rt.getObjectsView().build()
+                .setStreamName(STREAM_NAME)
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .open();
+    }
+
+    private static long getVersion(Object table) {
+        return ((CorfuCompileProxy<?>) ((ICorfuSMR<?>) table).getCorfuSMRProxy())
+                .getUnderlyingObject().getVersionUnsafe();
+    }
+
+    private static void putAll(CorfuTable<String, String> table, int first, int numKeys) {
+        for (int i = first; i < first + numKeys; i++) {
+            table.put("k" + i, "v" + i);
+        }
+    }
+
+    /**
+     * Save a snapshot of the table from a runtime which is then shut down.
+     */
+    private long saveSnapshot() throws Exception {
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        CorfuTable<String, String> table = openTable(rt);
+        long version = LocalTableSnapshot.save(rt, (ICorfuSMR<CorfuTable<String, String>>) table,
+                snapshotFile);
+        rt.shutdown();
+        return version;
+    }
+
+    @Test
+    public void restoredTableOnlySyncsTheDelta() throws Exception {
+        final int numKeys = PARAMETERS.NUM_ITERATIONS_LOW;
+        CorfuTable<String, String> writer = openTable(getDefaultRuntime());
+        putAll(writer, 0, numKeys);
+        final long snapshotVersion = saveSnapshot();
+        putAll(writer, numKeys, numKeys);
+
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        CorfuTable<String, String> table = openTable(rt);
+        AtomicInteger readAddresses = new AtomicInteger();
+        addClientRule(rt, new TestRule().matches(msg -> {
+            if (msg.getMsgType().equals(CorfuMsgType.READ_REQUEST)) {
+                readAddresses.addAndGet(((CorfuPayloadMsg<ReadRequest>) msg).getPayload()
+                        .getAddresses().size());
+            }
+            return false;
+        }));
+
+        assertThat(LocalTableSnapshot.load(rt, (ICorfuSMR<CorfuTable<String, String>>) table,
+                snapshotFile)).isTrue();
+        assertThat(getVersion(table)).isEqualTo(snapshotVersion);
+        assertThat(table).hasSize(2 * numKeys);
+        assertThat(table.get("k0")).isEqualTo("v0");
+        assertThat(readAddresses.get()).isEqualTo(numKeys);
+    }
+
+    @Test
+    public void snapshotOlderThanTheTrimMarkIsDiscarded() throws Exception {
+        final int numKeys = PARAMETERS.NUM_ITERATIONS_LOW;
+        CorfuTable<String, String> writer = openTable(getDefaultRuntime());
+        putAll(writer, 0, numKeys);
+        saveSnapshot();
+        putAll(writer, numKeys, numKeys);
+
+        MultiCheckpointWriter<CorfuTable<String, String>> mcw = new MultiCheckpointWriter<>();
+        mcw.addMap(writer);
+        Token checkpointAddress = mcw.appendCheckpoints(getDefaultRuntime(), "author");
+        getDefaultRuntime().getAddressSpaceView().prefixTrim(checkpointAddress);
+
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        CorfuTable<String, String> table = openTable(rt);
+        assertThat(LocalTableSnapshot.load(rt, (ICorfuSMR<CorfuTable<String, String>>) table,
+                snapshotFile)).isFalse();
+        assertThat(getVersion(table)).isEqualTo(Address.NEVER_READ);
+        assertThat(table).hasSize(2 * numKeys);
+    }
+
+    @Test
+    public void corruptedSnapshotIsDiscarded() throws Exception {
+        final int numKeys = PARAMETERS.NUM_ITERATIONS_LOW;
+        CorfuTable<String, String> writer = openTable(getDefaultRuntime());
+        putAll(writer, 0, numKeys);
+        saveSnapshot();
+
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshotFile, bytes);
+
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        CorfuTable<String, String> table = openTable(rt);
+        assertThat(LocalTableSnapshot.load(rt, (ICorfuSMR<CorfuTable<String, String>>) table,
+                snapshotFile)).isFalse();
+        assertThat(getVersion(table)).isEqualTo(Address.NEVER_READ);
+        assertThat(table).hasSize(numKeys);
+    }
+
+    @Test
+    public void snapshotOfAnotherClusterIsDiscarded() throws Exception {
+        final int numKeys = PARAMETERS.NUM_ITERATIONS_LOW;
+        // The cluster ID follows the magic, the format version and the stream ID
+        final int clusterIdOffset = 2 * Integer.BYTES + 2 * Long.BYTES;
+        CorfuTable<String, String> writer = openTable(getDefaultRuntime());
+        putAll(writer, 0, numKeys);
+        saveSnapshot();
+
+        // Replace the cluster ID, and the checksum, so that the snapshot is otherwise valid
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        UUID otherCluster = UUID.randomUUID();
+        bytes.putLong(clusterIdOffset, otherCluster.getMostSignificantBits());
+        bytes.putLong(clusterIdOffset + Long.BYTES, otherCluster.getLeastSignificantBits());
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.array(), 0, bytes.capacity() - Long.BYTES);
+        bytes.putLong(bytes.capacity() - Long.BYTES, checksum.getValue());
+        Files.write(snapshotFile, bytes.array());
+
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        CorfuTable<String, String> table = openTable(rt);
+        assertThat(LocalTableSnapshot.load(rt, (ICorfuSMR<CorfuTable<String, String>>) table,
+                snapshotFile)).isFalse();
+        assertThat(getVersion(table)).isEqualTo(Address.NEVER_READ);
+        assertThat(table).hasSize(numKeys);
+    }
+
+    @Test
+    public void tablesAreRestoredFromTheirSnapshotOnOpen() throws Exception {
+        final String namespace = "namespace";
+        final String tableName = "table";
+        final TableOptions<Uuid, EventInfo> options = TableOptions.<Uuid, EventInfo>builder()
+                .localSnapshotPath(Paths.get(PARAMETERS.TEST_TEMP_DIR))
+                .build();
+        final Uuid key = Uuid.newBuilder().setLsb(1L).build();
+
+        getDefaultRuntime();
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        CorfuStore store = new CorfuStore(rt);
+        Table<Uuid, EventInfo, EventInfo> table = store.openTable(namespace, tableName,
+                Uuid.class, EventInfo.class, null, options);
+        TxnContext tx = store.txn(namespace);
+        tx.putRecord(table, key, EventInfo.newBuilder().setName("event").build(), null);
+        tx.commit();
+        // Saves the snapshot
+        rt.shutdown();
+
+        rt = getNewRuntime(getDefaultNode()).connect();
+        table = new CorfuStore(rt).openTable(namespace, tableName, Uuid.class, EventInfo.class,
+                null, options);
+        assertThat(getVersion(table.getCorfuObject())).isNotEqualTo(Address.NEVER_READ);
+        assertThat(table.get(key).getPayload().getName()).isEqualTo("event");
+    }
+}
@@ -55,4 +55,37 @@ public class StringIndexer implements Index.Registry<String, String> {
             return Stream.of(FAILING_INDEX, FAILING_INDEX).iterator();
         }
     }
+
+    public static class OrderedIndex extends StringIndexer {
+        public static final Index.Name BY_VALUE_ORDERED = () -> "BY_VALUE_ORDERED";
+
+        private static final Index.Spec<String, String, ? extends Comparable<?>> BY_VALUE_ORDERED_INDEX =
+                new Index.Spec<>(
+                        BY_VALUE_ORDERED,
+                        (Index.Function<String, String, String>) (key, val) -> val,
+                        true);
+
+        @Override
+        public Iterator<Index.Spec<String, String, ? extends Comparable<?>>> iterator() {
+            return Stream.of(BY_VALUE_ORDERED_INDEX, BY_FIRST_LETTER_INDEX).iterator();
+        }
+    }
+
+    public static class NullableOrderedIndex extends StringIndexer {
+        public static final Index.Name BY_TAG_ORDERED = () -> "BY_TAG_ORDERED";
+
+        // The tag of a value follows a ':', values without a tag have a null index key
+        private static final Index.Spec<String, String, ? extends Comparable<?>> BY_TAG_ORDERED_INDEX =
+                new Index.Spec<>(
+                        BY_TAG_ORDERED,
+                        (Index.Function<String, String, String>) (key, val) ->
+                                val.indexOf(':') < 0 ? null : val.substring(val.indexOf(':') + 1),
+                        true);
+
+        @Override
+        public Iterator<Index.Spec<String, String, ? extends Comparable<?>>> iterator() {
+            return Stream.<Index.Spec<String, String, ? extends Comparable<?>>>of(
+                    BY_TAG_ORDERED_INDEX).iterator();
+        }
+    }
 }
@@ -0,0 +1,113 @@
+package org.corfudb.runtime.collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.corfudb.AbstractCorfuTest;
+import org.junit.Test;
+
+public class VersionedStreamingMapTest extends AbstractCorfuTest {
+
+    /**
+     * A key whose hash code collides with the keys of the same bucket.
+     */
+    private static class CollidingKey {
+        final int id;
+        final int bucket;
+
+        CollidingKey(int id, int bucket) {
+            this.id = id;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return bucket;
+        }
+    }
+
+    @Test
+    public void behavesLikeHashMap() {
+        final int numOps = PARAMETERS.NUM_ITERATIONS_LARGE;
+        final int keySpace = PARAMETERS.NUM_ITERATIONS_MODERATE;
+        final Random random = new Random(PARAMETERS.SEED);
+
+        Map<Integer, Integer> expected = new HashMap<>();
+        VersionedStreamingMap<Integer, Integer> map = new VersionedStreamingMap<>();
+
+        for (int i = 0; i < numOps; i++) {
+            Integer key = random.nextInt(keySpace);
+            if (random.nextBoolean()) {
+                assertThat(map.put(key, i)).isEqualTo(expected.put(key, i));
+            } else {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            }
+            assertThat(map.size()).isEqualTo(expected.size());
+        }
+
+        assertThat(map).isEqualTo(expected);
+        assertThat(map.entryStream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
+                .isEqualTo(expected);
+
+        map.clear();
+        assertThat(map).isEmpty();
+    }
+
+    @Test
+    public void handlesHashCollisions() {
+        final int numKeys = PARAMETERS.NUM_ITERATIONS_LOW;
+        final int numBuckets = 3;
+
+        List<CollidingKey> keys = new ArrayList<>();
+        VersionedStreamingMap<CollidingKey, Integer> map = new VersionedStreamingMap<>();
+        for (int i = 0; i < numKeys; i++) {
+            CollidingKey key = new CollidingKey(i, i % numBuckets);
+            keys.add(key);
+            map.put(key, i);
+        }
+        assertThat(map).hasSize(numKeys);
+        keys.forEach(key -> assertThat(map.get(key)).isEqualTo(key.id));
+
+        // Remove all the keys but one of a bucket
+        keys.stream().filter(key -> key.bucket == 0 && key.id != 0).forEach(map::remove);
+        assertThat(map.get(keys.get(0))).isEqualTo(0);
+        assertThat(map.containsKey(keys.get(numBuckets))).isFalse();
+        keys.stream().filter(key -> key.bucket != 0)
+                .forEach(key -> assertThat(map.get(key)).isEqualTo(key.id));
+    }
+
+    @Test
+    public void snapshotsAreImmutable() {
+        final int numKeys = PARAMETERS.NUM_ITERATIONS_LOW;
+
+        VersionedStreamingMap<Integer, Integer> map = new VersionedStreamingMap<>();
+        for (int i = 0; i < numKeys; i++) {
+            map.put(i, i);
+        }
+
+        Map<Integer, Integer> expected = new HashMap<>(map);
+        ContextAwareMap<Integer, Integer> snapshot = map.getSnapshot();
+
+        map.put(0, -1);
+        map.remove(1);
+        map.put(numKeys, numKeys);
+
+        assertThat(snapshot).isEqualTo(expected);
+        assertThat(map.get(0)).isEqualTo(-1);
+        assertThat(map).hasSize(numKeys);
+        assertThatThrownBy(() -> snapshot.put(0, 0))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,177 @@
+package org.corfudb.runtime.object;
+
+import com.google.common.reflect.TypeToken;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.ReadRequest;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.MultiCheckpointWriter;
+import org.corfudb.runtime.collections.CorfuStore;
+import org.corfudb.runtime.collections.CorfuTable;
+import org.corfudb.runtime.collections.Table;
+import org.corfudb.runtime.collections.TableOptions;
+import org.corfudb.runtime.collections.TxnContext;
+import org.corfudb.runtime.clients.TestRule;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.corfudb.test.SampleSchema.EventInfo;
+import org.corfudb.test.SampleSchema.Uuid;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests syncing many objects at once.
+ */
+public class MultiStreamSyncTest extends AbstractViewTest {
+
+    private static final String NAMESPACE = "sync";
+
+    private List<Map<String, String>> openMaps(CorfuRuntime rt, int numMaps) {
+        List<Map<String, String>> maps = new ArrayList<>();
+        for (int i = 0; i < numMaps; i++) {
+            maps.add(rt.getObjectsView().build()
+                    .setStreamName("map" + i)
+                    .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                    .open());
+        }
+        return maps;
+    }
+
+    /**
+     * Write transactions which update every map.
+     */
+    private void writeTransactions(CorfuRuntime rt, List<Map<String, String>> maps,
+                                   int first, int numTransactions) {
+        for (int i = first; i < first + numTransactions; i++) {
+            rt.getObjectsView().TXBegin();
+            for (Map<String, String> map : maps) {
+                map.put("k" + i, "v" + i);
+            }
+            rt.getObjectsView().TXEnd();
+        }
+    }
+
+    /**
+     * Count the address map requests and the addresses read by this runtime.
+     */
+    private void countRequests(CorfuRuntime rt, AtomicInteger addressMapRequests,
+                               AtomicInteger readAddresses) {
+        addClientRule(rt, new TestRule().matches(msg -> {
+            if (msg.getMsgType().equals(CorfuMsgType.STREAMS_ADDRESS_REQUEST)) {
+                addressMapRequests.incrementAndGet();
+            } else if (msg.getMsgType().equals(CorfuMsgType.READ_REQUEST)) {
+                readAddresses.addAndGet(((CorfuPayloadMsg<ReadRequest>) msg).getPayload()
+                        .getAddresses().size());
+            }
+            return false;
+        }));
+    }
+
+    @Test
+    public void syncObjectsReadsEachEntryOnce() {
+        final int numMaps = PARAMETERS.NUM_ITERATIONS_LOW;
+        final int numTransactions = PARAMETERS.NUM_ITERATIONS_LOW;
+        List<Map<String, String>> writers = openMaps(getDefaultRuntime(), numMaps);
+        writeTransactions(getDefaultRuntime(), writers, 0, numTransactions);
+
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        List<Map<String, String>> readers = openMaps(rt, numMaps);
+        AtomicInteger addressMapRequests = new AtomicInteger();
+        AtomicInteger readAddresses = new AtomicInteger();
+        countRequests(rt, addressMapRequests, readAddresses);
+
+        // Syncing objects which were never synced
+        rt.getObjectsView().syncObjects(readers);
+        assertThat(addressMapRequests.get()).isEqualTo(1);
+        assertThat(readAddresses.get()).isEqualTo(numTransactions);
+
+        // Catching up with new updates
+        writeTransactions(getDefaultRuntime(), writers, numTransactions, numTransactions);
+        rt.getObjectsView().syncObjects(readers);
+        assertThat(addressMapRequests.get()).isEqualTo(2);
+        assertThat(readAddresses.get()).isEqualTo(2 * numTransactions);
+
+        for (Map<String, String> reader : readers) {
+            VersionLockedObject<?> vlo = ((CorfuCompileProxy<?>) ((ICorfuSMR<?>) reader)
+                    .getCorfuSMRProxy()).getUnderlyingObject();
+            assertThat(vlo.getVersionUnsafe()).isGreaterThanOrEqualTo(2 * numTransactions - 1);
+            assertThat(reader).hasSize(2 * numTransactions);
+        }
+    }
+
+    /**
+     * Objects which were never synced don't prefetch the updates covered by their checkpoint.
+     */
+    @Test
+    public void syncObjectsSkipsCheckpointedUpdates() {
+        final int numMaps = PARAMETERS.NUM_ITERATIONS_LOW;
+        final int numTransactions = PARAMETERS.NUM_ITERATIONS_LOW;
+        List<Map<String, String>> writers = openMaps(getDefaultRuntime(), numMaps);
+        writeTransactions(getDefaultRuntime(), writers, 0, numTransactions);
+        MultiCheckpointWriter<CorfuTable<String, String>> mcw = new MultiCheckpointWriter<>();
+        writers.forEach(map -> mcw.addMap((CorfuTable<String, String>) map));
+        mcw.appendCheckpoints(getDefaultRuntime(), "author");
+        writeTransactions(getDefaultRuntime(), writers, numTransactions, numTransactions);
+
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        List<Map<String, String>> readers = openMaps(rt, numMaps);
+        Set<Long> readAddresses = ConcurrentHashMap.newKeySet();
+        addClientRule(rt, new TestRule().matches(msg -> {
+            if (msg.getMsgType().equals(CorfuMsgType.READ_REQUEST)) {
+                readAddresses.addAll(((CorfuPayloadMsg<ReadRequest>) msg).getPayload()
+                        .getAddresses());
+            }
+            return false;
+        }));
+
+        rt.getObjectsView().syncObjects(readers);
+        // The first transactions are only loaded from the checkpoints
+        assertThat(readAddresses).allMatch(address -> address >= numTransactions);
+        for (Map<String, String> reader : readers) {
+            assertThat(reader).hasSize(2 * numTransactions);
+        }
+    }
+
+    @Test
+    public void syncTablesCatchesUpEveryTable() throws Exception {
+        final int numTables = PARAMETERS.NUM_ITERATIONS_LOW;
+        CorfuStore writer = new CorfuStore(getDefaultRuntime());
+        List<Table<Uuid, EventInfo, EventInfo>> writerTables = new ArrayList<>();
+        for (int i = 0; i < numTables; i++) {
+            writerTables.add(writer.openTable(NAMESPACE, "table" + i, Uuid.class,
+                    EventInfo.class, null, TableOptions.builder().build()));
+        }
+        TxnContext tx = writer.txn(NAMESPACE);
+        for (int i = 0; i < numTables; i++) {
+            tx.putRecord(writerTables.get(i), Uuid.newBuilder().setLsb(i).build(),
+                    EventInfo.newBuilder().setName("event" + i).build(), null);
+        }
+        tx.commit();
+
+        CorfuRuntime rt = getNewRuntime(getDefaultNode()).connect();
+        CorfuStore reader = new CorfuStore(rt);
+        List<Table<Uuid, EventInfo, EventInfo>> tables = new ArrayList<>();
+        for (int i = 0; i < numTables; i++) {
+            tables.add(reader.openTable(NAMESPACE, "table" + i, Uuid.class,
+                    EventInfo.class, null, TableOptions.builder().build()));
+        }
+        AtomicInteger addressMapRequests = new AtomicInteger();
+        AtomicInteger readAddresses = new AtomicInteger();
+        countRequests(rt, addressMapRequests, readAddresses);
+
+        rt.getTableRegistry().syncTables(tables);
+        assertThat(addressMapRequests.get()).isEqualTo(1);
+        assertThat(readAddresses.get()).isEqualTo(1);
+        for (int i = 0; i < numTables; i++) {
+            assertThat(tables.get(i).get(Uuid.newBuilder().setLsb(i).build()).getPayload()
+                    .getName()).isEqualTo("event" + i);
+        }
+    }
+}
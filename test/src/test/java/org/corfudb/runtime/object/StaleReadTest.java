@@ -0,0 +1,178 @@
+package org.corfudb.runtime.object;
+
+import com.google.common.reflect.TypeToken;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.protocols.wireprotocol.TokenRequest;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.CorfuRuntime.CorfuRuntimeParameters;
+import org.corfudb.runtime.collections.CorfuTable;
+import org.corfudb.runtime.clients.TestRule;
+import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.corfudb.util.Sleep;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests reads of objects opened with a staleness bound.
+ */
+public class StaleReadTest extends AbstractViewTest {
+
+    private static final String STREAM_NAME = "stale";
+
+    private CorfuRuntime getTailingRuntime(Duration tailPeriod) {
+        getDefaultRuntime();
+        return getNewRuntime(CorfuRuntimeParameters.builder()
+                .objectTailPeriod(tailPeriod)
+                .build())
+                .parseConfigurationString(getDefaultConfigurationString())
+                .connect();
+    }
+
+    private Map<String, String> openMap(CorfuRuntime rt, Duration maxStaleness) {
+        return rt.getObjectsView().build()
+                .setStreamName(STREAM_NAME)
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .setMaxStaleness(maxStaleness)
+                .open();
+    }
+
+    /**
+     * Count the sequencer queries sent by this thread, i.e. not by the tailer.
+     */
+    private AtomicInteger countQueries(CorfuRuntime rt) {
+        final Thread testThread = Thread.currentThread();
+        AtomicInteger numQueries = new AtomicInteger();
+        addClientRule(rt, new TestRule().matches(msg -> {
+            if (Thread.currentThread() == testThread
+                    && msg.getMsgType().equals(CorfuMsgType.TOKEN_REQ)
+                    && ((CorfuPayloadMsg<TokenRequest>) msg).getPayload().getReqType()
+                    == TokenRequest.TK_QUERY) {
+                numQueries.incrementAndGet();
+            }
+            return false;
+        }));
+        return numQueries;
+    }
+
+    /**
+     * Wait until the tailer has synced the objects up to the current tail.
+     */
+    private void awaitTailer(CorfuRuntime rt) {
+        final long tail = getDefaultRuntime().getSequencerView().query().getSequence();
+        Optional<Token> recentTail = rt.getObjectsView().getRecentSnapshot(PARAMETERS.TIMEOUT_LONG);
+        while (!recentTail.isPresent() || recentTail.get().getSequence() < tail) {
+            Sleep.sleepUninterruptibly(Duration.ofMillis(1));
+            recentTail = rt.getObjectsView().getRecentSnapshot(PARAMETERS.TIMEOUT_LONG);
+        }
+    }
+
+    @Test
+    public void staleReadsDontQueryTheSequencer() {
+        Map<String, String> writer = openMap(getDefaultRuntime(), null);
+        writer.put("k1", "v1");
+
+        // The tailer syncs the object when it is opened, and never again
+        CorfuRuntime rt = getTailingRuntime(PARAMETERS.TIMEOUT_LONG);
+        Map<String, String> reader = openMap(rt, PARAMETERS.TIMEOUT_LONG);
+        awaitTailer(rt);
+        assertThat(reader.get("k1")).isEqualTo("v1");
+
+        AtomicInteger numQueries = countQueries(rt);
+        writer.put("k1", "v2");
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW; i++) {
+            assertThat(reader.get("k1")).isEqualTo("v1");
+            assertThat(reader.get("k2")).isNull();
+        }
+        assertThat(numQueries.get()).isZero();
+    }
+
+    @Test
+    public void staleReadsRespectTheStalenessBound() {
+        Map<String, String> writer = openMap(getDefaultRuntime(), null);
+        writer.put("k1", "v1");
+
+        CorfuRuntime rt = getTailingRuntime(PARAMETERS.TIMEOUT_LONG);
+        Map<String, String> reader = openMap(rt, PARAMETERS.TIMEOUT_VERY_SHORT);
+        assertThat(reader.get("k1")).isEqualTo("v1");
+
+        // Once the last sync is older than the bound, reads are linearizable again
+        writer.put("k1", "v2");
+        Sleep.sleepUninterruptibly(PARAMETERS.TIMEOUT_SHORT);
+        AtomicInteger numQueries = countQueries(rt);
+        assertThat(reader.get("k1")).isEqualTo("v2");
+        assertThat(numQueries.get()).isPositive();
+    }
+
+    @Test
+    public void tailerKeepsObjectsFresh() {
+        Map<String, String> writer = openMap(getDefaultRuntime(), null);
+        CorfuRuntime rt = getTailingRuntime(Duration.ofMillis(1));
+        Map<String, String> reader = openMap(rt, PARAMETERS.TIMEOUT_LONG);
+
+        writer.put("k1", "v1");
+        awaitTailer(rt);
+
+        AtomicInteger numQueries = countQueries(rt);
+        assertThat(reader.get("k1")).isEqualTo("v1");
+        assertThat(numQueries.get()).isZero();
+    }
+
+    @Test
+    public void tailerSurvivesErrors() {
+        Map<String, String> writer = openMap(getDefaultRuntime(), null);
+        CorfuRuntime rt = getTailingRuntime(Duration.ofMillis(1));
+
+        // The first query of the tailer fails with an error
+        AtomicInteger tailerQueries = new AtomicInteger();
+        addClientRule(rt, new TestRule().matches(msg -> {
+            if (Thread.currentThread().getName().startsWith("ObjectTailer")
+                    && msg.getMsgType().equals(CorfuMsgType.TOKEN_REQ)
+                    && tailerQueries.incrementAndGet() == 1) {
+                throw new UnrecoverableCorfuInterruptedError(new InterruptedException());
+            }
+            return false;
+        }));
+        Map<String, String> reader = openMap(rt, PARAMETERS.TIMEOUT_LONG);
+
+        writer.put("k1", "v1");
+        awaitTailer(rt);
+        assertThat(tailerQueries.get()).isGreaterThan(1);
+        assertThat(reader.get("k1")).isEqualTo("v1");
+    }
+
+    @Test
+    public void backgroundSyncKeepsEveryObjectFresh() {
+        final int numWrites = PARAMETERS.NUM_ITERATIONS_LOW;
+        Map<String, String> writer = openMap(getDefaultRuntime(), null);
+
+        CorfuRuntime rt = getNewRuntime(CorfuRuntimeParameters.builder()
+                .objectTailPeriod(Duration.ofMillis(1))
+                .backgroundObjectSync(true)
+                .build())
+                .parseConfigurationString(getDefaultConfigurationString())
+                .connect();
+        Map<String, String> reader = openMap(rt, null);
+
+        for (int i = 0; i < numWrites; i++) {
+            writer.put("k" + i, "v" + i);
+        }
+        final long streamTail = getDefaultRuntime().getSequencerView()
+                .query(CorfuRuntime.getStreamID(STREAM_NAME));
+        awaitTailer(rt);
+
+        // The object was synced without being read
+        VersionLockedObject<?> vlo = ((CorfuCompileProxy<?>) ((ICorfuSMR<?>) reader)
+                .getCorfuSMRProxy()).getUnderlyingObject();
+        assertThat(vlo.getVersionUnsafe()).isGreaterThanOrEqualTo(streamTail);
+        assertThat(reader).hasSize(numWrites);
+    }
+}
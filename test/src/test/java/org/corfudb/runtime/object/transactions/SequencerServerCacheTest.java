@@ -254,4 +254,48 @@ public class SequencerServerCacheTest extends AbstractObjectTest {
             assertThat(result).isFalse();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Updating a conflict key makes its previous update stale: evicting the version of the stale
+     * update must neither remove the key nor move the wildcard.
+     */
+    @Test
+    public void testStaleUpdatesEviction() {
+        final int cacheSize = 2;
+        final long v1 = 1L;
+        final long v2 = 2L;
+        final long v3 = 3L;
+        final long v4 = 4L;
+        final UUID streamId = UUID.randomUUID();
+        final byte[] key1 = "key1".getBytes();
+        final byte[] key2 = "key2".getBytes();
+        final byte[] key3 = "key3".getBytes();
+
+        SequencerServerCache cache = new SequencerServerCache(cacheSize, Address.NON_ADDRESS);
+        assertThat(cache.get(streamId, key1)).isEqualTo(Address.NON_ADDRESS);
+
+        assertThat(cache.put(streamId, key1, v1)).isTrue();
+        assertThat(cache.put(streamId, key2, v2)).isTrue();
+        assertThat(cache.put(streamId, key1, v3)).isTrue();
+        assertThat(cache.size()).isEqualTo(cacheSize);
+        assertThat(cache.get(streamId, key1)).isEqualTo(v3);
+        assertThat(cache.get(new ConflictTxStream(streamId, key1, Address.NON_ADDRESS))).isEqualTo(v3);
+
+        // Evicts the stale update of key1 at v1 and key2 at v2
+        assertThat(cache.put(streamId, key3, v4)).isTrue();
+        assertThat(cache.size()).isEqualTo(cacheSize);
+        assertThat(cache.get(streamId, key1)).isEqualTo(v3);
+        assertThat(cache.get(streamId, key2)).isEqualTo(Address.NON_ADDRESS);
+        assertThat(cache.get(streamId, key3)).isEqualTo(v4);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(v2);
+        assertThat(cache.firstAddress()).isEqualTo(v3);
+
+        // The same conflict param on another stream is a different key
+        assertThat(cache.get(UUID.randomUUID(), key1)).isEqualTo(Address.NON_ADDRESS);
+
+        cache.invalidateUpTo(v4 + 1);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(v4);
+        assertThat(cache.firstAddress()).isEqualTo(Address.NOT_FOUND);
+    }
+}
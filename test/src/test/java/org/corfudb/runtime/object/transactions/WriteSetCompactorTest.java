@@ -0,0 +1,150 @@
+package org.corfudb.runtime.object.transactions;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.reflect.TypeToken;
+import org.corfudb.protocols.logprotocol.MultiObjectSMREntry;
+import org.corfudb.protocols.logprotocol.SMREntry;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.collections.CorfuTable;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests the compaction of the write set of transactions.
+ */
+public class WriteSetCompactorTest extends AbstractViewTest {
+
+    private static final String STREAM_NAME = "compacted";
+
+    private CorfuTable<String, String> openTable(CorfuRuntime rt) {
+        return rt.getObjectsView().build()
+                .setStreamName(STREAM_NAME)
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .open();
+    }
+
+    private void begin(boolean compactWriteSet) {
+        getDefaultRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.OPTIMISTIC)
+                .compactWriteSet(compactWriteSet)
+                .build()
+                .begin();
+    }
+
+    /**
+     * Get the updates of the table which a transaction appended to the log, as method(args).
+     */
+    private List<String> getLoggedUpdates(long address) {
+        MultiObjectSMREntry entry = (MultiObjectSMREntry) getDefaultRuntime()
+                .getAddressSpaceView().read(address).getPayload(getDefaultRuntime());
+        return entry.getSMRUpdates(CorfuRuntime.getStreamID(STREAM_NAME)).stream()
+                .map(update -> update.getSMRMethod() + toString(update))
+                .collect(Collectors.toList());
+    }
+
+    private static String toString(SMREntry update) {
+        return Arrays.stream(update.getSMRArguments())
+                .map(String::valueOf)
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    @Test
+    public void overwrittenKeysOnlyKeepTheirLastUpdate() {
+        CorfuTable<String, String> table = openTable(getDefaultRuntime());
+        begin(true);
+        table.put("k1", "v1");
+        table.put("k1", "v2");
+        table.put("k2", "v1");
+        table.remove("k2");
+        table.delete("k3");
+        table.insert("k3", "v1");
+        final long address = getDefaultRuntime().getObjectsView().TXEnd();
+
+        assertThat(getLoggedUpdates(address))
+                .containsExactly("put(k1, v2)", "remove(k2)", "put(k3, v1)");
+        assertThat(table).containsOnly(entry("k1", "v2"), entry("k3", "v1"));
+        assertThat(openTable(getNewRuntime(getDefaultNode()).connect()))
+                .containsOnly(entry("k1", "v2"), entry("k3", "v1"));
+    }
+
+    @Test
+    public void resetDropsTheUpdatesBeforeIt() {
+        CorfuTable<String, String> table = openTable(getDefaultRuntime());
+        table.put("k0", "v0");
+        begin(true);
+        table.put("k1", "v1");
+        table.putAll(ImmutableMap.of("k2", "v2"));
+        table.clear();
+        table.put("k3", "v3");
+        final long address = getDefaultRuntime().getObjectsView().TXEnd();
+
+        assertThat(getLoggedUpdates(address)).containsExactly("clear()", "put(k3, v3)");
+        assertThat(openTable(getNewRuntime(getDefaultNode()).connect()))
+                .containsOnly(entry("k3", "v3"));
+    }
+
+    @Test
+    public void otherUpdatesKeepTheUpdatesBeforeThem() {
+        CorfuTable<String, String> table = openTable(getDefaultRuntime());
+        begin(true);
+        table.put("k1", "v1");
+        table.putAll(ImmutableMap.of("k1", "v2"));
+        table.put("k1", "v3");
+        table.put("k1", "v4");
+        final long address = getDefaultRuntime().getObjectsView().TXEnd();
+
+        assertThat(getLoggedUpdates(address)).containsExactly(
+                "put(k1, v1)", "putAll({k1=v2})", "put(k1, v4)");
+        assertThat(table).containsOnly(entry("k1", "v4"));
+    }
+
+    /**
+     * Ensure that the logged updates of a compacted transaction don't carry the undo records
+     * computed against its intermediate state, so that a snapshot read rolls back to the
+     * state committed before the transaction.
+     */
+    @Test
+    public void snapshotReadsRollBackCompactedUpdates() {
+        CorfuTable<String, String> table = openTable(getDefaultRuntime());
+        table.put("k1", "v0");
+        table.put("k2", "v0");
+        final Token snapshot = getDefaultRuntime().getSequencerView().query().getToken();
+        begin(true);
+        table.put("k1", "v1");
+        table.put("k1", "v2");
+        table.put("k2", "v1");
+        table.remove("k2");
+        getDefaultRuntime().getObjectsView().TXEnd();
+        assertThat(table).containsOnly(entry("k1", "v2"));
+
+        getDefaultRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(snapshot)
+                .build()
+                .begin();
+        assertThat(table.get("k1")).isEqualTo("v0");
+        assertThat(table.get("k2")).isEqualTo("v0");
+        getDefaultRuntime().getObjectsView().TXEnd();
+
+        assertThat(table).containsOnly(entry("k1", "v2"));
+    }
+
+    @Test
+    public void writeSetIsNotCompactedByDefault() {
+        CorfuTable<String, String> table = openTable(getDefaultRuntime());
+        begin(false);
+        table.put("k1", "v1");
+        table.put("k1", "v2");
+        final long address = getDefaultRuntime().getObjectsView().TXEnd();
+
+        assertThat(getLoggedUpdates(address)).containsExactly("put(k1, v1)", "put(k1, v2)");
+    }
+}
@@ -4,23 +4,33 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
-import com.google.common.cache.Cache;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.Range;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.corfudb.common.compression.Codec;
 import org.corfudb.infrastructure.LogUnitServerAssertions;
 import org.corfudb.infrastructure.TestLayoutBuilder;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.runtime.CorfuRuntime;
-import org.corfudb.util.MetricsUtils;
+import org.corfudb.runtime.clients.TestRule;
+import org.corfudb.util.Sleep;
 import org.junit.Test;
 
 /**
@@ -88,10 +98,13 @@ public class AddressSpaceViewTest extends AbstractViewTest {
                 .parseConfigurationString(getDefaultConfigurationString())
                 .connect();
 
+        // Entries are weighed by their serialized size, so the payload
+        // is random to make sure that it isn't compressed
         final int payloadSize = 4000;
         byte[] payload = new byte[payloadSize];
+        new Random(PARAMETERS.SEED).nextBytes(payload);
 
-        long maxCacheSize = oneMb / MetricsUtils.sizeOf.deepSizeOf(payload);
+        long maxCacheSize = oneMb / payloadSize;
 
         for (int x = 0; x < maxCacheSize * 2; x++) {
             rt.getStreamsView().get(UUID.randomUUID()).append(payload);
@@ -163,7 +176,7 @@ public class AddressSpaceViewTest extends AbstractViewTest {
                 "payload".getBytes());
 
         // Verify that write to address 0 is cached and that the write to address 1 isn't cached
-        Cache<Long, ILogData> clientCache = rt.getAddressSpaceView().getReadCache();
+        LogDataCache clientCache = rt.getAddressSpaceView().getReadCache();
 
         assertThat(clientCache.getIfPresent(0L)).isNotNull();
         assertThat(clientCache.getIfPresent(1L)).isNull();
@@ -172,6 +185,137 @@ public class AddressSpaceViewTest extends AbstractViewTest {
         assertThat(clientCache.getIfPresent(2L)).isNotNull();
     }
 
+    @Test
+    public void concurrentReadsAreCoalesced() throws Exception {
+        setupNodes();
+        CorfuRuntime rt = getRuntime().connect();
+
+        final long epoch = rt.getLayoutView().getLayout().getEpoch();
+        final long address = 0L;
+        final int numReaders = PARAMETERS.CONCURRENCY_SOME;
+
+        rt.getAddressSpaceView().write(new TokenResponse(new Token(epoch, address),
+                        Collections.singletonMap(CorfuRuntime.getStreamID("stream1"), Address.NO_BACKPOINTER)),
+                "payload".getBytes(), CacheOption.WRITE_AROUND);
+
+        // Hold the first read request until the other readers have missed the cache
+        AtomicInteger readRequests = new AtomicInteger();
+        CountDownLatch readSent = new CountDownLatch(1);
+        CountDownLatch releaseRead = new CountDownLatch(1);
+        addClientRule(rt, new TestRule().matches(msg -> {
+            if (msg.getMsgType().equals(CorfuMsgType.READ_REQUEST)) {
+                readRequests.incrementAndGet();
+                readSent.countDown();
+                Uninterruptibles.awaitUninterruptibly(releaseRead);
+            }
+            return false;
+        }));
+
+        // Half of the readers read the address alone, the other half as a batch
+        ExecutorService executor = Executors.newFixedThreadPool(numReaders);
+        List<Future<ILogData>> reads = new ArrayList<>();
+        for (int i = 0; i < numReaders; i++) {
+            final boolean batchRead = i % 2 == 0;
+            reads.add(executor.submit(() -> batchRead
+                    ? rt.getAddressSpaceView().read(Collections.singletonList(address)).get(address)
+                    : rt.getAddressSpaceView().read(address)));
+        }
+
+        readSent.await();
+        Sleep.sleepUninterruptibly(PARAMETERS.TIMEOUT_VERY_SHORT);
+        releaseRead.countDown();
+
+        // All the readers get the cached entry, which was read once
+        List<ILogData> results = new ArrayList<>();
+        for (Future<ILogData> read : reads) {
+            results.add(read.get());
+        }
+        ILogData cachedData = rt.getAddressSpaceView().getReadCache().getIfPresent(address);
+        assertThat(cachedData).isNotNull();
+        results.forEach(result -> assertThat(result).isSameAs(cachedData));
+        assertThat(readRequests.get()).isEqualTo(1);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void interruptedReadReleasesWaitingReaders() throws Exception {
+        setupNodes();
+        CorfuRuntime rt = getRuntime().connect();
+
+        final long epoch = rt.getLayoutView().getLayout().getEpoch();
+        final long address = 0L;
+
+        rt.getAddressSpaceView().write(new TokenResponse(new Token(epoch, address),
+                        Collections.singletonMap(CorfuRuntime.getStreamID("stream1"), Address.NO_BACKPOINTER)),
+                "payload".getBytes(), CacheOption.WRITE_AROUND);
+
+        // Drop the first read request, so that the first reader waits until it is interrupted
+        AtomicInteger readRequests = new AtomicInteger();
+        CountDownLatch readSent = new CountDownLatch(1);
+        addClientRule(rt, new TestRule().matches(msg -> {
+            if (msg.getMsgType().equals(CorfuMsgType.READ_REQUEST)
+                    && readRequests.incrementAndGet() == 1) {
+                readSent.countDown();
+                return true;
+            }
+            return false;
+        }).drop());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<ILogData> interruptedRead = executor.submit(() -> rt.getAddressSpaceView().read(address));
+        readSent.await();
+        Future<ILogData> waitingRead = executor.submit(() -> rt.getAddressSpaceView().read(address));
+        Sleep.sleepUninterruptibly(PARAMETERS.TIMEOUT_VERY_SHORT);
+        interruptedRead.cancel(true);
+
+        // The reader waiting for the interrupted read, which wasn't interrupted itself,
+        // reads the address again instead of failing with the error of the interrupted read
+        assertThatThrownBy(interruptedRead::get).isInstanceOf(CancellationException.class);
+        assertThat(waitingRead.get(PARAMETERS.TIMEOUT_NORMAL.toMillis(), TimeUnit.MILLISECONDS)
+                .getPayload(rt)).isEqualTo("payload".getBytes());
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readsWithDifferentOptionsAreNotCoalesced() throws Exception {
+        setupNodes();
+        CorfuRuntime rt = getRuntime().connect();
+
+        final long epoch = rt.getLayoutView().getLayout().getEpoch();
+        final long address = 0L;
+        final int numReads = 2;
+
+        rt.getAddressSpaceView().write(new TokenResponse(new Token(epoch, address),
+                        Collections.singletonMap(CorfuRuntime.getStreamID("stream1"), Address.NO_BACKPOINTER)),
+                "payload".getBytes(), CacheOption.WRITE_AROUND);
+
+        // Hold the read requests until both readers have sent theirs
+        AtomicInteger readRequests = new AtomicInteger();
+        CountDownLatch readsSent = new CountDownLatch(numReads);
+        addClientRule(rt, new TestRule().matches(msg -> {
+            if (msg.getMsgType().equals(CorfuMsgType.READ_REQUEST)) {
+                readRequests.incrementAndGet();
+                readsSent.countDown();
+                Uninterruptibles.awaitUninterruptibly(readsSent);
+            }
+            return false;
+        }));
+
+        // A reader which doesn't cache its read doesn't wait for a cached read, nor the reverse
+        ReadOptions uncached = ReadOptions.builder().clientCacheable(false).build();
+        ExecutorService executor = Executors.newFixedThreadPool(numReads);
+        Future<ILogData> cachedRead = executor.submit(() -> rt.getAddressSpaceView().read(address));
+        Future<ILogData> uncachedRead = executor.submit(() -> rt.getAddressSpaceView()
+                .read(address, uncached));
+
+        assertThat(cachedRead.get(PARAMETERS.TIMEOUT_NORMAL.toMillis(), TimeUnit.MILLISECONDS)
+                .getPayload(rt)).isEqualTo("payload".getBytes());
+        assertThat(uncachedRead.get(PARAMETERS.TIMEOUT_NORMAL.toMillis(), TimeUnit.MILLISECONDS)
+                .getPayload(rt)).isEqualTo("payload".getBytes());
+        assertThat(readRequests.get()).isEqualTo(numReads);
+        executor.shutdownNow();
+    }
+
     @Test
     public void testGetTrimMark() {
         setupNodes();
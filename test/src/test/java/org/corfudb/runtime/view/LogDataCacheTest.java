@@ -0,0 +1,118 @@
+package org.corfudb.runtime.view;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.AbstractCorfuTest;
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.runtime.CorfuRuntime.CorfuRuntimeParameters;
+import org.junit.Test;
+
+@Slf4j
+public class LogDataCacheTest extends AbstractCorfuTest {
+
+    private static final int CACHE_SIZE = 100;
+    private static final int HOT_SET_SIZE = CACHE_SIZE / 2;
+    private static final int SCAN_SIZE = CACHE_SIZE * 10;
+    private static final int ROUNDS = 20;
+
+    private static ILogData newLogData(long address) {
+        LogData ld = new LogData(DataType.DATA, ("payload" + address).getBytes());
+        ld.setGlobalAddress(address);
+        return ld;
+    }
+
+    /**
+     * Runs a mixed workload, where repeated point reads of a hot set of addresses are
+     * interleaved with one-time scans of the log, and returns the hit rate of the hot
+     * set reads.
+     */
+    private double runMixedWorkload(LongFunction<ILogData> get, LongPredicate put) {
+        final long scanStart = HOT_SET_SIZE;
+        long hotHits = 0;
+        long hotReads = 0;
+        long nextScanAddress = scanStart;
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long cpuStart = threadMXBean.getCurrentThreadCpuTime();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int pass = 0; pass < 2; pass++) {
+                for (long address = 0; address < HOT_SET_SIZE; address++) {
+                    hotReads++;
+                    if (get.apply(address) != null) {
+                        hotHits++;
+                    } else {
+                        put.test(address);
+                    }
+                }
+            }
+
+            for (int i = 0; i < SCAN_SIZE; i++, nextScanAddress++) {
+                if (get.apply(nextScanAddress) == null) {
+                    put.test(nextScanAddress);
+                }
+            }
+        }
+
+        long cpuTime = threadMXBean.getCurrentThreadCpuTime() - cpuStart;
+        double hitRate = (double) hotHits / hotReads;
+        log.info("runMixedWorkload: hot set hit rate {}, cpu time {} ns", hitRate, cpuTime);
+        return hitRate;
+    }
+
+    @Test
+    public void scansDontFlushHotEntries() {
+        LogDataCache cache = new LogDataCache(CorfuRuntimeParameters.builder()
+                .maxCacheEntries(CACHE_SIZE)
+                .build());
+        double hitRate = runMixedWorkload(cache::getIfPresent,
+                address -> cache.putIfAbsent(address, newLogData(address)) != null);
+
+        Cache<Long, ILogData> lruCache = CacheBuilder.newBuilder()
+                .maximumSize(CACHE_SIZE)
+                .build();
+        double lruHitRate = runMixedWorkload(lruCache::getIfPresent, address -> {
+            lruCache.put(address, newLogData(address));
+            return true;
+        });
+
+        // An LRU cache only hits the second pass over the hot set after a scan
+        final double minHitRate = 0.8;
+        assertThat(hitRate).isGreaterThan(minHitRate).isGreaterThan(lruHitRate);
+        assertThat(cache.size()).isLessThanOrEqualTo(CACHE_SIZE);
+    }
+
+    @Test
+    public void offHeapEntries() {
+        final long numEntries = CACHE_SIZE;
+        LogDataCache cache = new LogDataCache(CorfuRuntimeParameters.builder()
+                .maxCacheEntries(numEntries)
+                .cacheOffHeap(true)
+                .build());
+
+        for (long address = 0; address < numEntries; address++) {
+            ILogData ld = newLogData(address);
+            assertThat(cache.putIfAbsent(address, ld)).isSameAs(ld);
+        }
+
+        for (long address = 0; address < numEntries; address++) {
+            ILogData cached = cache.getIfPresent(address);
+            assertThat(cached).isNotSameAs(cache.getIfPresent(address));
+            assertThat(cached.getGlobalAddress()).isEqualTo(address);
+            assertThat(cached.getPayload(null)).isEqualTo(("payload" + address).getBytes());
+        }
+
+        cache.invalidateBelow(numEntries / 2);
+        assertThat(cache.asMap().keySet()).allMatch(address -> address >= numEntries / 2);
+        assertThat(cache.getAllPresent(cache.asMap().keySet())).hasSize((int) numEntries / 2);
+    }
+}
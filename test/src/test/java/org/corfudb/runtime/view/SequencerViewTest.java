@@ -1,14 +1,33 @@
 package org.corfudb.runtime.view;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import lombok.Getter;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.protocols.wireprotocol.TokenRequest;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.CorfuRuntime.CorfuRuntimeParameters;
+import org.corfudb.runtime.clients.TestRule;
+import org.corfudb.util.Sleep;
 import org.junit.Test;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -139,4 +158,89 @@ public class SequencerViewTest extends AbstractViewTest {
                 new StreamAddressRange(streamA,  tokenCount, Address.NON_ADDRESS)).getAddressMap())
                 .isEqualTo(expectedMap);
     }
+
+    /**
+     * Hold the first token request of a type, submit concurrent requests while it is
+     * held, and return their results along with the number of requests sent.
+     */
+    private <R> List<R> runHeldRequests(CorfuRuntime r, byte reqType, AtomicInteger numRequests,
+                                        IntFunction<Callable<R>> request) throws Exception {
+        final int numClients = PARAMETERS.CONCURRENCY_SOME;
+
+        CountDownLatch requestSent = new CountDownLatch(1);
+        CountDownLatch releaseRequest = new CountDownLatch(1);
+        addClientRule(r, new TestRule().matches(msg -> {
+            if (msg.getMsgType().equals(CorfuMsgType.TOKEN_REQ)
+                    && ((CorfuPayloadMsg<TokenRequest>) msg).getPayload().getReqType() == reqType) {
+                numRequests.incrementAndGet();
+                requestSent.countDown();
+                Uninterruptibles.awaitUninterruptibly(releaseRequest);
+            }
+            return false;
+        }));
+
+        ExecutorService executor = Executors.newFixedThreadPool(numClients + 1);
+        List<Future<R>> results = new ArrayList<>();
+        results.add(executor.submit(request.apply(0)));
+        requestSent.await();
+
+        // The other requests are batched while the first one is held
+        for (int i = 1; i <= numClients; i++) {
+            results.add(executor.submit(request.apply(i)));
+        }
+        Sleep.sleepUninterruptibly(PARAMETERS.TIMEOUT_VERY_SHORT);
+        releaseRequest.countDown();
+
+        List<R> values = new ArrayList<>();
+        for (Future<R> result : results) {
+            values.add(result.get());
+        }
+        executor.shutdownNow();
+        return values;
+    }
+
+    private CorfuRuntime getBatchingRuntime() {
+        getDefaultRuntime();
+        return getNewRuntime(CorfuRuntimeParameters.builder()
+                .sequencerBatchDelay(PARAMETERS.TIMEOUT_LONG)
+                .build())
+                .parseConfigurationString(getDefaultConfigurationString())
+                .connect();
+    }
+
+    @Test
+    public void concurrentQueriesAreBatched() throws Exception {
+        CorfuRuntime r = getBatchingRuntime();
+        final int numStreams = PARAMETERS.CONCURRENCY_SOME + 1;
+
+        List<UUID> streams = new ArrayList<>();
+        for (int i = 0; i < numStreams; i++) {
+            streams.add(UUID.randomUUID());
+            r.getSequencerView().next(streams.get(i));
+        }
+
+        AtomicInteger numQueries = new AtomicInteger();
+        List<Long> tails = runHeldRequests(r, TokenRequest.TK_QUERY, numQueries,
+                i -> () -> r.getSequencerView().query(streams.get(i)));
+
+        // The first query, and a single batch of all the others
+        assertThat(numQueries.get()).isEqualTo(2);
+        for (int i = 0; i < numStreams; i++) {
+            assertThat(tails.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void concurrentRawTokensAreBatched() throws Exception {
+        CorfuRuntime r = getBatchingRuntime();
+
+        AtomicInteger numTokenRequests = new AtomicInteger();
+        List<Token> tokens = runHeldRequests(r, TokenRequest.TK_RAW, numTokenRequests,
+                i -> () -> r.getSequencerView().next().getToken());
+
+        // Every request gets its own token, out of two requests to the sequencer
+        assertThat(numTokenRequests.get()).isEqualTo(2);
+        assertThat(tokens.stream().map(Token::getSequence).sorted().collect(Collectors.toList()))
+                .isEqualTo(LongStream.range(0, tokens.size()).boxed().collect(Collectors.toList()));
+    }
 }
@@ -0,0 +1,135 @@
+package org.corfudb.util.serializer;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.corfudb.runtime.CorfuStoreMetadata.Record;
+import org.corfudb.runtime.collections.CorfuRecord;
+import org.corfudb.runtime.exceptions.SerializerException;
+import org.corfudb.runtime.view.TableRegistry;
+import org.corfudb.test.SampleSchema.EventInfo;
+import org.corfudb.test.SampleSchema.ManagedResources;
+import org.corfudb.test.SampleSchema.Uuid;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies the compact format of the {@link ProtobufSerializer}, that records written
+ * in the original Any-encoded format can still be read, and that this format is written
+ * unless the compact format is enabled.
+ */
+public class ProtobufSerializerTest {
+
+    private final Uuid key = Uuid.newBuilder().setMsb(1L).setLsb(2L).build();
+    private final EventInfo value = EventInfo.newBuilder().setName("event").build();
+    private final ManagedResources metadata = ManagedResources.newBuilder().setCreateUser("user").build();
+
+    private ProtobufSerializer newSerializer() {
+        return newSerializer(true);
+    }
+
+    private ProtobufSerializer newSerializer(boolean compactRecords) {
+        ConcurrentMap<String, Class<? extends Message>> classMap = new ConcurrentHashMap<>();
+        classMap.put(TableRegistry.getTypeUrl(Uuid.getDescriptor()), Uuid.class);
+        classMap.put(TableRegistry.getTypeUrl(EventInfo.getDescriptor()), EventInfo.class);
+        classMap.put(TableRegistry.getTypeUrl(ManagedResources.getDescriptor()), ManagedResources.class);
+        return new ProtobufSerializer(classMap, compactRecords);
+    }
+
+    private Object roundTrip(ProtobufSerializer serializer, Object o, ByteBuf b) {
+        serializer.serialize(o, b);
+        Object deserialized = serializer.deserialize(b, null);
+        assertThat(b.isReadable()).isFalse();
+        return deserialized;
+    }
+
+    @Test
+    public void compactRoundTrip() {
+        ProtobufSerializer serializer = newSerializer();
+
+        assertThat(roundTrip(serializer, key, Unpooled.buffer())).isEqualTo(key);
+        assertThat(roundTrip(serializer, key, Unpooled.directBuffer())).isEqualTo(key);
+        assertThat(roundTrip(serializer, key, Unpooled.compositeBuffer())).isEqualTo(key);
+
+        CorfuRecord<EventInfo, ManagedResources> record =
+                (CorfuRecord<EventInfo, ManagedResources>) roundTrip(serializer,
+                        new CorfuRecord<>(value, metadata), Unpooled.buffer());
+        assertThat(record.getPayload()).isEqualTo(value);
+        assertThat(record.getMetadata()).isEqualTo(metadata);
+
+        record = (CorfuRecord<EventInfo, ManagedResources>) roundTrip(serializer,
+                new CorfuRecord<>(value, null), Unpooled.directBuffer());
+        assertThat(record.getPayload()).isEqualTo(value);
+        assertThat(record.getMetadata()).isNull();
+    }
+
+    @Test
+    public void readsAnyEncodedRecords() {
+        ProtobufSerializer serializer = newSerializer();
+
+        ByteBuf keyBuf = Unpooled.buffer();
+        byte[] keyData = Record.newBuilder().setPayload(Any.pack(key)).build().toByteArray();
+        keyBuf.writeInt(ProtobufSerializer.MessageType.KEY.val);
+        keyBuf.writeInt(keyData.length);
+        keyBuf.writeBytes(keyData);
+        assertThat(serializer.deserialize(keyBuf, null)).isEqualTo(key);
+
+        ByteBuf valueBuf = Unpooled.buffer();
+        byte[] valueData = Record.newBuilder()
+                .setPayload(Any.pack(value))
+                .setMetadata(Any.pack(metadata))
+                .build().toByteArray();
+        valueBuf.writeInt(ProtobufSerializer.MessageType.VALUE.val);
+        valueBuf.writeInt(valueData.length);
+        valueBuf.writeBytes(valueData);
+        CorfuRecord<EventInfo, ManagedResources> record =
+                (CorfuRecord<EventInfo, ManagedResources>) serializer.deserialize(valueBuf, null);
+        assertThat(record.getPayload()).isEqualTo(value);
+        assertThat(record.getMetadata()).isEqualTo(metadata);
+
+        // The compact format doesn't embed the type urls
+        ByteBuf compactBuf = Unpooled.buffer();
+        serializer.serialize(key, compactBuf);
+        assertThat(compactBuf.readableBytes()).isLessThan(Integer.BYTES * 2 + keyData.length);
+    }
+
+    @Test
+    public void writesAnyEncodedRecordsByDefault() {
+        ProtobufSerializer serializer = newSerializer(false);
+
+        ByteBuf keyBuf = Unpooled.buffer();
+        serializer.serialize(key, keyBuf);
+        assertThat(keyBuf.getInt(0)).isEqualTo(ProtobufSerializer.MessageType.KEY.val);
+        assertThat(serializer.deserialize(keyBuf, null)).isEqualTo(key);
+
+        ByteBuf valueBuf = Unpooled.buffer();
+        serializer.serialize(new CorfuRecord<>(value, metadata), valueBuf);
+        assertThat(valueBuf.getInt(0)).isEqualTo(ProtobufSerializer.MessageType.VALUE.val);
+        CorfuRecord<EventInfo, ManagedResources> record =
+                (CorfuRecord<EventInfo, ManagedResources>) newSerializer().deserialize(valueBuf, null);
+        assertThat(record.getPayload()).isEqualTo(value);
+        assertThat(record.getMetadata()).isEqualTo(metadata);
+    }
+
+    @Test
+    public void unknownTypeIdFails() {
+        ProtobufSerializer serializer = newSerializer();
+        ByteBuf b = Unpooled.buffer();
+        serializer.serialize(key, b);
+
+        ConcurrentMap<String, Class<? extends Message>> classMap = new ConcurrentHashMap<>();
+        ProtobufSerializer otherSerializer = new ProtobufSerializer(classMap);
+        assertThatThrownBy(() -> otherSerializer.deserialize(b.duplicate(), null))
+                .isInstanceOf(SerializerException.class);
+
+        // Types added to the class map are picked up
+        classMap.putAll(serializer.getClassMap());
+        assertThat(otherSerializer.deserialize(b, null)).isEqualTo(key);
+    }
+}